@@ -0,0 +1,147 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark.jmh;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares two JMH result files in JSON format (as written with <code>-rf json</code>) and reports the relative change
+ * of every benchmark that is contained in both files. A change is only reported as faster or slower if it is larger
+ * than the given threshold <em>and</em> the score intervals (score &plusmn; error) of both runs do not overlap.
+ * Otherwise, the difference is considered to be noise.
+ */
+public final class BenchmarkComparison {
+
+	public enum Verdict {FASTER, SLOWER, UNCHANGED, ADDED, REMOVED}
+
+	public record Entry(String key, String unit, double baselineScore, double baselineError, double currentScore, double currentError, Verdict verdict) {
+
+		/**
+		 * @return the relative change of the score in percent, positive values meaning a higher score.
+		 */
+		public double changePercent() {
+			return (this.currentScore - this.baselineScore) / this.baselineScore * 100.0;
+		}
+	}
+
+	private record Result(String mode, String unit, double score, double error) {
+	}
+
+	private BenchmarkComparison() {
+	}
+
+	public static List<Entry> compare(File baselineFile, File currentFile, double thresholdPercent) throws IOException {
+		Map<String, Result> baseline = readResults(baselineFile);
+		Map<String, Result> current = readResults(currentFile);
+
+		List<Entry> entries = new ArrayList<>();
+		for (Map.Entry<String, Result> e : current.entrySet()) {
+			Result cur = e.getValue();
+			Result base = baseline.get(e.getKey());
+			if (base == null) {
+				entries.add(new Entry(e.getKey(), cur.unit, Double.NaN, Double.NaN, cur.score, cur.error, Verdict.ADDED));
+			} else {
+				entries.add(new Entry(e.getKey(), cur.unit, base.score, base.error, cur.score, cur.error, judge(base, cur, thresholdPercent)));
+			}
+		}
+		for (Map.Entry<String, Result> e : baseline.entrySet()) {
+			if (!current.containsKey(e.getKey())) {
+				Result base = e.getValue();
+				entries.add(new Entry(e.getKey(), base.unit, base.score, base.error, Double.NaN, Double.NaN, Verdict.REMOVED));
+			}
+		}
+		return entries;
+	}
+
+	private static Verdict judge(Result base, Result cur, double thresholdPercent) {
+		if (!base.unit.equals(cur.unit) || !base.mode.equals(cur.mode)) {
+			throw new IllegalArgumentException("Cannot compare results with different modes or units: " + base + " vs. " + cur);
+		}
+		double change = (cur.score - base.score) / base.score * 100.0;
+		boolean overlapping = (cur.score - cur.error) <= (base.score + base.error) && (base.score - base.error) <= (cur.score + cur.error);
+		if (overlapping || Math.abs(change) < thresholdPercent) {
+			return Verdict.UNCHANGED;
+		}
+		// in throughput mode, higher scores are better. In all other modes, the score is a time.
+		boolean higherIsBetter = "thrpt".equals(cur.mode);
+		return (change > 0) == higherIsBetter ? Verdict.FASTER : Verdict.SLOWER;
+	}
+
+	private static Map<String, Result> readResults(File file) throws IOException {
+		Map<String, Result> results = new TreeMap<>();
+		JsonNode root = new ObjectMapper().readTree(file);
+		for (JsonNode benchmark : root) {
+			StringBuilder key = new StringBuilder(benchmark.get("benchmark").asText());
+			JsonNode params = benchmark.get("params");
+			if (params != null) {
+				Map<String, String> sortedParams = new TreeMap<>();
+				for (Iterator<Map.Entry<String, JsonNode>> it = params.fields(); it.hasNext(); ) {
+					Map.Entry<String, JsonNode> param = it.next();
+					sortedParams.put(param.getKey(), param.getValue().asText());
+				}
+				key.append(sortedParams);
+			}
+			JsonNode metric = benchmark.get("primaryMetric");
+			double error = metric.get("scoreError").asDouble(0.0);
+			results.put(key.toString(), new Result(benchmark.get("mode").asText(), metric.get("scoreUnit").asText(),
+				metric.get("score").asDouble(), Double.isNaN(error) ? 0.0 : error));
+		}
+		return results;
+	}
+
+	public static String formatReport(List<Entry> entries) {
+		StringBuilder report = new StringBuilder();
+		report.append(String.format(Locale.ROOT, "%-10s %9s %14s %14s  %-10s %s%n", "verdict", "change", "baseline", "current", "unit", "benchmark"));
+		for (Entry e : entries) {
+			report.append(String.format(Locale.ROOT, "%-10s %8.1f%% %14.3f %14.3f  %-10s %s%n",
+				e.verdict(), e.changePercent(), e.baselineScore(), e.currentScore(), e.unit(), e.key()));
+		}
+		return report.toString();
+	}
+
+	/**
+	 * Usage: <code>BenchmarkComparison baseline.json current.json [thresholdPercent]</code>
+	 * <p>
+	 * Exits with status 1 if at least one benchmark got slower.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: BenchmarkComparison baseline.json current.json [thresholdPercent]");
+			System.exit(2);
+		}
+		double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 5.0;
+		List<Entry> entries = compare(new File(args[0]), new File(args[1]), threshold);
+		System.out.print(formatReport(entries));
+		if (entries.stream().anyMatch(e -> e.verdict() == Verdict.SLOWER)) {
+			System.exit(1);
+		}
+	}
+
+}
@@ -0,0 +1,71 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark.jmh;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH micro-benchmarks of this package, writes the results as JSON and optionally compares them
+ * to the results of an earlier run, e.g. from the last release.
+ * <p>
+ * Usage: <code>BenchmarkRunner results.json [baseline.json] [includeRegex]</code>
+ * <p>
+ * For more control over the JMH options (forks, iterations, profilers), run <code>org.openjdk.jmh.Main</code>
+ * directly with <code>-rf json -rff results.json</code> and compare the files with {@link BenchmarkComparison}.
+ */
+public final class BenchmarkRunner {
+
+	private static final double REGRESSION_THRESHOLD_PERCENT = 5.0;
+
+	private BenchmarkRunner() {
+	}
+
+	public static void main(String[] args) throws RunnerException, IOException {
+		if (args.length < 1) {
+			System.err.println("Usage: BenchmarkRunner results.json [baseline.json] [includeRegex]");
+			System.exit(2);
+		}
+		File resultsFile = new File(args[0]);
+		File baselineFile = args.length > 1 && !args[1].isEmpty() ? new File(args[1]) : null;
+		String include = args.length > 2 ? args[2] : BenchmarkRunner.class.getPackageName() + ".*Benchmark";
+
+		ChainedOptionsBuilder options = new OptionsBuilder()
+			.include(include)
+			.resultFormat(ResultFormatType.JSON)
+			.result(resultsFile.getAbsolutePath());
+		new Runner(options.build()).run();
+
+		if (baselineFile != null) {
+			List<BenchmarkComparison.Entry> entries = BenchmarkComparison.compare(baselineFile, resultsFile, REGRESSION_THRESHOLD_PERCENT);
+			System.out.println();
+			System.out.println("Comparison with " + baselineFile + ":");
+			System.out.print(BenchmarkComparison.formatReport(entries));
+		}
+	}
+
+}
@@ -0,0 +1,230 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.router.speedy.SpeedyDijkstraFactory;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.costcalculators.OnlyTimeDependentTravelDisutility;
+import org.matsim.core.trafficmonitoring.FreeSpeedTravelTime;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitRouteStop;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitScheduleFactory;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+
+/**
+ * Synthetic, fully deterministic input data for the JMH benchmarks. Generating the data instead of reading
+ * one of the example scenarios makes it possible to scale the problem size via JMH parameters and keeps the
+ * benchmarks independent of changes to the example files.
+ */
+final class BenchmarkScenarios {
+
+	static final long SEED = 4711;
+	static final double NODE_SPACING = 200.0;
+
+	private BenchmarkScenarios() {
+	}
+
+	/**
+	 * Creates a square grid of <code>size</code> x <code>size</code> nodes, connected by links in both directions.
+	 * Every fifth row and column is a faster arterial road, so least-cost paths differ from least-distance paths.
+	 */
+	static void createGridNetwork(Network network, int size) {
+		Node[][] nodes = new Node[size][size];
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				nodes[x][y] = NetworkUtils.createAndAddNode(network, nodeId(x, y), new Coord(x * NODE_SPACING, y * NODE_SPACING));
+			}
+		}
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				if (x + 1 < size) {
+					boolean arterial = y % 5 == 0;
+					addLinkPair(network, nodes[x][y], nodes[x + 1][y], arterial);
+				}
+				if (y + 1 < size) {
+					boolean arterial = x % 5 == 0;
+					addLinkPair(network, nodes[x][y], nodes[x][y + 1], arterial);
+				}
+			}
+		}
+	}
+
+	private static void addLinkPair(Network network, Node a, Node b, boolean arterial) {
+		double freespeed = arterial ? 50 / 3.6 : 30 / 3.6;
+		double capacity = arterial ? 1800 : 600;
+		double lanes = arterial ? 2 : 1;
+		NetworkUtils.createAndAddLink(network, linkId(a, b), a, b, NODE_SPACING, freespeed, capacity, lanes);
+		NetworkUtils.createAndAddLink(network, linkId(b, a), b, a, NODE_SPACING, freespeed, capacity, lanes);
+	}
+
+	static Id<Node> nodeId(int x, int y) {
+		return Id.createNodeId(x + "_" + y);
+	}
+
+	static Id<Link> linkId(Node from, Node to) {
+		return Id.createLinkId(from.getId() + "-" + to.getId());
+	}
+
+	/**
+	 * Draws <code>count</code> random origin-destination node pairs. The returned array contains the origins at even
+	 * and the destinations at odd positions.
+	 */
+	static Node[] createRandomNodePairs(Network network, int count, long seed) {
+		Node[] allNodes = network.getNodes().values().toArray(new Node[0]);
+		Random random = new Random(seed);
+		Node[] pairs = new Node[count * 2];
+		for (int i = 0; i < count; i++) {
+			Node from = allNodes[random.nextInt(allNodes.length)];
+			Node to = allNodes[random.nextInt(allNodes.length)];
+			while (to == from) {
+				to = allNodes[random.nextInt(allNodes.length)];
+			}
+			pairs[2 * i] = from;
+			pairs[2 * i + 1] = to;
+		}
+		return pairs;
+	}
+
+	/**
+	 * Creates car commuters between random nodes of the network. Every agent gets a free-speed route, so the
+	 * population can directly be simulated in the QSim without running the router first.
+	 */
+	static void createCarPopulation(Population population, Network network, int agentCount, long seed) {
+		PopulationFactory pf = population.getFactory();
+		FreeSpeedTravelTime travelTime = new FreeSpeedTravelTime();
+		LeastCostPathCalculator router = new SpeedyDijkstraFactory().createPathCalculator(network, new OnlyTimeDependentTravelDisutility(travelTime), travelTime);
+		Node[] pairs = createRandomNodePairs(network, agentCount, seed);
+		Random random = new Random(seed);
+
+		for (int i = 0; i < agentCount; i++) {
+			Node fromNode = pairs[2 * i];
+			Node toNode = pairs[2 * i + 1];
+			// start on any incoming link of the origin, end on any outgoing link of the destination
+			Link startLink = fromNode.getInLinks().values().iterator().next();
+			Link endLink = toNode.getOutLinks().values().iterator().next();
+			Path path = router.calcLeastCostPath(fromNode, toNode, 7 * 3600, null, null);
+			List<Id<Link>> routeLinkIds = new ArrayList<>(path.links.size());
+			for (Link link : path.links) {
+				routeLinkIds.add(link.getId());
+			}
+
+			Person person = pf.createPerson(Id.createPersonId(i));
+			Plan plan = pf.createPlan();
+			Activity home = pf.createActivityFromLinkId("h", startLink.getId());
+			home.setEndTime(6 * 3600 + random.nextInt(3 * 3600));
+			plan.addActivity(home);
+			Leg leg = pf.createLeg(TransportMode.car);
+			NetworkRoute route = RouteUtils.createLinkNetworkRouteImpl(startLink.getId(), routeLinkIds, endLink.getId());
+			route.setDistance(RouteUtils.calcDistance(route, 1.0, 1.0, network));
+			leg.setRoute(route);
+			plan.addLeg(leg);
+			plan.addActivity(pf.createActivityFromLinkId("w", endLink.getId()));
+			person.addPlan(plan);
+			population.addPerson(person);
+		}
+	}
+
+	/**
+	 * Adds bus lines to a grid network created by {@link #createGridNetwork(Network, int)}. Every <code>lineSpacing</code>-th
+	 * row and column is served by a line in both directions, with a stop every <code>stopSpacing</code> nodes and
+	 * departures every <code>headway</code> seconds between 05:00 and 23:00.
+	 */
+	static void createGridSchedule(TransitSchedule schedule, Network network, int size, int lineSpacing, int stopSpacing, double headway) {
+		for (int row = 0; row < size; row += lineSpacing) {
+			for (boolean forward : new boolean[] {true, false}) {
+				List<Node> nodes = new ArrayList<>();
+				for (int i = 0; i < size; i++) {
+					int x = forward ? i : size - 1 - i;
+					nodes.add(network.getNodes().get(nodeId(x, row)));
+				}
+				addLine(schedule, network, "row" + row + (forward ? "f" : "b"), nodes, stopSpacing, headway);
+			}
+		}
+		for (int col = 0; col < size; col += lineSpacing) {
+			for (boolean forward : new boolean[] {true, false}) {
+				List<Node> nodes = new ArrayList<>();
+				for (int i = 0; i < size; i++) {
+					int y = forward ? i : size - 1 - i;
+					nodes.add(network.getNodes().get(nodeId(col, y)));
+				}
+				addLine(schedule, network, "col" + col + (forward ? "f" : "b"), nodes, stopSpacing, headway);
+			}
+		}
+	}
+
+	private static void addLine(TransitSchedule schedule, Network network, String name, List<Node> nodes, int stopSpacing, double headway) {
+		TransitScheduleFactory f = schedule.getFactory();
+		List<Id<Link>> linkIds = new ArrayList<>();
+		for (int i = 1; i < nodes.size(); i++) {
+			linkIds.add(linkId(nodes.get(i - 1), nodes.get(i)));
+		}
+
+		List<TransitRouteStop> stops = new ArrayList<>();
+		double offset = 0;
+		double secondsPerLink = NODE_SPACING / (30 / 3.6);
+		for (int i = stopSpacing; i < nodes.size(); i += stopSpacing) {
+			Node node = nodes.get(i);
+			Id<Link> linkId = linkIds.get(i - 1);
+			TransitStopFacility stop = f.createTransitStopFacility(Id.create(name + "_" + i, TransitStopFacility.class), node.getCoord(), false);
+			stop.setLinkId(linkId);
+			schedule.addStopFacility(stop);
+			offset = (i - stopSpacing) * secondsPerLink;
+			stops.add(f.createTransitRouteStop(stop, offset, offset + 20));
+		}
+
+		int firstStopIndex = stopSpacing - 1;
+		int lastStopIndex = ((nodes.size() - 1) / stopSpacing) * stopSpacing - 1;
+		NetworkRoute networkRoute = RouteUtils.createLinkNetworkRouteImpl(linkIds.get(firstStopIndex),
+			linkIds.subList(firstStopIndex + 1, lastStopIndex), linkIds.get(lastStopIndex));
+
+		TransitLine line = f.createTransitLine(Id.create(name, TransitLine.class));
+		TransitRoute route = f.createTransitRoute(Id.create(name, TransitRoute.class), networkRoute, stops, "bus");
+		int depIndex = 0;
+		for (double time = 5 * 3600; time < 23 * 3600; time += headway) {
+			route.addDeparture(f.createDeparture(Id.create(depIndex++, Departure.class), time));
+		}
+		line.addRoute(route);
+		schedule.addTransitLine(line);
+	}
+
+}
@@ -0,0 +1,112 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark.jmh;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.handler.ActivityEndEventHandler;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
+import org.matsim.api.core.v01.events.handler.LinkLeaveEventHandler;
+import org.matsim.api.core.v01.events.handler.PersonDepartureEventHandler;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.events.EventsManagerImpl;
+import org.matsim.vehicles.Vehicle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the dispatching of events in {@link EventsManagerImpl#processEvent(Event)} to a varying number of
+ * handlers. The event mix resembles the output of a car-only QSim, dominated by link enter and leave events.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventsManagerBenchmark {
+
+	private static final int EVENT_COUNT = 100_000;
+
+	@Param({"1", "10", "40"})
+	public int handlerCount;
+
+	private EventsManagerImpl events;
+	private Event[] eventStream;
+
+	@Setup
+	public void setup(Blackhole blackhole) {
+		this.events = new EventsManagerImpl();
+		for (int i = 0; i < this.handlerCount; i++) {
+			switch (i % 4) {
+				case 0 -> this.events.addHandler((LinkEnterEventHandler) event -> blackhole.consume(event.getLinkId()));
+				case 1 -> this.events.addHandler((LinkLeaveEventHandler) event -> blackhole.consume(event.getVehicleId()));
+				case 2 -> this.events.addHandler((PersonDepartureEventHandler) event -> blackhole.consume(event.getLegMode()));
+				default -> this.events.addHandler((ActivityEndEventHandler) event -> blackhole.consume(event.getActType()));
+			}
+		}
+		this.events.initProcessing();
+
+		Random random = new Random(BenchmarkScenarios.SEED);
+		this.eventStream = new Event[EVENT_COUNT];
+		for (int i = 0; i < EVENT_COUNT; i++) {
+			double time = i * 0.1;
+			Id<Person> personId = Id.createPersonId(random.nextInt(1000));
+			Id<Vehicle> vehicleId = Id.createVehicleId(personId);
+			Id<Link> linkId = Id.createLinkId(random.nextInt(5000));
+			int type = random.nextInt(20);
+			this.eventStream[i] = switch (type) {
+				case 0 -> new ActivityEndEvent(time, personId, linkId, null, "h", null);
+				case 1 -> new PersonDepartureEvent(time, personId, linkId, "car", "car");
+				case 2 -> new ActivityStartEvent(time, personId, linkId, null, "w", null);
+				default -> type % 2 == 0 ? new LinkEnterEvent(time, vehicleId, linkId) : new LinkLeaveEvent(time, vehicleId, linkId);
+			};
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(EVENT_COUNT)
+	public void processEvents() {
+		for (Event event : this.eventStream) {
+			this.events.processEvent(event);
+		}
+	}
+
+}
@@ -0,0 +1,87 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.controler.PrepareForSimUtils;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.mobsim.qsim.QSim;
+import org.matsim.core.mobsim.qsim.QSimBuilder;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Simulates a congested synthetic car population in the QSim. With the default network engine, nearly all
+ * of the time is spent moving vehicles through <code>QueueWithBuffer</code> and across the nodes, so this
+ * benchmark reacts to changes in the link and flow capacity logic. Events are created but not handled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class QSimBenchmark {
+
+	@Param({"50"})
+	public int gridSize;
+
+	@Param({"20000"})
+	public int agentCount;
+
+	@Param({"1", "4"})
+	public int threads;
+
+	private Scenario scenario;
+
+	@Setup
+	public void setup() {
+		Config config = ConfigUtils.createConfig();
+		config.qsim().setNumberOfThreads(this.threads);
+		config.qsim().setEndTime(30 * 3600);
+		this.scenario = ScenarioUtils.createScenario(config);
+		BenchmarkScenarios.createGridNetwork(this.scenario.getNetwork(), this.gridSize);
+		BenchmarkScenarios.createCarPopulation(this.scenario.getPopulation(), this.scenario.getNetwork(), this.agentCount, BenchmarkScenarios.SEED);
+		PrepareForSimUtils.createDefaultPrepareForSim(this.scenario).run();
+	}
+
+	@Benchmark
+	public void simulate() {
+		EventsManager events = EventsUtils.createEventsManager();
+		QSim qsim = new QSimBuilder(this.scenario.getConfig()).useDefaults().build(this.scenario, events);
+		qsim.run();
+	}
+
+}
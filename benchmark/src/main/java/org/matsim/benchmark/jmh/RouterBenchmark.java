@@ -0,0 +1,98 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.AStarLandmarksFactory;
+import org.matsim.core.router.costcalculators.OnlyTimeDependentTravelDisutility;
+import org.matsim.core.router.speedy.SpeedyALTFactory;
+import org.matsim.core.router.speedy.SpeedyDijkstraFactory;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.trafficmonitoring.FreeSpeedTravelTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures single least-cost path queries of the car routers on a synthetic grid network.
+ * The landmark preprocessing of the ALT variants happens in the setup and is not part of the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouterBenchmark {
+
+	private static final int QUERY_COUNT = 1024;
+
+	@Param({"SpeedyDijkstra", "SpeedyALT", "AStarLandmarks"})
+	public String router;
+
+	@Param({"100", "300"})
+	public int gridSize;
+
+	private LeastCostPathCalculator pathCalculator;
+	private Node[] odPairs;
+	private int nextQuery = 0;
+
+	@Setup
+	public void setup() {
+		Network network = NetworkUtils.createNetwork();
+		BenchmarkScenarios.createGridNetwork(network, this.gridSize);
+		FreeSpeedTravelTime travelTime = new FreeSpeedTravelTime();
+		TravelDisutility disutility = new OnlyTimeDependentTravelDisutility(travelTime);
+		this.pathCalculator = createFactory(this.router).createPathCalculator(network, disutility, travelTime);
+		this.odPairs = BenchmarkScenarios.createRandomNodePairs(network, QUERY_COUNT, BenchmarkScenarios.SEED);
+	}
+
+	private static LeastCostPathCalculatorFactory createFactory(String router) {
+		return switch (router) {
+			case "SpeedyDijkstra" -> new SpeedyDijkstraFactory();
+			case "SpeedyALT" -> new SpeedyALTFactory();
+			case "AStarLandmarks" -> new AStarLandmarksFactory(1);
+			default -> throw new IllegalArgumentException("Unsupported router: " + router);
+		};
+	}
+
+	@Benchmark
+	public Path calcLeastCostPath() {
+		int query = this.nextQuery;
+		this.nextQuery = (query + 1) % QUERY_COUNT;
+		return this.pathCalculator.calcLeastCostPath(this.odPairs[2 * query], this.odPairs[2 * query + 1], 8 * 3600, null, null);
+	}
+
+}
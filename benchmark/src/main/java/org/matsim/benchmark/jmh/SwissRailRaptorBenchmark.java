@@ -0,0 +1,110 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark.jmh;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.router.DefaultRoutingRequest;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.facilities.ActivityFacilitiesFactory;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.facilities.Facility;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.sbb.matsim.routing.pt.raptor.RaptorUtils;
+import ch.sbb.matsim.routing.pt.raptor.SwissRailRaptor;
+import ch.sbb.matsim.routing.pt.raptor.SwissRailRaptorData;
+
+/**
+ * Measures {@link SwissRailRaptor#calcRoute} between random coordinates on a synthetic bus grid.
+ * Creating the {@link SwissRailRaptorData} happens in the setup and is not part of the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SwissRailRaptorBenchmark {
+
+	private static final int QUERY_COUNT = 1024;
+
+	@Param({"100"})
+	public int gridSize;
+
+	@Param({"600"})
+	public double headway;
+
+	private SwissRailRaptor raptor;
+	private Facility[] odPairs;
+	private double[] departureTimes;
+	private int nextQuery = 0;
+
+	@Setup
+	public void setup() {
+		Config config = ConfigUtils.createConfig();
+		config.transit().setUseTransit(true);
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		BenchmarkScenarios.createGridNetwork(scenario.getNetwork(), this.gridSize);
+		BenchmarkScenarios.createGridSchedule(scenario.getTransitSchedule(), scenario.getNetwork(), this.gridSize, 5, 3, this.headway);
+
+		SwissRailRaptorData data = SwissRailRaptorData.create(scenario.getTransitSchedule(), null, RaptorUtils.createStaticConfig(config), scenario.getNetwork(), null);
+		this.raptor = new SwissRailRaptor.Builder(data, config).build();
+
+		ActivityFacilitiesFactory ff = scenario.getActivityFacilities().getFactory();
+		double extent = (this.gridSize - 1) * BenchmarkScenarios.NODE_SPACING;
+		Random random = new Random(BenchmarkScenarios.SEED);
+		this.odPairs = new Facility[2 * QUERY_COUNT];
+		this.departureTimes = new double[QUERY_COUNT];
+		for (int i = 0; i < 2 * QUERY_COUNT; i++) {
+			Coord coord = new Coord(random.nextDouble() * extent, random.nextDouble() * extent);
+			this.odPairs[i] = ff.createActivityFacility(Id.create(i, ActivityFacility.class), coord);
+		}
+		for (int i = 0; i < QUERY_COUNT; i++) {
+			this.departureTimes[i] = 6 * 3600 + random.nextInt(12 * 3600);
+		}
+	}
+
+	@Benchmark
+	public List<? extends PlanElement> calcRoute() {
+		int query = this.nextQuery;
+		this.nextQuery = (query + 1) % QUERY_COUNT;
+		return this.raptor.calcRoute(DefaultRoutingRequest.withoutAttributes(this.odPairs[2 * query], this.odPairs[2 * query + 1], this.departureTimes[query], null));
+	}
+
+}
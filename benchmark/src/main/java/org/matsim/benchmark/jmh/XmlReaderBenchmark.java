@@ -0,0 +1,140 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark.jmh;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.controler.PrepareForSimUtils;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.MatsimEventsReader;
+import org.matsim.core.events.algorithms.EventWriterXML;
+import org.matsim.core.mobsim.qsim.QSimBuilder;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.network.io.MatsimNetworkReader;
+import org.matsim.core.network.io.NetworkWriter;
+import org.matsim.core.population.io.PopulationReader;
+import org.matsim.core.population.io.PopulationWriter;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the {@link org.matsim.core.utils.io.MatsimXmlParser}-based readers for networks, populations and events.
+ * The input files are written once to a temporary directory during the setup, using the synthetic data from
+ * {@link BenchmarkScenarios} and the events of a short QSim run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class XmlReaderBenchmark {
+
+	@Param({"50"})
+	public int gridSize;
+
+	@Param({"10000"})
+	public int agentCount;
+
+	@Param({"false", "true"})
+	public boolean gzip;
+
+	private Path directory;
+	private String networkFile;
+	private String populationFile;
+	private String eventsFile;
+
+	@Setup
+	public void setup() throws IOException {
+		this.directory = Files.createTempDirectory("matsim-benchmark");
+		String suffix = this.gzip ? ".xml.gz" : ".xml";
+		this.networkFile = this.directory.resolve("network" + suffix).toString();
+		this.populationFile = this.directory.resolve("plans" + suffix).toString();
+		this.eventsFile = this.directory.resolve("events" + suffix).toString();
+
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		BenchmarkScenarios.createGridNetwork(scenario.getNetwork(), this.gridSize);
+		BenchmarkScenarios.createCarPopulation(scenario.getPopulation(), scenario.getNetwork(), this.agentCount, BenchmarkScenarios.SEED);
+		new NetworkWriter(scenario.getNetwork()).write(this.networkFile);
+		new PopulationWriter(scenario.getPopulation(), scenario.getNetwork()).write(this.populationFile);
+
+		PrepareForSimUtils.createDefaultPrepareForSim(scenario).run();
+		EventsManager events = EventsUtils.createEventsManager();
+		EventWriterXML eventWriter = new EventWriterXML(this.eventsFile);
+		events.addHandler(eventWriter);
+		new QSimBuilder(scenario.getConfig()).useDefaults().build(scenario, events).run();
+		eventWriter.closeFile();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		try (Stream<Path> files = Files.walk(this.directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(file -> {
+				try {
+					Files.delete(file);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+	}
+
+	@Benchmark
+	public Network readNetwork() {
+		Network network = NetworkUtils.createNetwork();
+		new MatsimNetworkReader(network).readFile(this.networkFile);
+		return network;
+	}
+
+	@Benchmark
+	public Scenario readPopulation() {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		new PopulationReader(scenario).readFile(this.populationFile);
+		return scenario;
+	}
+
+	@Benchmark
+	public void readEvents() {
+		EventsManager events = EventsUtils.createEventsManager();
+		new MatsimEventsReader(events).readFile(this.eventsFile);
+	}
+
+}
@@ -18,6 +18,7 @@
 
 package org.matsim.contrib.drt.optimizer;
 
+import static org.matsim.contrib.drt.schedule.DrtTaskBaseType.DRIVE;
 import static org.matsim.contrib.drt.schedule.DrtTaskBaseType.STAY;
 import static org.matsim.contrib.drt.schedule.DrtTaskBaseType.STOP;
 import static org.matsim.contrib.drt.schedule.DrtTaskBaseType.getBaseTypeOrElseThrow;
@@ -44,19 +45,14 @@ import com.google.common.collect.ImmutableList;
 public class VehicleDataEntryFactoryImpl implements VehicleEntry.EntryFactory {
 	public VehicleEntry create(DvrpVehicle vehicle, double currentTime) {
 		Schedule schedule = vehicle.getSchedule();
+		int scheduleModificationCount = schedule.getModificationCount();
 		final LinkTimePair start;
 		final Task startTask;
 		int nextTaskIdx;
 		if (schedule.getStatus() == ScheduleStatus.STARTED) {
 			startTask = schedule.getCurrentTask();
 			start = switch (getBaseTypeOrElseThrow(startTask)) {
-				case DRIVE -> {
-					var driveTask = (DriveTask)startTask;
-					var diversionPoint = ((OnlineDriveTaskTracker)driveTask.getTaskTracker()).getDiversionPoint();
-					yield diversionPoint != null ? diversionPoint : //diversion possible
-							new LinkTimePair(driveTask.getPath().getToLink(),
-									driveTask.getEndTime());// too late for diversion
-				}
+				case DRIVE -> getDriveStart((DriveTask)startTask);
 				case STOP -> new LinkTimePair(((DrtStopTask)startTask).getLink(), startTask.getEndTime());
 				case STAY -> new LinkTimePair(((StayTask)startTask).getLink(), currentTime);
 			};
@@ -101,8 +97,59 @@ public class VehicleDataEntryFactoryImpl implements VehicleEntry.EntryFactory {
 
 		var slackTimes = computeSlackTimes(vehicle, currentTime, stops, startStop, precedingStayTimes);
 
-		return new VehicleEntry(vehicle, new Waypoint.Start(startTask, start.link, start.time, outgoingOccupancy),
-				ImmutableList.copyOf(stops), slackTimes, precedingStayTimes, currentTime);
+		return new ScheduleBasedEntry(vehicle, new Waypoint.Start(startTask, start.link, start.time, outgoingOccupancy),
+				ImmutableList.copyOf(stops), slackTimes, precedingStayTimes, currentTime, scheduleModificationCount);
+	}
+
+	/**
+	 * Returns the previous entry if the schedule has not been modified since the entry was created and the entry does
+	 * not depend on the current time; otherwise, a new entry is created. Entries starting at an ongoing stay or stop
+	 * task are always re-created, because their start time (or stay time) advances with the current time.
+	 */
+	@Override
+	public VehicleEntry update(VehicleEntry previous, double currentTime) {
+		if (previous instanceof ScheduleBasedEntry previousEntry && isUpToDate(previousEntry, currentTime)) {
+			return previous;
+		}
+		return create(previous.vehicle, currentTime);
+	}
+
+	private static boolean isUpToDate(ScheduleBasedEntry entry, double currentTime) {
+		Schedule schedule = entry.vehicle.getSchedule();
+		if (schedule.getModificationCount() != entry.scheduleModificationCount) {
+			return false;
+		}
+
+		if (schedule.getStatus() == ScheduleStatus.STARTED) {
+			Task currentTask = schedule.getCurrentTask();
+			if (getBaseTypeOrElseThrow(currentTask) != DRIVE) {
+				return false;
+			}
+			// the diversion point moves with the vehicle
+			LinkTimePair start = getDriveStart((DriveTask)currentTask);
+			if (start.link != entry.start.link || start.time != entry.start.time) {
+				return false;
+			}
+		}
+
+		// changes with the current time once the last task has started (or the vehicle is delayed)
+		return calcVehicleSlackTime(entry.vehicle, currentTime) == entry.getSlackTime(entry.stops.size());
+	}
+
+	private static LinkTimePair getDriveStart(DriveTask driveTask) {
+		var diversionPoint = ((OnlineDriveTaskTracker)driveTask.getTaskTracker()).getDiversionPoint();
+		return diversionPoint != null ? diversionPoint : //diversion possible
+				new LinkTimePair(driveTask.getPath().getToLink(), driveTask.getEndTime());// too late for diversion
+	}
+
+	private static class ScheduleBasedEntry extends VehicleEntry {
+		private final int scheduleModificationCount;
+
+		private ScheduleBasedEntry(DvrpVehicle vehicle, Waypoint.Start start, ImmutableList<Waypoint.Stop> stops,
+				double[] slackTimes, List<Double> precedingStayTimes, double createTime, int scheduleModificationCount) {
+			super(vehicle, start, stops, slackTimes, precedingStayTimes, createTime);
+			this.scheduleModificationCount = scheduleModificationCount;
+		}
 	}
 
 	static double[] computeSlackTimes(DvrpVehicle vehicle, double now, Waypoint.Stop[] stops, Waypoint.Stop start, List<Double> precedingStayTimes) {
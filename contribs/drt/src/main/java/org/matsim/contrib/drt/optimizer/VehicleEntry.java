@@ -32,6 +32,15 @@ import com.google.common.collect.ImmutableList;
 public class VehicleEntry {
 	public interface EntryFactory {
 		VehicleEntry create(DvrpVehicle vehicle, double currentTime);
+
+		/**
+		 * Creates an up-to-date entry for the vehicle of an entry created earlier in the same mobsim. Implementations
+		 * may reuse the parts of the previous entry that are still valid. By default, the entry is created from
+		 * scratch.
+		 */
+		default VehicleEntry update(VehicleEntry previous, double currentTime) {
+			return create(previous.vehicle, currentTime);
+		}
 	}
 
 	public final DvrpVehicle vehicle;
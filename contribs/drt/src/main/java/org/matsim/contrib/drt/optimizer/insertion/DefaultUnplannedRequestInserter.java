@@ -19,16 +19,21 @@
 
 package org.matsim.contrib.drt.optimizer.insertion;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ForkJoinPool;
 import java.util.function.DoubleSupplier;
 import java.util.stream.Collectors;
 
+import javax.annotation.Nullable;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.Id;
@@ -67,6 +72,10 @@ public class DefaultUnplannedRequestInserter implements UnplannedRequestInserter
 	private final DrtOfferAcceptor drtOfferAcceptor;
 	private final ForkJoinPool forkJoinPool;
 	private final PassengerStopDurationProvider stopDurationProvider;
+	private final boolean batchInsertion;
+
+	// entries from the previous call, updated (instead of re-created from scratch) in the next call
+	private Map<Id<DvrpVehicle>, VehicleEntry> previousVehicleEntries = Map.of();
 
 	public DefaultUnplannedRequestInserter(DrtConfigGroup drtCfg, Fleet fleet, MobsimTimer mobsimTimer,
 			EventsManager eventsManager, RequestInsertionScheduler insertionScheduler,
@@ -74,14 +83,16 @@ public class DefaultUnplannedRequestInserter implements UnplannedRequestInserter
 			DrtRequestInsertionRetryQueue insertionRetryQueue, DrtOfferAcceptor drtOfferAcceptor,
 			ForkJoinPool forkJoinPool, PassengerStopDurationProvider stopDurationProvider) {
 		this(drtCfg.getMode(), fleet, mobsimTimer::getTimeOfDay, eventsManager, insertionScheduler, vehicleEntryFactory,
-				insertionRetryQueue, insertionSearch, drtOfferAcceptor, forkJoinPool, stopDurationProvider);
+				insertionRetryQueue, insertionSearch, drtOfferAcceptor, forkJoinPool, stopDurationProvider,
+				drtCfg.batchInsertion);
 	}
 
 	@VisibleForTesting
 	DefaultUnplannedRequestInserter(String mode, Fleet fleet, DoubleSupplier timeOfDay, EventsManager eventsManager,
 			RequestInsertionScheduler insertionScheduler, VehicleEntry.EntryFactory vehicleEntryFactory,
 			DrtRequestInsertionRetryQueue insertionRetryQueue, DrtInsertionSearch insertionSearch,
-			DrtOfferAcceptor drtOfferAcceptor, ForkJoinPool forkJoinPool, PassengerStopDurationProvider stopDurationProvider) {
+			DrtOfferAcceptor drtOfferAcceptor, ForkJoinPool forkJoinPool, PassengerStopDurationProvider stopDurationProvider,
+			boolean batchInsertion) {
 		this.mode = mode;
 		this.fleet = fleet;
 		this.timeOfDay = timeOfDay;
@@ -93,6 +104,7 @@ public class DefaultUnplannedRequestInserter implements UnplannedRequestInserter
 		this.drtOfferAcceptor = drtOfferAcceptor;
 		this.forkJoinPool = forkJoinPool;
 		this.stopDurationProvider = stopDurationProvider;
+		this.batchInsertion = batchInsertion;
 	}
 
 	@Override
@@ -104,20 +116,68 @@ public class DefaultUnplannedRequestInserter implements UnplannedRequestInserter
 			return;
 		}
 
+		var previousEntries = previousVehicleEntries;
 		var vehicleEntries = forkJoinPool.submit(() -> fleet.getVehicles()
 				.values()
 				.parallelStream()
-				.map(v -> vehicleEntryFactory.create(v, now))
+				.map(v -> createOrUpdateEntry(v, previousEntries.get(v.getId()), now))
 				.filter(Objects::nonNull)
 				.collect(Collectors.toMap(e -> e.vehicle.getId(), e -> e))).join();
 
-		//first retry scheduling old requests
-		requestsToRetry.forEach(req -> scheduleUnplannedRequest(req, vehicleEntries, now));
+		if (batchInsertion) {
+			//old requests to retry go first
+			List<DrtRequest> requests = new ArrayList<>(requestsToRetry);
+			requests.addAll(unplannedRequests);
+			unplannedRequests.clear();
+			scheduleUnplannedRequestsInBatch(requests, vehicleEntries, now);
+		} else {
+			//first retry scheduling old requests
+			requestsToRetry.forEach(req -> scheduleUnplannedRequest(req, vehicleEntries, now));
 
-		//then schedule new requests
-		for (var reqIter = unplannedRequests.iterator(); reqIter.hasNext(); ) {
-			scheduleUnplannedRequest(reqIter.next(), vehicleEntries, now);
-			reqIter.remove();
+			//then schedule new requests
+			for (var reqIter = unplannedRequests.iterator(); reqIter.hasNext(); ) {
+				scheduleUnplannedRequest(reqIter.next(), vehicleEntries, now);
+				reqIter.remove();
+			}
+		}
+
+		previousVehicleEntries = vehicleEntries;
+	}
+
+	private VehicleEntry createOrUpdateEntry(DvrpVehicle vehicle, VehicleEntry previousEntry, double now) {
+		return previousEntry == null ?
+				vehicleEntryFactory.create(vehicle, now) :
+				vehicleEntryFactory.update(previousEntry, now);
+	}
+
+	/**
+	 * All pending requests are evaluated against the same vehicle entries. Then, the best insertions are scheduled in
+	 * the order of requests. An insertion is skipped if its vehicle has already been used by a preceding request (its
+	 * entry is no longer up-to-date), and the request is re-evaluated in the next round. Each round schedules (or
+	 * rejects) at least the first pending request, so the loop terminates.
+	 */
+	private void scheduleUnplannedRequestsInBatch(List<DrtRequest> requests,
+			Map<Id<DvrpVehicle>, VehicleEntry> vehicleEntries, double now) {
+		List<DrtRequest> pendingRequests = requests;
+		while (!pendingRequests.isEmpty()) {
+			var bestInsertions = insertionSearch.findBestInsertions(pendingRequests,
+					Collections.unmodifiableCollection(vehicleEntries.values()));
+
+			Set<Id<DvrpVehicle>> modifiedVehicles = new HashSet<>();
+			List<DrtRequest> conflictingRequests = new ArrayList<>();
+			for (int i = 0; i < pendingRequests.size(); i++) {
+				var req = pendingRequests.get(i);
+				var best = bestInsertions.get(i);
+				if (best.isPresent() && modifiedVehicles.contains(best.get().insertion.vehicleEntry.vehicle.getId())) {
+					conflictingRequests.add(req);
+				} else {
+					var vehicle = scheduleBestInsertion(req, best, vehicleEntries, now);
+					if (vehicle != null) {
+						modifiedVehicles.add(vehicle.getId());
+					}
+				}
+			}
+			pendingRequests = conflictingRequests;
 		}
 	}
 
@@ -125,8 +185,18 @@ public class DefaultUnplannedRequestInserter implements UnplannedRequestInserter
 			double now) {
 		Optional<InsertionWithDetourData> best = insertionSearch.findBestInsertion(req,
 				Collections.unmodifiableCollection(vehicleEntries.values()));
+		scheduleBestInsertion(req, best, vehicleEntries, now);
+	}
+
+	/**
+	 * @return the vehicle the request has been scheduled for, {@code null} if the request is to be retried or rejected
+	 */
+	@Nullable
+	private DvrpVehicle scheduleBestInsertion(DrtRequest req, Optional<InsertionWithDetourData> best,
+			Map<Id<DvrpVehicle>, VehicleEntry> vehicleEntries, double now) {
 		if (best.isEmpty()) {
 			retryOrReject(req, now, NO_INSERTION_FOUND_CAUSE);
+			return null;
 		} else {
 			InsertionWithDetourData insertion = best.get();
 
@@ -156,8 +226,10 @@ public class DefaultUnplannedRequestInserter implements UnplannedRequestInserter
 				eventsManager.processEvent(
 						new PassengerRequestScheduledEvent(now, mode, req.getId(), req.getPassengerIds(), vehicle.getId(),
 								expectedPickupTime, expectedDropoffTime));
+				return vehicle;
 			} else {
 				retryOrReject(req, now, OFFER_REJECTED_CAUSE);
+				return null;
 			}
 		}
 	}
@@ -19,6 +19,7 @@
 package org.matsim.contrib.drt.optimizer.insertion;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.matsim.contrib.drt.optimizer.VehicleEntry;
@@ -29,4 +30,15 @@ import org.matsim.contrib.drt.passenger.DrtRequest;
  */
 public interface DrtInsertionSearch {
 	Optional<InsertionWithDetourData> findBestInsertion(DrtRequest drtRequest, Collection<VehicleEntry> vehicleEntries);
+
+	/**
+	 * Finds the best insertions for a batch of requests, each of them evaluated independently against the same vehicle
+	 * entries. By default, the requests are processed one after another.
+	 *
+	 * @return the best insertions, in the order of {@code drtRequests}
+	 */
+	default List<Optional<InsertionWithDetourData>> findBestInsertions(List<DrtRequest> drtRequests,
+			Collection<VehicleEntry> vehicleEntries) {
+		return drtRequests.stream().map(r -> findBestInsertion(r, vehicleEntries)).toList();
+	}
 }
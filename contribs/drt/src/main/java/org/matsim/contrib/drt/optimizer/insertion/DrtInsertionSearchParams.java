@@ -26,6 +26,14 @@ import org.matsim.core.config.ReflectiveConfigGroup;
  * @author Michal Maciejewski (michalm)
  */
 public abstract class DrtInsertionSearchParams extends ReflectiveConfigGroup {
+	@Parameter
+	@Comment("If true, vehicles that cannot reach the pickup link before the latest start time of a request"
+			+ " (or the dropoff link before its latest arrival time) are filtered out before insertions are generated."
+			+ " Reachability is estimated optimistically (beeline distance at the max free speed in the network),"
+			+ " so no feasible insertion is lost. Only used if requests violating the max wait or travel time are"
+			+ " rejected. Default is false.")
+	public boolean vehiclePreFiltering = false;
+
 	public DrtInsertionSearchParams(String paramSetName) {
 		super(paramSetName);
 	}
@@ -0,0 +1,110 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.drt.optimizer.insertion;
+
+import javax.annotation.Nullable;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.contrib.common.util.DistanceUtils;
+import org.matsim.contrib.drt.optimizer.VehicleEntry;
+import org.matsim.contrib.drt.optimizer.Waypoint;
+import org.matsim.contrib.drt.passenger.DrtRequest;
+import org.matsim.contrib.drt.run.DrtConfigGroup;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Skips vehicles that cannot serve a request, before any insertions are generated for them. The pickup cannot happen
+ * earlier than the vehicle leaves one of its waypoints (start or stops) plus the beeline travel time to the pickup link
+ * at the maximum free speed in the network. If this lower bound is later than the latest start time of the request (or
+ * the bound for the dropoff is later than the latest arrival time), the vehicle is filtered out.
+ * <p>
+ * The bounds are optimistic, so no feasible insertion is filtered out (unless link speeds are increased by network
+ * change events). Since it relies on the time windows of requests, it is only used if requests violating them are
+ * rejected.
+ */
+public final class ReachabilityFilter {
+	private static final Logger log = LogManager.getLogger(ReachabilityFilter.class);
+
+	/**
+	 * @return the filter if vehicle pre-filtering is switched on in the insertion search params, {@code null} otherwise
+	 */
+	@Nullable
+	public static ReachabilityFilter createIfEnabled(DrtConfigGroup drtCfg, Network network) {
+		if (!drtCfg.getDrtInsertionSearchParams().vehiclePreFiltering) {
+			return null;
+		}
+		if (!drtCfg.addOrGetDrtOptimizationConstraintsParams()
+				.addOrGetDefaultDrtOptimizationConstraintsSet().rejectRequestIfMaxWaitOrTravelTimeViolated) {
+			log.warn("Vehicle pre-filtering is switched off for mode " + drtCfg.getMode()
+					+ " because requests violating the max wait or travel time are not rejected");
+			return null;
+		}
+		return create(network);
+	}
+
+	public static ReachabilityFilter create(Network network) {
+		return new ReachabilityFilter(network.getLinks()
+				.values()
+				.stream()
+				.mapToDouble(Link::getFreespeed)
+				.max()
+				.orElse(Double.POSITIVE_INFINITY));
+	}
+
+	private final double maxSpeed;
+
+	public ReachabilityFilter(double maxSpeed) {
+		Preconditions.checkArgument(maxSpeed > 0, "maxSpeed must be positive");
+		this.maxSpeed = maxSpeed;
+	}
+
+	public boolean isReachable(DrtRequest request, VehicleEntry vEntry) {
+		Node pickupNode = request.getFromLink().getToNode();
+		double latestStartTime = request.getLatestStartTime();
+		double minDropoffTravelTime = calcTravelTime(pickupNode, request.getToLink().getToNode());
+		double latestPickupTime = Math.min(latestStartTime, request.getLatestArrivalTime() - minDropoffTravelTime);
+
+		if (calcEarliestArrivalTime(vEntry.start.link, vEntry.start.time, pickupNode) <= latestPickupTime) {
+			return true;
+		}
+		for (Waypoint.Stop stop : vEntry.stops) {
+			// the vehicle does not leave the stop before its arrival there
+			if (stop.getArrivalTime() > latestPickupTime) {
+				return false;// stops are ordered by time
+			}
+			if (calcEarliestArrivalTime(stop.getLink(), stop.getArrivalTime(), pickupNode) <= latestPickupTime) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private double calcEarliestArrivalTime(Link fromLink, double departureTime, Node toNode) {
+		return departureTime + calcTravelTime(fromLink.getToNode(), toNode);
+	}
+
+	private double calcTravelTime(Node from, Node to) {
+		return DistanceUtils.calculateDistance(from, to) / maxSpeed;
+	}
+}
@@ -27,12 +27,15 @@ import java.util.List;
 import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
+import javax.annotation.Nullable;
+
 import org.matsim.contrib.drt.optimizer.VehicleEntry;
 import org.matsim.contrib.drt.optimizer.insertion.DetourTimeEstimator;
 import org.matsim.contrib.drt.optimizer.insertion.InsertionCostCalculator;
 import org.matsim.contrib.drt.optimizer.insertion.InsertionGenerator;
 import org.matsim.contrib.drt.optimizer.insertion.InsertionGenerator.Insertion;
 import org.matsim.contrib.drt.optimizer.insertion.InsertionWithDetourData;
+import org.matsim.contrib.drt.optimizer.insertion.ReachabilityFilter;
 import org.matsim.contrib.drt.passenger.DrtRequest;
 import org.matsim.contrib.drt.run.DrtConfigGroup;
 import org.matsim.contrib.drt.stops.StopTimeCalculator;
@@ -45,37 +48,53 @@ import com.google.common.annotations.VisibleForTesting;
 class ExtensiveInsertionProvider {
 	static ExtensiveInsertionProvider create(DrtConfigGroup drtCfg, InsertionCostCalculator insertionCostCalculator,
 			ForkJoinPool forkJoinPool, StopTimeCalculator stopTimeCalculator,
-			DetourTimeEstimator admissibleTimeEstimator) {
+			DetourTimeEstimator admissibleTimeEstimator, @Nullable ReachabilityFilter reachabilityFilter) {
 		return new ExtensiveInsertionProvider((ExtensiveInsertionSearchParams) drtCfg.getDrtInsertionSearchParams(),
 				insertionCostCalculator, new InsertionGenerator(stopTimeCalculator, admissibleTimeEstimator),
-				forkJoinPool);
+				forkJoinPool, reachabilityFilter);
 	}
 
 	private final ExtensiveInsertionSearchParams insertionParams;
 	private final InsertionCostCalculator admissibleCostCalculator;
 	private final InsertionGenerator insertionGenerator;
 	private final ForkJoinPool forkJoinPool;
+	@Nullable
+	private final ReachabilityFilter reachabilityFilter;
 
 	@VisibleForTesting
 	ExtensiveInsertionProvider(ExtensiveInsertionSearchParams insertionParams,
 			InsertionCostCalculator admissibleCostCalculator, InsertionGenerator insertionGenerator,
-			ForkJoinPool forkJoinPool) {
+			ForkJoinPool forkJoinPool, @Nullable ReachabilityFilter reachabilityFilter) {
 		this.insertionParams = insertionParams;
 		this.admissibleCostCalculator = admissibleCostCalculator;
 		this.insertionGenerator = insertionGenerator;
 		this.forkJoinPool = forkJoinPool;
+		this.reachabilityFilter = reachabilityFilter;
 	}
 
 	List<Insertion> getInsertions(DrtRequest drtRequest, Collection<VehicleEntry> vehicleEntries) {
+		return forkJoinPool.submit(() -> generateInsertions(drtRequest, vehicleEntries)).join();
+	}
+
+	List<List<Insertion>> getInsertions(List<DrtRequest> drtRequests, Collection<VehicleEntry> vehicleEntries) {
+		// Parallel stream over requests. The nested streams over vehicle entries run in the same pool.
+		return forkJoinPool.submit(() -> drtRequests.parallelStream()
+				.map(r -> generateInsertions(r, vehicleEntries))
+				.collect(Collectors.toList())).join();
+	}
+
+	private List<Insertion> generateInsertions(DrtRequest drtRequest, Collection<VehicleEntry> vehicleEntries) {
 		// Parallel outer stream over vehicle entries. The inner stream (flatmap) is sequential.
-		List<InsertionWithDetourData> preFilteredInsertions = forkJoinPool.submit(() -> vehicleEntries.parallelStream()
+		List<InsertionWithDetourData> preFilteredInsertions = vehicleEntries.parallelStream()
+				//skip vehicles that cannot serve the request in time
+				.filter(e -> reachabilityFilter == null || reachabilityFilter.isReachable(drtRequest, e))
 				//generate feasible insertions (wrt occupancy limits) with admissible detour times
 				.flatMap(e -> insertionGenerator.generateInsertions(drtRequest, e).stream())
 				//optimistic pre-filtering wrt admissible cost function
 				.filter(i -> admissibleCostCalculator.calculate(drtRequest, i.insertion, i.detourTimeInfo)
 						< INFEASIBLE_SOLUTION_COST)
 				//collect
-				.collect(Collectors.toList())).join();
+				.collect(Collectors.toList());
 
 		if (preFilteredInsertions.isEmpty()) {
 			return List.of();
@@ -20,11 +20,14 @@
 
 package org.matsim.contrib.drt.optimizer.insertion.extensive;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.matsim.contrib.drt.optimizer.VehicleEntry;
 import org.matsim.contrib.drt.optimizer.insertion.*;
+import org.matsim.contrib.drt.optimizer.insertion.InsertionGenerator.Insertion;
 import org.matsim.contrib.drt.passenger.DrtRequest;
 import org.matsim.contrib.drt.stops.PassengerStopDurationProvider;
 import org.matsim.contrib.drt.stops.StopTimeCalculator;
@@ -50,7 +53,23 @@ final class ExtensiveInsertionSearch implements DrtInsertionSearch {
 	@Override
 	public Optional<InsertionWithDetourData> findBestInsertion(DrtRequest drtRequest,
 			Collection<VehicleEntry> vehicleEntries) {
-		var insertions = insertionProvider.getInsertions(drtRequest, vehicleEntries);
+		return findBestInsertion(drtRequest, insertionProvider.getInsertions(drtRequest, vehicleEntries));
+	}
+
+	@Override
+	public List<Optional<InsertionWithDetourData>> findBestInsertions(List<DrtRequest> drtRequests,
+			Collection<VehicleEntry> vehicleEntries) {
+		// insertions are generated for all requests in parallel, but the path searches are not thread-safe,
+		// so the remaining steps are done request by request
+		var insertions = insertionProvider.getInsertions(drtRequests, vehicleEntries);
+		List<Optional<InsertionWithDetourData>> bestInsertions = new ArrayList<>(drtRequests.size());
+		for (int i = 0; i < drtRequests.size(); i++) {
+			bestInsertions.add(findBestInsertion(drtRequests.get(i), insertions.get(i)));
+		}
+		return bestInsertions;
+	}
+
+	private Optional<InsertionWithDetourData> findBestInsertion(DrtRequest drtRequest, List<Insertion> insertions) {
 		if (insertions.isEmpty()) {
 			return Optional.empty();
 		}
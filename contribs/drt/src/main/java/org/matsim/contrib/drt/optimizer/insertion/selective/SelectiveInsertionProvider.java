@@ -24,12 +24,15 @@ import java.util.Collection;
 import java.util.Optional;
 import java.util.concurrent.ForkJoinPool;
 
+import javax.annotation.Nullable;
+
 import org.matsim.contrib.drt.optimizer.VehicleEntry;
 import org.matsim.contrib.drt.optimizer.insertion.BestInsertionFinder;
 import org.matsim.contrib.drt.optimizer.insertion.DetourTimeEstimator;
 import org.matsim.contrib.drt.optimizer.insertion.InsertionCostCalculator;
 import org.matsim.contrib.drt.optimizer.insertion.InsertionGenerator;
 import org.matsim.contrib.drt.optimizer.insertion.InsertionWithDetourData;
+import org.matsim.contrib.drt.optimizer.insertion.ReachabilityFilter;
 import org.matsim.contrib.drt.passenger.DrtRequest;
 import org.matsim.contrib.drt.stops.StopTimeCalculator;
 
@@ -41,21 +44,25 @@ import com.google.common.annotations.VisibleForTesting;
 class SelectiveInsertionProvider {
 	public static SelectiveInsertionProvider create(InsertionCostCalculator insertionCostCalculator,
 			ForkJoinPool forkJoinPool, StopTimeCalculator stopTimeCalculator,
-			DetourTimeEstimator restrictiveDetourTimeEstimator) {
+			DetourTimeEstimator restrictiveDetourTimeEstimator, @Nullable ReachabilityFilter reachabilityFilter) {
 		return new SelectiveInsertionProvider(new BestInsertionFinder(insertionCostCalculator),
-				new InsertionGenerator(stopTimeCalculator, restrictiveDetourTimeEstimator), forkJoinPool);
+				new InsertionGenerator(stopTimeCalculator, restrictiveDetourTimeEstimator), forkJoinPool,
+				reachabilityFilter);
 	}
 
 	private final BestInsertionFinder initialInsertionFinder;
 	private final InsertionGenerator insertionGenerator;
 	private final ForkJoinPool forkJoinPool;
+	@Nullable
+	private final ReachabilityFilter reachabilityFilter;
 
 	@VisibleForTesting
 	SelectiveInsertionProvider(BestInsertionFinder initialInsertionFinder, InsertionGenerator insertionGenerator,
-			ForkJoinPool forkJoinPool) {
+			ForkJoinPool forkJoinPool, @Nullable ReachabilityFilter reachabilityFilter) {
 		this.initialInsertionFinder = initialInsertionFinder;
 		this.insertionGenerator = insertionGenerator;
 		this.forkJoinPool = forkJoinPool;
+		this.reachabilityFilter = reachabilityFilter;
 	}
 
 	Optional<InsertionWithDetourData> getInsertion(DrtRequest drtRequest, Collection<VehicleEntry> vehicleEntries) {
@@ -65,6 +72,9 @@ class SelectiveInsertionProvider {
 				() -> initialInsertionFinder.findBestInsertion(drtRequest,
 						//for each vehicle entry
 						vehicleEntries.parallelStream()
+								//skip vehicles that cannot serve the request in time
+								.filter(e -> reachabilityFilter == null
+										|| reachabilityFilter.isReachable(drtRequest, e))
 								//generate feasible insertions (wrt occupancy limits) with restrictive detour times
 								.flatMap(e -> insertionGenerator.generateInsertions(drtRequest, e).stream()))).join();
 	}
@@ -147,6 +147,14 @@ public class DrtConfigGroup extends ReflectiveConfigGroupWithConfigurableParamet
 	@Positive
 	public int numberOfThreads = Runtime.getRuntime().availableProcessors();
 
+	@Parameter
+	@Comment("If true, insertions for all requests submitted in the same time step are searched for as a batch,"
+			+ " against the same vehicle schedules. Non-conflicting insertions are then scheduled in the order of"
+			+ " submission, and requests whose vehicle has already been used by a preceding request are re-evaluated"
+			+ " in the next round. The results are deterministic, but may differ from the default sequential"
+			+ " insertion. False by default.")
+	public boolean batchInsertion = false;
+
 	@Parameter
 	@Comment("Store planned unshared drt route as a link sequence")
 	public boolean storeUnsharedPath = false; // If true, the planned unshared path is stored and exported in plans
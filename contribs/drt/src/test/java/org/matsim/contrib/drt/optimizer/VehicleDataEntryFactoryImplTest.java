@@ -30,11 +30,14 @@ import org.junit.jupiter.api.Test;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.contrib.drt.optimizer.Waypoint.Stop;
+import org.matsim.contrib.drt.passenger.AcceptedDrtRequest;
+import org.matsim.contrib.drt.passenger.DrtRequest;
 import org.matsim.contrib.drt.schedule.DefaultDrtStopTask;
 import org.matsim.contrib.drt.schedule.DrtStayTask;
 import org.matsim.contrib.dvrp.fleet.DvrpVehicle;
 import org.matsim.contrib.dvrp.fleet.DvrpVehicleImpl;
 import org.matsim.contrib.dvrp.fleet.ImmutableDvrpVehicleSpecification;
+import org.matsim.contrib.dvrp.optimizer.Request;
 import org.matsim.testcases.fakes.FakeLink;
 
 /**
@@ -123,6 +126,117 @@ public class VehicleDataEntryFactoryImplTest {
 		assertThat(computeSlackTimes(vehicle(500, 490), 100, new Stop[] { stop0, stop1 }, null, precedingStayTimes)).containsExactly(20, 20, 43, 10);
 	}
 
+	@Test
+	void update_returnsPreviousEntryUntilScheduleModified() {
+		var vehicle = vehicle(500, 450);
+		var schedule = vehicle.getSchedule();
+		var stopTask = new DefaultDrtStopTask(100, 200, depot);
+		schedule.addTask(0, new DrtStayTask(0, 100, depot));
+		schedule.addTask(1, stopTask);
+		stopTask.addPickupRequest(acceptedRequest("r1", 230, 400));
+
+		var factory = new VehicleDataEntryFactoryImpl();
+		var entry = factory.create(vehicle, 0);
+		assertThat(entry.stops).extracting(s -> s.latestDepartureTime).containsExactly(230.);
+
+		//nothing changed - the previous entry is returned
+		assertThat(factory.update(entry, 50)).isSameAs(entry);
+
+		//request added to the stop - a new entry is created
+		stopTask.addPickupRequest(acceptedRequest("r2", 210, 400));
+		var updated = factory.update(entry, 60);
+		assertThat(updated).isNotSameAs(entry);
+		assertThat(updated.createTime).isEqualTo(60);
+		assertThat(updated.stops).extracting(s -> s.latestDepartureTime).containsExactly(210.);
+		assertThat(updated.start.occupancy).isEqualTo(0);
+		assertThat(updated.stops).extracting(s -> s.outgoingOccupancy).containsExactly(2);
+		assertThat(factory.update(updated, 65)).isSameAs(updated);
+
+		//stop task added - a new entry is created
+		schedule.addTask(2, new DefaultDrtStopTask(200, 350, depot));
+		var previous = updated;
+		updated = factory.update(updated, 70);
+		assertThat(updated).isNotSameAs(previous);
+		assertThat(updated.stops).hasSize(2);
+	}
+
+	@Test
+	void update_createsNewEntryAfterScheduleTimingChanged() {
+		var vehicle = vehicle(1000, 450);
+		var schedule = vehicle.getSchedule();
+		var stopTask = new DefaultDrtStopTask(100, 200, depot);
+		schedule.addTask(0, new DrtStayTask(0, 100, depot));
+		schedule.addTask(1, stopTask);
+		stopTask.addPickupRequest(acceptedRequest("r1", 230, 400));
+		stopTask.addDropoffRequest(acceptedRequest("r0", 0, 150));
+
+		var factory = new VehicleDataEntryFactoryImpl();
+		var entry = factory.create(vehicle, 0);
+		assertThat(entry.stops).extracting(s -> s.latestArrivalTime).containsExactly(150.);
+		assertThat(entry.stops).extracting(s -> s.latestDepartureTime).containsExactly(230.);
+
+		//same times set again (e.g. by the timing updater) - the previous entry is returned
+		stopTask.setBeginTime(100);
+		stopTask.setEndTime(200);
+		assertThat(factory.update(entry, 5)).isSameAs(entry);
+
+		//vehicle delayed - the scheduled times become the constraints of the stop
+		stopTask.setBeginTime(180);
+		stopTask.setEndTime(280);
+		var updated = factory.update(entry, 10);
+		assertThat(updated).isNotSameAs(entry);
+		assertThat(updated.stops).extracting(s -> s.latestArrivalTime).containsExactly(180.);
+		assertThat(updated.stops).extracting(s -> s.latestDepartureTime).containsExactly(280.);
+		assertThat(updated.getSlackTime(0)).isEqualTo(0);
+
+		//scheduled earlier again - the request constraints apply again
+		var previous = updated;
+		stopTask.setBeginTime(100);
+		stopTask.setEndTime(200);
+		updated = factory.update(updated, 20);
+		assertThat(updated).isNotSameAs(previous);
+		assertThat(updated.stops).extracting(s -> s.latestArrivalTime).containsExactly(150.);
+		assertThat(updated.stops).extracting(s -> s.latestDepartureTime).containsExactly(230.);
+
+		//request replaced by another one - same number of pickups, but different constraints
+		previous = updated;
+		stopTask.removePickupRequest(Id.create("r1", Request.class));
+		stopTask.addPickupRequest(acceptedRequest("r2", 210, 400));
+		updated = factory.update(updated, 30);
+		assertThat(updated).isNotSameAs(previous);
+		assertThat(updated.stops).extracting(s -> s.latestDepartureTime).containsExactly(210.);
+	}
+
+	@Test
+	void update_createsNewEntryWhenStartedAtStay() {
+		var vehicle = vehicle(500, 450);
+		var schedule = vehicle.getSchedule();
+		schedule.addTask(0, new DrtStayTask(0, 100, depot));
+		schedule.addTask(1, new DefaultDrtStopTask(100, 200, depot));
+		schedule.nextTask();
+
+		var factory = new VehicleDataEntryFactoryImpl();
+		var entry = factory.create(vehicle, 10);
+		assertThat(entry.start.time).isEqualTo(10);
+
+		//the start time and the stay time before the first stop depend on the current time
+		var updated = factory.update(entry, 20);
+		assertThat(updated).isNotSameAs(entry);
+		assertThat(updated.start.time).isEqualTo(20);
+		assertThat(updated.getPrecedingStayTime(0)).isEqualTo(80);
+	}
+
+	private AcceptedDrtRequest acceptedRequest(String id, double latestStartTime, double latestArrivalTime) {
+		return AcceptedDrtRequest.newBuilder()
+				.request(DrtRequest.newBuilder()
+						.id(Id.create(id, Request.class))
+						.passengerIds(List.of(Id.createPersonId(id)))
+						.build())
+				.latestStartTime(latestStartTime)
+				.latestArrivalTime(latestArrivalTime)
+				.build();
+	}
+
 	private Stop stop(double beginTime, double latestArrivalTime, double endTime, double latestDepartureTime) {
 		return new Stop(new DefaultDrtStopTask(beginTime, endTime, null), latestArrivalTime, latestDepartureTime, 0);
 	}
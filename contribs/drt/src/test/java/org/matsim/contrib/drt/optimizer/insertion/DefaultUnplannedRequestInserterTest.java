@@ -256,6 +256,57 @@ public class DefaultUnplannedRequestInserterTest {
 		assertThat(createEntryCounter.getValue()).isEqualTo(2);
 	}
 
+	@Test
+	void batchInsertion_conflictingRequestReevaluated() {
+		var vehicle1 = vehicle("1");
+		var vehicle2 = vehicle("2");
+		var fleet = fleet(vehicle1, vehicle2);
+		var request2 = request("r2", "from2", "to2");
+		var unplannedRequests = requests(request1, request2);
+		double now = 15;
+
+		VehicleEntry.EntryFactory entryFactory = (vehicle, currentTime) -> new VehicleEntry(vehicle, null, null, null,
+				null, currentTime);
+
+		DrtRequestInsertionRetryQueue retryQueue = new DrtRequestInsertionRetryQueue(
+				new DrtRequestInsertionRetryParams());//retry OFF, empty queue
+
+		//both requests prefer vehicle 1 as long as it has no requests assigned
+		var scheduledRequests = new ArrayList<DrtRequest>();
+		var evaluatedRequests = new ArrayList<DrtRequest>();
+		DrtInsertionSearch insertionSearch = (drtRequest, vEntries) -> {
+			evaluatedRequests.add(drtRequest);
+			var vehicle = scheduledRequests.isEmpty() ? vehicle1 : vehicle2;
+			var vEntry = vEntries.stream().filter(e -> e.vehicle == vehicle).findFirst().orElseThrow();
+			return Optional.of(new InsertionWithDetourData(new InsertionGenerator.Insertion(vEntry, null, null), null,
+					new InsertionDetourTimeCalculator.DetourTimeInfo(
+							mock(InsertionDetourTimeCalculator.PickupDetourInfo.class),
+							mock(InsertionDetourTimeCalculator.DropoffDetourInfo.class))));
+		};
+
+		RequestInsertionScheduler insertionScheduler = (request, insertion) -> {
+			scheduledRequests.add(request.getRequest());
+			var pickupTask = new DefaultDrtStopTask(now, now + 10, request.getFromLink());
+			var dropoffTask = new DefaultDrtStopTask(now + 20, now + 30, request.getToLink());
+			return new PickupDropoffTaskPair(pickupTask, dropoffTask);
+		};
+
+		//call insertion
+		newInserter(fleet, now, entryFactory, retryQueue, insertionSearch, insertionScheduler,
+				true).scheduleUnplannedRequests(unplannedRequests);
+
+		//both requests are evaluated against the initial vehicle entries, then request2 is re-evaluated
+		assertThat(evaluatedRequests).containsExactly(request1, request2, request2);
+		assertThat(scheduledRequests).containsExactly(request1, request2);
+		assertThat(unplannedRequests).isEmpty();
+
+		ArgumentCaptor<PassengerRequestScheduledEvent> captor = ArgumentCaptor.forClass(
+				PassengerRequestScheduledEvent.class);
+		verify(eventsManager, times(2)).processEvent(captor.capture());
+		assertThat(captor.getAllValues()).extracting(PassengerRequestScheduledEvent::getVehicleId)
+				.containsExactly(vehicle1.getId(), vehicle2.getId());
+	}
+
 	private Collection<DrtRequest> requests(DrtRequest... requests) {
 		return new ArrayList<>(Arrays.asList(requests));//returned collection needs to be modifiable
 	}
@@ -285,9 +336,16 @@ public class DefaultUnplannedRequestInserterTest {
 	private DefaultUnplannedRequestInserter newInserter(Fleet fleet, double now,
 			VehicleEntry.EntryFactory vehicleEntryFactory, DrtRequestInsertionRetryQueue insertionRetryQueue,
 			DrtInsertionSearch insertionSearch, RequestInsertionScheduler insertionScheduler) {
+		return newInserter(fleet, now, vehicleEntryFactory, insertionRetryQueue, insertionSearch, insertionScheduler,
+				false);
+	}
+
+	private DefaultUnplannedRequestInserter newInserter(Fleet fleet, double now,
+			VehicleEntry.EntryFactory vehicleEntryFactory, DrtRequestInsertionRetryQueue insertionRetryQueue,
+			DrtInsertionSearch insertionSearch, RequestInsertionScheduler insertionScheduler, boolean batchInsertion) {
 		return new DefaultUnplannedRequestInserter(mode, fleet, () -> now, eventsManager, insertionScheduler,
 				vehicleEntryFactory, insertionRetryQueue, insertionSearch, new DefaultOfferAcceptor(),
-				forkJoinPoolExtension.forkJoinPool, StaticPassengerStopDurationProvider.of(10.0, 0.0));
+				forkJoinPoolExtension.forkJoinPool, StaticPassengerStopDurationProvider.of(10.0, 0.0), batchInsertion);
 	}
 
 	private Link link(String id) {
@@ -0,0 +1,117 @@
+/*
+ * *********************************************************************** *
+ * project: org.matsim.*
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** *
+ */
+
+package org.matsim.contrib.drt.optimizer.insertion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.contrib.drt.optimizer.VehicleEntry;
+import org.matsim.contrib.drt.optimizer.Waypoint;
+import org.matsim.contrib.drt.passenger.DrtRequest;
+import org.matsim.contrib.drt.schedule.DefaultDrtStopTask;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.testcases.fakes.FakeLink;
+
+import com.google.common.collect.ImmutableList;
+
+public class ReachabilityFilterTest {
+	private static final double MAX_SPEED = 10;
+
+	private final Link fromLink = link("from", 1000, 0);
+	private final Link toLink = link("to", 2000, 0);
+
+	private final ReachabilityFilter filter = new ReachabilityFilter(MAX_SPEED);
+
+	@Test
+	void start_pickupReachable() {
+		//earliest pickup at 100
+		var entry = entry(link("start", 0, 0), 0);
+		assertThat(filter.isReachable(request(200, 1000), entry)).isTrue();
+		assertThat(filter.isReachable(request(100, 1000), entry)).isTrue();
+		assertThat(filter.isReachable(request(99, 1000), entry)).isFalse();
+	}
+
+	@Test
+	void start_dropoffReachable() {
+		//earliest pickup at 100, earliest dropoff at 200
+		var entry = entry(link("start", 0, 0), 0);
+		assertThat(filter.isReachable(request(200, 200), entry)).isTrue();
+		assertThat(filter.isReachable(request(200, 199), entry)).isFalse();
+	}
+
+	@Test
+	void stops_pickupReachable() {
+		//earliest pickup from start at 500
+		var start = link("start", 6000, 0);
+
+		//earliest pickup from stop at 150
+		var entry = entry(start, 0, stop(100, link("stop", 1500, 0)));
+		assertThat(filter.isReachable(request(150, 1000), entry)).isTrue();
+		assertThat(filter.isReachable(request(149, 1000), entry)).isFalse();
+
+		//a later stop does not help
+		entry = entry(start, 0, stop(160, link("stop0", 6000, 0)), stop(300, fromLink));
+		assertThat(filter.isReachable(request(150, 1000), entry)).isFalse();
+		assertThat(filter.isReachable(request(300, 1000), entry)).isTrue();
+	}
+
+	@Test
+	void create_maxFreeSpeedInNetwork() {
+		var network = NetworkUtils.createNetwork();
+		var a = NetworkUtils.createAndAddNode(network, Id.createNodeId("a"), new Coord(0, 0));
+		var b = NetworkUtils.createAndAddNode(network, Id.createNodeId("b"), new Coord(1000, 0));
+		NetworkUtils.createAndAddLink(network, Id.createLinkId("ab"), a, b, 1000, 5, 1000, 1);
+		NetworkUtils.createAndAddLink(network, Id.createLinkId("ba"), b, a, 1000, 20, 1000, 1);
+
+		//earliest pickup at 50 (1000 m at 20 m/s)
+		var entry = entry(link("start", 0, 0), 0);
+		assertThat(ReachabilityFilter.create(network).isReachable(request(50, 1000), entry)).isTrue();
+		assertThat(ReachabilityFilter.create(network).isReachable(request(49, 1000), entry)).isFalse();
+	}
+
+	private DrtRequest request(double latestStartTime, double latestArrivalTime) {
+		return DrtRequest.newBuilder()
+				.fromLink(fromLink)
+				.toLink(toLink)
+				.passengerIds(List.of(Id.createPersonId("p")))
+				.latestStartTime(latestStartTime)
+				.latestArrivalTime(latestArrivalTime)
+				.build();
+	}
+
+	private Link link(String id, double x, double y) {
+		return new FakeLink(Id.createLinkId(id), null, NetworkUtils.createNode(Id.createNodeId(id), new Coord(x, y)));
+	}
+
+	private Waypoint.Stop stop(double beginTime, Link link) {
+		return new Waypoint.Stop(new DefaultDrtStopTask(beginTime, beginTime + 60, link), 0);
+	}
+
+	private VehicleEntry entry(Link startLink, double startTime, Waypoint.Stop... stops) {
+		var start = new Waypoint.Start(null, startLink, startTime, 0);
+		return new VehicleEntry(null, start, ImmutableList.copyOf(stops), null, null, 0);
+	}
+}
@@ -49,7 +49,7 @@ public class ExtensiveInsertionProviderTest {
 	@Test
 	void getInsertions_noInsertionsGenerated() {
 		var insertionProvider = new ExtensiveInsertionProvider(null, null, new InsertionGenerator(new DefaultStopTimeCalculator(120), null),
-				rule.forkJoinPool);
+				rule.forkJoinPool, null);
 		assertThat(insertionProvider.getInsertions(null, List.of())).isEmpty();
 	}
 
@@ -92,7 +92,7 @@ public class ExtensiveInsertionProviderTest {
 		//pretend all insertions are at end to check KNearestInsertionsAtEndFilter
 		when(vehicleEntry.isAfterLastStop(anyInt())).thenReturn(true);
 		var insertionProvider = new ExtensiveInsertionProvider(params, admissibleCostCalculator, insertionGenerator,
-				rule.forkJoinPool);
+				rule.forkJoinPool, null);
 		assertThat(insertionProvider.getInsertions(request, List.of(vehicleEntry))).isEqualTo(
 				nearestInsertionsAtEndLimit == 0 ? List.of() : List.of(feasibleInsertion));
 	}
@@ -55,7 +55,7 @@ public class SelectiveInsertionProviderTest {
 	@Test
 	public void getInsertions_noInsertionsGenerated() {
 		var insertionProvider = new SelectiveInsertionProvider(initialInsertionFinder,
-				new InsertionGenerator(new DefaultStopTimeCalculator(120), null), rule.forkJoinPool);
+				new InsertionGenerator(new DefaultStopTimeCalculator(120), null), rule.forkJoinPool, null);
 		assertThat(insertionProvider.getInsertion(null, List.of())).isEmpty();
 	}
 
@@ -90,7 +90,7 @@ public class SelectiveInsertionProviderTest {
 
 		//test insertionProvider
 		var insertionProvider = new SelectiveInsertionProvider(initialInsertionFinder, insertionGenerator,
-				rule.forkJoinPool);
+				rule.forkJoinPool, null);
 		assertThat(insertionProvider.getInsertion(request, List.of(vehicleEntry))).isEqualTo(selectedInsertion);
 	}
 }
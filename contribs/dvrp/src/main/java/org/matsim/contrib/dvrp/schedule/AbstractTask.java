@@ -31,6 +31,7 @@ public abstract class AbstractTask implements Task {
 	// ==== BEGIN: fields managed by ScheduleImpl
 	int taskIdx;
 	TaskStatus status;
+	ScheduleImpl schedule;// null if not in a schedule
 	// ==== END: fields managed by ScheduleImpl
 
 	private final TaskType taskType;
@@ -76,13 +77,30 @@ public abstract class AbstractTask implements Task {
 	public final void setBeginTime(double beginTime) {
 		Preconditions.checkState(status != TaskStatus.STARTED && status != TaskStatus.PERFORMED,
 				"It is too late to change the beginTime");
-		this.beginTime = beginTime;
+		if (this.beginTime != beginTime) {
+			this.beginTime = beginTime;
+			markScheduleModified();
+		}
 	}
 
 	@Override
 	public final void setEndTime(double endTime) {
 		Preconditions.checkState(status != TaskStatus.PERFORMED, "It is too late to change the endTime");
-		this.endTime = endTime;
+		if (this.endTime != endTime) {
+			this.endTime = endTime;
+			markScheduleModified();
+		}
+	}
+
+	/**
+	 * Counts a modification of this task in {@link Schedule#getModificationCount()}. Changes of the begin and end times
+	 * are counted automatically; subclasses call this when they change other data that schedule-based planning depends on
+	 * (e.g. the requests served at a stop).
+	 */
+	protected final void markScheduleModified() {
+		if (schedule != null) {
+			schedule.markModified();
+		}
 	}
 
 	@Override
@@ -73,6 +73,13 @@ public interface Schedule {
 	 */
 	ScheduleStatus getStatus();
 
+	/**
+	 * Number of modifications so far: tasks added or removed, the next task started, and changes of the tasks, e.g. of
+	 * their begin or end times. It can be compared with an earlier value to find out whether data derived from the
+	 * schedule is still up to date.
+	 */
+	int getModificationCount();
+
 	/**
 	 * Returns the begin time of the initial task, or fails if the Schedule is unplanned.
 	 */
@@ -0,0 +1,43 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.zone.skims;
+
+import java.io.File;
+
+import org.matsim.core.controler.events.ShutdownEvent;
+import org.matsim.core.controler.listener.ShutdownListener;
+
+/**
+ * Writes the state of the adaptive travel time matrix at the end of the run, so that the next run can start with it.
+ */
+class AdaptiveTravelTimeMatrixCacheWriter implements ShutdownListener {
+	private final AdaptiveTravelTimeMatrixImpl matrix;
+	private final File cachePath;
+
+	AdaptiveTravelTimeMatrixCacheWriter(AdaptiveTravelTimeMatrixImpl matrix, File cachePath) {
+		this.matrix = matrix;
+		this.cachePath = cachePath;
+	}
+
+	@Override
+	public void notifyShutdown(ShutdownEvent event) {
+		matrix.writeCache(cachePath);
+	}
+}
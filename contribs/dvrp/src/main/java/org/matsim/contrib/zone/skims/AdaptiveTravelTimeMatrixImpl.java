@@ -19,6 +19,8 @@
 
 package org.matsim.contrib.zone.skims;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.network.Node;
 import org.matsim.contrib.common.util.DistanceUtils;
@@ -26,24 +28,39 @@ import org.matsim.contrib.common.zones.Zone;
 import org.matsim.contrib.common.zones.ZoneSystem;
 import org.matsim.contrib.common.zones.ZoneSystemUtils;
 
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.IntStream;
+
+import com.google.common.base.Verify;
+import com.google.common.hash.Hashing;
 
 /**
  * @author steffenaxer
  */
 public class AdaptiveTravelTimeMatrixImpl implements AdaptiveTravelTimeMatrix {
+	private static final Logger log = LogManager.getLogger(AdaptiveTravelTimeMatrixImpl.class);
+
+	// cache file header, see MatrixCacheFiles
+	private static final int CACHE_MAGIC_NUMBER = 0x44545441; // "DTTA"
+	private static final int CACHE_FORMAT_VERSION = 1;
+
 	private final double TIME_INTERVAL = 3600.;
-	private final List<Matrix> timeDependentMatrix;
+	private final TimeDependentMatrix timeDependentMatrix;
 	private final ZoneSystem gridSystem;
 	private final double alpha;
 	private final Map<Zone, Node> centralNodes;
 	private final int numberOfBins;
 	private final DvrpTravelTimeMatrixParams params;
 	private final Map<SparseTravelTimeKey, Double> sparseTravelTimeCache = new ConcurrentHashMap<>();
+	private final long cacheKey;
 
 	public AdaptiveTravelTimeMatrixImpl(double maxTime, Network dvrpNetwork, ZoneSystem zoneSystem, DvrpTravelTimeMatrixParams params,
 										TravelTimeMatrix freeSpeedMatrix, double alpha) {
@@ -51,9 +68,15 @@ public class AdaptiveTravelTimeMatrixImpl implements AdaptiveTravelTimeMatrix {
 		this.numberOfBins = numberOfBins(maxTime);
 		this.gridSystem = zoneSystem;
 		this.centralNodes = ZoneSystemUtils.computeMostCentralNodes(dvrpNetwork.getNodes().values(), this.gridSystem);
-		this.timeDependentMatrix = IntStream.range(0, numberOfBins).mapToObj(i -> new Matrix(centralNodes.keySet()))
-				.toList();
+		this.timeDependentMatrix = new TimeDependentMatrix(centralNodes.keySet(), numberOfBins, TIME_INTERVAL,
+				TimeDependentMatrix.Precision.SHORT);
 		this.params = params;
+		this.cacheKey = Hashing.murmur3_128().newHasher()
+				.putLong(FreeSpeedTravelTimeMatrix.calcCacheKey(dvrpNetwork, zoneSystem, params, 0))
+				.putInt(numberOfBins)
+				.putDouble(TIME_INTERVAL)
+				.hash()
+				.asLong();
 		this.initializeRegularMatrix(freeSpeedMatrix);
 		this.initializeSparseTravelTimeCache(freeSpeedMatrix);
 	}
@@ -99,7 +122,7 @@ public class AdaptiveTravelTimeMatrixImpl implements AdaptiveTravelTimeMatrix {
 					Node originNode = originZoneEntry.getValue();
 					Node destinationNode = destinationZoneEntry.getValue();
 					double freeSpeedTravelTime = freeSpeedMatrix.getTravelTime(originNode, destinationNode, Double.NaN);
-					this.timeDependentMatrix.get(bin).set(originZoneEntry.getKey(), destinationZoneEntry.getKey(),
+					this.timeDependentMatrix.set(originZoneEntry.getKey(), destinationZoneEntry.getKey(), bin,
 							freeSpeedTravelTime);
 				}
 			});
@@ -113,7 +136,7 @@ public class AdaptiveTravelTimeMatrixImpl implements AdaptiveTravelTimeMatrix {
 		if (sparseValue != null) {
 			return sparseValue;
 		}
-		return this.timeDependentMatrix.get(bin).get(this.gridSystem.getZoneForNodeId(fromNode.getId()).orElseThrow(), this.gridSystem.getZoneForNodeId(toNode.getId()).orElseThrow());
+		return this.timeDependentMatrix.get(this.gridSystem.getZoneForNodeId(fromNode.getId()).orElseThrow(), this.gridSystem.getZoneForNodeId(toNode.getId()).orElseThrow(), bin);
 	}
 
 	int getBin(double departureTime) {
@@ -135,8 +158,8 @@ public class AdaptiveTravelTimeMatrixImpl implements AdaptiveTravelTimeMatrix {
 		} else {
 			double currentTravelTimeEstimate = this.getTravelTime(fromNode, toNode, departureTime);
 			double value = getUpdatedValue(currentTravelTimeEstimate, routeEstimate, this.alpha);
-			this.timeDependentMatrix.get(bin).set(this.gridSystem.getZoneForNodeId(fromNode.getId()).orElseThrow(), this.gridSystem.getZoneForNodeId(toNode.getId()).orElseThrow(),
-					value);
+			this.timeDependentMatrix.set(this.gridSystem.getZoneForNodeId(fromNode.getId()).orElseThrow(), this.gridSystem.getZoneForNodeId(toNode.getId()).orElseThrow(),
+					bin, value);
 		}
 
 	}
@@ -145,4 +168,85 @@ public class AdaptiveTravelTimeMatrixImpl implements AdaptiveTravelTimeMatrix {
 		return currentValue * (1 - alpha) + alpha * newValue;
 	}
 
+	/**
+	 * Replaces the current travel times with the ones stored in the cache file. The file is only read if it was written
+	 * for the same network, zone system, params and number of time bins.
+	 *
+	 * @return {@code true} if the travel times were read from the file
+	 */
+	public boolean readCache(File cachePath) {
+		Long fileCacheKey = MatrixCacheFiles.readKey(cachePath, CACHE_MAGIC_NUMBER, CACHE_FORMAT_VERSION);
+		if (fileCacheKey == null || fileCacheKey != cacheKey) {
+			log.warn("Adaptive travel time matrix cache " + cachePath + " was created for a different network, zone system or params."
+					+ " The matrix will start with free speed travel times.");
+			return false;
+		}
+
+		try (DataInputStream inputStream = MatrixCacheFiles.openForReading(cachePath, CACHE_MAGIC_NUMBER, CACHE_FORMAT_VERSION, cacheKey)) {
+			int numberOfZones = inputStream.readInt();
+			Verify.verify(numberOfZones == centralNodes.size());
+
+			List<Zone> zones = new ArrayList<>(numberOfZones);
+			Map<String, Zone> zonesById = new HashMap<>();
+			centralNodes.keySet().forEach(zone -> zonesById.put(zone.getId().toString(), zone));
+			for (int i = 0; i < numberOfZones; i++) {
+				String zoneId = MatrixCacheFiles.readString(inputStream);
+				zones.add(Verify.verifyNotNull(zonesById.get(zoneId), "Unknown zone: %s", zoneId));
+			}
+
+			// zonal travel times
+			for (int bin = 0; bin < numberOfBins; bin++) {
+				for (Zone fromZone : zones) {
+					for (Zone toZone : zones) {
+						timeDependentMatrix.set(fromZone, toZone, bin, inputStream.readUnsignedShort());
+					}
+				}
+			}
+
+			// sparse travel times (between the central nodes of the given zones)
+			int numberOfEntries = inputStream.readInt();
+			for (int i = 0; i < numberOfEntries; i++) {
+				Node fromNode = centralNodes.get(zones.get(inputStream.readInt()));
+				Node toNode = centralNodes.get(zones.get(inputStream.readInt()));
+				int bin = inputStream.readInt();
+				sparseTravelTimeCache.put(getSparseTravelTimeKey(fromNode, toNode, bin), inputStream.readDouble());
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return true;
+	}
+
+	public void writeCache(File cachePath) {
+		MatrixCacheFiles.write(cachePath, CACHE_MAGIC_NUMBER, CACHE_FORMAT_VERSION, cacheKey, outputStream -> {
+			// obtain fixed order of zones
+			List<Zone> zones = new ArrayList<>(centralNodes.keySet());
+			Map<Node, Integer> centralNode2position = new HashMap<>();
+			outputStream.writeInt(zones.size());
+			for (int i = 0; i < zones.size(); i++) {
+				Zone zone = zones.get(i);
+				centralNode2position.put(centralNodes.get(zone), i);
+				MatrixCacheFiles.writeString(outputStream, zone.getId().toString());
+			}
+
+			// zonal travel times (unsigned shorts, see TimeDependentMatrix.Precision.SHORT)
+			for (int bin = 0; bin < numberOfBins; bin++) {
+				for (Zone fromZone : zones) {
+					for (Zone toZone : zones) {
+						outputStream.writeShort((int)timeDependentMatrix.get(fromZone, toZone, bin));
+					}
+				}
+			}
+
+			// sparse travel times
+			outputStream.writeInt(sparseTravelTimeCache.size());
+			for (Entry<SparseTravelTimeKey, Double> entry : sparseTravelTimeCache.entrySet()) {
+				SparseTravelTimeKey key = entry.getKey();
+				outputStream.writeInt(centralNode2position.get(key.fromNode()));
+				outputStream.writeInt(centralNode2position.get(key.toNode()));
+				outputStream.writeInt((int)key.timeBin());
+				outputStream.writeDouble(entry.getValue());
+			}
+		});
+	}
 }
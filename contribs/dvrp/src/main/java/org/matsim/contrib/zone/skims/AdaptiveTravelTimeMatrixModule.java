@@ -19,6 +19,8 @@
 
 package org.matsim.contrib.zone.skims;
 
+import java.io.File;
+
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import org.matsim.api.core.v01.network.Network;
@@ -26,6 +28,7 @@ import org.matsim.contrib.common.zones.ZoneSystem;
 import org.matsim.contrib.common.zones.ZoneSystemUtils;
 import org.matsim.contrib.dvrp.run.AbstractDvrpModeModule;
 import org.matsim.contrib.dvrp.run.DvrpConfigGroup;
+import org.matsim.core.config.ConfigGroup;
 import org.matsim.core.config.groups.QSimConfigGroup;
 
 /**
@@ -38,27 +41,37 @@ public class AdaptiveTravelTimeMatrixModule extends AbstractDvrpModeModule {
     @Inject
     private QSimConfigGroup qsimConfig;
 
-    @Inject
-    private DvrpConfigGroup dvrpConfigGroup;
-
     public AdaptiveTravelTimeMatrixModule(String mode) {
         super(mode);
     }
 
     @Override
     public void install() {
-        bindModal(AdaptiveTravelTimeMatrix.class).toProvider(modalProvider(
+        DvrpTravelTimeMatrixParams matrixParams = DvrpConfigGroup.get(getConfig()).getTravelTimeMatrixParams();
+        File cachePath = matrixParams.adaptiveMatrixCachePath == null ? null :
+                new File(ConfigGroup.getInputFileURL(getConfig().getContext(), matrixParams.adaptiveMatrixCachePath).getPath());
+
+        bindModal(AdaptiveTravelTimeMatrixImpl.class).toProvider(modalProvider(
                 getter -> {
 					Network network = getter.getModal(Network.class);
-					DvrpTravelTimeMatrixParams matrixParams = dvrpConfigGroup.getTravelTimeMatrixParams();
 					ZoneSystem zoneSystem = ZoneSystemUtils.createZoneSystem(getConfig().getContext(), network,
 						matrixParams.getZoneSystemParams(), getConfig().global().getCoordinateSystem(), zone -> true);
-                    return new AdaptiveTravelTimeMatrixImpl(qsimConfig.getEndTime().orElse(ALTERNATIVE_ENDTIME),
+                    var matrix = new AdaptiveTravelTimeMatrixImpl(qsimConfig.getEndTime().orElse(ALTERNATIVE_ENDTIME),
                             network,
 							zoneSystem,
                             matrixParams,
                             getter.getModal(TravelTimeMatrix.class), SMOOTHING_ALPHA);
+                    if (cachePath != null && cachePath.exists()) {
+                        matrix.readCache(cachePath);
+                    }
+                    return matrix;
                 }))
                 .in(Singleton.class);
+        bindModal(AdaptiveTravelTimeMatrix.class).to(modalKey(AdaptiveTravelTimeMatrixImpl.class));
+
+        if (cachePath != null) {
+            addControlerListenerBinding().toProvider(modalProvider(
+                    getter -> new AdaptiveTravelTimeMatrixCacheWriter(getter.getModal(AdaptiveTravelTimeMatrixImpl.class), cachePath)));
+        }
     }
 }
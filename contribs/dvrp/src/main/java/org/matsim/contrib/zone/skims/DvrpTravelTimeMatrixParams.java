@@ -64,6 +64,12 @@ public class DvrpTravelTimeMatrixParams extends ReflectiveConfigGroupWithConfigu
 	@Comment("Caches the travel time matrix data into a binary file. If the file exists, the matrix will be read from the file, if not, the file will be created.")
 	public String cachePath = null;
 
+	@Parameter
+	@Comment("Caches the travel times learned by the adaptive travel time matrix into a binary file, which is (over)written at the end of the run."
+			+ " If the file exists and was created for the same network, zone system and params, the adaptive matrix starts with these travel times"
+			+ " instead of the free speed ones.")
+	public String adaptiveMatrixCachePath = null;
+
 	public DvrpTravelTimeMatrixParams() {
 		super(SET_NAME);
 		initSingletonParameterSets();
@@ -21,19 +21,23 @@
 package org.matsim.contrib.zone.skims;
 
 import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 
+import javax.annotation.Nullable;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.IdSet;
+import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.network.Node;
 import org.matsim.contrib.common.zones.Zone;
@@ -47,22 +51,39 @@ import org.matsim.core.router.util.TravelTime;
 
 import com.google.common.base.Verify;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 
 /**
  * @author Michal Maciejewski (michalm)
  */
 public class FreeSpeedTravelTimeMatrix implements TravelTimeMatrix {
+	private static final Logger log = LogManager.getLogger(FreeSpeedTravelTimeMatrix.class);
+
+	// cache file header: magic number, format version and the key of the input data
+	private static final int CACHE_MAGIC_NUMBER = 0x44545454; // "DTTT"
+	private static final int CACHE_FORMAT_VERSION = 2;
+	private static final long UNKNOWN_CACHE_KEY = 0;
+
 	public static FreeSpeedTravelTimeMatrix createFreeSpeedMatrix(Network dvrpNetwork, ZoneSystem zoneSystem, DvrpTravelTimeMatrixParams params, int numberOfThreads,
 		double qSimTimeStepSize) {
-		return new FreeSpeedTravelTimeMatrix(dvrpNetwork, zoneSystem, params, numberOfThreads, new QSimFreeSpeedTravelTime(qSimTimeStepSize));
+		return new FreeSpeedTravelTimeMatrix(dvrpNetwork, zoneSystem, params, numberOfThreads, new QSimFreeSpeedTravelTime(qSimTimeStepSize),
+			calcCacheKey(dvrpNetwork, zoneSystem, params, qSimTimeStepSize));
 	}
 
 	private final ZoneSystem zoneSystem;
 	private final Matrix freeSpeedTravelTimeMatrix;
 	private final SparseMatrix freeSpeedTravelTimeSparseMatrix;
+	private final long cacheKey;
 
 	public FreeSpeedTravelTimeMatrix(Network dvrpNetwork, ZoneSystem zoneSystem, DvrpTravelTimeMatrixParams params, int numberOfThreads, TravelTime travelTime) {
+		this(dvrpNetwork, zoneSystem, params, numberOfThreads, travelTime, UNKNOWN_CACHE_KEY);
+	}
+
+	private FreeSpeedTravelTimeMatrix(Network dvrpNetwork, ZoneSystem zoneSystem, DvrpTravelTimeMatrixParams params, int numberOfThreads,
+		TravelTime travelTime, long cacheKey) {
 		this.zoneSystem = zoneSystem;
+		this.cacheKey = cacheKey;
 		var centralNodes = ZoneSystemUtils.computeMostCentralNodes(dvrpNetwork.getNodes().values(), zoneSystem);
 		var travelDisutility = new TimeAsTravelDisutility(travelTime);
 		var routingParams = new TravelTimeMatrices.RoutingParams(dvrpNetwork, travelTime, travelDisutility, numberOfThreads);
@@ -89,51 +110,90 @@ public class FreeSpeedTravelTimeMatrix implements TravelTimeMatrix {
 		return freeSpeedTravelTimeMatrix.get(zoneSystem.getZoneForNodeId(fromNode.getId()).orElseThrow(), zoneSystem.getZoneForNodeId(toNode.getId()).orElseThrow());
 	}
 
+	/**
+	 * Reads the matrix from the cache file if it was created for the same network, zone system and params. Otherwise,
+	 * the matrix is calculated and the cache file is (over)written.
+	 */
 	public static FreeSpeedTravelTimeMatrix createFreeSpeedMatrixFromCache(Network dvrpNetwork, ZoneSystem zoneSystem, DvrpTravelTimeMatrixParams params, int numberOfThreads, double qSimTimeStepSize, File cachePath) {
-		boolean exists = cachePath.exists();
-
-		final FreeSpeedTravelTimeMatrix matrix;
-		if (exists) {
-			matrix = new FreeSpeedTravelTimeMatrix(dvrpNetwork, zoneSystem, cachePath);
-		} else {
-			matrix = createFreeSpeedMatrix(dvrpNetwork, zoneSystem, params, numberOfThreads, qSimTimeStepSize);
-			matrix.write(cachePath, dvrpNetwork);
+		long cacheKey = calcCacheKey(dvrpNetwork, zoneSystem, params, qSimTimeStepSize);
+		if (cachePath.exists()) {
+			Long fileCacheKey = readCacheKey(cachePath);
+			if (fileCacheKey != null && fileCacheKey == cacheKey) {
+				return new FreeSpeedTravelTimeMatrix(dvrpNetwork, zoneSystem, cachePath);
+			}
+			log.warn("Travel time matrix cache " + cachePath + " was created for a different network, zone system or params."
+				+ " The matrix will be recalculated and the cache overwritten.");
 		}
 
+		var matrix = createFreeSpeedMatrix(dvrpNetwork, zoneSystem, params, numberOfThreads, qSimTimeStepSize);
+		matrix.write(cachePath, dvrpNetwork);
 		return matrix;
 	}
 
+	/**
+	 * The key covers all inputs of the matrix calculation: the network (nodes and links with their lengths and free
+	 * speeds), the assignment of nodes to zones, and the params.
+	 */
+	static long calcCacheKey(Network dvrpNetwork, ZoneSystem zoneSystem, DvrpTravelTimeMatrixParams params, double qSimTimeStepSize) {
+		Hasher hasher = Hashing.murmur3_128().newHasher();
+		hasher.putInt(CACHE_FORMAT_VERSION);
+		for (Node node : dvrpNetwork.getNodes().values()) {
+			hasher.putString(node.getId().toString(), StandardCharsets.UTF_8);
+			hasher.putDouble(node.getCoord().getX()).putDouble(node.getCoord().getY());
+			hasher.putString(zoneSystem.getZoneForNodeId(node.getId()).map(z -> z.getId().toString()).orElse(""), StandardCharsets.UTF_8);
+		}
+		for (Link link : dvrpNetwork.getLinks().values()) {
+			hasher.putString(link.getId().toString(), StandardCharsets.UTF_8);
+			hasher.putString(link.getFromNode().getId().toString(), StandardCharsets.UTF_8);
+			hasher.putString(link.getToNode().getId().toString(), StandardCharsets.UTF_8);
+			hasher.putDouble(link.getLength()).putDouble(link.getFreespeed());
+		}
+		for (Zone zone : zoneSystem.getZones().values()) {
+			hasher.putString(zone.getId().toString(), StandardCharsets.UTF_8);
+		}
+		hasher.putDouble(params.maxNeighborDistance).putDouble(params.maxNeighborTravelTime).putDouble(qSimTimeStepSize);
+		long key = hasher.hash().asLong();
+		return key != UNKNOWN_CACHE_KEY ? key : 1;
+	}
+
+	@Nullable
+	private static Long readCacheKey(File cachePath) {
+		return MatrixCacheFiles.readKey(cachePath, CACHE_MAGIC_NUMBER, CACHE_FORMAT_VERSION);
+	}
+
 	public FreeSpeedTravelTimeMatrix(Network dvrpNetwork, ZoneSystem zoneSystem, File cachePath) {
 		this.zoneSystem = zoneSystem;
 
-		try (DataInputStream inputStream = new DataInputStream(new FileInputStream(cachePath))) {
+		Long fileCacheKey = readCacheKey(cachePath);
+		Verify.verify(fileCacheKey != null, "Not a travel time matrix cache file (or an outdated format): %s", cachePath);
+		cacheKey = fileCacheKey;
+
+		try (DataInputStream inputStream = MatrixCacheFiles.openForReading(cachePath, CACHE_MAGIC_NUMBER, CACHE_FORMAT_VERSION, cacheKey)) {
 			// number of zones
 			int numberOfZones = inputStream.readInt();
 			Verify.verify(numberOfZones == zoneSystem.getZones().size());
 
 			// read zone list
-			List<Id<Zone>> zoneIds = new ArrayList<>(numberOfZones);
+			List<Zone> zones = new ArrayList<>(numberOfZones);
+			IdSet<Zone> dataZones = new IdSet<>(Zone.class);
 			for (int i = 0; i < numberOfZones; i++) {
-				zoneIds.add(Id.create(inputStream.readUTF(), Zone.class));
+				Id<Zone> zoneId = Id.create(MatrixCacheFiles.readString(inputStream), Zone.class);
+				dataZones.add(zoneId);
+				zones.add(zoneSystem.getZones().get(zoneId));
 			}
 
 			IdSet<Zone> systemZones = new IdSet<>(Zone.class);
 			systemZones.addAll(zoneSystem.getZones().keySet());
 
-			IdSet<Zone> dataZones = new IdSet<>(Zone.class);
-			dataZones.addAll(zoneIds);
-
 			Verify.verify(Sets.difference(systemZones, dataZones).size() == 0);
 			Verify.verify(Sets.difference(dataZones, systemZones).size() == 0);
 
 			// fill matrix
 			freeSpeedTravelTimeMatrix = new Matrix(new HashSet<>(zoneSystem.getZones().values()));
 
-			for (var from : zoneIds) {
-				for (var to : zoneIds) {
-					Zone fromZone = zoneSystem.getZones().get(from);
-					Zone toZone = zoneSystem.getZones().get(to);
-					freeSpeedTravelTimeMatrix.set(fromZone, toZone, inputStream.readInt());
+			for (var fromZone : zones) {
+				for (var toZone : zones) {
+					freeSpeedTravelTimeMatrix.set(fromZone, toZone, inputStream.readUnsignedShort());
 				}
 			}
 
@@ -151,7 +211,7 @@ public class FreeSpeedTravelTimeMatrix implements TravelTimeMatrix {
 
 				List<Node> nodes = new ArrayList<>(numberOfNodes);
 				for (int i = 0; i < numberOfNodes; i++) {
-					Id<Node> nodeId = Id.createNodeId(inputStream.readUTF());
+					Id<Node> nodeId = Id.createNodeId(MatrixCacheFiles.readString(inputStream));
 					nodes.add(Objects.requireNonNull(dvrpNetwork.getNodes().get(nodeId)));
 				}
 
@@ -165,7 +225,7 @@ public class FreeSpeedTravelTimeMatrix implements TravelTimeMatrix {
 
 						for (int j = 0; j < numberOfElements; j++) {
 							Node to = nodes.get(inputStream.readInt());
-							int value = inputStream.readInt();
+							int value = inputStream.readUnsignedShort();
 
 							nodeTimeList.add(new NodeAndTime(to.getId().index(), value));
 						}
@@ -181,19 +241,18 @@ public class FreeSpeedTravelTimeMatrix implements TravelTimeMatrix {
 	}
 
 	public void write(File outputPath, Network dvrpNetwork) {
-		try (DataOutputStream outputStream = new DataOutputStream(new FileOutputStream(outputPath))) {
+		MatrixCacheFiles.write(outputPath, CACHE_MAGIC_NUMBER, CACHE_FORMAT_VERSION, cacheKey, outputStream -> {
 			// obtain fixed order of zones
 			List<Zone> zones = new ArrayList<>(zoneSystem.getZones().values());
 			outputStream.writeInt(zones.size());
 			for (Zone zone : zones) {
-				outputStream.writeUTF(zone.getId().toString());
+				MatrixCacheFiles.writeString(outputStream, zone.getId().toString());
 			}
 
-			// write matrix
+			// write matrix (travel times are unsigned shorts, see Matrix)
 			for (var from : zones) {
 				for (var to : zones) {
-					int value = freeSpeedTravelTimeMatrix.get(from, to);
-					outputStream.writeInt(value);
+					outputStream.writeShort(freeSpeedTravelTimeMatrix.get(from, to));
 				}
 			}
 
@@ -203,36 +262,30 @@ public class FreeSpeedTravelTimeMatrix implements TravelTimeMatrix {
 			if (freeSpeedTravelTimeSparseMatrix != null) {
 				// obtain fixed order of nodes
 				List<Node> nodes = new ArrayList<>(dvrpNetwork.getNodes().values());
+				int[] nodeIndex2position = new int[Id.getNumberOfIds(Node.class)];
+				Arrays.fill(nodeIndex2position, -1);
 				outputStream.writeInt(nodes.size());
-				for (Node node : nodes) {
-					outputStream.writeUTF(node.getId().toString());
+				for (int i = 0; i < nodes.size(); i++) {
+					Node node = nodes.get(i);
+					nodeIndex2position[node.getId().index()] = i;
+					MatrixCacheFiles.writeString(outputStream, node.getId().toString());
 				}
 
 				for (Node from : nodes) {
-					// write size of the matrix row
-					int rowSize = 0;
-
-					for (Node to : nodes) {
-						int value = freeSpeedTravelTimeSparseMatrix.get(from, to);
-						if (value >= 0) {
-							rowSize++;
-						}
+					SparseRow row = freeSpeedTravelTimeSparseMatrix.getRow(from);
+					if (row == null) {
+						outputStream.writeInt(0);
+						continue;
 					}
 
-					outputStream.writeInt(rowSize);
-					
-					// write matrix row
-					for (Node to : nodes) {
-						int value = freeSpeedTravelTimeSparseMatrix.get(from, to);
-						if (value >= 0) {
-							outputStream.writeInt(nodes.indexOf(to));
-							outputStream.writeInt(value);
-						}
-					}
+					// write size of the matrix row, then the row
+					outputStream.writeInt(row.size());
+					row.forEach((toNodeIndex, value) -> {
+						outputStream.writeInt(nodeIndex2position[toNodeIndex]);
+						outputStream.writeShort(value);
+					});
 				}
 			}
-		} catch (IOException e) {
-			throw new UncheckedIOException(e);
-		}
+		});
 	}
 }
@@ -41,7 +41,9 @@ public final class Matrix {
 
 	//there are usually not so many Zone objects, so not a problem if zoneIndex2localIndex is sparse
 	private final int[] zoneIndex2matrixIndex = new int[Id.getNumberOfIds(Zone.class)];
-	private final short[][] matrix;
+	private final int size;
+	// row-major: [fromIndex * size + toIndex]
+	private final short[] matrix;
 
 	public Matrix(Set<Zone> zones) {
 		//to make sure we do not refer to zones added later
@@ -53,14 +55,14 @@ public final class Matrix {
 			nextIndex++;
 		}
 
-		matrix = new short[zones.size()][zones.size()];
-		for (var row : matrix) {
-			Arrays.fill(row, (short)MAX_UNSIGNED_SHORT);//-1
-		}
+		size = zones.size();
+		checkArgument((long)size * size <= Integer.MAX_VALUE, "Too many zones for a single-array matrix: %s", size);
+		matrix = new short[size * size];
+		Arrays.fill(matrix, (short)MAX_UNSIGNED_SHORT);//-1
 	}
 
 	public int get(Zone fromZone, Zone toZone) {
-		short shortValue = matrix[matrixIndex(fromZone)][matrixIndex(toZone)];
+		short shortValue = matrix[matrixIndex(fromZone) * size + matrixIndex(toZone)];
 		if (shortValue == -1) {
 			throw new NoSuchElementException("No value set for zones: " + fromZone.getId() + " -> " + toZone.getId());
 		}
@@ -69,7 +71,7 @@ public final class Matrix {
 
 	void set(Zone fromZone, Zone toZone, double value) {
 		checkArgument(Double.isFinite(value) && value >= 0 && value < MAX_UNSIGNED_SHORT);
-		matrix[matrixIndex(fromZone)][matrixIndex(toZone)] = (short)value;
+		matrix[matrixIndex(fromZone) * size + matrixIndex(toZone)] = (short)value;
 	}
 
 	private int matrixIndex(Zone zone) {
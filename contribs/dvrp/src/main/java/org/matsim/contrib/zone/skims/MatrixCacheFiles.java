@@ -0,0 +1,130 @@
+/*
+ * *********************************************************************** *
+ * project: org.matsim.*
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** *
+ */
+
+package org.matsim.contrib.zone.skims;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Verify;
+
+/**
+ * Binary cache files of the travel time matrices. Each file starts with a header: magic number, format version and the
+ * key of the input data the file was created for.
+ * <p>
+ * Files are read with plain (buffered) reads and never memory mapped, and are written to a temporary file that is then
+ * moved into place. Otherwise, a file that has been read once could not be replaced on Windows.
+ */
+final class MatrixCacheFiles {
+	private static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES + Long.BYTES;
+
+	interface Writer {
+		void write(DataOutputStream outputStream) throws IOException;
+	}
+
+	/**
+	 * @return the key of the file, {@code null} if the file does not start with the given magic number and version
+	 */
+	@Nullable
+	static Long readKey(File file, int magicNumber, int version) {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while (header.hasRemaining()) {
+				if (channel.read(header) < 0) {
+					return null;
+				}
+			}
+			header.flip();
+			if (header.getInt() != magicNumber || header.getInt() != version) {
+				return null;
+			}
+			return header.getLong();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Opens the file and reads its header.
+	 */
+	static DataInputStream openForReading(File file, int magicNumber, int version, long key) throws IOException {
+		DataInputStream inputStream = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())));
+		try {
+			Verify.verify(inputStream.readInt() == magicNumber && inputStream.readInt() == version,
+					"Not a matrix cache file (or an outdated format): %s", file);
+			Verify.verify(inputStream.readLong() == key, "Matrix cache file created for different data: %s", file);
+			return inputStream;
+		} catch (IOException | RuntimeException e) {
+			inputStream.close();
+			throw e;
+		}
+	}
+
+	static void write(File file, int magicNumber, int version, long key, Writer writer) {
+		Path path = file.toPath();
+		Path tmpFile = path.resolveSibling(path.getFileName() + ".tmp");
+		try {
+			try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+				outputStream.writeInt(magicNumber);
+				outputStream.writeInt(version);
+				outputStream.writeLong(key);
+				writer.write(outputStream);
+			}
+
+			try {
+				Files.move(tmpFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmpFile, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	static void writeString(DataOutputStream outputStream, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		outputStream.writeInt(bytes.length);
+		outputStream.write(bytes);
+	}
+
+	static String readString(DataInputStream inputStream) throws IOException {
+		byte[] bytes = new byte[inputStream.readInt()];
+		inputStream.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private MatrixCacheFiles() {
+	}
+}
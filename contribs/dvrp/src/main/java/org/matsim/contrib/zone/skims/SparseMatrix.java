@@ -64,6 +64,16 @@ public final class SparseMatrix {
 		private int get(int toNodeIndex) {
 			return values[Arrays.binarySearch(nodeIndices, toNodeIndex)];
 		}
+
+		private <E extends Exception> void forEach(EntryConsumer<E> consumer) throws E {
+			for (int i = 0; i < nodeIndices.length; i++) {
+				consumer.accept(nodeIndices[i], Short.toUnsignedInt(values[i]));
+			}
+		}
+	}
+
+	interface EntryConsumer<E extends Exception> {
+		void accept(int toNodeIndex, int value) throws E;
 	}
 
 	static final class SparseRow {
@@ -112,6 +122,18 @@ public final class SparseMatrix {
 		int get(int toNodeIndex) {
 			return presentNodes.get(toNodeIndex) ? buckets[toNodeIndex & mask].get(toNodeIndex) : -1; // value not present in the row
 		}
+
+		int size() {
+			return presentNodes.cardinality();
+		}
+
+		<E extends Exception> void forEach(EntryConsumer<E> consumer) throws E {
+			if (buckets != null) {
+				for (Bucket bucket : buckets) {
+					bucket.forEach(consumer);
+				}
+			}
+		}
 	}
 
 	private final SparseRow[] rows = new SparseRow[Id.getNumberOfIds(Node.class)];
@@ -126,6 +148,13 @@ public final class SparseMatrix {
 		return get(fromNode.getId().index(), toNode.getId().index());
 	}
 
+	/**
+	 * @return the row for the node, {@code null} if no row has been set
+	 */
+	SparseRow getRow(Node fromNode) {
+		return rows[fromNode.getId().index()];
+	}
+
 	void setRow(Node fromNode, SparseRow row) {
 		rows[fromNode.getId().index()] = row;
 	}
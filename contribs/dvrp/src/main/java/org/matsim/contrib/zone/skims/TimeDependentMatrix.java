@@ -0,0 +1,259 @@
+/*
+ * *********************************************************************** *
+ * project: org.matsim.*
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** *
+ */
+
+package org.matsim.contrib.zone.skims;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.contrib.common.zones.Zone;
+
+/**
+ * Zone-to-zone matrix with one slice per departure time interval. All slices are stored in a single flat array
+ * ([slice][fromZone][toZone], row-major), so each row is a contiguous range that can be scanned (and vectorised by
+ * the JIT) without pointer chasing.
+ * <p>
+ * The element type is chosen with {@link Precision}: SHORT is as compact as {@link Matrix} (values up to 18:12:14),
+ * INT removes the upper limit, FLOAT additionally keeps fractions (e.g. for smoothed values).
+ * <p>
+ * Slice {@code i} covers departure times {@code [i * sliceDuration, (i + 1) * sliceDuration)}; times before the first
+ * (after the last) slice are assigned to the first (last) slice. With interpolation, the value of a slice refers to
+ * the middle of its interval and values in between are interpolated linearly.
+ */
+public final class TimeDependentMatrix {
+	public enum Precision {SHORT, INT, FLOAT}
+
+	//there are usually not so many Zone objects, so not a problem if zoneIndex2localIndex is sparse
+	private final int[] zoneIndex2matrixIndex = new int[Id.getNumberOfIds(Zone.class)];
+	private final int size;
+	private final int numberOfSlices;
+	private final double sliceDuration;
+	private final Storage storage;
+
+	public TimeDependentMatrix(Set<Zone> zones, int numberOfSlices, double sliceDuration, Precision precision) {
+		checkArgument(numberOfSlices > 0, "At least one time slice is required");
+		checkArgument(sliceDuration > 0 && Double.isFinite(sliceDuration), "Invalid slice duration: %s", sliceDuration);
+
+		//to make sure we do not refer to zones added later
+		Arrays.fill(zoneIndex2matrixIndex, -1);
+
+		int nextIndex = 0;
+		for (Zone zone : zones) {
+			zoneIndex2matrixIndex[zone.getId().index()] = nextIndex;
+			nextIndex++;
+		}
+
+		this.size = zones.size();
+		this.numberOfSlices = numberOfSlices;
+		this.sliceDuration = sliceDuration;
+
+		long length = (long)numberOfSlices * size * size;
+		checkArgument(length <= Integer.MAX_VALUE, "Too many zones/slices for a single-array matrix: %s x %s^2", numberOfSlices,
+				size);
+		this.storage = switch (precision) {
+			case SHORT -> new ShortStorage((int)length);
+			case INT -> new IntStorage((int)length);
+			case FLOAT -> new FloatStorage((int)length);
+		};
+	}
+
+	public int getNumberOfSlices() {
+		return numberOfSlices;
+	}
+
+	public double getSliceDuration() {
+		return sliceDuration;
+	}
+
+	public int getSlice(double departureTime) {
+		int slice = (int)Math.floor(departureTime / sliceDuration);
+		return Math.max(0, Math.min(slice, numberOfSlices - 1));
+	}
+
+	public double get(Zone fromZone, Zone toZone, int slice) {
+		int index = index(fromZone, toZone, slice);
+		if (!storage.isSet(index)) {
+			throw new NoSuchElementException(
+					"No value set for zones: " + fromZone.getId() + " -> " + toZone.getId() + " (slice: " + slice + ")");
+		}
+		return storage.get(index);
+	}
+
+	/**
+	 * @return value linearly interpolated between the two slices whose middles enclose {@code departureTime}
+	 */
+	public double getInterpolated(Zone fromZone, Zone toZone, double departureTime) {
+		double position = departureTime / sliceDuration - 0.5;// in slices, relative to the middle of slice 0
+		if (position <= 0) {
+			return get(fromZone, toZone, 0);
+		} else if (position >= numberOfSlices - 1) {
+			return get(fromZone, toZone, numberOfSlices - 1);
+		}
+
+		int slice = (int)position;
+		double weight = position - slice;
+		double value = get(fromZone, toZone, slice);
+		return weight == 0 ? value : value + weight * (get(fromZone, toZone, slice + 1) - value);
+	}
+
+	public void set(Zone fromZone, Zone toZone, int slice, double value) {
+		storage.set(index(fromZone, toZone, slice), value);
+	}
+
+	/**
+	 * Copies the row of {@code fromZone} in {@code slice} into {@code target}. The target is indexed in the iteration
+	 * order of the zone set passed to the constructor. Unset elements are copied as {@code NaN}.
+	 */
+	public void copyRow(Zone fromZone, int slice, double[] target) {
+		checkArgument(target.length >= size, "Target array too short: %s < %s", target.length, size);
+		storage.copy(index(fromZone, slice) * size, target, size);
+	}
+
+	private int index(Zone fromZone, Zone toZone, int slice) {
+		return index(fromZone, slice) * size + matrixIndex(toZone);
+	}
+
+	// index of the row (fromZone, slice)
+	private int index(Zone fromZone, int slice) {
+		checkArgument(slice >= 0 && slice < numberOfSlices, "Slice out of range: %s", slice);
+		return slice * size + matrixIndex(fromZone);
+	}
+
+	private int matrixIndex(Zone zone) {
+		int index = zoneIndex2matrixIndex[zone.getId().index()];
+		checkArgument(index >= 0, "Matrix was not created for zone: (%s)", zone);
+		return index;
+	}
+
+	private interface Storage {
+		boolean isSet(int index);
+
+		double get(int index);
+
+		void set(int index, double value);
+
+		void copy(int from, double[] target, int length);
+	}
+
+	private static final class ShortStorage implements Storage {
+		//Range of unsigned short: 0-65535 (18:12:15), see Matrix
+		private static final int MAX_UNSIGNED_SHORT = Short.MAX_VALUE - Short.MIN_VALUE;
+
+		private final short[] values;
+
+		private ShortStorage(int length) {
+			values = new short[length];
+			Arrays.fill(values, (short)MAX_UNSIGNED_SHORT);//-1
+		}
+
+		@Override
+		public boolean isSet(int index) {
+			return values[index] != -1;
+		}
+
+		@Override
+		public double get(int index) {
+			return Short.toUnsignedInt(values[index]);
+		}
+
+		@Override
+		public void set(int index, double value) {
+			checkArgument(Double.isFinite(value) && value >= 0 && value < MAX_UNSIGNED_SHORT);
+			values[index] = (short)value;
+		}
+
+		@Override
+		public void copy(int from, double[] target, int length) {
+			for (int i = 0; i < length; i++) {
+				short value = values[from + i];
+				target[i] = value == -1 ? Double.NaN : Short.toUnsignedInt(value);
+			}
+		}
+	}
+
+	private static final class IntStorage implements Storage {
+		private final int[] values;
+
+		private IntStorage(int length) {
+			values = new int[length];
+			Arrays.fill(values, -1);
+		}
+
+		@Override
+		public boolean isSet(int index) {
+			return values[index] != -1;
+		}
+
+		@Override
+		public double get(int index) {
+			return values[index];
+		}
+
+		@Override
+		public void set(int index, double value) {
+			checkArgument(Double.isFinite(value) && value >= 0 && value < Integer.MAX_VALUE);
+			values[index] = (int)value;
+		}
+
+		@Override
+		public void copy(int from, double[] target, int length) {
+			for (int i = 0; i < length; i++) {
+				int value = values[from + i];
+				target[i] = value == -1 ? Double.NaN : value;
+			}
+		}
+	}
+
+	private static final class FloatStorage implements Storage {
+		private final float[] values;
+
+		private FloatStorage(int length) {
+			values = new float[length];
+			Arrays.fill(values, Float.NaN);
+		}
+
+		@Override
+		public boolean isSet(int index) {
+			return !Float.isNaN(values[index]);
+		}
+
+		@Override
+		public double get(int index) {
+			return values[index];
+		}
+
+		@Override
+		public void set(int index, double value) {
+			checkArgument(Double.isFinite(value) && value >= 0);
+			values[index] = (float)value;
+		}
+
+		@Override
+		public void copy(int from, double[] target, int length) {
+			for (int i = 0; i < length; i++) {
+				target[i] = values[from + i];
+			}
+		}
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * *********************************************************************** *
+ * project: org.matsim.*
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** *
+ */
+
+package org.matsim.contrib.zone.skims;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.contrib.common.zones.ZoneSystem;
+import org.matsim.contrib.common.zones.systems.grid.square.SquareGridZoneSystem;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class AdaptiveTravelTimeMatrixImplTest {
+
+	@RegisterExtension
+	MatsimTestUtils utils = new MatsimTestUtils();
+
+	private final Network network = NetworkUtils.createNetwork();
+	private final Node nodeA = NetworkUtils.createAndAddNode(network, Id.createNodeId("A"), new Coord(0, 0));
+	private final Node nodeB = NetworkUtils.createAndAddNode(network, Id.createNodeId("B"), new Coord(150, 150));
+	private final ZoneSystem zoneSystem;
+
+	public AdaptiveTravelTimeMatrixImplTest() {
+		NetworkUtils.createAndAddLink(network, Id.createLinkId("AB"), nodeA, nodeB, 150, 15, 20, 1);
+		NetworkUtils.createAndAddLink(network, Id.createLinkId("BA"), nodeB, nodeA, 300, 15, 40, 1);
+		zoneSystem = new SquareGridZoneSystem(network, 100.);
+	}
+
+	@Test
+	void cache_restoresLearnedTravelTimes() {
+		// zonal travel times
+		DvrpTravelTimeMatrixParams params = new DvrpTravelTimeMatrixParams();
+		params.maxNeighborDistance = 0;
+		var matrix = createMatrix(params);
+		matrix.setTravelTime(nodeA, nodeB, 100, 0);
+
+		// sparse travel times
+		DvrpTravelTimeMatrixParams sparseParams = new DvrpTravelTimeMatrixParams();
+		var sparseMatrix = createMatrix(sparseParams);
+		sparseMatrix.setTravelTime(nodeA, nodeB, 50.5, 3600);
+
+		File cachePath = new File(utils.getOutputDirectory(), "adaptive_cache.bin");
+		File sparseCachePath = new File(utils.getOutputDirectory(), "adaptive_sparse_cache.bin");
+		matrix.writeCache(cachePath);
+		sparseMatrix.writeCache(sparseCachePath);
+
+		matrix = createMatrix(params);
+		assertThat(matrix.readCache(cachePath)).isTrue();
+		assertThat(matrix.getTravelTime(nodeA, nodeB, 0)).isEqualTo(100);
+		assertThat(matrix.getTravelTime(nodeA, nodeB, 3600)).isEqualTo(10 + 1); // free speed
+		assertThat(matrix.getTravelTime(nodeB, nodeA, 0)).isEqualTo(20 + 1); // free speed
+
+		sparseMatrix = createMatrix(sparseParams);
+		assertThat(sparseMatrix.readCache(sparseCachePath)).isTrue();
+		assertThat(sparseMatrix.getTravelTime(nodeA, nodeB, 3600)).isEqualTo(50.5);
+		assertThat(sparseMatrix.getTravelTime(nodeA, nodeB, 0)).isEqualTo(10 + 1); // free speed
+
+		// cache created for different params is ignored
+		matrix = createMatrix(sparseParams);
+		assertThat(matrix.readCache(cachePath)).isFalse();
+		assertThat(matrix.getTravelTime(nodeA, nodeB, 0)).isEqualTo(10 + 1); // free speed
+	}
+
+	private AdaptiveTravelTimeMatrixImpl createMatrix(DvrpTravelTimeMatrixParams params) {
+		var freeSpeedMatrix = FreeSpeedTravelTimeMatrix.createFreeSpeedMatrix(network, zoneSystem, params, 1, 1);
+		return new AdaptiveTravelTimeMatrixImpl(2 * 3600, network, zoneSystem, params, freeSpeedMatrix, 1);
+	}
+}
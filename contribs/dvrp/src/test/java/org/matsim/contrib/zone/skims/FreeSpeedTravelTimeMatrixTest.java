@@ -77,7 +77,7 @@ public class FreeSpeedTravelTimeMatrixTest {
 		// write and read cache
 		File cachePath = new File(utils.getOutputDirectory(), "cache.bin");
 		matrix.write(cachePath, network);
-		matrix = FreeSpeedTravelTimeMatrix.createFreeSpeedMatrixFromCache(network, zoneSystem, null, 1, 1, cachePath);
+		matrix = FreeSpeedTravelTimeMatrix.createFreeSpeedMatrixFromCache(network, zoneSystem, params, 1, 1, cachePath);
 
 		// distances between central nodes: A and B
 		assertThat(matrix.getTravelTime(nodeA, nodeA, 0)).isEqualTo(0);
@@ -115,7 +115,7 @@ public class FreeSpeedTravelTimeMatrixTest {
 		// write and read cache
 		File cachePath = new File(utils.getOutputDirectory(), "cache.bin");
 		matrix.write(cachePath, network);
-		matrix = FreeSpeedTravelTimeMatrix.createFreeSpeedMatrixFromCache(network, zoneSystem, null, 1, 1, cachePath);
+		matrix = FreeSpeedTravelTimeMatrix.createFreeSpeedMatrixFromCache(network, zoneSystem, params, 1, 1, cachePath);
 
 		// distances between central nodes: A and B
 		assertThat(matrix.getTravelTime(nodeA, nodeA, 0)).isEqualTo(0);
@@ -129,4 +129,25 @@ public class FreeSpeedTravelTimeMatrixTest {
 		assertThat(matrix.getTravelTime(nodeB, nodeC, 0)).isEqualTo(20 + 11 + 2); // 2 s for moving over nodes
 		assertThat(matrix.getTravelTime(nodeC, nodeB, 0)).isEqualTo(10 + 9 + 2); // 2 s for moving over nodes
 	}
+
+	@Test
+	void cache_recalculatedForDifferentParams() {
+		DvrpTravelTimeMatrixParams params = new DvrpTravelTimeMatrixParams();
+		params.maxNeighborDistance = 0;
+		ZoneSystem zoneSystem = new SquareGridZoneSystem(network, 100.);
+		File cachePath = new File(utils.getOutputDirectory(), "cache.bin");
+		FreeSpeedTravelTimeMatrix.createFreeSpeedMatrixFromCache(network, zoneSystem, params, 1, 1, cachePath);
+
+		// zonal travel time: C and A are in the same zone
+		var matrix = FreeSpeedTravelTimeMatrix.createFreeSpeedMatrixFromCache(network, zoneSystem, params, 1, 1, cachePath);
+		assertThat(matrix.getTravelTime(nodeA, nodeC, 0)).isEqualTo(0);
+
+		// the cached matrix has no sparse matrix, so it is recalculated (and the cache overwritten)
+		params.maxNeighborDistance = 9999;
+		matrix = FreeSpeedTravelTimeMatrix.createFreeSpeedMatrixFromCache(network, zoneSystem, params, 1, 1, cachePath);
+		assertThat(matrix.getTravelTime(nodeA, nodeC, 0)).isEqualTo(11 + 1); // 1 s for moving over nodes
+
+		matrix = new FreeSpeedTravelTimeMatrix(network, zoneSystem, cachePath);
+		assertThat(matrix.getTravelTime(nodeA, nodeC, 0)).isEqualTo(11 + 1); // 1 s for moving over nodes
+	}
 }
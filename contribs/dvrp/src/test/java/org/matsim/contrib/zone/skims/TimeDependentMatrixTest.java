@@ -0,0 +1,124 @@
+/*
+ * *********************************************************************** *
+ * project: org.matsim.*
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** *
+ */
+
+package org.matsim.contrib.zone.skims;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.contrib.common.zones.Zone;
+import org.matsim.contrib.common.zones.ZoneImpl;
+import org.matsim.contrib.zone.skims.TimeDependentMatrix.Precision;
+
+public class TimeDependentMatrixTest {
+	private final Zone unknownZone = new ZoneImpl(Id.create("?", Zone.class), null, null, null);
+
+	private final Zone zoneA = new ZoneImpl(Id.create("A", Zone.class), null, null, null);
+	private final Zone zoneB = new ZoneImpl(Id.create("B", Zone.class), null, null, null);
+	private final Zone zoneC = new ZoneImpl(Id.create("C", Zone.class), null, null, null);
+
+	private final Set<Zone> zones = new LinkedHashSet<>(List.of(zoneA, zoneB, zoneC));
+
+	@Test
+	void get_unsetValue() {
+		for (Precision precision : Precision.values()) {
+			var matrix = new TimeDependentMatrix(zones, 2, 3600, precision);
+			matrix.set(zoneA, zoneB, 0, 10);
+			assertThatThrownBy(() -> matrix.get(zoneA, zoneB, 1)).isExactlyInstanceOf(NoSuchElementException.class)
+					.hasMessage("No value set for zones: A -> B (slice: 1)");
+		}
+	}
+
+	@Test
+	void get_precision() {
+		var shortMatrix = new TimeDependentMatrix(zones, 1, 3600, Precision.SHORT);
+		shortMatrix.set(zoneA, zoneB, 0, 65534.9);
+		assertThat(shortMatrix.get(zoneA, zoneB, 0)).isEqualTo(65534);
+		assertThatThrownBy(() -> shortMatrix.set(zoneA, zoneB, 0, 65535)).isExactlyInstanceOf(IllegalArgumentException.class);
+
+		var intMatrix = new TimeDependentMatrix(zones, 1, 3600, Precision.INT);
+		intMatrix.set(zoneA, zoneB, 0, 100_000.9);
+		assertThat(intMatrix.get(zoneA, zoneB, 0)).isEqualTo(100_000);
+
+		var floatMatrix = new TimeDependentMatrix(zones, 1, 3600, Precision.FLOAT);
+		floatMatrix.set(zoneA, zoneB, 0, 100_000.5);
+		assertThat(floatMatrix.get(zoneA, zoneB, 0)).isEqualTo(100_000.5);
+
+		for (var matrix : List.of(shortMatrix, intMatrix, floatMatrix)) {
+			assertThatThrownBy(() -> matrix.set(zoneA, zoneC, 0, -1)).isExactlyInstanceOf(IllegalArgumentException.class);
+			assertThatThrownBy(() -> matrix.set(zoneA, zoneC, 0, Double.NaN)).isExactlyInstanceOf(IllegalArgumentException.class);
+		}
+	}
+
+	@Test
+	void getSlice() {
+		var matrix = new TimeDependentMatrix(zones, 3, 3600, Precision.SHORT);
+		assertThat(matrix.getSlice(-1)).isEqualTo(0);
+		assertThat(matrix.getSlice(0)).isEqualTo(0);
+		assertThat(matrix.getSlice(3599)).isEqualTo(0);
+		assertThat(matrix.getSlice(3600)).isEqualTo(1);
+		assertThat(matrix.getSlice(3 * 3600)).isEqualTo(2);
+		assertThat(matrix.getSlice(100 * 3600)).isEqualTo(2);
+	}
+
+	@Test
+	void getInterpolated() {
+		var matrix = new TimeDependentMatrix(zones, 3, 3600, Precision.FLOAT);
+		matrix.set(zoneA, zoneB, 0, 100);
+		matrix.set(zoneA, zoneB, 1, 200);
+		matrix.set(zoneA, zoneB, 2, 400);
+
+		assertThat(matrix.getInterpolated(zoneA, zoneB, 0)).isEqualTo(100);
+		assertThat(matrix.getInterpolated(zoneA, zoneB, 1800)).isEqualTo(100);
+		assertThat(matrix.getInterpolated(zoneA, zoneB, 2700)).isEqualTo(125);
+		assertThat(matrix.getInterpolated(zoneA, zoneB, 5400)).isEqualTo(200);
+		assertThat(matrix.getInterpolated(zoneA, zoneB, 7200)).isEqualTo(300);
+		assertThat(matrix.getInterpolated(zoneA, zoneB, 9000)).isEqualTo(400);
+		assertThat(matrix.getInterpolated(zoneA, zoneB, 20000)).isEqualTo(400);
+	}
+
+	@Test
+	void copyRow() {
+		var matrix = new TimeDependentMatrix(zones, 2, 3600, Precision.SHORT);
+		matrix.set(zoneB, zoneA, 1, 1);
+		matrix.set(zoneB, zoneC, 1, 3);
+		matrix.set(zoneB, zoneB, 0, 2);
+
+		double[] row = new double[3];
+		matrix.copyRow(zoneB, 1, row);
+		assertThat(row).containsExactly(1, Double.NaN, 3);
+	}
+
+	@Test
+	void unknownZoneOrSlice() {
+		var matrix = new TimeDependentMatrix(zones, 2, 3600, Precision.INT);
+		assertThatThrownBy(() -> matrix.get(zoneA, unknownZone, 0)).isExactlyInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> matrix.set(unknownZone, zoneC, 0, 1)).isExactlyInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> matrix.get(zoneA, zoneB, 2)).isExactlyInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> matrix.set(zoneA, zoneB, -1, 1)).isExactlyInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -10,6 +10,7 @@ import org.matsim.core.utils.pb.*;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -164,7 +165,8 @@ public class EventWriterPB implements EventWriter, BasicEventHandler {
                     .setNetworkMode(((VehicleLeavesTrafficEvent) event).getNetworkMode())
                     .setRelativePositionOnLink(((VehicleLeavesTrafficEvent) event).getRelativePositionOnLink());
         } else {
-            Map<String, String> attrs = event.getAttributes();
+            // copy the attributes, since generic events return their own map
+            Map<String, String> attrs = new LinkedHashMap<>(event.getAttributes());
             // Checking references is safe here because they are constant
             attrs.keySet().removeIf(key -> key == Event.ATTRIBUTE_X || key == Event.ATTRIBUTE_Y ||
                     key == Event.ATTRIBUTE_TIME || key == Event.ATTRIBUTE_TYPE);
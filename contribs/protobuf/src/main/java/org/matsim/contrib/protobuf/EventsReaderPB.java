@@ -0,0 +1,367 @@
+package org.matsim.contrib.protobuf;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.*;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventsReaderXMLv1;
+import org.matsim.core.events.MatsimEventsReader;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.pb.*;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.vehicles.Vehicle;
+import org.xml.sax.helpers.AttributesImpl;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Event reader for protobuf format according to {@link org.matsim.core.utils.pb.Wireformat}, i.e. files written by
+ * {@link EventWriterPB}.
+ * <p>
+ * The file is read as a stream of length-delimited {@link ProtoEvents.EventBatch} messages, and the events are passed
+ * to the {@link EventsManager} in the order of the file. Typed protobuf events are mapped back to their MATSim classes.
+ * Generic protobuf events are mapped like in the xml reader, so events that the writer could only store as generic
+ * events, e.g. {@link org.matsim.core.api.experimental.events.TeleportationArrivalEvent}, are read as their original
+ * classes again, and custom events can be mapped with {@link #addCustomEventMapper}.
+ * <p>
+ * Ids and frequent strings (activity types, modes) are interned per reader, so all events share the same instances
+ * and a repeated id is not looked up in the global {@link Id} cache again. An empty id is read as <code>null</code>,
+ * because the writer stores <code>null</code> ids as empty ids.
+ * <p>
+ * With {@link #setNumberOfThreads(int)}, batches are parsed and converted on several threads. The events are still
+ * passed to the events manager one after the other, from the thread that called the reader.
+ */
+public final class EventsReaderPB {
+
+    /**
+     * How many batches per thread are parsed ahead of the batch that is currently passed to the events manager.
+     */
+    private static final int BATCHES_AHEAD_PER_THREAD = 4;
+
+    private final EventsManager events;
+
+    /**
+     * Maps generic events the same way as the xml reader.
+     */
+    private final EventsReaderXMLv1 genericReader;
+    private final AttributesImpl attributes = new AttributesImpl();
+    private final Stack<String> context = new Stack<>();
+
+    private final Map<String, Id<Person>> personIds = new ConcurrentHashMap<>();
+    private final Map<String, Id<Link>> linkIds = new ConcurrentHashMap<>();
+    private final Map<String, Id<Vehicle>> vehicleIds = new ConcurrentHashMap<>();
+    private final Map<String, Id<ActivityFacility>> facilityIds = new ConcurrentHashMap<>();
+    private final Map<String, Id<TransitLine>> transitLineIds = new ConcurrentHashMap<>();
+    private final Map<String, Id<TransitRoute>> transitRouteIds = new ConcurrentHashMap<>();
+    private final Map<String, Id<Departure>> departureIds = new ConcurrentHashMap<>();
+    private final Map<String, String> strings = new ConcurrentHashMap<>();
+
+    private int numberOfThreads = 1;
+
+    public EventsReaderPB(EventsManager events) {
+        this.events = events;
+        this.genericReader = new EventsReaderXMLv1(events);
+    }
+
+    public void addCustomEventMapper(String eventType, MatsimEventsReader.CustomEventMapper cem) {
+        this.genericReader.addCustomEventMapper(eventType, cem);
+    }
+
+    /**
+     * Number of threads used to parse and convert the event batches. The default of 1 reads the file on the calling
+     * thread only.
+     */
+    public void setNumberOfThreads(int numberOfThreads) {
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be strictly positive, got " + numberOfThreads);
+        }
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    public void readFile(String filename) {
+        try (InputStream in = IOUtils.getInputStream(IOUtils.resolveFileOrResource(filename))) {
+            readStream(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads all events from the stream. The stream is not closed.
+     */
+    public void readStream(InputStream stream) {
+        InputStream in = stream instanceof BufferedInputStream ? stream : new BufferedInputStream(stream, 1 << 16);
+        try {
+            readHeader(in);
+            if (this.numberOfThreads == 1) {
+                ProtoEvents.EventBatch batch;
+                while ((batch = ProtoEvents.EventBatch.parseDelimitedFrom(in)) != null) {
+                    processEvents(convertBatch(batch));
+                }
+            } else {
+                readParallel(in);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void readHeader(InputStream in) throws IOException {
+        PBFileHeader header = PBFileHeader.parseDelimitedFrom(in);
+        if (header == null) {
+            throw new EOFException("The events file is empty, not even the header could be read.");
+        }
+        if (header.getContentType() != ContentType.EVENTS) {
+            throw new IllegalArgumentException("The file does not contain events, but " + header.getContentType());
+        }
+        if (header.getVersion() > PBVersion.EVENTS) {
+            throw new IllegalArgumentException("The events file has version " + header.getVersion()
+                    + ", but only versions up to " + PBVersion.EVENTS + " can be read.");
+        }
+    }
+
+    /**
+     * Reads the raw bytes of the batches on this thread and lets the pool parse and convert them. The converted batches
+     * are processed in the order in which they were read.
+     */
+    private void readParallel(InputStream in) throws IOException {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(this.numberOfThreads, r -> {
+            Thread thread = new Thread(r, "EventsReaderPB-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ArrayDeque<Future<Event[]>> pending = new ArrayDeque<>();
+        int maxPending = this.numberOfThreads * BATCHES_AHEAD_PER_THREAD;
+        try {
+            byte[] data;
+            while ((data = readDelimited(in)) != null) {
+                byte[] batchData = data;
+                pending.add(pool.submit(() -> convertBatch(ProtoEvents.EventBatch.parseFrom(batchData))));
+                if (pending.size() >= maxPending) {
+                    processEvents(await(pending.poll()));
+                }
+            }
+            while (!pending.isEmpty()) {
+                processEvents(await(pending.poll()));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the bytes of the next length-delimited message, or <code>null</code> at the end of the stream.
+     */
+    private static byte[] readDelimited(InputStream in) throws IOException {
+        int firstByte = in.read();
+        if (firstByte == -1) {
+            return null;
+        }
+        int size = CodedInputStream.readRawVarint32(firstByte, in);
+        byte[] data = in.readNBytes(size);
+        if (data.length != size) {
+            throw new EOFException("The events file ends within a batch of events.");
+        }
+        return data;
+    }
+
+    private static Event[] await(Future<Event[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof InvalidProtocolBufferException ipbe) {
+                throw ipbe;
+            }
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private void processEvents(Event[] batch) {
+        for (Event event : batch) {
+            if (event instanceof GenericEvent) {
+                processGenericEvent((GenericEvent) event);
+            } else {
+                this.events.processEvent(event);
+            }
+        }
+    }
+
+    private void processGenericEvent(GenericEvent event) {
+        AttributesImpl atts = this.attributes;
+        atts.clear();
+        for (Map.Entry<String, String> e : event.getAttributes().entrySet()) {
+            atts.addAttribute("", e.getKey(), e.getKey(), "CDATA", e.getValue());
+        }
+        this.genericReader.startTag(EventsReaderXMLv1.EVENT, atts, this.context);
+    }
+
+    private Event[] convertBatch(ProtoEvents.EventBatch batch) {
+        Event[] converted = new Event[batch.getEventsCount()];
+        for (int i = 0; i < converted.length; i++) {
+            converted[i] = convertEvent(batch.getEvents(i));
+        }
+        return converted;
+    }
+
+    /**
+     * Converts a protobuf event back to the MATSim event. Generic events are returned as {@link GenericEvent}, with the
+     * coordinate as attributes, and are mapped to their actual classes only when they are processed.
+     */
+    Event convertEvent(ProtoEvents.Event event) {
+
+        double time = event.getTime();
+
+        switch (event.getTypeCase()) {
+            case ACTIVITYEND: {
+                ProtoEvents.ActivityEndEvent e = event.getActivityEnd();
+                return new ActivityEndEvent(time, id(e.getPersonId(), this.personIds, Person.class),
+                        id(e.getLinkId(), this.linkIds, Link.class),
+                        id(e.getFacilityId(), this.facilityIds, ActivityFacility.class),
+                        string(e.getActtype()), coord(event));
+            }
+            case ACTIVITYSTART: {
+                ProtoEvents.ActivityStartEvent e = event.getActivityStart();
+                return new ActivityStartEvent(time, id(e.getPersonId(), this.personIds, Person.class),
+                        id(e.getLinkId(), this.linkIds, Link.class),
+                        id(e.getFacilityId(), this.facilityIds, ActivityFacility.class),
+                        string(e.getActtype()), coord(event));
+            }
+            case LINKENTER: {
+                ProtoEvents.LinkEnterEvent e = event.getLinkEnter();
+                return new LinkEnterEvent(time, id(e.getVehicleId(), this.vehicleIds, Vehicle.class),
+                        id(e.getLinkId(), this.linkIds, Link.class));
+            }
+            case LINKLEAVE: {
+                ProtoEvents.LinkLeaveEvent e = event.getLinkLeave();
+                return new LinkLeaveEvent(time, id(e.getVehicleId(), this.vehicleIds, Vehicle.class),
+                        id(e.getLinkId(), this.linkIds, Link.class));
+            }
+            case PERSONALARRIVAL: {
+                ProtoEvents.PersonArrivalEvent e = event.getPersonalArrival();
+                return new PersonArrivalEvent(time, id(e.getPersonId(), this.personIds, Person.class),
+                        id(e.getLinkId(), this.linkIds, Link.class), string(e.getLegMode()));
+            }
+            case PERSONDEPARTURE: {
+                ProtoEvents.PersonDepartureEvent e = event.getPersonDeparture();
+                // the routing mode is not part of the wire format
+                return new PersonDepartureEvent(time, id(e.getPersonId(), this.personIds, Person.class),
+                        id(e.getLinkId(), this.linkIds, Link.class), string(e.getLegMode()), null);
+            }
+            case PERSONENTERSVEHICLE: {
+                ProtoEvents.PersonEntersVehicleEvent e = event.getPersonEntersVehicle();
+                return new PersonEntersVehicleEvent(time, id(e.getPersonId(), this.personIds, Person.class),
+                        id(e.getVehicleId(), this.vehicleIds, Vehicle.class));
+            }
+            case PERSONLEAVESVEHICLE: {
+                ProtoEvents.PersonLeavesVehicleEvent e = event.getPersonLeavesVehicle();
+                return new PersonLeavesVehicleEvent(time, id(e.getPersonId(), this.personIds, Person.class),
+                        id(e.getVehicleId(), this.vehicleIds, Vehicle.class));
+            }
+            case PERSONMONEY: {
+                ProtoEvents.PersonMoneyEvent e = event.getPersonMoney();
+                return new PersonMoneyEvent(time, id(e.getPersonId(), this.personIds, Person.class), e.getAmount(),
+                        emptyToNull(e.getPurpose()), emptyToNull(e.getTransactionPartner()));
+            }
+            case PERSONSTUCK: {
+                ProtoEvents.PersonStuckEvent e = event.getPersonStuck();
+                return new PersonStuckEvent(time, id(e.getPersonId(), this.personIds, Person.class),
+                        id(e.getLinkId(), this.linkIds, Link.class), string(e.getLegMode()));
+            }
+            case TRANSITDRIVERSTARTS: {
+                ProtoEvents.TransitDriverStartsEvent e = event.getTransitDriverStarts();
+                return new TransitDriverStartsEvent(time, id(e.getDriverId(), this.personIds, Person.class),
+                        id(e.getVehicleId(), this.vehicleIds, Vehicle.class),
+                        id(e.getTransitLineId(), this.transitLineIds, TransitLine.class),
+                        id(e.getTransitRouteId(), this.transitRouteIds, TransitRoute.class),
+                        id(e.getDepartureId(), this.departureIds, Departure.class));
+            }
+            case VEHICLEABORTS: {
+                ProtoEvents.VehicleAbortsEvent e = event.getVehicleAborts();
+                return new VehicleAbortsEvent(time, id(e.getVehicleId(), this.vehicleIds, Vehicle.class),
+                        id(e.getLinkId(), this.linkIds, Link.class));
+            }
+            case VEHICLEENTERSTRAFFIC: {
+                ProtoEvents.VehicleEntersTrafficEvent e = event.getVehicleEntersTraffic();
+                return new VehicleEntersTrafficEvent(time, id(e.getDriverId(), this.personIds, Person.class),
+                        id(e.getLinkId(), this.linkIds, Link.class),
+                        id(e.getVehicleId(), this.vehicleIds, Vehicle.class),
+                        string(e.getNetworkMode()), e.getRelativePositionOnLink());
+            }
+            case VEHICLELEAVESTRAFFIC: {
+                ProtoEvents.VehicleLeavesTrafficEvent e = event.getVehicleLeavesTraffic();
+                return new VehicleLeavesTrafficEvent(time, id(e.getDriverId(), this.personIds, Person.class),
+                        id(e.getLinkId(), this.linkIds, Link.class),
+                        id(e.getVehicleId(), this.vehicleIds, Vehicle.class),
+                        string(e.getNetworkMode()), e.getRelativePositionOnLink());
+            }
+            case GENERIC: {
+                ProtoEvents.GenericEvent e = event.getGeneric();
+                GenericEvent generic = new GenericEvent(e.getType(), time);
+                generic.getAttributes().putAll(e.getAttrsMap());
+                if (event.hasCoords()) {
+                    generic.getAttributes().put(Event.ATTRIBUTE_X, Double.toString(event.getCoords().getX()));
+                    generic.getAttributes().put(Event.ATTRIBUTE_Y, Double.toString(event.getCoords().getY()));
+                }
+                return generic;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown protobuf event at time " + time + ": " + event.getTypeCase());
+        }
+    }
+
+    private static <T> Id<T> id(ProtoId id, Map<String, Id<T>> cache, Class<T> type) {
+        String key = id.getId();
+        if (key.isEmpty()) {
+            return null;
+        }
+        Id<T> result = cache.get(key);
+        if (result == null) {
+            result = cache.computeIfAbsent(key, k -> Id.create(k, type));
+        }
+        return result;
+    }
+
+    private String string(String s) {
+        String result = this.strings.get(s);
+        if (result == null) {
+            result = this.strings.computeIfAbsent(s, String::intern);
+        }
+        return result;
+    }
+
+    private static Coord coord(ProtoEvents.Event event) {
+        return event.hasCoords() ? new Coord(event.getCoords().getX(), event.getCoords().getY()) : null;
+    }
+
+    private static String emptyToNull(String s) {
+        return s.isEmpty() ? null : s;
+    }
+
+}
@@ -0,0 +1,145 @@
+package org.matsim.contrib.protobuf;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.*;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.api.experimental.events.TeleportationArrivalEvent;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.testcases.MatsimTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EventsReaderPBTest {
+
+    @RegisterExtension
+    public MatsimTestUtils utils = new MatsimTestUtils();
+
+    @Test
+    void readWrittenEvents() throws IOException {
+
+        List<Event> written = createEvents();
+        File file = new File(utils.getOutputDirectory() + "events.pb.gz");
+        EventWriterPB writer = new EventWriterPB(IOUtils.getOutputStream(file.toURI().toURL(), false));
+        written.forEach(writer::handleEvent);
+        writer.closeFile();
+
+        List<Map<String, String>> expected = written.stream().map(Event::getAttributes).toList();
+
+        for (int threads : new int[]{1, 4}) {
+            List<Event> read = readEvents(file, threads);
+
+            assertThat(read).extracting(Event::getAttributes).containsExactlyElementsOf(expected);
+            // events that could only be written as generic events are mapped back to their classes
+            assertThat(read.get(written.size() - 1)).isInstanceOf(TeleportationArrivalEvent.class);
+            // ids are interned
+            assertThat(((LinkEnterEvent) read.get(2)).getLinkId()).isSameAs(((LinkLeaveEvent) read.get(3)).getLinkId());
+        }
+    }
+
+    @Test
+    void readWithCustomEventMapper() throws IOException {
+
+        File file = new File(utils.getOutputDirectory() + "events.pb");
+        EventWriterPB writer = new EventWriterPB(IOUtils.getOutputStream(file.toURI().toURL(), false));
+        GenericEvent custom = new GenericEvent("custom", 12.0);
+        custom.getAttributes().put("value", "42");
+        writer.handleEvent(custom);
+        writer.closeFile();
+
+        List<Event> read = new ArrayList<>();
+        EventsManager events = EventsUtils.createEventsManager();
+        events.addHandler((BasicEventHandler) read::add);
+        events.initProcessing();
+        EventsReaderPB reader = new EventsReaderPB(events);
+        reader.addCustomEventMapper("custom", e -> new PersonMoneyEvent(e.getTime(), Id.createPersonId("p"),
+                Double.parseDouble(e.getAttributes().get("value")), "custom", "reader"));
+        reader.readFile(file.getPath());
+        events.finishProcessing();
+
+        assertThat(read).hasSize(1);
+        assertThat(read.get(0)).isInstanceOf(PersonMoneyEvent.class)
+                .hasFieldOrPropertyWithValue("time", 12.0)
+                .hasFieldOrPropertyWithValue("amount", 42.0);
+    }
+
+    @Test
+    void readWithMatsimEventsReader() throws IOException {
+
+        List<Event> written = createEvents();
+        File file = new File(utils.getOutputDirectory() + "events.pb");
+        EventWriterPB writer = new EventWriterPB(IOUtils.getOutputStream(file.toURI().toURL(), false));
+        written.forEach(writer::handleEvent);
+        writer.closeFile();
+
+        List<Event> read = new ArrayList<>();
+        EventsManager events = EventsUtils.createEventsManager();
+        events.addHandler((BasicEventHandler) read::add);
+        events.initProcessing();
+        EventsUtils.readEvents(events, file.getPath());
+        events.finishProcessing();
+
+        assertThat(read).hasSameSizeAs(written);
+    }
+
+    private static List<Event> readEvents(File file, int threads) {
+        List<Event> read = new ArrayList<>();
+        EventsManager events = EventsUtils.createEventsManager();
+        events.addHandler((BasicEventHandler) read::add);
+        events.initProcessing();
+        EventsReaderPB reader = new EventsReaderPB(events);
+        reader.setNumberOfThreads(threads);
+        reader.readFile(file.getPath());
+        events.finishProcessing();
+        return read;
+    }
+
+    /**
+     * Creates enough events for several batches, and one of each type that has its own protobuf message.
+     */
+    private static List<Event> createEvents() {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            double time = 6 * 3600 + i;
+            var person = Id.createPersonId("p" + (i % 100));
+            var vehicle = Id.createVehicleId("v" + (i % 100));
+            var link = Id.createLinkId("l" + (i % 37));
+            events.add(new ActivityEndEvent(time, person, link, null, "home", new Coord(i, -i)));
+            events.add(new PersonDepartureEvent(time, person, link, "car", null));
+            events.add(new LinkEnterEvent(time, vehicle, link));
+            events.add(new LinkLeaveEvent(time + 1, vehicle, link));
+        }
+        double time = 8 * 3600;
+        var person = Id.createPersonId("p0");
+        var vehicle = Id.createVehicleId("v0");
+        var link = Id.createLinkId("l0");
+        events.add(new PersonEntersVehicleEvent(time, person, vehicle));
+        events.add(new VehicleEntersTrafficEvent(time, person, link, vehicle, "car", 1.0));
+        events.add(new VehicleLeavesTrafficEvent(time, person, link, vehicle, "car", 1.0));
+        events.add(new VehicleAbortsEvent(time, vehicle, link));
+        events.add(new PersonLeavesVehicleEvent(time, person, vehicle));
+        events.add(new PersonArrivalEvent(time, person, link, "car"));
+        events.add(new ActivityStartEvent(time, person, link, Id.create("f0", ActivityFacility.class), "work", null));
+        events.add(new PersonMoneyEvent(time, person, -2.5, "toll", "operator"));
+        events.add(new PersonStuckEvent(time, person, link, "car"));
+        events.add(new TransitDriverStartsEvent(time, person, vehicle, Id.create("line", TransitLine.class),
+                Id.create("route", TransitRoute.class), Id.create("dep", Departure.class)));
+        events.add(new TeleportationArrivalEvent(time, person, 1234.0, "walk"));
+        return events;
+    }
+
+}
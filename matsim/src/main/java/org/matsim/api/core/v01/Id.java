@@ -26,9 +26,11 @@ import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.gbl.Gbl;
 import org.matsim.vehicles.Vehicle;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -43,8 +45,7 @@ import java.util.concurrent.ConcurrentMap;
  */
 public abstract class Id<T> implements Comparable<Id<T>> {
 
-	private final static ConcurrentMap<Class<?>, ConcurrentMap<String, Id<?>>> cacheId = new ConcurrentHashMap<>();
-	private final static ConcurrentMap<Class<?>, List<Id<?>>> cacheIndex = new ConcurrentHashMap<>();
+	private final static ConcurrentMap<Class<?>, IdTable> cacheId = new ConcurrentHashMap<>();
 
 	/** Resets all internal caches used by this class.
 	 * <em>This method must only be called from JUnit-Tests.</em>
@@ -62,7 +63,6 @@ public abstract class Id<T> implements Comparable<Id<T>> {
 			throw new RuntimeException("This method can only be called from JUnit-Tests, but not in normal code!");
 		}
 		cacheId.clear();
-		cacheIndex.clear();
 	}
 
 	public static <T> Id<T> create(final long key, final Class<T> type) {
@@ -81,47 +81,40 @@ public abstract class Id<T> implements Comparable<Id<T>> {
 	 */
 	public static <T> Id<T> create(final String key, final Class<T> type) {
 		Gbl.assertNotNull(key);
-
-		ConcurrentMap<String, Id<?>> mapId = cacheId.computeIfAbsent(type, k -> new ConcurrentHashMap<>(1000));
-
-		Id<?> id = mapId.get(key);
+		IdTable table = cacheId.computeIfAbsent(type, k -> new IdTable());
+		Id<?> id = table.get(key);
 		if (id == null) {
-			//Double-Checked Locking works: mapId is concurrent and IdImpl is immutable
-			synchronized (mapId) {
-				id = mapId.get(key);
-				if (id == null) {
-					// cannot use cacheIndex.computeIfAbsent():
-					// split into cacheIndex.get() and put() so that mapIndex.add() "happens-before" mapIndex.get()
-					// alternatives:
-					// (1) synchronise mapIndex.get() calls (on mapIndex)
-					// (2) use cacheIndex.compute() instead of get() and put() ==> less readable code...
-					List<Id<?>> mapIndex = mapId.isEmpty() ? new ArrayList<>(1000) : cacheIndex.get(type);
-					int index = mapIndex.size();
-					id = new IdImpl<T>(key, index);
-					mapIndex.add(id);
-					cacheIndex.put(type, mapIndex);
-					mapId.put(key, id);
-				}
-			}
+			id = table.create(key);
 		}
 		return (Id<T>)id;
 	}
 
+	/**
+	 * Creates the ids for all the given keys at once, which is faster than creating them one by one, e.g. when
+	 * reading a file that lists all ids before using them. New ids get their indices in the order of the keys.
+	 *
+	 * @return the ids, in the same order as the keys
+	 */
+	public static <T> List<Id<T>> createAll(final List<String> keys, final Class<T> type) {
+		IdTable table = cacheId.computeIfAbsent(type, k -> new IdTable());
+		return (List<Id<T>>) (List<?>) table.createAll(keys);
+	}
+
 	public abstract int index();
 
 	public static <T> Id<T> get(int index, final Class<T> type) {
-		List<Id<?>> mapIndex = cacheIndex.get(type);
-		return mapIndex == null ? null : (Id<T>)mapIndex.get(index);
+		IdTable table = cacheId.get(type);
+		return table == null ? null : (Id<T>)table.get(index);
 	}
 
 	public static <T> Id<T> get(String id, final Class<T> type) {
-		Map<String, Id<?>> mapId = cacheId.get(type);
-		return mapId == null ? null : (Id<T>)mapId.get(id);
+		IdTable table = cacheId.get(type);
+		return table == null ? null : (Id<T>)table.get(id);
 	}
 
 	public static <T> int getNumberOfIds(final Class<T> type) {
-		Map<String, Id<?>> mapId = cacheId.get(type);
-		return mapId == null ? 0 : mapId.size();
+		IdTable table = cacheId.get(type);
+		return table == null ? 0 : table.size;
 	}
 
 	/**
@@ -182,6 +175,109 @@ public abstract class Id<T> implements Comparable<Id<T>> {
 		}
 	}
 
+	/**
+	 * The ids of one type, stored in an array by index and in an open-addressing hash table by key. This needs
+	 * much less memory per id than a {@link ConcurrentHashMap} with its entry objects, which matters with tens of
+	 * millions of ids.
+	 * <p>
+	 * Lookups do not lock. An id that is added concurrently might not be found, so new ids are only created while
+	 * holding the lock, after checking again. A new id is stored by index and counted in the size before it is
+	 * inserted into the hash table, so an id found by key can always be looked up by its index. A table that is
+	 * resized is only published once it is complete.
+	 */
+	private static final class IdTable {
+
+		private static final int INITIAL_CAPACITY = 1024;
+		private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Id[].class);
+
+		private volatile Id<?>[] slots = new Id<?>[2 * INITIAL_CAPACITY];
+		private volatile Id<?>[] byIndex = new Id<?>[INITIAL_CAPACITY];
+		private volatile int size = 0;
+
+		Id<?> get(String key) {
+			Id<?>[] slots = this.slots;
+			int mask = slots.length - 1;
+			for (int i = spread(key.hashCode()) & mask; ; i = (i + 1) & mask) {
+				Id<?> id = (Id<?>) SLOTS.getAcquire(slots, i);
+				if (id == null || id.toString().equals(key)) {
+					return id;
+				}
+			}
+		}
+
+		Id<?> get(int index) {
+			int size = this.size;
+			if (index >= size) {
+				throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+			}
+			return this.byIndex[index];
+		}
+
+		synchronized Id<?> create(String key) {
+			Id<?> id = get(key);
+			if (id == null) {
+				ensureCapacity(this.size + 1);
+				id = add(key);
+			}
+			return id;
+		}
+
+		synchronized List<Id<?>> createAll(List<String> keys) {
+			ensureCapacity(this.size + keys.size());
+			List<Id<?>> ids = new ArrayList<>(keys.size());
+			for (String key : keys) {
+				Gbl.assertNotNull(key);
+				Id<?> id = get(key);
+				ids.add(id == null ? add(key) : id);
+			}
+			return ids;
+		}
+
+		/**
+		 * Must only be called while holding the lock, and with enough capacity.
+		 */
+		private Id<?> add(String key) {
+			int index = this.size;
+			Id<?> id = new IdImpl<>(key, index);
+			Id<?>[] slots = this.slots;
+			int mask = slots.length - 1;
+			int i = spread(key.hashCode()) & mask;
+			while (slots[i] != null) {
+				i = (i + 1) & mask;
+			}
+			this.byIndex[index] = id;
+			// publishes the id for get(int) before get(String) can find it
+			this.size = index + 1;
+			SLOTS.setRelease(slots, i, id);
+			return id;
+		}
+
+		private void ensureCapacity(int capacity) {
+			if (capacity > this.byIndex.length) {
+				this.byIndex = Arrays.copyOf(this.byIndex, Math.max(capacity, this.byIndex.length + (this.byIndex.length >> 1)));
+			}
+			// keep the hash table at most half full, so probe sequences stay short
+			if (2 * capacity > this.slots.length) {
+				int length = Integer.highestOneBit(Math.max(2 * capacity, 2 * this.slots.length) - 1) << 1;
+				Id<?>[] slots = new Id<?>[length];
+				int mask = length - 1;
+				for (int index = 0; index < this.size; index++) {
+					Id<?> id = this.byIndex[index];
+					int i = spread(id.toString().hashCode()) & mask;
+					while (slots[i] != null) {
+						i = (i + 1) & mask;
+					}
+					slots[i] = id;
+				}
+				this.slots = slots;
+			}
+		}
+
+		private static int spread(int h) {
+			return h ^ (h >>> 16);
+		}
+	}
+
 	public static <T> String writeId( Id<T> id ) {
 		if ( id==null ) {
 			return "null" ;
@@ -42,6 +42,15 @@ public interface EventsManager {
 	}
 
 	public void addHandler(final EventHandler handler);
+
+	/**
+	 * Returns whether at least one of the registered handlers receives events of the given class. Producers that
+	 * create their events lazily can use this to skip events nobody listens to. Implementations that cannot tell
+	 * return <code>true</code>.
+	 */
+	default boolean hasHandlerFor(final Class<? extends Event> eventClass) {
+		return true;
+	}
 	
 	public void removeHandler(final EventHandler handler);
 
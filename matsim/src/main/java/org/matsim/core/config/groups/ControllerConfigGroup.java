@@ -34,11 +34,11 @@ import java.util.*;
 public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 	private static final Logger log = LogManager.getLogger( ControllerConfigGroup.class );
 
-	public enum RoutingAlgorithmType {Dijkstra, AStarLandmarks, SpeedyALT}
+	public enum RoutingAlgorithmType {Dijkstra, AStarLandmarks, SpeedyALT, SpeedyCCH}
 
 	public enum EventTypeToCreateScoringFunctions {IterationStarts, BeforeMobsim}
 
-	public enum EventsFileFormat {xml, pb, json}
+	public enum EventsFileFormat {xml, pb, json, bin}
 
 	public enum CompressionType {
 		none(""),
@@ -64,12 +64,14 @@ public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 	private static final String FIRST_ITERATION = "firstIteration";
 	private static final String LAST_ITERATION = "lastIteration";
 	private static final String ROUTINGALGORITHM_TYPE = "routingAlgorithmType";
+	private static final String LANDMARKS_CACHE_DIRECTORY = "landmarksCacheDirectory";
 	private static final String RUNID = "runId";
 	private static final String LINKTOLINK_ROUTING_ENABLED = "enableLinkToLinkRouting";
 	/*package*/ static final String EVENTS_FILE_FORMAT = "eventsFileFormat";
 	private static final String SNAPSHOT_FORMAT = "snapshotFormat";
 	private static final String WRITE_EVENTS_INTERVAL = "writeEventsInterval";
 	private static final String WRITE_PLANS_INTERVAL = "writePlansInterval";
+	private static final String WRITE_PLANS_IN_BACKGROUND = "writePlansInBackground";
 	private static final String WRITE_TRIPS_INTERVAL = "writeTripsInterval";
 	private static final String OVERWRITE_FILE = "overwriteFiles";
 	private static final String CREATE_GRAPHS = "createGraphs";
@@ -90,6 +92,7 @@ public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 	private int firstIteration = 0;
 	private int lastIteration = 1000;
 	private RoutingAlgorithmType routingAlgorithmType = RoutingAlgorithmType.SpeedyALT;
+	private String landmarksCacheDirectory = null;
 	private EventTypeToCreateScoringFunctions eventTypeToCreateScoringFunctions = EventTypeToCreateScoringFunctions.IterationStarts;
 
 	private boolean linkToLinkRoutingEnabled = false;
@@ -100,6 +103,7 @@ public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 
 	private int writeEventsInterval= 50;
 	private int writePlansInterval= 50;
+	private boolean writePlansInBackground = false;
 	private int writeTripsInterval = 50;
 	private String mobsim = MobsimType.qsim.toString();
 	private int writeSnapshotsInterval = 1;
@@ -121,6 +125,8 @@ public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 	public final Map<String, String> getComments() {
 		Map<String,String> map = super.getComments();
 		map.put(ROUTINGALGORITHM_TYPE, "The type of routing (least cost path) algorithm used, may have the values: " + Arrays.toString(RoutingAlgorithmType.values()));
+		map.put(LANDMARKS_CACHE_DIRECTORY, "Default=null. Only used with routingAlgorithmType=" + RoutingAlgorithmType.SpeedyALT + ". If set, the preprocessed landmark data of each network is stored in this directory"
+				+ " and loaded again by later runs using the same network, instead of being calculated again.");
 		map.put(RUNID, "An identifier for the current run which is used as prefix for output files and mentioned in output xml files etc.");
 		map.put(EVENTS_FILE_FORMAT, "Default="+EventsFileFormat.xml+"; Specifies the file format for writing events. Currently supported: " + Arrays.toString(EventsFileFormat.values()) + IOUtils.NATIVE_NEWLINE+ "\t\t" +
 				"Multiple values can be specified separated by commas (',').");
@@ -154,6 +160,8 @@ public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 		map.put(WRITE_SNAPSHOTS_INTERVAL, "iterationNumber % " + WRITE_SNAPSHOTS_INTERVAL + " == 0 defines in which iterations snapshots are written " +
 				"to a file. `0' disables snapshots writing completely");
 		map.put(DUMP_DATA_AT_END, "true if at the end of a run, plans, network, config etc should be dumped to a file");
+		map.put(WRITE_PLANS_IN_BACKGROUND, "true if the plans of an iteration should be written on a separate thread while the iterations continue. " +
+				"This needs enough memory for a copy of all plans during the writing. Defaults to false.");
 		map.put(CLEAN_ITERS_AT_END, "Defines what should be done with the ITERS directory when a simulation finished successfully");
 		map.put(MEMORY_OBSERVER_INTERVAL, "Defines the interval for printing memory usage to the log in [seconds]. Must be positive. Defaults to 60.");
 		return map;
@@ -200,6 +208,16 @@ public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 		this.routingAlgorithmType = type;
 	}
 
+	@StringGetter( LANDMARKS_CACHE_DIRECTORY )
+	public String getLandmarksCacheDirectory() {
+		return this.landmarksCacheDirectory;
+	}
+
+	@StringSetter( LANDMARKS_CACHE_DIRECTORY )
+	public void setLandmarksCacheDirectory(final String landmarksCacheDirectory) {
+		this.landmarksCacheDirectory = landmarksCacheDirectory;
+	}
+
 	@StringGetter( COMPRESSION_TYPE )
 	public CompressionType getCompressionType() {
 		return this.compressionType;
@@ -413,6 +431,16 @@ public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 		this.dumpDataAtEnd = dumpDataAtEnd;
 	}
 
+	@StringGetter(WRITE_PLANS_IN_BACKGROUND)
+	public boolean isWritePlansInBackground() {
+		return writePlansInBackground;
+	}
+
+	@StringSetter(WRITE_PLANS_IN_BACKGROUND)
+	public void setWritePlansInBackground(boolean writePlansInBackground) {
+		this.writePlansInBackground = writePlansInBackground;
+	}
+
 	@StringSetter(CLEAN_ITERS_AT_END)
 	public void setCleanItersAtEnd(CleanIterations cleanItersAtEnd) {
 		this.cleanItersAtEnd = cleanItersAtEnd;
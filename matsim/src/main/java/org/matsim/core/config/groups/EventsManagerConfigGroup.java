@@ -45,6 +45,9 @@ public final class EventsManagerConfigGroup extends ReflectiveConfigGroup {
 	private final static String ONE_THREAD_PER_HANDLER = "oneThreadPerHandler";
 	private Boolean oneThreadPerHandler = false;
 
+	private final static String DISPATCH_BY_EVENT_TYPE = "dispatchByEventType";
+	private Boolean dispatchByEventType = false;
+
 	private final static String EVENTS_QUEUE_SIZE = "eventsQueueSize";
 	private final static String EVENTS_QUEUE_SIZE_COMMENT = "Size of the events Queue. Increase for very large scenarios";
 	private int eventsQueueSize = 65536 * 2 ;
@@ -66,6 +69,9 @@ public final class EventsManagerConfigGroup extends ReflectiveConfigGroup {
 				+ "before the next time step is simulated. E.g. neccessary when within-day replanning is used.");
 		comments.put(ONE_THREAD_PER_HANDLER, "If enabled, each event handler is assigned to its own thread. Note that enabling this feature disabled the " + NUMBER_OF_THREADS + " option! "
 				+ "This feature is still experimental!");
+		comments.put(DISPATCH_BY_EVENT_TYPE, "If enabled together with " + NUMBER_OF_THREADS + " and without " + SYNCHRONIZE_ON_SIMSTEPS + ", events are only "
+				+ "sent to the threads that have a handler for them, and are handed over in batches. "
+				+ "This feature is still experimental!");
 		comments.put(EVENTS_QUEUE_SIZE,EVENTS_QUEUE_SIZE_COMMENT);
 		return comments;
 	}
@@ -144,6 +150,20 @@ public final class EventsManagerConfigGroup extends ReflectiveConfigGroup {
 		}
 	}
 
+	@StringGetter( DISPATCH_BY_EVENT_TYPE )
+	public Boolean getDispatchByEventType() {
+		return this.dispatchByEventType;
+	}
+
+	@StringSetter( DISPATCH_BY_EVENT_TYPE )
+	public void setDispatchByEventType(Boolean dispatchByEventType) {
+		if ( !this.locked ) {
+			this.dispatchByEventType = dispatchByEventType;
+		} else {
+			throw new RuntimeException("it is too late in the control flow to modify this parameter");
+		}
+	}
+
 	public void makeLocked() {
 		this.locked = true;
 	}
@@ -226,6 +226,9 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 		map.put(SEEP_MODE, "If link dynamics is set as " + LinkDynamics.SeepageQ + ", set a seep mode. Default is bike.");
 		map.put(IS_SEEP_MODE_STORAGE_FREE, "If link dynamics is set as " + LinkDynamics.SeepageQ + ", set to true if seep mode do not consumes any space on the link. Default is false.");
 		map.put(IS_RESTRICTING_SEEPAGE, "If link dynamics is set as " + LinkDynamics.SeepageQ + ", set to false if all seep modes should perform seepage. Default is true (better option).");
+		map.put(WAKEUP_QUEUE_TYPE, WAKEUP_QUEUE_TYPE_CMT);
+		map.put(NETSIM_ENGINE_SCHEDULING, NETSIM_ENGINE_SCHEDULING_CMT);
+		map.put(USING_RING_BUFFERS_IN_LINKS, USING_RING_BUFFERS_IN_LINKS_CMT);
 		map.put(FILTER_SNAPSHOTS, "If set to " + FilterSnapshots.withLinkAttributes + " snapshots will only be generated for links which include " + SnapshotWritersModule.GENERATE_SNAPSHOT_FOR_LINK_KEY + " as attribute key. Default is no filtering.");
 //		map.put(CREATING_VEHICLES_FOR_ALL_NETWORK_MODES, "If set to true, creates a vehicle for each person corresponding to every network mode. However, " +
 //				"this will be overridden if vehicle source is "+ VehiclesSource.fromVehiclesData+".");
@@ -660,6 +663,61 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 		return this.usingTravelTimeCheckInTeleportation = val ;
 	}
 
+	private static final String WAKEUP_QUEUE_TYPE = "wakeupQueueType";
+	private static final String WAKEUP_QUEUE_TYPE_CMT = "The data structure the activity engine and the teleportation engine use to find the agents whose activity "
+			+ "ends or who arrive in the current time step. priorityQueue (default) keeps all agents in a binary heap, "
+			+ "calendarQueue sorts them into one bucket per simulated second, which is faster for large populations. "
+			+ "Both return the agents in the same order.";
+	public enum WakeupQueueType {priorityQueue, calendarQueue}
+	private WakeupQueueType wakeupQueueType = WakeupQueueType.priorityQueue;
+	/**
+	 * @return {@value #WAKEUP_QUEUE_TYPE_CMT}
+	 */
+	@StringGetter(WAKEUP_QUEUE_TYPE)
+	public WakeupQueueType getWakeupQueueType() {
+		return this.wakeupQueueType;
+	}
+	@StringSetter(WAKEUP_QUEUE_TYPE)
+	public void setWakeupQueueType(WakeupQueueType wakeupQueueType) {
+		this.wakeupQueueType = wakeupQueueType;
+	}
+
+	private static final String NETSIM_ENGINE_SCHEDULING = "netsimEngineScheduling";
+	private static final String NETSIM_ENGINE_SCHEDULING_CMT = "How the work of the netsim engine is distributed over the threads. fixedRunners (default) "
+			+ "splits the nodes round robin into one runner per thread. workStealing splits them into several smaller runners per thread, "
+			+ "which are processed on a fork-join pool in chunks sized by their number of active nodes and links, so that idle threads "
+			+ "can take over work from busy ones. Each node is always moved by the same runner, so the result does not depend on the scheduling.";
+	public enum NetsimEngineScheduling {fixedRunners, workStealing}
+	private NetsimEngineScheduling netsimEngineScheduling = NetsimEngineScheduling.fixedRunners;
+	/**
+	 * @return {@value #NETSIM_ENGINE_SCHEDULING_CMT}
+	 */
+	@StringGetter(NETSIM_ENGINE_SCHEDULING)
+	public NetsimEngineScheduling getNetsimEngineScheduling() {
+		return this.netsimEngineScheduling;
+	}
+	@StringSetter(NETSIM_ENGINE_SCHEDULING)
+	public void setNetsimEngineScheduling(NetsimEngineScheduling netsimEngineScheduling) {
+		this.netsimEngineScheduling = netsimEngineScheduling;
+	}
+
+	private static final String USING_RING_BUFFERS_IN_LINKS = "usingRingBuffersInLinks";
+	private static final String USING_RING_BUFFERS_IN_LINKS_CMT = "If true, the links store the vehicles in their buffers and their holes in "
+			+ "ring buffers of primitive arrays instead of linked lists, so moving vehicles over the links does not allocate objects. "
+			+ "The simulation results are the same. Default is false.";
+	private boolean usingRingBuffersInLinks = false;
+	/**
+	 * @return {@value #USING_RING_BUFFERS_IN_LINKS_CMT}
+	 */
+	@StringGetter(USING_RING_BUFFERS_IN_LINKS)
+	public boolean isUsingRingBuffersInLinks() {
+		return this.usingRingBuffersInLinks;
+	}
+	@StringSetter(USING_RING_BUFFERS_IN_LINKS)
+	public void setUsingRingBuffersInLinks(boolean usingRingBuffersInLinks) {
+		this.usingRingBuffersInLinks = usingRingBuffersInLinks;
+	}
+	// ---
 	static final String PCU_THRESHOLD_FOR_FLOW_CAPACITY_EASING = //
 			"Flow capacity easing is activated for vehicles of size equal or smaller than the specified threshold. "
 			+ "Introduced to minimise the chances of buses being severely delayed in downsampled scenarios";
@@ -80,6 +80,8 @@ public final class ScoringConfigGroup extends ConfigGroup {
 
 	private static final String WRITE_SCORE_EXPLANATIONS = "writeScoreExplanations";
 
+	private static final String NUMBER_OF_SCORING_THREADS = "numberOfScoringThreads";
+
 	private final ReflectiveDelegate delegate = new ReflectiveDelegate();
 
 	private boolean usesDeprecatedSyntax = false ;
@@ -423,6 +425,12 @@ public final class ScoringConfigGroup extends ConfigGroup {
 		map.put(WRITE_SCORE_EXPLANATIONS,
 				 "Write detailed score composition into plan attributes after execution.");
 
+		map.put(NUMBER_OF_SCORING_THREADS,
+				"If larger than 0, the scoring functions are not called directly while the events are processed. Instead, the activities, "
+						+ "legs, trips and events of every person are buffered and passed to the scoring functions in parallel, using this number "
+						+ "of threads. The events of a person are always passed in their original order, so the scores do not depend on the "
+						+ "number of threads, but scoring functions must not share any mutable state between persons. Default: 0 (no buffering).");
+
 		return map;
 	}
 
@@ -705,6 +713,14 @@ public final class ScoringConfigGroup extends ConfigGroup {
 		return delegate.getPathSizeLogitBeta();
 	}
 
+	public int getNumberOfScoringThreads() {
+		return delegate.getNumberOfScoringThreads();
+	}
+
+	public void setNumberOfScoringThreads(int numberOfScoringThreads) {
+		delegate.setNumberOfScoringThreads(numberOfScoringThreads);
+	}
+
 	public void setPathSizeLogitBeta(double beta) {
 		delegate.setPathSizeLogitBeta(beta);
 	}
@@ -1600,6 +1616,8 @@ public final class ScoringConfigGroup extends ConfigGroup {
 
 		private boolean explainScores = false;
 
+		private int numberOfScoringThreads = 0;
+
 		@StringGetter(FRACTION_OF_ITERATIONS_TO_START_SCORE_MSA)
 		public Double getFractionOfIterationsToStartScoreMSA() {
 			return fractionOfIterationsToStartScoreMSA;
@@ -1683,5 +1701,19 @@ public final class ScoringConfigGroup extends ConfigGroup {
 		public boolean isWriteScoreExplanations() {
 			return explainScores;
 		}
+
+		@StringGetter(NUMBER_OF_SCORING_THREADS)
+		public int getNumberOfScoringThreads() {
+			return numberOfScoringThreads;
+		}
+
+		@StringSetter(NUMBER_OF_SCORING_THREADS)
+		public void setNumberOfScoringThreads(int numberOfScoringThreads) {
+			testForLocked();
+			if (numberOfScoringThreads < 0) {
+				throw new IllegalArgumentException(NUMBER_OF_SCORING_THREADS + " must not be negative.");
+			}
+			this.numberOfScoringThreads = numberOfScoringThreads;
+		}
 	}
 }
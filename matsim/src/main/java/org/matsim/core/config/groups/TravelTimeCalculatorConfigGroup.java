@@ -19,6 +19,7 @@
  * *********************************************************************** */
 package org.matsim.core.config.groups;
 
+import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
@@ -50,6 +51,9 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 	private static final String ANALYZEDMODES = "analyzedModes";
 	private static final String FILTERMODES = "filterModes";
 	private static final String SEPARATEMODES = "separateModes";
+	private static final String LINK_TRAVELTIME_STORAGE = "linkTravelTimeStorage";
+
+	public enum LinkTravelTimeStorage { perLink, slab }
 
 	private String travelTimeAggregator = "optimistic";
 	private String travelTimeGetter = "average";
@@ -62,6 +66,7 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 	private Set<String> analyzedModes = new LinkedHashSet<>(  ) ;
 	private boolean filterModes = false;
 	private boolean separateModes = true;
+	private LinkTravelTimeStorage linkTravelTimeStorage = LinkTravelTimeStorage.perLink;
 
 	public TravelTimeCalculatorConfigGroup() {
 		super(GROUPNAME);
@@ -83,6 +88,10 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 							 "respected by the travel time collector. 'car' is default which includes also buses from the pt simulation module.");
 		map.put(FILTERMODES, "(only for backwards compatiblity; only used if " + SEPARATEMODES + "==false)  Only modes included in analyzedModes are included." ) ;
 		map.put(SEPARATEMODES, "(only for backwards compatibility) If false, link travel times are measured and aggregated over all vehicles using the link." ) ;
+		map.put(LINK_TRAVELTIME_STORAGE, "How the link travel times are stored. 'perLink' uses one object per link that has seen traffic; 'slab' uses one array " +
+				"for all links and time bins, which avoids the per-link objects on large networks and can be updated by several threads. With 'slab', the routers " +
+				"read a snapshot of the travel times that is taken after each mobsim, so they see the travel times of the last completed mobsim. Possible values: " +
+				Arrays.toString(LinkTravelTimeStorage.values()));
 		return map;
 	}
 
@@ -195,5 +204,15 @@ public final class TravelTimeCalculatorConfigGroup extends ReflectiveConfigGroup
 	public void setSeparateModes(boolean separateModes) {
 		this.separateModes = separateModes;
 	}
+	// ---
+	@StringGetter(LINK_TRAVELTIME_STORAGE)
+	public LinkTravelTimeStorage getLinkTravelTimeStorage() {
+		return this.linkTravelTimeStorage;
+	}
+
+	@StringSetter(LINK_TRAVELTIME_STORAGE)
+	public void setLinkTravelTimeStorage(LinkTravelTimeStorage linkTravelTimeStorage) {
+		this.linkTravelTimeStorage = linkTravelTimeStorage;
+	}
 
 }
@@ -86,6 +86,7 @@ public final class Controler implements Controller, ControlerI, MatsimServices,
 		events("events.xml"),
 		eventsPb("events.pb"),
 		eventsJson("events.ndjson"),
+		eventsBin("events.bin"),
 		transitSchedule("transitSchedule.xml"),
 		transitVehicles("transitVehicles.xml"),
 		vehicles("vehicles.xml"),
@@ -26,6 +26,7 @@ import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.Config;
 import org.matsim.core.controler.events.*;
 import org.matsim.core.controler.listener.*;
+import org.matsim.core.events.EventsUtils;
 import org.matsim.core.events.MatsimEventsReader;
 
 import jakarta.inject.Inject;
@@ -77,6 +78,18 @@ public final class ReplayEvents {
     }
 
     public void playEventsFile(String eventsFilename, int iterationNumber, boolean isLastIteration) {
+        playEvents(() -> new MatsimEventsReader(eventsManager).readFile(eventsFilename), iterationNumber, isLastIteration);
+    }
+
+    /**
+     * Replays only the events with <code>fromTime &lt;= time &lt; toTime</code> from a binary events file,
+     * skipping the rest of the file.
+     */
+    public void playEventsFile(String eventsFilename, int iterationNumber, boolean isLastIteration, double fromTime, double toTime) {
+        playEvents(() -> EventsUtils.readEvents(eventsManager, eventsFilename, fromTime, toTime), iterationNumber, isLastIteration);
+    }
+
+    private void playEvents(Runnable eventsReader, int iterationNumber, boolean isLastIteration) {
         ((ControlerListenerManagerImpl) controlerListenerManager).fireControlerStartupEvent();
         for (ControlerListener controlerListener : controlerListenersDeclaredByModules) {
             if (controlerListener instanceof StartupListener) {
@@ -95,7 +108,7 @@ public final class ReplayEvents {
                 ((BeforeMobsimListener) controlerListener).notifyBeforeMobsim(new BeforeMobsimEvent(null, iterationNumber, isLastIteration));
             }
         }
-        new MatsimEventsReader(eventsManager).readFile(eventsFilename);
+        eventsReader.run();
         ((ControlerListenerManagerImpl) controlerListenerManager).fireControlerAfterMobsimEvent(iterationNumber, isLastIteration);
         for (ControlerListener controlerListener : controlerListenersDeclaredByModules) {
             if (controlerListener instanceof AfterMobsimListener) {
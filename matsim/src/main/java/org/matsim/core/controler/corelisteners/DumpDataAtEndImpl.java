@@ -53,13 +53,20 @@ import org.matsim.lanes.LanesWriter;
 import org.matsim.pt.transitSchedule.api.Transit;
 import org.matsim.pt.transitSchedule.api.TransitSchedule;
 import org.matsim.pt.transitSchedule.api.TransitScheduleWriter;
+import org.matsim.utils.FeatureFlags;
 import org.matsim.utils.objectattributes.AttributeConverter;
 import org.matsim.vehicles.MatsimVehicleWriter;
 import org.matsim.vehicles.VehicleUtils;
 import org.matsim.vehicles.Vehicles;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @Singleton
 final class DumpDataAtEndImpl implements DumpDataAtEnd, ShutdownListener {
@@ -116,32 +123,76 @@ final class DumpDataAtEndImpl implements DumpDataAtEnd, ShutdownListener {
 		if ( event.isUnexpected() ) {
 			return ;
 		}
-		dumpPlans();
-		dumpNetwork();
-		dumpConfig();
-		dumpFacilities();
-		dumpNetworkChangeEvents();
-
-		dumpTransitSchedule();
-		dumpTransitVehicles();
-		dumpVehicles();
-		dumpHouseholds();
-		dumpLanes();
-		dumpCounts();
+		final int iteration = event.getIteration();
+		List<Runnable> dumps = new ArrayList<>();
+		// the largest outputs first, so they do not end up being written last when running in parallel
+		dumps.add(this::dumpPlans);
+		dumps.add(this::dumpNetwork);
+		dumps.add(this::dumpConfig);
+		dumps.add(this::dumpFacilities);
+		dumps.add(this::dumpNetworkChangeEvents);
+
+		dumps.add(this::dumpTransitSchedule);
+		dumps.add(this::dumpTransitVehicles);
+		dumps.add(this::dumpVehicles);
+		dumps.add(this::dumpHouseholds);
+		dumps.add(this::dumpLanes);
+		dumps.add(this::dumpCounts);
 
 		if (!event.isUnexpected() && this.vspConfig.isWritingOutputEvents() && (this.controllerConfigGroup.getWriteEventsInterval()!=0)) {
-			dumpOutputEvents(event.getIteration());
+			dumps.add(() -> dumpOutputEvents(iteration));
+		}
+		dumps.add(() -> dumpOutputTrips(iteration));
+		dumps.add(() -> dumpOutputLegs(iteration));
+		dumps.add(() -> dumpOutputActivities(iteration));
+		dumps.add(() -> dumpExperiencedPlans(iteration));
+
+		int numberOfThreads = FeatureFlags.useParallelIO() ? Math.min(dumps.size(), this.config.global().getNumberOfThreads()) : 1;
+		if (numberOfThreads > 1) {
+			runInParallel(dumps, numberOfThreads);
+		} else {
+			dumps.forEach(Runnable::run);
 		}
-		dumpOutputTrips(event.getIteration());
-        dumpOutputLegs(event.getIteration());
-		dumpOutputActivities(event.getIteration());
-		dumpExperiencedPlans(event.getIteration());
 
 		if (controllerConfigGroup.getCleanItersAtEnd() == ControllerConfigGroup.CleanIterations.delete) {
 			this.controlerIO.deleteIterationDirectory();
 		}
 	}
 
+	/**
+	 * The writers are independent of each other and only read the data, so they can run concurrently. Waits for all
+	 * of them to finish, so the iteration directory is not deleted while output files are still being copied from it.
+	 */
+	private static void runInParallel(List<Runnable> dumps, int numberOfThreads) {
+		ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads, r -> new Thread(r, "DumpDataAtEnd"));
+		try {
+			List<Future<?>> futures = new ArrayList<>(dumps.size());
+			for (Runnable dump : dumps) {
+				futures.add(executor.submit(dump));
+			}
+			RuntimeException exception = null;
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException(e);
+				} catch (ExecutionException e) {
+					if (exception == null) {
+						exception = e.getCause() instanceof RuntimeException re ? re : new RuntimeException(e.getCause());
+					} else {
+						exception.addSuppressed(e.getCause());
+					}
+				}
+			}
+			if (exception != null) {
+				throw exception;
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
 	private void dumpOutputEvents(int iteration) {
 		for (ControllerConfigGroup.EventsFileFormat format : this.controllerConfigGroup.getEventsFileFormats()) {
 			try{
@@ -156,6 +207,10 @@ final class DumpDataAtEndImpl implements DumpDataAtEnd, ShutdownListener {
 					case json:
 						file = Controler.DefaultFiles.eventsJson;
 						break;
+					case bin:
+						IOUtils.copyFile(this.controlerIO.getIterationFilename(iteration, Controler.DefaultFiles.eventsBin, ControllerConfigGroup.CompressionType.none),
+								this.controlerIO.getOutputFilename(Controler.DefaultFiles.eventsBin, ControllerConfigGroup.CompressionType.none));
+						continue;
 					default:
 						continue;
 				}
@@ -43,6 +43,7 @@ import org.matsim.core.controler.listener.BeforeMobsimListener;
 import org.matsim.core.controler.listener.IterationEndsListener;
 import org.matsim.core.controler.listener.ShutdownListener;
 import org.matsim.core.events.algorithms.EventWriter;
+import org.matsim.core.events.algorithms.EventWriterBinary;
 import org.matsim.core.events.algorithms.EventWriterJson;
 import org.matsim.core.events.algorithms.EventWriterXML;
 
@@ -109,6 +110,11 @@ final class EventsHandlingImpl implements EventsHandling, BeforeMobsimListener,
 						this.eventWriters.add(new EventWriterJson(new File(controlerIO.getIterationFilename(event.getIteration(),
 								Controler.DefaultFiles.eventsJson))));
 						break;
+					case bin:
+						// binary events contain an index and are never compressed
+						this.eventWriters.add(new EventWriterBinary(controlerIO.getIterationFilename(event.getIteration(),
+								Controler.DefaultFiles.eventsBin, ControllerConfigGroup.CompressionType.none)));
+						break;
 					default:
 						log.warn("Unknown events file format specified: " + format.toString() + ".");
 				}
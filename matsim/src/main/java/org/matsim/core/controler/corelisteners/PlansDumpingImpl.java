@@ -24,6 +24,8 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.matsim.analysis.IterationStopWatch;
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
 import org.matsim.api.core.v01.population.Population;
 import org.matsim.api.core.v01.population.PopulationWriter;
 import org.matsim.core.config.Config;
@@ -31,12 +33,21 @@ import org.matsim.core.config.groups.ControllerConfigGroup;
 import org.matsim.core.controler.Controler;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
 import org.matsim.core.controler.events.BeforeMobsimEvent;
+import org.matsim.core.controler.events.ShutdownEvent;
 import org.matsim.core.controler.listener.BeforeMobsimListener;
+import org.matsim.core.controler.listener.ShutdownListener;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.utils.geometry.CoordinateTransformation;
 import org.matsim.core.utils.geometry.transformations.TransformationFactory;
+import org.matsim.utils.objectattributes.attributable.AttributesUtils;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * {@link org.matsim.core.controler.listener.ControlerListener} that dumps the
@@ -44,11 +55,15 @@ import org.matsim.core.utils.geometry.transformations.TransformationFactory;
  * ({@link ControllerConfigGroup#getWritePlansInterval()} as well as in the first
  * iteration, just in case someone might check that the replanning worked
  * correctly in the first iteration.
+ * <p>
+ * If {@link ControllerConfigGroup#isWritePlansInBackground()} is set, the plans are copied and the copy is written
+ * on a separate thread while the mobsim runs. The next dump, as well as the shutdown, waits until the previous
+ * one is complete.
  *
  * @author mrieser
  */
 @Singleton
-final class PlansDumpingImpl implements PlansDumping, BeforeMobsimListener {
+final class PlansDumpingImpl implements PlansDumping, BeforeMobsimListener, ShutdownListener {
 
 	static final private Logger log = LogManager.getLogger(PlansDumpingImpl.class);
 
@@ -61,10 +76,15 @@ final class PlansDumpingImpl implements PlansDumping, BeforeMobsimListener {
 
 	private int writeMoreUntilIteration;
 
+	private final boolean writeInBackground;
+	private ExecutorService backgroundWriter = null;
+	private Future<?> backgroundWrite = null;
+
 	@Inject
 	PlansDumpingImpl(ControllerConfigGroup config) {
 		this.writePlansInterval = config.getWritePlansInterval();
 		this.writeMoreUntilIteration = config.getWritePlansUntilIteration() ;
+		this.writeInBackground = config.isWritePlansInBackground();
 	}
 
 	@Override
@@ -74,26 +94,101 @@ final class PlansDumpingImpl implements PlansDumping, BeforeMobsimListener {
 		final boolean earlyIteration = event.getIteration() <= writeMoreUntilIteration ;
 		if ( writingPlansAtAll && (regularWritePlans || earlyIteration) ) {
 			stopwatch.beginOperation("dump all plans");
-			log.info("dumping plans...");
-			final String inputCRS = config.plans().getInputCRS();
-			final String internalCRS = config.global().getCoordinateSystem();
-
-			if ( inputCRS == null ) {
-				new PopulationWriter(population, network).write(controlerIO.getIterationFilename(event.getIteration(), Controler.DefaultFiles.population));
+			waitForBackgroundWrite();
+			final String filename = controlerIO.getIterationFilename(event.getIteration(), Controler.DefaultFiles.population);
+			if ( writeInBackground ) {
+				log.info("copying plans for dumping in the background...");
+				final Population snapshot = createSnapshot(population);
+				if ( backgroundWriter == null ) {
+					backgroundWriter = Executors.newSingleThreadExecutor(r -> {
+						Thread thread = new Thread(r, "PlansDumping");
+						thread.setDaemon(true);
+						return thread;
+					});
+				}
+				backgroundWrite = backgroundWriter.submit(() -> {
+					writePlans(snapshot, filename);
+					log.info("finished plans dump in the background.");
+				});
 			}
 			else {
-				log.info( "re-projecting population from "+internalCRS+" back to "+inputCRS+" for export" );
+				log.info("dumping plans...");
+				writePlans(population, filename);
+				log.info("finished plans dump.");
+			}
+			stopwatch.endOperation("dump all plans");
+		}
+	}
+
+	@Override
+	public void notifyShutdown(final ShutdownEvent event) {
+		try {
+			waitForBackgroundWrite();
+		} finally {
+			if ( backgroundWriter != null ) {
+				backgroundWriter.shutdown();
+				backgroundWriter = null;
+			}
+		}
+	}
 
-				final CoordinateTransformation transformation =
-						TransformationFactory.getCoordinateTransformation(
-								internalCRS,
-								inputCRS );
+	private void writePlans(final Population plans, final String filename) {
+		final String inputCRS = config.plans().getInputCRS();
+		final String internalCRS = config.global().getCoordinateSystem();
 
-				new PopulationWriter(transformation, population, network).write(controlerIO.getIterationFilename(event.getIteration(), Controler.DefaultFiles.population));
+		if ( inputCRS == null ) {
+			new PopulationWriter(plans, network).write(filename);
+		}
+		else {
+			log.info( "re-projecting population from "+internalCRS+" back to "+inputCRS+" for export" );
+
+			final CoordinateTransformation transformation =
+					TransformationFactory.getCoordinateTransformation(
+							internalCRS,
+							inputCRS );
+
+			new PopulationWriter(transformation, plans, network).write(filename);
+		}
+	}
+
+	private void waitForBackgroundWrite() {
+		if ( backgroundWrite == null ) {
+			return;
+		}
+		try {
+			backgroundWrite.get();
+		} catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException( e );
+		} catch ( ExecutionException e ) {
+			throw new RuntimeException( "Exception while dumping plans in the background.", e.getCause() );
+		} finally {
+			backgroundWrite = null;
+		}
+	}
+
+	/**
+	 * Copies the persons with their plans, so the copy can be written while the plans are modified in the next
+	 * iterations. Routes and coordinates are shared with the original plans until these are changed.
+	 */
+	private Population createSnapshot(final Population population) {
+		Population snapshot = PopulationUtils.createPopulation(config, network);
+		snapshot.setName(population.getName());
+		AttributesUtils.copyAttributesFromTo(population, snapshot);
+		for (Person person : population.getPersons().values()) {
+			Person copy = snapshot.getFactory().createPerson(person.getId());
+			AttributesUtils.copyAttributesFromTo(person, copy);
+			for (Plan plan : person.getPlans()) {
+				Plan planCopy = snapshot.getFactory().createPlan();
+				PopulationUtils.copyFromTo(plan, planCopy, true);
+				copy.addPlan(planCopy);
+				if (plan == person.getSelectedPlan()) {
+					copy.setSelectedPlan(planCopy);
+				}
 			}
-			log.info("finished plans dump.");
-			stopwatch.endOperation("dump all plans");
+			snapshot.addPerson(copy);
 		}
+		return snapshot;
 	}
 
 }
@@ -154,6 +154,11 @@ public final class EventsManagerImpl implements EventsManager {
 		log.info("");
 	}
 
+	@Override
+	public boolean hasHandlerFor(final Class<? extends Event> eventClass) {
+		return getHandlersForClass(eventClass).length > 0;
+	}
+
 	@Override
 	public void removeHandler(final EventHandler handler) {
 		log.info("removing Event-Handler: " + handler.getClass().getName());
@@ -39,6 +39,8 @@ public final class EventsManagerModule extends AbstractModule {
 		} else if (getConfig().eventsManager().getNumberOfThreads() != null) {
 			if (BooleanUtils.isTrue(getConfig().eventsManager().getSynchronizeOnSimSteps())) {
 				bindEventsManager().to(SimStepParallelEventsManagerImpl.class).in(Singleton.class);
+			} else if (BooleanUtils.isTrue(getConfig().eventsManager().getDispatchByEventType())) {
+				bindEventsManager().to(TypeIndexedParallelEventsManager.class).in(Singleton.class);
 			} else {
 				bindEventsManager().to(ParallelEventsManagerImpl.class).in(Singleton.class);
 			}
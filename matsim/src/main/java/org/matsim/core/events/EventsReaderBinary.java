@@ -0,0 +1,503 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.HasFacilityId;
+import org.matsim.api.core.v01.events.HasLinkId;
+import org.matsim.api.core.v01.events.HasPersonId;
+import org.matsim.api.core.v01.events.HasVehicleId;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.algorithms.EventWriterBinary;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.vehicles.Vehicle;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Reads events files written by {@link EventWriterBinary}.
+ * <p>
+ * The most frequent event types are created directly from the columns of the file, with ids looked up only
+ * once per distinct string. All other event types, including custom events, are passed through the same
+ * mapping as in {@link EventsReaderXMLv1}, so the reader produces exactly the same events as when reading
+ * the equivalent xml file.
+ * <p>
+ * Using {@link #readFile(String, double, double)}, only the events within a time window are read. Blocks
+ * that contain no event of the time window are skipped without being decoded.
+ *
+ * @see EventWriterBinary
+ */
+public final class EventsReaderBinary {
+
+	public static final int MAGIC = 0x4D455642; // "MEVB"
+	public static final int VERSION = 1;
+	public static final int BLOCK_SIZE = 16384;
+	/** codes of the time column. All odd codes contain the number of whole seconds since the previous event. */
+	public static final int TIME_UNCHANGED = 0;
+	public static final int TIME_ABSOLUTE = 2;
+
+	private static final int GENERIC = 0;
+	private static final int LINK_ENTER = 1;
+	private static final int LINK_LEAVE = 2;
+	private static final int PERSON_ENTERS_VEHICLE = 3;
+	private static final int PERSON_LEAVES_VEHICLE = 4;
+	private static final int VEHICLE_ENTERS_TRAFFIC = 5;
+	private static final int VEHICLE_LEAVES_TRAFFIC = 6;
+	private static final int ACTIVITY_START = 7;
+	private static final int ACTIVITY_END = 8;
+	private static final int PERSON_DEPARTURE = 9;
+	private static final int PERSON_ARRIVAL = 10;
+
+	private final EventsManager events;
+	private final EventsReaderXMLv1 genericReader;
+	private final Map<String, MatsimEventsReader.CustomEventMapper> customEventMappers = new HashMap<>();
+
+	// state of the file being read
+	private String[] strings;
+	private int[] kinds;
+	private Id<Person>[] personIds;
+	private Id<Link>[] linkIds;
+	private Id<Vehicle>[] vehicleIds;
+	private Id<ActivityFacility>[] facilityIds;
+	private int keyPerson, keyLink, keyVehicle, keyFacility, keyNetworkMode, keyPosition, keyActType, keyX, keyY, keyLegMode, keyRoutingMode;
+
+	// columns of the current block
+	private double[] times = new double[BLOCK_SIZE];
+	private int[] types = new int[BLOCK_SIZE];
+	private int[] attributeStarts = new int[BLOCK_SIZE + 1];
+	private int[] keys = new int[BLOCK_SIZE * 4];
+	/** index into {@link #strings} if >= 0, otherwise <code>-(index into {@link #numbers}) - 1</code> */
+	private int[] values = new int[BLOCK_SIZE * 4];
+	private double[] numbers = new double[BLOCK_SIZE];
+	private final AttributesImpl attributes = new AttributesImpl();
+
+	public EventsReaderBinary(final EventsManager events) {
+		this.events = events;
+		this.genericReader = new EventsReaderXMLv1(events);
+	}
+
+	public void addCustomEventMapper(String eventType, MatsimEventsReader.CustomEventMapper cem) {
+		this.customEventMappers.put(eventType, cem);
+		this.genericReader.addCustomEventMapper(eventType, cem);
+	}
+
+	public void readFile(final String filename) {
+		readFile(filename, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Reads all events with <code>fromTime &lt;= time &lt; toTime</code>.
+	 */
+	public void readFile(final String filename, final double fromTime, final double toTime) {
+		readFile(Paths.get(filename), fromTime, toTime);
+	}
+
+	public void readFile(final Path path, final double fromTime, final double toTime) {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer header = read(channel, 0, 8);
+			if (header.getInt() != MAGIC) {
+				throw new IllegalArgumentException("File " + path + " is not a binary events file.");
+			}
+			int version = header.getInt();
+			if (version != VERSION) {
+				throw new IllegalArgumentException("Unsupported version " + version + " of binary events file " + path);
+			}
+			long size = channel.size();
+			ByteBuffer trailer = read(channel, size - 12, 12);
+			long footerPosition = trailer.getLong();
+			if (trailer.getInt() != MAGIC) {
+				throw new IllegalArgumentException("Binary events file " + path + " is incomplete. Was the writer closed?");
+			}
+			ByteBuffer footer = read(channel, footerPosition, (int) (size - 12 - footerPosition));
+			readStrings(footer);
+
+			int blockCount = readVarInt(footer);
+			for (int i = 0; i < blockCount; i++) {
+				long position = footer.getLong();
+				int length = footer.getInt();
+				footer.getInt(); // number of events
+				double minTime = footer.getDouble();
+				double maxTime = footer.getDouble();
+				if (maxTime < fromTime || minTime >= toTime) {
+					continue;
+				}
+				processBlock(read(channel, position, length), fromTime, toTime);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			this.strings = null;
+			this.personIds = null;
+			this.linkIds = null;
+			this.vehicleIds = null;
+			this.facilityIds = null;
+		}
+	}
+
+	private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of file.");
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readStrings(ByteBuffer footer) {
+		int count = readVarInt(footer);
+		this.strings = new String[count];
+		this.kinds = new int[count];
+		Map<String, Integer> index = new HashMap<>();
+		for (int i = 0; i < count; i++) {
+			int length = readVarInt(footer);
+			String s = new String(footer.array(), footer.position(), length, StandardCharsets.UTF_8);
+			footer.position(footer.position() + length);
+			this.strings[i] = s;
+			index.put(s, i);
+		}
+		this.personIds = new Id[count];
+		this.linkIds = new Id[count];
+		this.vehicleIds = new Id[count];
+		this.facilityIds = new Id[count];
+
+		setKind(index, LinkEnterEvent.EVENT_TYPE, LINK_ENTER);
+		setKind(index, LinkLeaveEvent.EVENT_TYPE, LINK_LEAVE);
+		setKind(index, PersonEntersVehicleEvent.EVENT_TYPE, PERSON_ENTERS_VEHICLE);
+		setKind(index, PersonLeavesVehicleEvent.EVENT_TYPE, PERSON_LEAVES_VEHICLE);
+		setKind(index, VehicleEntersTrafficEvent.EVENT_TYPE, VEHICLE_ENTERS_TRAFFIC);
+		setKind(index, VehicleLeavesTrafficEvent.EVENT_TYPE, VEHICLE_LEAVES_TRAFFIC);
+		setKind(index, ActivityStartEvent.EVENT_TYPE, ACTIVITY_START);
+		setKind(index, ActivityEndEvent.EVENT_TYPE, ACTIVITY_END);
+		setKind(index, PersonDepartureEvent.EVENT_TYPE, PERSON_DEPARTURE);
+		setKind(index, PersonArrivalEvent.EVENT_TYPE, PERSON_ARRIVAL);
+
+		this.keyPerson = index.getOrDefault(HasPersonId.ATTRIBUTE_PERSON, -1);
+		this.keyLink = index.getOrDefault(HasLinkId.ATTRIBUTE_LINK, -1);
+		this.keyVehicle = index.getOrDefault(HasVehicleId.ATTRIBUTE_VEHICLE, -1);
+		this.keyFacility = index.getOrDefault(HasFacilityId.ATTRIBUTE_FACILITY, -1);
+		this.keyNetworkMode = index.getOrDefault(VehicleEntersTrafficEvent.ATTRIBUTE_NETWORKMODE, -1);
+		this.keyPosition = index.getOrDefault(VehicleEntersTrafficEvent.ATTRIBUTE_POSITION, -1);
+		this.keyActType = index.getOrDefault(ActivityEndEvent.ATTRIBUTE_ACTTYPE, -1);
+		this.keyX = index.getOrDefault(Event.ATTRIBUTE_X, -1);
+		this.keyY = index.getOrDefault(Event.ATTRIBUTE_Y, -1);
+		this.keyLegMode = index.getOrDefault(PersonDepartureEvent.ATTRIBUTE_LEGMODE, -1);
+		this.keyRoutingMode = index.getOrDefault(PersonDepartureEvent.ATTRIBUTE_ROUTING_MODE, -1);
+	}
+
+	private void setKind(Map<String, Integer> index, String eventType, int kind) {
+		Integer ref = index.get(eventType);
+		// custom mappers only apply to generic events, but let them take precedence to be on the safe side
+		if (ref != null && !this.customEventMappers.containsKey(eventType)) {
+			this.kinds[ref] = kind;
+		}
+	}
+
+	private void processBlock(ByteBuffer block, double fromTime, double toTime) {
+		int eventCount = readVarInt(block);
+		int attributeCount = readVarInt(block);
+		int numberCount = readVarInt(block);
+		if (this.keys.length < attributeCount) {
+			this.keys = new int[attributeCount];
+			this.values = new int[attributeCount];
+		}
+		if (this.numbers.length < numberCount) {
+			this.numbers = new double[numberCount];
+		}
+		double time = 0;
+		for (int i = 0; i < eventCount; i++) {
+			int code = readVarInt(block);
+			if (code == TIME_ABSOLUTE) {
+				time = block.getDouble();
+			} else if (code != TIME_UNCHANGED) {
+				time += code >>> 1;
+			}
+			this.times[i] = time;
+		}
+		for (int i = 0; i < eventCount; i++) {
+			this.types[i] = readVarInt(block);
+		}
+		int start = 0;
+		for (int i = 0; i < eventCount; i++) {
+			this.attributeStarts[i] = start;
+			start += readVarInt(block);
+		}
+		this.attributeStarts[eventCount] = start;
+		for (int i = 0; i < attributeCount; i++) {
+			this.keys[i] = readVarInt(block);
+		}
+		int numberIndex = 0;
+		for (int i = 0; i < attributeCount; i++) {
+			int value = readVarInt(block);
+			this.values[i] = value == 0 ? -(++numberIndex) : value - 1;
+		}
+		for (int i = 0; i < numberCount; i++) {
+			this.numbers[i] = block.getDouble();
+		}
+
+		for (int i = 0; i < eventCount; i++) {
+			time = this.times[i];
+			if (time < fromTime || time >= toTime) {
+				continue;
+			}
+			Event event = createEvent(i, time);
+			if (event != null) {
+				this.events.processEvent(event);
+			} else {
+				processGenericEvent(i, time);
+			}
+		}
+	}
+
+	/**
+	 * @return the event, or <code>null</code> if it is not one of the frequent types or not complete
+	 */
+	private Event createEvent(int row, double time) {
+		int from = this.attributeStarts[row];
+		int to = this.attributeStarts[row + 1];
+		switch (this.kinds[this.types[row]]) {
+			case LINK_ENTER: {
+				int vehicle = find(from, to, this.keyVehicle);
+				int link = find(from, to, this.keyLink);
+				if (vehicle < 0 || link < 0) {
+					return null;
+				}
+				return new LinkEnterEvent(time, vehicleId(vehicle), linkId(link));
+			}
+			case LINK_LEAVE: {
+				int vehicle = find(from, to, this.keyVehicle);
+				int link = find(from, to, this.keyLink);
+				if (vehicle < 0 || link < 0) {
+					return null;
+				}
+				return new LinkLeaveEvent(time, vehicleId(vehicle), linkId(link));
+			}
+			case PERSON_ENTERS_VEHICLE: {
+				int person = find(from, to, this.keyPerson);
+				int vehicle = find(from, to, this.keyVehicle);
+				if (person < 0 || vehicle < 0) {
+					return null;
+				}
+				return new PersonEntersVehicleEvent(time, personId(person), vehicleId(vehicle));
+			}
+			case PERSON_LEAVES_VEHICLE: {
+				int person = find(from, to, this.keyPerson);
+				int vehicle = find(from, to, this.keyVehicle);
+				if (person < 0 || vehicle < 0) {
+					return null;
+				}
+				return new PersonLeavesVehicleEvent(time, personId(person), vehicleId(vehicle));
+			}
+			case VEHICLE_ENTERS_TRAFFIC: {
+				int person = find(from, to, this.keyPerson);
+				int link = find(from, to, this.keyLink);
+				int vehicle = find(from, to, this.keyVehicle);
+				int position = find(from, to, this.keyPosition);
+				if (person < 0 || link < 0 || vehicle < 0 || position < 0) {
+					return null;
+				}
+				return new VehicleEntersTrafficEvent(time, personId(person), linkId(link), vehicleId(vehicle),
+						string(find(from, to, this.keyNetworkMode)), number(position));
+			}
+			case VEHICLE_LEAVES_TRAFFIC: {
+				int person = find(from, to, this.keyPerson);
+				int link = find(from, to, this.keyLink);
+				int vehicle = find(from, to, this.keyVehicle);
+				int position = find(from, to, this.keyPosition);
+				if (person < 0 || link < 0 || position < 0) {
+					return null;
+				}
+				return new VehicleLeavesTrafficEvent(time, personId(person), linkId(link), vehicle < 0 ? null : vehicleId(vehicle),
+						string(find(from, to, this.keyNetworkMode)), number(position));
+			}
+			case ACTIVITY_START:
+			case ACTIVITY_END: {
+				int person = find(from, to, this.keyPerson);
+				int link = find(from, to, this.keyLink);
+				if (person < 0 || link < 0) {
+					return null;
+				}
+				int facility = find(from, to, this.keyFacility);
+				int x = find(from, to, this.keyX);
+				Coord coord = x < 0 ? null : new Coord(number(x), number(find(from, to, this.keyY)));
+				Id<ActivityFacility> facilityId = facility < 0 ? null : facilityId(facility);
+				String actType = string(find(from, to, this.keyActType));
+				if (this.kinds[this.types[row]] == ACTIVITY_START) {
+					return new ActivityStartEvent(time, personId(person), linkId(link), facilityId, actType, coord);
+				}
+				return new ActivityEndEvent(time, personId(person), linkId(link), facilityId, actType, coord);
+			}
+			case PERSON_DEPARTURE: {
+				int person = find(from, to, this.keyPerson);
+				int link = find(from, to, this.keyLink);
+				if (person < 0 || link < 0) {
+					return null;
+				}
+				String legMode = string(find(from, to, this.keyLegMode));
+				String routingMode = string(find(from, to, this.keyRoutingMode));
+				return new PersonDepartureEvent(time, personId(person), linkId(link),
+						legMode == null ? null : legMode.intern(), routingMode == null ? null : routingMode.intern());
+			}
+			case PERSON_ARRIVAL: {
+				int person = find(from, to, this.keyPerson);
+				int link = find(from, to, this.keyLink);
+				if (person < 0 || link < 0) {
+					return null;
+				}
+				String legMode = string(find(from, to, this.keyLegMode));
+				return new PersonArrivalEvent(time, personId(person), linkId(link), legMode == null ? null : legMode.intern());
+			}
+			default:
+				return null;
+		}
+	}
+
+	private void processGenericEvent(int row, double time) {
+		AttributesImpl atts = this.attributes;
+		atts.clear();
+		String timeString = Double.toString(time);
+		atts.addAttribute("", Event.ATTRIBUTE_TIME, Event.ATTRIBUTE_TIME, "CDATA", timeString);
+		atts.addAttribute("", Event.ATTRIBUTE_TYPE, Event.ATTRIBUTE_TYPE, "CDATA", this.strings[this.types[row]]);
+		for (int a = this.attributeStarts[row]; a < this.attributeStarts[row + 1]; a++) {
+			String key = this.strings[this.keys[a]];
+			atts.addAttribute("", key, key, "CDATA", string(a));
+		}
+		this.genericReader.startEvent(atts);
+	}
+
+	/**
+	 * @return the index of the attribute with the given key in the row's range, or -1
+	 */
+	private int find(int from, int to, int key) {
+		if (key < 0) {
+			return -1;
+		}
+		for (int a = from; a < to; a++) {
+			if (this.keys[a] == key) {
+				return a;
+			}
+		}
+		return -1;
+	}
+
+	private String string(int attribute) {
+		if (attribute < 0) {
+			return null;
+		}
+		int value = this.values[attribute];
+		return value >= 0 ? this.strings[value] : Double.toString(this.numbers[-value - 1]);
+	}
+
+	private double number(int attribute) {
+		int value = this.values[attribute];
+		return value >= 0 ? Double.parseDouble(this.strings[value]) : this.numbers[-value - 1];
+	}
+
+	private Id<Person> personId(int attribute) {
+		int value = this.values[attribute];
+		if (value < 0) {
+			return Id.createPersonId(string(attribute));
+		}
+		Id<Person> id = this.personIds[value];
+		if (id == null) {
+			id = Id.createPersonId(this.strings[value]);
+			this.personIds[value] = id;
+		}
+		return id;
+	}
+
+	private Id<Link> linkId(int attribute) {
+		int value = this.values[attribute];
+		if (value < 0) {
+			return Id.createLinkId(string(attribute));
+		}
+		Id<Link> id = this.linkIds[value];
+		if (id == null) {
+			id = Id.createLinkId(this.strings[value]);
+			this.linkIds[value] = id;
+		}
+		return id;
+	}
+
+	private Id<Vehicle> vehicleId(int attribute) {
+		int value = this.values[attribute];
+		if (value < 0) {
+			return Id.createVehicleId(string(attribute));
+		}
+		Id<Vehicle> id = this.vehicleIds[value];
+		if (id == null) {
+			id = Id.createVehicleId(this.strings[value]);
+			this.vehicleIds[value] = id;
+		}
+		return id;
+	}
+
+	private Id<ActivityFacility> facilityId(int attribute) {
+		int value = this.values[attribute];
+		if (value < 0) {
+			return Id.create(string(attribute), ActivityFacility.class);
+		}
+		Id<ActivityFacility> id = this.facilityIds[value];
+		if (id == null) {
+			id = Id.create(this.strings[value], ActivityFacility.class);
+			this.facilityIds[value] = id;
+		}
+		return id;
+	}
+
+	private static int readVarInt(ByteBuffer buffer) {
+		int value = 0;
+		int shift = 0;
+		while (true) {
+			byte b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+			shift += 7;
+		}
+	}
+
+}
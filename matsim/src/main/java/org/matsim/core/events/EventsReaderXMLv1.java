@@ -95,7 +95,7 @@ public final class EventsReaderXMLv1 extends MatsimXmlEventsParser {
 	public void endTag(final String name, final String content, final Stack<String> context) {
 	}
 
-	private void startEvent(final Attributes atts) {
+	/*package*/ void startEvent(final Attributes atts) {
 		double time = Double.parseDouble(atts.getValue("time"));
 		String eventType = atts.getValue("type");
 
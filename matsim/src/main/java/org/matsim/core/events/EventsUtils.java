@@ -59,6 +59,15 @@ public final class EventsUtils {
 		new MatsimEventsReader(events).readFile(filename);
 	}
 
+	/**
+	 * Reads only the events with <code>fromTime &lt;= time &lt; toTime</code> from a binary events file (see
+	 * {@link org.matsim.core.events.algorithms.EventWriterBinary}). Parts of the file outside the time window
+	 * are skipped without being read.
+	 */
+	public static void readEvents(EventsManager events, String filename, double fromTime, double toTime) {
+		new EventsReaderBinary(events).readFile(filename, fromTime, toTime);
+	}
+
 
 	/**
 	 * The SimStepParallelEventsManagerImpl can handle events from multiple threads.
@@ -20,8 +20,16 @@
 
 package org.matsim.core.events;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -34,6 +42,7 @@ import org.matsim.api.core.v01.events.GenericEvent;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.api.internal.MatsimReader;
 import org.matsim.core.config.groups.ControllerConfigGroup;
+import org.matsim.core.utils.io.IOUtils;
 import org.matsim.core.utils.io.MatsimXmlParser;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
@@ -47,6 +56,8 @@ import org.xml.sax.SAXException;
 public final class MatsimEventsReader implements MatsimReader {
 
 	private final static Logger log = LogManager.getLogger(MatsimEventsReader.class);
+	private final static String BINARY_EVENTS_NEED_FILE = "Binary events cannot be read from a stream, as the reader needs random access. "
+			+ "Please read them from a file instead.";
 	private final EventsManager events;
 
 	private final Map<String, CustomEventMapper> customEventMappers = new LinkedHashMap<>();
@@ -82,6 +93,14 @@ public final class MatsimEventsReader implements MatsimReader {
 			EventsReaderJson reader = new EventsReaderJson(this.events);
 			customEventMappers.forEach(reader::addCustomEventMapper);
 			reader.parse(filename);
+		} else if (lcFilename.endsWith(".bin")) {
+			readBinary(IOUtils.resolveFileOrResource(filename));
+		} else if (lcFilename.endsWith(".pb") || lcFilename.endsWith(".pb.gz") || lcFilename.endsWith(".pb.zst")) {
+			try (InputStream stream = IOUtils.getInputStream(IOUtils.resolveFileOrResource(filename))) {
+				readProtobuf(stream);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
 		} else if (lcFilename.endsWith(".txt") || lcFilename.endsWith(".txt.gz")) {
 			throw new RuntimeException("text events are no longer supported. Please use MATSim 0.6.1 or earlier to read text events.");
 		} else {
@@ -94,19 +113,25 @@ public final class MatsimEventsReader implements MatsimReader {
 		new XmlEventsReader(this.events, this.customEventMappers).parse(stream );
 	}
 
+	/**
+	 * Reads the events from the stream. Binary events cannot be read from a stream, as the reader needs random access
+	 * to the file; use {@link #readFile(String)} for them.
+	 */
 	public void readStream(final InputStream stream, final ControllerConfigGroup.EventsFileFormat format) {
 		switch (format) {
 			case xml:
 				new XmlEventsReader(this.events, this.customEventMappers).parse(stream);
 				break;
 			case pb:
-				throw new UnsupportedOperationException(
-						"PB (Protobuf) is currently not supported to read from a stream");
+				readProtobuf(stream);
+				break;
 			case json:
 				EventsReaderJson reader = new EventsReaderJson(this.events);
 				customEventMappers.forEach(reader::addCustomEventMapper);
 				reader.parse(stream);
 				break;
+			case bin:
+				throw new IllegalArgumentException(BINARY_EVENTS_NEED_FILE);
 		}
 	}
 
@@ -118,6 +143,52 @@ public final class MatsimEventsReader implements MatsimReader {
 			EventsReaderJson reader = new EventsReaderJson(this.events);
 			customEventMappers.forEach(reader::addCustomEventMapper);
 			reader.parse(url);
+		} else if (url.getFile().endsWith(".bin")) {
+			readBinary(url);
+		} else if (url.getFile().endsWith(".pb") || url.getFile().endsWith(".pb.gz") || url.getFile().endsWith(".pb.zst")) {
+			try (InputStream stream = IOUtils.getInputStream(url)) {
+				readProtobuf(stream);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	/**
+	 * Binary events are read with random access, so they must be in a local file, not e.g. in a jar or on a server.
+	 */
+	private void readBinary(final URL url) {
+		Path path;
+		try {
+			path = Paths.get(url.toURI());
+		} catch (URISyntaxException | FileSystemNotFoundException | IllegalArgumentException e) {
+			throw new IllegalArgumentException(BINARY_EVENTS_NEED_FILE, e);
+		}
+		EventsReaderBinary reader = new EventsReaderBinary(this.events);
+		customEventMappers.forEach(reader::addCustomEventMapper);
+		reader.readFile(path, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * The protobuf reader is part of the protobuf contrib, which is an optional dependency, so it is looked up by name,
+	 * like the protobuf writer in {@link org.matsim.core.controler.corelisteners.EventsHandlingImpl}.
+	 */
+	private void readProtobuf(final InputStream stream) {
+		try {
+			Class<?> readerClass = ClassLoader.getSystemClassLoader().loadClass("org.matsim.contrib.protobuf.EventsReaderPB");
+			Object reader = readerClass.getConstructor(EventsManager.class).newInstance(this.events);
+			Method addCustomEventMapper = readerClass.getMethod("addCustomEventMapper", String.class, CustomEventMapper.class);
+			for (Map.Entry<String, CustomEventMapper> e : this.customEventMappers.entrySet()) {
+				addCustomEventMapper.invoke(reader, e.getKey(), e.getValue());
+			}
+			readerClass.getMethod("readStream", InputStream.class).invoke(reader, stream);
+		} catch (InvocationTargetException e) {
+			if (e.getCause() instanceof RuntimeException re) {
+				throw re;
+			}
+			throw new RuntimeException(e.getCause());
+		} catch (ReflectiveOperationException e) {
+			throw new RuntimeException("Error using the PB reader. Please make sure the protobuf contrib is on the classpath.", e);
 		}
 	}
 
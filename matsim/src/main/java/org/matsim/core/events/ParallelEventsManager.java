@@ -179,6 +179,20 @@ public final class ParallelEventsManager implements EventsManager {
 		this.eventsHandlers.add(handler);
 	}
 
+	@Override
+	public boolean hasHandlerFor(final Class<? extends Event> eventClass) {
+		if (!init) {
+			// the handlers are only distributed to the events managers in initProcessing()
+			return true;
+		}
+		for (EventsManager eventsManager : this.eventsManagers) {
+			if (eventsManager.hasHandlerFor(eventClass)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	@Override
 	public void removeHandler(final EventHandler handler) {
 		// this will be used the next time we start an iteration
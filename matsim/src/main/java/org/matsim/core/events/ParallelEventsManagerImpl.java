@@ -130,6 +130,18 @@ public final class ParallelEventsManagerImpl implements EventsManager {
 		}
 	}
 
+	@Override
+	public boolean hasHandlerFor(final Class<? extends Event> eventClass) {
+		synchronized (this) {
+			for (int i = 0; i < events.length; i++) {
+				if (events[i].hasHandlerFor(eventClass)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
 	@Override
 	public void resetHandlers(final int iteration) {
 		synchronized (this) {
@@ -113,6 +113,11 @@ class SimStepParallelEventsManagerImpl implements EventsManager {
 		handlerCount++;
 	}
 
+	@Override
+	public boolean hasHandlerFor(final Class<? extends Event> eventClass) {
+		return delegate.hasHandlerFor(eventClass);
+	}
+
 	@Override
 	public void removeHandler(final EventHandler handler) {
 		delegate.removeHandler(handler);
@@ -189,6 +189,11 @@ public final class SingleHandlerEventsManager implements EventsManager {
 				+ "has to be provided upon creation. Aborting!");
 	}
 
+	@Override
+	public boolean hasHandlerFor(final Class<? extends Event> eventClass) {
+		return this.isActive && getHandlersForClass(eventClass) != null;
+	}
+
 	@Override
 	public void removeHandler(final EventHandler handler) {
 		throw new UnsupportedOperationException("This implementation supports only a single EventHandler which "
@@ -55,6 +55,11 @@ class SynchronizedEventsManagerImpl implements EventsManager {
 		this.delegate.processEvent(event);
 	}
 	
+	@Override
+	public boolean hasHandlerFor(Class<? extends Event> eventClass) {
+		return this.delegate.hasHandlerFor(eventClass);
+	}
+
 	@Override
 	public void removeHandler(EventHandler handler) {
 		this.delegate.removeHandler(handler);
@@ -0,0 +1,490 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import jakarta.inject.Inject;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.events.handler.EventHandler;
+
+/**
+ * Asynchronous events manager that distributes its handlers over a fixed number of worker threads, like
+ * {@link ParallelEventsManagerImpl}, but only sends an event to the workers that actually have a handler for
+ * it. For every event class, the set of interested workers is looked up once and cached in a dispatch table,
+ * which is invalidated whenever handlers are added or removed.
+ * <p>
+ * Events are not handed over one by one. The producer collects them into one batch per worker, and full
+ * batches are published into a bounded single-producer/single-consumer ring buffer per worker, which the
+ * worker polls without taking any lock. Partially filled batches are published after each sim step and at
+ * the end of the iteration. Calls to {@link #processEvent(Event)} from several threads are serialized by a
+ * short lock, which only protects the batch assembly and never waits for a worker.
+ * <p>
+ * As with {@link ParallelEventsManagerImpl}, every handler sees the events in the order in which they were
+ * submitted, but different handlers may be at different points in time while the mobsim is running. After
+ * {@link #finishProcessing()}, events are processed directly in the calling thread.
+ */
+public final class TypeIndexedParallelEventsManager implements EventsManager {
+
+	private static final Logger log = LogManager.getLogger(TypeIndexedParallelEventsManager.class);
+
+	private static final int BATCH_SIZE = 1024;
+	private static final int DEFAULT_QUEUE_SIZE = 65536 * 2;
+	private static final Event[] END_OF_ITERATION = new Event[0];
+	private static final int[] NO_WORKERS = new int[0];
+
+	private final Worker[] workers;
+	private final int ringCapacity;
+	private final Map<Class<?>, int[]> dispatchTable = new ConcurrentHashMap<>(50);
+	private final AtomicReference<Throwable> hadException = new AtomicReference<>();
+	private int numberOfAddedEventsHandler = 0;
+	private volatile boolean parallelMode = false;
+
+	@Inject
+	TypeIndexedParallelEventsManager(Config config) {
+		this(config.eventsManager().getNumberOfThreads(), config.eventsManager().getEventsQueueSize());
+	}
+
+	/**
+	 * @param numberOfThreads
+	 *            - specify the number of threads used for the events handler
+	 */
+	public TypeIndexedParallelEventsManager(int numberOfThreads) {
+		this(numberOfThreads, DEFAULT_QUEUE_SIZE);
+	}
+
+	/**
+	 * @param numberOfThreads
+	 *            - specify the number of threads used for the events handler
+	 * @param queueSize
+	 *            - the approximate number of events that may be buffered per worker before the producer has to
+	 *            hold back further batches
+	 */
+	public TypeIndexedParallelEventsManager(int numberOfThreads, int queueSize) {
+		if (numberOfThreads < 1) {
+			throw new IllegalArgumentException("numberOfThreads must be positive, but is " + numberOfThreads);
+		}
+		this.ringCapacity = Integer.highestOneBit(Math.max(16, queueSize / BATCH_SIZE - 1) << 1);
+		this.workers = new Worker[numberOfThreads];
+		for (int i = 0; i < numberOfThreads; i++) {
+			this.workers[i] = new Worker(i, new EventsManagerImpl());
+		}
+	}
+
+	@Override
+	public void processEvent(final Event event) {
+		int[] targets = getTargetWorkers(event.getClass());
+		if (targets.length == 0) {
+			return;
+		}
+		if (!this.parallelMode) {
+			for (int w : targets) {
+				this.workers[w].events.processEvent(event);
+			}
+			return;
+		}
+		boolean hasBacklog = false;
+		synchronized (this) {
+			for (int w : targets) {
+				hasBacklog |= this.workers[w].add(event);
+			}
+		}
+		if (hasBacklog) {
+			publishBacklog(false);
+		}
+	}
+
+	@Override
+	public void processEvents(final EventArray events) {
+		if (!this.parallelMode) {
+			for (int i = 0; i < events.size(); i++) {
+				processEvent(events.get(i));
+			}
+			return;
+		}
+		boolean hasBacklog = false;
+		synchronized (this) {
+			for (int i = 0; i < events.size(); i++) {
+				Event event = events.get(i);
+				for (int w : getTargetWorkers(event.getClass())) {
+					hasBacklog |= this.workers[w].add(event);
+				}
+			}
+		}
+		if (hasBacklog) {
+			publishBacklog(false);
+		}
+	}
+
+	private int[] getTargetWorkers(Class<?> eventClass) {
+		int[] targets = this.dispatchTable.get(eventClass);
+		if (targets == null) {
+			targets = buildTargetWorkers(eventClass);
+		}
+		return targets;
+	}
+
+	@SuppressWarnings("unchecked")
+	private synchronized int[] buildTargetWorkers(Class<?> eventClass) {
+		int[] targets = new int[this.workers.length];
+		int count = 0;
+		for (Worker worker : this.workers) {
+			if (worker.events.hasHandlerFor((Class<? extends Event>) eventClass)) {
+				targets[count++] = worker.index;
+			}
+		}
+		targets = count == 0 ? NO_WORKERS : Arrays.copyOf(targets, count);
+		this.dispatchTable.put(eventClass, targets);
+		return targets;
+	}
+
+	/**
+	 * Moves batches that did not fit into a worker's ring buffer into it. If <code>waitForAll</code> is set, or
+	 * if the calling thread is not one of the workers, the method waits until every backlog is delivered, which
+	 * bounds the memory used for buffered events. Workers must never wait here, because they would wait for
+	 * themselves if one of their handlers creates new events.
+	 */
+	private void publishBacklog(boolean waitForAll) {
+		boolean mayWait = waitForAll || !isWorkerThread();
+		while (true) {
+			boolean remaining = false;
+			synchronized (this) {
+				for (Worker worker : this.workers) {
+					remaining |= worker.publishBacklog();
+				}
+			}
+			if (!remaining || !mayWait) {
+				return;
+			}
+			LockSupport.parkNanos(50_000);
+		}
+	}
+
+	private boolean isWorkerThread() {
+		Thread current = Thread.currentThread();
+		for (Worker worker : this.workers) {
+			if (worker.thread == current) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void flush() {
+		synchronized (this) {
+			for (Worker worker : this.workers) {
+				worker.flush();
+			}
+		}
+		publishBacklog(true);
+	}
+
+	@Override
+	public void addHandler(final EventHandler handler) {
+		synchronized (this) {
+			log.info("adding Event-Handler " + handler.getClass().getName() + " to thread " + numberOfAddedEventsHandler);
+			this.workers[numberOfAddedEventsHandler].events.addHandler(handler);
+			numberOfAddedEventsHandler = (numberOfAddedEventsHandler + 1) % this.workers.length;
+			this.dispatchTable.clear();
+		}
+	}
+
+	@Override
+	public void removeHandler(final EventHandler handler) {
+		synchronized (this) {
+			for (Worker worker : this.workers) {
+				worker.events.removeHandler(handler);
+			}
+			this.dispatchTable.clear();
+		}
+	}
+
+	@Override
+	public boolean hasHandlerFor(final Class<? extends Event> eventClass) {
+		return getTargetWorkers(eventClass).length > 0;
+	}
+
+	@Override
+	public void resetHandlers(final int iteration) {
+		synchronized (this) {
+			for (Worker worker : this.workers) {
+				worker.events.resetHandlers(iteration);
+			}
+		}
+	}
+
+	@Override
+	public void initProcessing() {
+		this.hadException.set(null);
+		for (Worker worker : this.workers) {
+			worker.events.initProcessing();
+			worker.start(this.ringCapacity);
+		}
+		this.parallelMode = true;
+	}
+
+	@Override
+	public void afterSimStep(double time) {
+		if (this.parallelMode) {
+			flush();
+		}
+	}
+
+	@Override
+	public void finishProcessing() {
+		if (!this.parallelMode) {
+			return;
+		}
+		flush();
+		synchronized (this) {
+			for (Worker worker : this.workers) {
+				worker.backlog.add(END_OF_ITERATION);
+			}
+		}
+		publishBacklog(true);
+
+		try {
+			for (Worker worker : this.workers) {
+				worker.thread.join();
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+		// handlers may have created further events while the workers were shutting down
+		this.parallelMode = false;
+		for (Worker worker : this.workers) {
+			worker.thread = null;
+			if (this.hadException.get() == null) {
+				worker.processRemaining();
+			}
+			worker.events.finishProcessing();
+			log.info("registered event handlers for thread " + worker.index + ":");
+			worker.events.printEventHandlers();
+		}
+		throwIfFailed();
+	}
+
+	private void throwIfFailed() {
+		Throwable t = this.hadException.get();
+		if (t != null) {
+			throw new RuntimeException(
+					"Exception while processing events. Cannot guarantee that all events have been fully processed.", t);
+		}
+	}
+
+	private final class Worker implements Runnable {
+
+		private final int index;
+		private final EventsManagerImpl events;
+		/** only accessed while holding the lock of the outer class */
+		private final ArrayDeque<Event[]> backlog = new ArrayDeque<>();
+		private Event[] batch = null;
+		private int batchSize = 0;
+		private BatchRingBuffer ring;
+		private volatile Thread thread;
+		private volatile boolean parked = false;
+
+		Worker(int index, EventsManagerImpl events) {
+			this.index = index;
+			this.events = events;
+		}
+
+		void start(int ringCapacity) {
+			this.ring = new BatchRingBuffer(ringCapacity);
+			this.backlog.clear();
+			this.batch = null;
+			this.batchSize = 0;
+			Thread t = new Thread(this, "Events-" + this.index);
+			t.setDaemon(true);
+			this.thread = t;
+			t.start();
+		}
+
+		/** @return <code>true</code> if a full batch could not be published and remains in the backlog */
+		boolean add(Event event) {
+			if (this.batch == null) {
+				this.batch = new Event[BATCH_SIZE];
+			}
+			this.batch[this.batchSize++] = event;
+			if (this.batchSize == BATCH_SIZE) {
+				publish(this.batch);
+				this.batch = null;
+				this.batchSize = 0;
+			}
+			return !this.backlog.isEmpty();
+		}
+
+		void flush() {
+			if (this.batchSize > 0) {
+				// the unused tail of the batch stays null and marks its end
+				publish(this.batch);
+				this.batch = null;
+				this.batchSize = 0;
+			}
+		}
+
+		private void publish(Event[] events) {
+			if (this.backlog.isEmpty() && this.ring.offer(events)) {
+				wakeUp();
+			} else {
+				this.backlog.add(events);
+			}
+		}
+
+		/** @return <code>true</code> if there are still batches in the backlog */
+		boolean publishBacklog() {
+			boolean published = false;
+			while (!this.backlog.isEmpty() && this.ring.offer(this.backlog.peek())) {
+				this.backlog.poll();
+				published = true;
+			}
+			if (published) {
+				wakeUp();
+			}
+			return !this.backlog.isEmpty();
+		}
+
+		/** Processes batches that were published after the end of the iteration, in the calling thread. */
+		void processRemaining() {
+			ArrayDeque<Event[]> remaining = new ArrayDeque<>();
+			for (Event[] events = this.ring.poll(); events != null; events = this.ring.poll()) {
+				remaining.add(events);
+			}
+			synchronized (TypeIndexedParallelEventsManager.this) {
+				remaining.addAll(this.backlog);
+				this.backlog.clear();
+				if (this.batchSize > 0) {
+					remaining.add(this.batch);
+				}
+				this.batch = null;
+				this.batchSize = 0;
+			}
+			for (Event[] events : remaining) {
+				for (Event event : events) {
+					if (event == null) {
+						break;
+					}
+					this.events.processEvent(event);
+				}
+			}
+		}
+
+		private void wakeUp() {
+			if (this.parked) {
+				LockSupport.unpark(this.thread);
+			}
+		}
+
+		@Override
+		public void run() {
+			int idleRounds = 0;
+			while (true) {
+				Event[] events = this.ring.poll();
+				if (events == null) {
+					if (++idleRounds < 100) {
+						Thread.onSpinWait();
+					} else {
+						this.parked = true;
+						if (this.ring.isEmpty()) {
+							LockSupport.parkNanos(this, 1_000_000);
+						}
+						this.parked = false;
+					}
+					continue;
+				}
+				idleRounds = 0;
+				if (events == END_OF_ITERATION) {
+					return;
+				}
+				if (hadException.get() != null) {
+					// keep draining so the producer is not blocked, but do not process any further events
+					continue;
+				}
+				try {
+					for (Event event : events) {
+						if (event == null) {
+							break;
+						}
+						this.events.processEvent(event);
+					}
+				} catch (Throwable t) {
+					log.error("Thread " + Thread.currentThread().getName() + " died with exception while handling events.", t);
+					hadException.compareAndSet(null, t);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Bounded single-producer/single-consumer queue of event batches. The producer side is only used while
+	 * holding the lock of the outer class, the consumer side only by the worker thread.
+	 */
+	private static final class BatchRingBuffer {
+
+		private final Event[][] slots;
+		private final int mask;
+		/** index of the next slot to read, only written by the consumer */
+		private final AtomicLong head = new AtomicLong();
+		/** index of the next slot to write, only written by the producer */
+		private final AtomicLong tail = new AtomicLong();
+
+		BatchRingBuffer(int capacity) {
+			this.slots = new Event[capacity][];
+			this.mask = capacity - 1;
+		}
+
+		boolean offer(Event[] batch) {
+			long t = this.tail.get();
+			if (t - this.head.get() == this.slots.length) {
+				return false;
+			}
+			this.slots[(int) (t & this.mask)] = batch;
+			this.tail.lazySet(t + 1);
+			return true;
+		}
+
+		Event[] poll() {
+			long h = this.head.get();
+			if (h == this.tail.get()) {
+				return null;
+			}
+			int slot = (int) (h & this.mask);
+			Event[] batch = this.slots[slot];
+			this.slots[slot] = null;
+			this.head.lazySet(h + 1);
+			return batch;
+		}
+
+		boolean isEmpty() {
+			return this.head.get() == this.tail.get();
+		}
+	}
+
+}
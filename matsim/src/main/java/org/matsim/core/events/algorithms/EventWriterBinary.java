@@ -0,0 +1,365 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.algorithms;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.HasLinkId;
+import org.matsim.api.core.v01.events.HasVehicleId;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.events.EventsReaderBinary;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Writes events in a binary, column-oriented format that can be read back by {@link EventsReaderBinary}.
+ * <p>
+ * Events are grouped into blocks of {@value EventsReaderBinary#BLOCK_SIZE} events. Within a block, the
+ * event times, the event types, and the attribute keys and values are stored column by column. All strings
+ * (event types, attribute keys, ids, modes) are stored only once in a string table at the end of the file and
+ * are referenced by their index. Attribute values that are the canonical string representation of a double
+ * are stored as binary doubles instead, and event times as the number of seconds since the previous event
+ * where possible. The end of the file contains, for every block, its position and the
+ * earliest and latest event time in it, which allows readers to skip directly to a time window.
+ * <p>
+ * Because of this index, the file cannot be compressed as a whole and is always written as plain file.
+ *
+ * @see EventsReaderBinary
+ */
+public class EventWriterBinary implements EventWriter, BasicEventHandler {
+
+	private final OutputStream out;
+	private long position = 0;
+
+	private final Map<String, Integer> stringIndex = new HashMap<>();
+	private final List<String> strings = new ArrayList<>();
+	private final List<long[]> blockPositions = new ArrayList<>();
+	private final List<double[]> blockTimes = new ArrayList<>();
+
+	// columns of the current block
+	private final double[] times = new double[EventsReaderBinary.BLOCK_SIZE];
+	private final int[] types = new int[EventsReaderBinary.BLOCK_SIZE];
+	private final int[] attributeCounts = new int[EventsReaderBinary.BLOCK_SIZE];
+	private int eventCount = 0;
+	private int[] keys = new int[EventsReaderBinary.BLOCK_SIZE * 4];
+	private int[] values = new int[EventsReaderBinary.BLOCK_SIZE * 4];
+	private int attributeCount = 0;
+	private double[] numbers = new double[EventsReaderBinary.BLOCK_SIZE];
+	private int numberCount = 0;
+
+	private final ByteBuffer buffer = new ByteBuffer();
+
+	public EventWriterBinary(File outfile) {
+		try {
+			this.out = new BufferedOutputStream(new FileOutputStream(outfile), 1 << 16);
+			this.buffer.writeInt(EventsReaderBinary.MAGIC);
+			this.buffer.writeInt(EventsReaderBinary.VERSION);
+			writeBuffer();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public EventWriterBinary(String filename) {
+		this(new File(filename));
+	}
+
+	@Override
+	public void handleEvent(final Event event) {
+		this.times[this.eventCount] = event.getTime();
+		this.types[this.eventCount] = stringRef(event.getEventType());
+		Class<?> eventClass = event.getClass();
+		if (eventClass == LinkEnterEvent.class) {
+			LinkEnterEvent e = (LinkEnterEvent) event;
+			handleLinkEvent(e.getLinkId(), e.getVehicleId());
+		} else if (eventClass == LinkLeaveEvent.class) {
+			LinkLeaveEvent e = (LinkLeaveEvent) event;
+			handleLinkEvent(e.getLinkId(), e.getVehicleId());
+		} else {
+			handleAttributes(event);
+		}
+		this.eventCount++;
+		if (this.eventCount == EventsReaderBinary.BLOCK_SIZE) {
+			writeBlock();
+		}
+	}
+
+	/**
+	 * Link events make up the largest part of most events files, so their attributes are written without
+	 * creating the attribute map. The attributes are the same as in {@link Event#getAttributes()}.
+	 */
+	private void handleLinkEvent(Id<Link> linkId, Id<Vehicle> vehicleId) {
+		int count = 0;
+		if (linkId != null) {
+			addAttribute(HasLinkId.ATTRIBUTE_LINK, linkId.toString());
+			count++;
+		}
+		if (vehicleId != null) {
+			addAttribute(HasVehicleId.ATTRIBUTE_VEHICLE, vehicleId.toString());
+			count++;
+		}
+		this.attributeCounts[this.eventCount] = count;
+	}
+
+	private void handleAttributes(final Event event) {
+		int count = 0;
+		for (Map.Entry<String, String> entry : event.getAttributes().entrySet()) {
+			String key = entry.getKey();
+			if (Event.ATTRIBUTE_TIME.equals(key) || Event.ATTRIBUTE_TYPE.equals(key)) {
+				continue;
+			}
+			String value = entry.getValue();
+			if (value == null) {
+				continue;
+			}
+			addAttribute(key, value);
+			count++;
+		}
+		this.attributeCounts[this.eventCount] = count;
+	}
+
+	private void addAttribute(String key, String value) {
+		if (this.attributeCount == this.keys.length) {
+			this.keys = Arrays.copyOf(this.keys, this.keys.length * 2);
+			this.values = Arrays.copyOf(this.values, this.values.length * 2);
+		}
+		this.keys[this.attributeCount] = stringRef(key);
+		this.values[this.attributeCount] = valueRef(value);
+		this.attributeCount++;
+	}
+
+	private int stringRef(String s) {
+		Integer ref = this.stringIndex.get(s);
+		if (ref == null) {
+			ref = this.strings.size();
+			this.strings.add(s);
+			this.stringIndex.put(s, ref);
+		}
+		return ref;
+	}
+
+	/**
+	 * @return <code>0</code> if the value was stored as number, otherwise the index of the string plus 1.
+	 */
+	private int valueRef(String value) {
+		Integer ref = this.stringIndex.get(value);
+		if (ref != null) {
+			return ref + 1;
+		}
+		if (isCanonicalDouble(value)) {
+			if (this.numberCount == this.numbers.length) {
+				this.numbers = Arrays.copyOf(this.numbers, this.numbers.length * 2);
+			}
+			this.numbers[this.numberCount++] = Double.parseDouble(value);
+			return 0;
+		}
+		return stringRef(value) + 1;
+	}
+
+	/**
+	 * Only values that are reproduced exactly by {@link Double#toString(double)} are stored as numbers, so the
+	 * reader returns exactly the same attribute values. Integral ids like "12" are not affected, as they would
+	 * be printed as "12.0".
+	 */
+	private static boolean isCanonicalDouble(String value) {
+		int length = value.length();
+		if (length == 0 || length > 24) {
+			return false;
+		}
+		boolean hasDot = false;
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c == '.') {
+				hasDot = true;
+			} else if (!((c >= '0' && c <= '9') || c == '-' || c == 'E')) {
+				return false;
+			}
+		}
+		if (!hasDot) {
+			return false;
+		}
+		try {
+			return Double.toString(Double.parseDouble(value)).equals(value);
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	private void writeBlock() {
+		if (this.eventCount == 0) {
+			return;
+		}
+		ByteBuffer b = this.buffer;
+		b.writeVarInt(this.eventCount);
+		b.writeVarInt(this.attributeCount);
+		b.writeVarInt(this.numberCount);
+		double previous = 0;
+		for (int i = 0; i < this.eventCount; i++) {
+			// most events share the time of their predecessor, or follow it after a few whole seconds
+			double time = this.times[i];
+			double delta = time - previous;
+			if (Double.doubleToRawLongBits(time) == Double.doubleToRawLongBits(previous)) {
+				b.writeVarInt(EventsReaderBinary.TIME_UNCHANGED);
+			} else if (delta > 0 && delta < (1 << 27) && delta == Math.rint(delta) && previous + delta == time) {
+				b.writeVarInt(((int) delta << 1) | 1);
+			} else {
+				b.writeVarInt(EventsReaderBinary.TIME_ABSOLUTE);
+				b.writeDouble(time);
+			}
+			previous = time;
+		}
+		for (int i = 0; i < this.eventCount; i++) {
+			b.writeVarInt(this.types[i]);
+		}
+		for (int i = 0; i < this.eventCount; i++) {
+			b.writeVarInt(this.attributeCounts[i]);
+		}
+		for (int i = 0; i < this.attributeCount; i++) {
+			b.writeVarInt(this.keys[i]);
+		}
+		for (int i = 0; i < this.attributeCount; i++) {
+			b.writeVarInt(this.values[i]);
+		}
+		for (int i = 0; i < this.numberCount; i++) {
+			b.writeDouble(this.numbers[i]);
+		}
+		this.blockPositions.add(new long[] { this.position, b.size, this.eventCount });
+		double minTime = Double.POSITIVE_INFINITY;
+		double maxTime = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < this.eventCount; i++) {
+			minTime = Math.min(minTime, this.times[i]);
+			maxTime = Math.max(maxTime, this.times[i]);
+		}
+		this.blockTimes.add(new double[] { minTime, maxTime });
+		try {
+			writeBuffer();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		this.eventCount = 0;
+		this.attributeCount = 0;
+		this.numberCount = 0;
+	}
+
+	private void writeBuffer() throws IOException {
+		this.out.write(this.buffer.bytes, 0, this.buffer.size);
+		this.position += this.buffer.size;
+		this.buffer.size = 0;
+	}
+
+	@Override
+	public void closeFile() {
+		writeBlock();
+		try {
+			long footerPosition = this.position;
+			ByteBuffer b = this.buffer;
+			b.writeVarInt(this.strings.size());
+			for (String s : this.strings) {
+				byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+				b.writeVarInt(bytes.length);
+				b.write(bytes);
+				if (b.size > (1 << 16)) {
+					writeBuffer();
+				}
+			}
+			b.writeVarInt(this.blockPositions.size());
+			for (int i = 0; i < this.blockPositions.size(); i++) {
+				long[] block = this.blockPositions.get(i);
+				double[] blockTime = this.blockTimes.get(i);
+				b.writeLong(block[0]);
+				b.writeInt((int) block[1]);
+				b.writeInt((int) block[2]);
+				b.writeDouble(blockTime[0]);
+				b.writeDouble(blockTime[1]);
+			}
+			b.writeLong(footerPosition);
+			b.writeInt(EventsReaderBinary.MAGIC);
+			writeBuffer();
+			this.out.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void reset(final int iter) {
+	}
+
+	/**
+	 * Growable big-endian byte buffer, used to assemble a block before it is written.
+	 */
+	private static final class ByteBuffer {
+		private byte[] bytes = new byte[1 << 16];
+		private int size = 0;
+
+		private void ensureCapacity(int additional) {
+			if (this.size + additional > this.bytes.length) {
+				this.bytes = Arrays.copyOf(this.bytes, Math.max(this.bytes.length * 2, this.size + additional));
+			}
+		}
+
+		void write(byte[] data) {
+			ensureCapacity(data.length);
+			System.arraycopy(data, 0, this.bytes, this.size, data.length);
+			this.size += data.length;
+		}
+
+		void writeVarInt(int value) {
+			ensureCapacity(5);
+			while ((value & ~0x7F) != 0) {
+				this.bytes[this.size++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			this.bytes[this.size++] = (byte) value;
+		}
+
+		void writeInt(int value) {
+			ensureCapacity(4);
+			this.bytes[this.size++] = (byte) (value >>> 24);
+			this.bytes[this.size++] = (byte) (value >>> 16);
+			this.bytes[this.size++] = (byte) (value >>> 8);
+			this.bytes[this.size++] = (byte) value;
+		}
+
+		void writeLong(long value) {
+			writeInt((int) (value >>> 32));
+			writeInt((int) value);
+		}
+
+		void writeDouble(double value) {
+			writeLong(Double.doubleToRawLongBits(value));
+		}
+	}
+
+}
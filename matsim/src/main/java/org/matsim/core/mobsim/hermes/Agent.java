@@ -20,7 +20,6 @@
 package org.matsim.core.mobsim.hermes;
 
 import org.matsim.api.core.v01.Id;
-import org.matsim.core.events.EventArray;
 import org.matsim.pt.transitSchedule.api.TransitStopFacility;
 
 import java.util.ArrayList;
@@ -97,7 +96,7 @@ class Agent {
     // <0110> StopDepartType  | 4 bits unused | 16 bit event id  | 8 bits unused   | 16 bit route id | 16 station id
     protected final PlanArray plan; // TODO - use a byte buffer instead of a long[]...
 
-    protected final EventArray events;
+    protected final CompactEventArray events;
 
     // Current position in plan. Using this index in the plan will yield what
     // the agent is doing currently. Note that we trigger the corresponding
@@ -123,7 +122,7 @@ class Agent {
 
     private final static List<Agent> NO_PASSENGERS = Collections.emptyList();
 
-    public Agent(int id, int capacity, PlanArray plan, EventArray events) {
+    public Agent(int id, int capacity, PlanArray plan, CompactEventArray events) {
         this.id = id;
         this.plan = plan;
         this.events = events;
@@ -159,7 +158,7 @@ class Agent {
         return this.plan;
     }
 
-    public EventArray events() {
+    public CompactEventArray events() {
         return this.events;
     }
 
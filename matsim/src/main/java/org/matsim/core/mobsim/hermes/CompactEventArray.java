@@ -0,0 +1,350 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2014 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+package org.matsim.core.mobsim.hermes;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.events.TransitDriverStartsEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.AgentWaitingForPtEvent;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.api.experimental.events.TeleportationArrivalEvent;
+import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
+import org.matsim.core.api.experimental.events.VehicleDepartsAtFacilityEvent;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+import org.matsim.vehicles.Vehicle;
+
+import java.util.Arrays;
+
+/**
+ * The events an agent will generate while executing its plan, in a compact encoding.
+ * <p>
+ * Instead of building all {@link Event} objects before the simulation starts, every event is stored as a type
+ * and a few ints (mostly {@link Id#index()} values) in primitive arrays. Strings and coordinates are kept as
+ * references to the objects of the plan. The time is not stored at all, it is only known when the event is
+ * emitted. {@link #toEvent(int, int)} creates the actual event object once it is dispatched.
+ */
+final class CompactEventArray {
+
+    static final byte ACTIVITY_START = 0;
+    static final byte ACTIVITY_END = 1;
+    static final byte PERSON_DEPARTURE = 2;
+    static final byte PERSON_ARRIVAL = 3;
+    static final byte PERSON_ENTERS_VEHICLE = 4;
+    static final byte PERSON_LEAVES_VEHICLE = 5;
+    static final byte VEHICLE_ENTERS_TRAFFIC = 6;
+    static final byte VEHICLE_LEAVES_TRAFFIC = 7;
+    static final byte LINK_ENTER = 8;
+    static final byte LINK_LEAVE = 9;
+    static final byte TELEPORTATION_ARRIVAL = 10;
+    static final byte AGENT_WAITING_FOR_PT = 11;
+    static final byte TRANSIT_DRIVER_STARTS = 12;
+    static final byte VEHICLE_ARRIVES_AT_FACILITY = 13;
+    static final byte VEHICLE_DEPARTS_AT_FACILITY = 14;
+
+    // event class per type, used to find out whether anybody listens to a type.
+    private static final Class<?>[] EVENT_CLASSES = {
+            ActivityStartEvent.class,
+            ActivityEndEvent.class,
+            PersonDepartureEvent.class,
+            PersonArrivalEvent.class,
+            PersonEntersVehicleEvent.class,
+            PersonLeavesVehicleEvent.class,
+            VehicleEntersTrafficEvent.class,
+            VehicleLeavesTrafficEvent.class,
+            LinkEnterEvent.class,
+            LinkLeaveEvent.class,
+            TeleportationArrivalEvent.class,
+            AgentWaitingForPtEvent.class,
+            TransitDriverStartsEvent.class,
+            VehicleArrivesAtFacilityEvent.class,
+            VehicleDepartsAtFacilityEvent.class
+    };
+
+    private static final int NONE = -1;
+
+    private byte[] types;
+    // position of the first value of an event in data
+    private int[] offsets;
+    private int[] data;
+    // strings and coordinates; the same string object is stored only once.
+    private Object[] objects;
+    private int size;
+    private int dataSize;
+    private int objectsSize;
+
+    CompactEventArray() {
+        this.types = new byte[16];
+        this.offsets = new int[16];
+        this.data = new int[32];
+        this.objects = new Object[4];
+    }
+
+    /**
+     * Returns, indexed by event type, whether the events manager has handlers that receive events of that type.
+     */
+    @SuppressWarnings("unchecked")
+    static boolean[] getHandledTypes(EventsManager eventsManager) {
+        boolean[] handled = new boolean[EVENT_CLASSES.length];
+        for (int i = 0; i < EVENT_CLASSES.length; i++) {
+            handled[i] = eventsManager.hasHandlerFor((Class<? extends Event>) EVENT_CLASSES[i]);
+        }
+        return handled;
+    }
+
+    int size() {
+        return size;
+    }
+
+    byte type(int index) {
+        return types[index];
+    }
+
+    void clear() {
+        Arrays.fill(objects, 0, objectsSize, null);
+        size = 0;
+        dataSize = 0;
+        objectsSize = 0;
+    }
+
+    void addActivityStart(Id<Person> person, Id<Link> link, Id<ActivityFacility> facility, String actType, Coord coord) {
+        add(ACTIVITY_START, person.index(), link.index(), index(facility), object(actType), object(coord));
+    }
+
+    void addActivityEnd(Id<Person> person, Id<Link> link, Id<ActivityFacility> facility, String actType, Coord coord) {
+        add(ACTIVITY_END, person.index(), link.index(), index(facility), object(actType), object(coord));
+    }
+
+    void addPersonDeparture(Id<Person> person, Id<Link> link, String legMode, String routingMode) {
+        add(PERSON_DEPARTURE, person.index(), link.index(), object(legMode), object(routingMode));
+    }
+
+    void addPersonArrival(Id<Person> person, Id<Link> link, String legMode) {
+        add(PERSON_ARRIVAL, person.index(), link.index(), object(legMode));
+    }
+
+    void addPersonEntersVehicle(Id<Person> person, Id<Vehicle> vehicle) {
+        add(PERSON_ENTERS_VEHICLE, person.index(), index(vehicle));
+    }
+
+    void addPersonLeavesVehicle(Id<Person> person, Id<Vehicle> vehicle) {
+        add(PERSON_LEAVES_VEHICLE, person.index(), index(vehicle));
+    }
+
+    void addVehicleEntersTraffic(Id<Person> driver, Id<Link> link, Id<Vehicle> vehicle, String networkMode) {
+        add(VEHICLE_ENTERS_TRAFFIC, driver.index(), link.index(), vehicle.index(), object(networkMode));
+    }
+
+    void addVehicleLeavesTraffic(Id<Person> driver, Id<Link> link, Id<Vehicle> vehicle, String networkMode) {
+        add(VEHICLE_LEAVES_TRAFFIC, driver.index(), link.index(), vehicle.index(), object(networkMode));
+    }
+
+    void addLinkEnter(Id<Vehicle> vehicle, Id<Link> link) {
+        add(LINK_ENTER, vehicle.index(), link.index());
+    }
+
+    void addLinkLeave(Id<Vehicle> vehicle, Id<Link> link) {
+        add(LINK_LEAVE, vehicle.index(), link.index());
+    }
+
+    void addTeleportationArrival(Id<Person> person, double distance, String mode) {
+        long bits = Double.doubleToRawLongBits(distance);
+        add(TELEPORTATION_ARRIVAL, person.index(), (int) (bits >>> 32), (int) bits, object(mode));
+    }
+
+    void addAgentWaitingForPt(Id<Person> person, Id<TransitStopFacility> waitingAt, Id<TransitStopFacility> destination) {
+        add(AGENT_WAITING_FOR_PT, person.index(), waitingAt.index(), destination.index());
+    }
+
+    void addTransitDriverStarts(Id<Person> driver, Id<Vehicle> vehicle, Id<TransitLine> line, Id<TransitRoute> route, Id<Departure> departure) {
+        add(TRANSIT_DRIVER_STARTS, driver.index(), vehicle.index(), line.index(), route.index(), departure.index());
+    }
+
+    /**
+     * @param scheduledTime the delay of the event is computed from the difference between the actual and this time.
+     */
+    void addVehicleArrivesAtFacility(Id<Vehicle> vehicle, Id<TransitStopFacility> facility, double scheduledTime) {
+        long bits = Double.doubleToRawLongBits(scheduledTime);
+        add(VEHICLE_ARRIVES_AT_FACILITY, vehicle.index(), facility.index(), (int) (bits >>> 32), (int) bits);
+    }
+
+    void addVehicleDepartsAtFacility(Id<Vehicle> vehicle, Id<TransitStopFacility> facility, double scheduledTime) {
+        long bits = Double.doubleToRawLongBits(scheduledTime);
+        add(VEHICLE_DEPARTS_AT_FACILITY, vehicle.index(), facility.index(), (int) (bits >>> 32), (int) bits);
+    }
+
+    /**
+     * Sets the vehicle of a person enters/leaves vehicle event, which is only known once a passenger boards.
+     */
+    void setVehicle(int index, int vehicleIndex) {
+        byte type = types[index];
+        if (type != PERSON_ENTERS_VEHICLE && type != PERSON_LEAVES_VEHICLE) {
+            throw new RuntimeException(String.format("vehicle id could not be set for event: %d", index));
+        }
+        data[offsets[index] + 1] = vehicleIndex;
+    }
+
+    /**
+     * Creates the event at position <code>index</code> with the given time.
+     */
+    Event toEvent(int index, int time) {
+        int o = offsets[index];
+        int[] d = data;
+        switch (types[index]) {
+            case ACTIVITY_START:
+                return new ActivityStartEvent(time, Id.get(d[o], Person.class), Id.get(d[o + 1], Link.class),
+                        id(d[o + 2], ActivityFacility.class), (String) object(d[o + 3]), (Coord) object(d[o + 4]));
+            case ACTIVITY_END:
+                return new ActivityEndEvent(time, Id.get(d[o], Person.class), Id.get(d[o + 1], Link.class),
+                        id(d[o + 2], ActivityFacility.class), (String) object(d[o + 3]), (Coord) object(d[o + 4]));
+            case PERSON_DEPARTURE:
+                return new PersonDepartureEvent(time, Id.get(d[o], Person.class), Id.get(d[o + 1], Link.class),
+                        (String) object(d[o + 2]), (String) object(d[o + 3]));
+            case PERSON_ARRIVAL:
+                return new PersonArrivalEvent(time, Id.get(d[o], Person.class), Id.get(d[o + 1], Link.class), (String) object(d[o + 2]));
+            case PERSON_ENTERS_VEHICLE:
+                return new PersonEntersVehicleEvent(time, Id.get(d[o], Person.class), id(d[o + 1], Vehicle.class));
+            case PERSON_LEAVES_VEHICLE:
+                return new PersonLeavesVehicleEvent(time, Id.get(d[o], Person.class), id(d[o + 1], Vehicle.class));
+            case VEHICLE_ENTERS_TRAFFIC:
+                return new VehicleEntersTrafficEvent(time, Id.get(d[o], Person.class), Id.get(d[o + 1], Link.class),
+                        Id.get(d[o + 2], Vehicle.class), (String) object(d[o + 3]), 1);
+            case VEHICLE_LEAVES_TRAFFIC:
+                return new VehicleLeavesTrafficEvent(time, Id.get(d[o], Person.class), Id.get(d[o + 1], Link.class),
+                        Id.get(d[o + 2], Vehicle.class), (String) object(d[o + 3]), 1);
+            case LINK_ENTER:
+                return new LinkEnterEvent(time, Id.get(d[o], Vehicle.class), Id.get(d[o + 1], Link.class));
+            case LINK_LEAVE:
+                return new LinkLeaveEvent(time, Id.get(d[o], Vehicle.class), Id.get(d[o + 1], Link.class));
+            case TELEPORTATION_ARRIVAL:
+                return new TeleportationArrivalEvent(time, Id.get(d[o], Person.class), toDouble(d[o + 1], d[o + 2]), (String) object(d[o + 3]));
+            case AGENT_WAITING_FOR_PT:
+                return new AgentWaitingForPtEvent(time, Id.get(d[o], Person.class),
+                        Id.get(d[o + 1], TransitStopFacility.class), Id.get(d[o + 2], TransitStopFacility.class));
+            case TRANSIT_DRIVER_STARTS:
+                return new TransitDriverStartsEvent(time, Id.get(d[o], Person.class), Id.get(d[o + 1], Vehicle.class),
+                        Id.get(d[o + 2], TransitLine.class), Id.get(d[o + 3], TransitRoute.class), Id.get(d[o + 4], Departure.class));
+            case VEHICLE_ARRIVES_AT_FACILITY:
+                return new VehicleArrivesAtFacilityEvent(time, Id.get(d[o], Vehicle.class), Id.get(d[o + 1], TransitStopFacility.class),
+                        time - toDouble(d[o + 2], d[o + 3]));
+            case VEHICLE_DEPARTS_AT_FACILITY:
+                return new VehicleDepartsAtFacilityEvent(time, Id.get(d[o], Vehicle.class), Id.get(d[o + 1], TransitStopFacility.class),
+                        time - toDouble(d[o + 2], d[o + 3]));
+            default:
+                throw new RuntimeException("unknown event type " + types[index]);
+        }
+    }
+
+    private void add(byte type, int v0, int v1) {
+        int o = append(type, 2);
+        data[o] = v0;
+        data[o + 1] = v1;
+    }
+
+    private void add(byte type, int v0, int v1, int v2) {
+        int o = append(type, 3);
+        data[o] = v0;
+        data[o + 1] = v1;
+        data[o + 2] = v2;
+    }
+
+    private void add(byte type, int v0, int v1, int v2, int v3) {
+        int o = append(type, 4);
+        data[o] = v0;
+        data[o + 1] = v1;
+        data[o + 2] = v2;
+        data[o + 3] = v3;
+    }
+
+    private void add(byte type, int v0, int v1, int v2, int v3, int v4) {
+        int o = append(type, 5);
+        data[o] = v0;
+        data[o + 1] = v1;
+        data[o + 2] = v2;
+        data[o + 3] = v3;
+        data[o + 4] = v4;
+    }
+
+    private int append(byte type, int length) {
+        if (size == types.length) {
+            int capacity = types.length + types.length / 2;
+            types = Arrays.copyOf(types, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+        }
+        if (dataSize + length > data.length) {
+            data = Arrays.copyOf(data, data.length + data.length / 2 + length);
+        }
+        int offset = dataSize;
+        types[size] = type;
+        offsets[size] = offset;
+        dataSize += length;
+        size++;
+        return offset;
+    }
+
+    private int object(Object value) {
+        if (value == null) {
+            return NONE;
+        }
+        if (value instanceof String) {
+            for (int i = 0; i < objectsSize; i++) {
+                if (objects[i] == value) {
+                    return i;
+                }
+            }
+        }
+        if (objectsSize == objects.length) {
+            objects = Arrays.copyOf(objects, objects.length * 2);
+        }
+        objects[objectsSize] = value;
+        return objectsSize++;
+    }
+
+    private Object object(int index) {
+        return index == NONE ? null : objects[index];
+    }
+
+    private static int index(Id<?> id) {
+        return id == null ? NONE : id.index();
+    }
+
+    private static <T> Id<T> id(int index, Class<T> type) {
+        return index == NONE ? null : Id.get(index, type);
+    }
+
+    private static double toDouble(int high, int low) {
+        return Double.longBitsToDouble(((long) high << 32) | (low & 0xFFFFFFFFL));
+    }
+}
@@ -48,8 +48,8 @@ final class Hermes implements Mobsim {
 		this.agents = scenarioImporter.hermesAgents;
 	}
 
-	private void processEvents() {
-        eventsManager.processEvents(realm.getSortedEvents());
+	private void processEvents() throws InterruptedException {
+		realm.finishEventProcessing();
 
 		for (Agent agent : agents) {
 			if (agent != null && !agent.finished() && !agent.isTransitVehicle()) {
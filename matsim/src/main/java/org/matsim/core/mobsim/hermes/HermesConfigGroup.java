@@ -47,6 +47,14 @@ public final class HermesConfigGroup extends ReflectiveConfigGroup {
 
     private static final String DETPT = "useDeterministicPt";
 
+    private static final String EVENTS_INTERVAL = "eventsProcessingInterval";
+    private static final String EVENTS_INTERVALDESC = "time in seconds. The events of this many simulated seconds are collected and then dispatched to the events manager"
+            + " in a background thread, while the simulation continues.";
+
+    private static final String PARTITIONS = "numberOfPartitions";
+    private static final String PARTITIONSDESC = "Number of spatial partitions of the network that are simulated in parallel threads."
+            + " Agents crossing a partition border are handed over between the threads in every time step. 1 (default) runs a single realm.";
+
     // Number of simulation steps
     public static int SIM_STEPS = 30 * 60 * 60;
     // Number of ticks that are added to every agent advancing links.
@@ -77,6 +85,12 @@ public final class HermesConfigGroup extends ReflectiveConfigGroup {
     @Positive
     private int stuckTime = 10;
 
+    @Positive
+    private int numberOfPartitions = 1;
+
+    @Positive
+    private int eventsProcessingInterval = 3600;
+
     public Set<String> getMainModes() {
         return mainModes;
     }
@@ -123,6 +137,26 @@ public final class HermesConfigGroup extends ReflectiveConfigGroup {
         this.stuckTime = stuckTime;
     }
 
+    @StringGetter(PARTITIONS)
+    public int getNumberOfPartitions() {
+        return numberOfPartitions;
+    }
+
+    @StringSetter(PARTITIONS)
+    public void setNumberOfPartitions(int numberOfPartitions) {
+        this.numberOfPartitions = numberOfPartitions;
+    }
+
+    @StringGetter(EVENTS_INTERVAL)
+    public int getEventsProcessingInterval() {
+        return eventsProcessingInterval;
+    }
+
+    @StringSetter(EVENTS_INTERVAL)
+    public void setEventsProcessingInterval(int eventsProcessingInterval) {
+        this.eventsProcessingInterval = eventsProcessingInterval;
+    }
+
     @StringSetter(FLOW_CAPACITY_FACTOR)
     public void setFlowCapacityFactor(double flowCapacityFactor) {
         this.flowCapacityFactor = flowCapacityFactor;
@@ -159,6 +193,8 @@ public final class HermesConfigGroup extends ReflectiveConfigGroup {
         comments.put(END_TIME, "Simulation End Time");
         comments.put(STUCKTIMEPARAM, STUCKTIMEPARAMDESC);
         comments.put(DETPT, DETPTDESC);
+        comments.put(PARTITIONS, PARTITIONSDESC);
+        comments.put(EVENTS_INTERVAL, EVENTS_INTERVALDESC);
         return comments;
     }
 
@@ -0,0 +1,187 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2014 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+package org.matsim.core.mobsim.hermes;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+
+import java.util.Arrays;
+
+/**
+ * Assigns every link and stop to one of several realms that are simulated in parallel.
+ * <p>
+ * The network is split by recursive coordinate bisection along the longer extent of the bounding box.
+ * Links are weighted by the number of plan entries of the current iteration that use them, so every
+ * partition gets roughly the same amount of work, while the borders (and with it the number of agents
+ * that need to be handed over between partitions) stay short. Stops belong to the partition of their link.
+ */
+final class HermesPartitioning {
+
+    private final int numberOfPartitions;
+    private final int[] partitionOfLink;
+    private final int[] partitionOfStop;
+
+    private HermesPartitioning(int numberOfPartitions, int[] partitionOfLink, int[] partitionOfStop) {
+        this.numberOfPartitions = numberOfPartitions;
+        this.partitionOfLink = partitionOfLink;
+        this.partitionOfStop = partitionOfStop;
+    }
+
+    static HermesPartitioning create(int numberOfPartitions, Network network, TransitSchedule schedule, HLink[] links, Agent[] agents) {
+        long[] weights = new long[links.length];
+        for (Agent agent : agents) {
+            if (agent == null) {
+                continue;
+            }
+            for (int i = 0; i < agent.plan.size(); i++) {
+                long planentry = agent.plan.get(i);
+                if (Agent.getPlanHeader(planentry) == Agent.LinkType) {
+                    weights[Agent.getLinkPlanEntry(planentry)]++;
+                }
+            }
+        }
+
+        int[] linkIds = new int[network.getLinks().size()];
+        double[] x = new double[links.length];
+        double[] y = new double[links.length];
+        int count = 0;
+        for (Link link : network.getLinks().values()) {
+            int id = link.getId().index();
+            if (id < links.length && links[id] != null) {
+                Coord coord = link.getCoord();
+                x[id] = coord.getX();
+                y[id] = coord.getY();
+                // every link has a small base load, even if no agent uses it.
+                weights[id]++;
+                linkIds[count++] = id;
+            }
+        }
+        linkIds = Arrays.copyOf(linkIds, count);
+        // sorting by id makes the result independent of the iteration order of the network.
+        Arrays.sort(linkIds);
+
+        int[] partitionOfLink = new int[links.length];
+        bisect(linkIds, x, y, weights, 0, numberOfPartitions, partitionOfLink);
+
+        int[] partitionOfStop = new int[HermesConfigGroup.MAX_STOP_ROUTE_ID];
+        if (schedule != null) {
+            for (TransitStopFacility stop : schedule.getFacilities().values()) {
+                int stopId = stop.getId().index();
+                if (stop.getLinkId() != null && stopId < partitionOfStop.length) {
+                    int linkId = stop.getLinkId().index();
+                    if (linkId < links.length && links[linkId] != null) {
+                        partitionOfStop[stopId] = partitionOfLink[linkId];
+                    }
+                }
+            }
+        }
+        return new HermesPartitioning(numberOfPartitions, partitionOfLink, partitionOfStop);
+    }
+
+    private static void bisect(int[] linkIds, double[] x, double[] y, long[] weights, int firstPartition, int partitions, int[] partitionOfLink) {
+        if (partitions == 1 || linkIds.length == 0) {
+            for (int id : linkIds) {
+                partitionOfLink[id] = firstPartition;
+            }
+            return;
+        }
+        double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        long totalWeight = 0;
+        for (int id : linkIds) {
+            minX = Math.min(minX, x[id]);
+            maxX = Math.max(maxX, x[id]);
+            minY = Math.min(minY, y[id]);
+            maxY = Math.max(maxY, y[id]);
+            totalWeight += weights[id];
+        }
+        double[] axis = maxX - minX >= maxY - minY ? x : y;
+        Integer[] sorted = new Integer[linkIds.length];
+        for (int i = 0; i < linkIds.length; i++) {
+            sorted[i] = linkIds[i];
+        }
+        // ties are broken by link id to stay deterministic
+        Arrays.sort(sorted, (a, b) -> {
+            int cmp = Double.compare(axis[a], axis[b]);
+            return cmp != 0 ? cmp : Integer.compare(a, b);
+        });
+
+        int lowerPartitions = partitions / 2;
+        long lowerWeight = totalWeight * lowerPartitions / partitions;
+        int split = 0;
+        long weight = 0;
+        while (split < sorted.length && weight < lowerWeight) {
+            weight += weights[sorted[split]];
+            split++;
+        }
+
+        int[] lower = new int[split];
+        int[] upper = new int[sorted.length - split];
+        for (int i = 0; i < sorted.length; i++) {
+            if (i < split) {
+                lower[i] = sorted[i];
+            } else {
+                upper[i - split] = sorted[i];
+            }
+        }
+        bisect(lower, x, y, weights, firstPartition, lowerPartitions, partitionOfLink);
+        bisect(upper, x, y, weights, firstPartition + lowerPartitions, partitions - lowerPartitions, partitionOfLink);
+    }
+
+    int getNumberOfPartitions() {
+        return numberOfPartitions;
+    }
+
+    int getPartitionOfLink(int linkId) {
+        return partitionOfLink[linkId];
+    }
+
+    /**
+     * Returns the partition that executes the given plan entry, or -1 if any partition can execute it.
+     */
+    int getPartitionOfPlanEntry(long planentry) {
+        switch (Agent.getPlanHeader(planentry)) {
+            case Agent.LinkType:
+                return partitionOfLink[Agent.getLinkPlanEntry(planentry)];
+            case Agent.StopArriveType:
+            case Agent.StopDelayType:
+            case Agent.StopDepartType:
+            case Agent.WaitType:
+                return partitionOfStop[Agent.getStopPlanEntry(planentry)];
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Returns the partition of the first plan entry starting at <code>planIndex</code> that is bound to a partition.
+     */
+    int getPartitionOfAgent(Agent agent, int planIndex) {
+        for (int i = planIndex; i < agent.plan.size(); i++) {
+            int partition = getPartitionOfPlanEntry(agent.plan.get(i));
+            if (partition >= 0) {
+                return partition;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,168 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2014 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+package org.matsim.core.mobsim.hermes;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.utils.misc.Time;
+
+import java.util.concurrent.Phaser;
+
+/**
+ * Runs Hermes with the network split into several {@link Realm}s, each simulated by its own thread.
+ * <p>
+ * Every time step consists of rounds that are separated by barriers: first, all partitions move the agents
+ * and links that are due. Agents whose next plan element (link or stop) belongs to another partition are not
+ * moved, but handed off. Then, the owners of the handed off plan elements try to execute them, and finally
+ * the source partitions remove the accepted agents from their links and continue with the agents behind them,
+ * which might lead to further handoffs. Since handoffs are executed in the order of the source partitions and
+ * the events of every round are merged in the order of the partitions, the simulation is deterministic for a
+ * given number of partitions.
+ */
+final class PartitionedRealm extends Realm {
+
+    private static final Logger log = LogManager.getLogger(PartitionedRealm.class);
+
+    private static final int TICK = 0;
+    private static final int ACCEPT_HANDOFFS = 1;
+    private static final int COMPLETE_HANDOFFS = 2;
+    private static final int STOP = 3;
+
+    private final Realm[] partitions;
+    private final int eventsProcessingInterval;
+    private final HermesPartitioning partitioning;
+    private final Phaser phaser;
+    private volatile int command;
+    private volatile Throwable failure;
+
+    PartitionedRealm(ScenarioImporter scenario, EventsManager eventsManager, HermesPartitioning partitioning) {
+        super(scenario, eventsManager);
+        this.partitioning = partitioning;
+        this.eventsProcessingInterval = scenario.getEventsProcessingInterval();
+        this.partitions = new Realm[partitioning.getNumberOfPartitions()];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new Realm(scenario, eventsManager, i, partitioning);
+        }
+        this.phaser = new Phaser(partitions.length);
+    }
+
+    @Override
+    void addDelayedAgent(Agent agent, int until) {
+        partitions[partitioning.getPartitionOfAgent(agent, agent.planIndex + 1)].addDelayedAgent(agent, until);
+    }
+
+    @Override
+    void addDelayedLink(HLink link, int until) {
+        partitions[partitioning.getPartitionOfLink(link.id())].addDelayedLink(link, until);
+    }
+
+    @Override
+    public void run() throws Exception {
+        Thread[] threads = new Thread[partitions.length - 1];
+        for (int i = 1; i < partitions.length; i++) {
+            Realm partition = partitions[i];
+            threads[i - 1] = new Thread(() -> work(partition), "Hermes-" + i);
+            threads[i - 1].setDaemon(true);
+            threads[i - 1].start();
+        }
+
+        try {
+            for (int secs = 0; secs != HermesConfigGroup.SIM_STEPS; secs++) {
+                if (secs % 3600 == 0) {
+                    log.info("Hermes running at " + Time.writeTime(secs) + " with " + partitions.length + " partitions");
+                }
+                for (Realm partition : partitions) {
+                    partition.setTime(secs);
+                }
+                execute(TICK);
+                while (hasPendingHandoffs()) {
+                    execute(ACCEPT_HANDOFFS);
+                    execute(COMPLETE_HANDOFFS);
+                }
+                if (HermesConfigGroup.CONCURRENT_EVENT_PROCESSING && secs % eventsProcessingInterval == 0 && getSortedEvents().size() > 0) {
+                    dispatchSortedEvents();
+                }
+            }
+        } finally {
+            command = STOP;
+            phaser.arriveAndAwaitAdvance();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+    }
+
+    @Override
+    boolean hasPendingHandoffs() {
+        for (Realm partition : partitions) {
+            if (partition.hasPendingHandoffs()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Executes one round in all partitions. The coordinating thread simulates the first partition itself.
+     */
+    private void execute(int round) throws Exception {
+        command = round;
+        // start the round, ...
+        phaser.arriveAndAwaitAdvance();
+        try {
+            execute(partitions[0], round);
+        } catch (RuntimeException | Error e) {
+            failure = e;
+        }
+        // ... and wait until all partitions finished it.
+        phaser.arriveAndAwaitAdvance();
+        if (failure != null) {
+            throw new RuntimeException("Hermes partition failed", failure);
+        }
+        for (Realm partition : partitions) {
+            partition.getSortedEvents().drainInto(getSortedEvents());
+        }
+    }
+
+    private void execute(Realm partition, int round) {
+        switch (round) {
+            case TICK -> partition.processTick();
+            case ACCEPT_HANDOFFS -> partition.acceptHandoffs(partitions);
+            case COMPLETE_HANDOFFS -> partition.completeHandoffs();
+            default -> throw new IllegalStateException("unknown round " + round);
+        }
+    }
+
+    private void work(Realm partition) {
+        while (true) {
+            phaser.arriveAndAwaitAdvance();
+            int round = command;
+            if (round == STOP) {
+                return;
+            }
+            try {
+                execute(partition, round);
+            } catch (RuntimeException | Error e) {
+                failure = e;
+            }
+            phaser.arriveAndAwaitAdvance();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2014 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+package org.matsim.core.mobsim.hermes;
+
+import org.matsim.core.api.experimental.events.EventsManager;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Dispatches the events of Hermes in a background thread, so the simulation can continue while the events of
+ * the previous time window are created and processed by the events manager.
+ * <p>
+ * At most one filled buffer waits for the dispatcher. If the events manager is slower than the simulation, the
+ * simulation blocks when handing over the next buffer, which limits the memory used by pending events.
+ */
+final class PipelinedEventDispatcher {
+
+    private final EventsManager eventsManager;
+    private final boolean[] handledTypes;
+    private final BlockingQueue<SortedEventBuffer> pending = new ArrayBlockingQueue<>(1);
+    // buffers that were dispatched and can be filled again
+    private final ConcurrentLinkedQueue<SortedEventBuffer> free = new ConcurrentLinkedQueue<>();
+    // marks the end of the simulation in the pending queue
+    private final SortedEventBuffer end = new SortedEventBuffer();
+    private final Thread thread;
+    private volatile Throwable failure;
+
+    PipelinedEventDispatcher(EventsManager eventsManager, boolean[] handledTypes) {
+        this.eventsManager = eventsManager;
+        this.handledTypes = handledTypes;
+        this.thread = new Thread(this::run, "HermesEventDispatcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Hands the buffer over to the dispatcher and returns an empty buffer to continue with.
+     */
+    SortedEventBuffer dispatch(SortedEventBuffer events) throws InterruptedException {
+        checkFailure();
+        pending.put(events);
+        SortedEventBuffer next = free.poll();
+        return next == null ? new SortedEventBuffer() : next;
+    }
+
+    /**
+     * Dispatches the remaining events and waits until the events manager received all of them.
+     */
+    void finish(SortedEventBuffer events) throws InterruptedException {
+        if (events.size() > 0) {
+            pending.put(events);
+        }
+        pending.put(end);
+        thread.join();
+        checkFailure();
+    }
+
+    private void run() {
+        try {
+            SortedEventBuffer events;
+            while ((events = pending.take()) != end) {
+                if (failure == null) {
+                    try {
+                        events.process(eventsManager, handledTypes);
+                    } catch (RuntimeException | Error e) {
+                        failure = e;
+                    }
+                }
+                events.clear();
+                free.add(events);
+            }
+        } catch (InterruptedException e) {
+            failure = e;
+        }
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new RuntimeException("Exception while dispatching Hermes events", failure);
+        }
+    }
+}
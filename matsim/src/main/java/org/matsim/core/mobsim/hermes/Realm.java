@@ -22,14 +22,8 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.IdMap;
-import org.matsim.api.core.v01.events.ActivityEndEvent;
 import org.matsim.api.core.v01.events.Event;
-import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
-import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
 import org.matsim.core.api.experimental.events.EventsManager;
-import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
-import org.matsim.core.api.experimental.events.VehicleDepartsAtFacilityEvent;
-import org.matsim.core.events.EventArray;
 import org.matsim.core.utils.collections.IntArrayMap;
 import org.matsim.core.utils.misc.Time;
 import org.matsim.pt.transitSchedule.api.TransitStopFacility;
@@ -37,17 +31,32 @@ import org.matsim.vehicles.Vehicle;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 
 class Realm {
+    // Return values of processAgent.
+    static final int BLOCKED = 0;
+    static final int PROCESSED = 1;
+    // The next plan element belongs to another partition and was handed off to it.
+    static final int HANDED_OFF = 2;
+
 	private final ScenarioImporter si;
     // Global array of links.
     // Note: the id of the link is its index in the array.
     private final HLink[] links;
     // Internal realm links on hold until a specific timestamp (in seconds).
     // Internal means that the source and destination realm of are the same.
+    // The queues are created lazily, as most of them stay empty if the realm is one of many partitions.
     private final ArrayList<ArrayDeque<HLink>> delayedLinksByWakeupTime;
     // Agents on hold until a specific timestamp (in seconds).
     private final ArrayList<ArrayDeque<Agent>> delayedAgentsByWakeupTime;
+    // Index of this realm if the network is partitioned, 0 otherwise.
+    private final int partition;
+    // Owner partition of links and stops, null if this is the only realm.
+    private final HermesPartitioning partitioning;
+    // Plan elements handed off to other partitions in the current round: outbox[target partition]
+    private ArrayList<Handoff>[] outbox;
+    private ArrayList<Handoff>[] sentOutbox;
     // Agents waiting in pt stations. Should be used as follows:
     // agent_stops.get(curr station id).get(line id) -> queue of agents
     private final IdMap<TransitStopFacility, IntArrayMap<ArrayDeque<Agent>>> agent_stops;
@@ -56,7 +65,9 @@ class Realm {
     // line id of a particular route
     private final int[] line_of_route;
     // queue of sorted events by time
-    private EventArray sortedEvents;
+    private SortedEventBuffer sortedEvents;
+    // dispatches events in the background while the simulation continues, null if not started
+    private PipelinedEventDispatcher eventDispatcher;
     // MATSim event manager.
     private final EventsManager eventsManager;
     // Current timestamp
@@ -64,39 +75,67 @@ class Realm {
     Logger log = LogManager.getLogger(Realm.class);
 
     public Realm(ScenarioImporter scenario, EventsManager eventsManager) {
+        this(scenario, eventsManager, 0, null);
+    }
+
+    Realm(ScenarioImporter scenario, EventsManager eventsManager, int partition, HermesPartitioning partitioning) {
         this.si = scenario;
+        this.partition = partition;
+        this.partitioning = partitioning;
         this.links = scenario.hermesLinks;
         // The plus one is necessary because we peek into the next slot on each tick.
-        this.delayedLinksByWakeupTime = new ArrayList<>();
-        this.delayedAgentsByWakeupTime = new ArrayList<>();
         this.agent_stops = scenario.agentStops;
         this.route_stops_by_route_no = scenario.routeStopsByRouteNo;
         this.line_of_route = scenario.lineOfRoute;
-        this.sortedEvents = new EventArray();
+        this.sortedEvents = new SortedEventBuffer();
         this.eventsManager = eventsManager;
 
         // the last position is to store events that will not happen...
-        for (int i = 0; i <= HermesConfigGroup.SIM_STEPS + 1; i++) {
-            delayedLinksByWakeupTime.add(new ArrayDeque<>());
-            delayedAgentsByWakeupTime.add(new ArrayDeque<>());
+        this.delayedLinksByWakeupTime = new ArrayList<>(Collections.nCopies(HermesConfigGroup.SIM_STEPS + 2, null));
+        this.delayedAgentsByWakeupTime = new ArrayList<>(Collections.nCopies(HermesConfigGroup.SIM_STEPS + 2, null));
+
+        if (partitioning != null) {
+            this.outbox = newOutbox(partitioning.getNumberOfPartitions());
+            this.sentOutbox = newOutbox(partitioning.getNumberOfPartitions());
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private static ArrayList<Handoff>[] newOutbox(int partitions) {
+        ArrayList<Handoff>[] lists = new ArrayList[partitions];
+        for (int i = 0; i < partitions; i++) {
+            lists[i] = new ArrayList<>();
+        }
+        return lists;
+    }
+
     public void log(int time, String s) {
         if (HermesConfigGroup.DEBUG_REALMS) {
             log.debug(String.format("Hermes [ time = %d ] %s", time, s));
         }
     }
 
-    private void addDelayedAgent(Agent agent, int until) {
+    void addDelayedAgent(Agent agent, int until) {
         if (HermesConfigGroup.DEBUG_REALMS) log(secs, String.format("agent %d delayed until %d", agent.id, until));
-        delayedAgentsByWakeupTime.get(Math.min(until, HermesConfigGroup.SIM_STEPS + 1)).add(agent);
+        int slot = Math.min(until, HermesConfigGroup.SIM_STEPS + 1);
+        ArrayDeque<Agent> agents = delayedAgentsByWakeupTime.get(slot);
+        if (agents == null) {
+            agents = new ArrayDeque<>();
+            delayedAgentsByWakeupTime.set(slot, agents);
+        }
+        agents.add(agent);
     }
 
-    private void addDelayedLink(HLink link, int until) {
+    void addDelayedLink(HLink link, int until) {
         if (HermesConfigGroup.DEBUG_REALMS)
             log(secs, String.format("link %d delayed until %d size %d peek agent %d", link.id(), until, link.queue().size(), link.queue().peek().id));
-        delayedLinksByWakeupTime.get(Math.min(until, HermesConfigGroup.SIM_STEPS + 1)).add(link);
+        int slot = Math.min(until, HermesConfigGroup.SIM_STEPS + 1);
+        ArrayDeque<HLink> delayedLinks = delayedLinksByWakeupTime.get(slot);
+        if (delayedLinks == null) {
+            delayedLinks = new ArrayDeque<>();
+            delayedLinksByWakeupTime.set(slot, delayedLinks);
+        }
+        delayedLinks.add(link);
     }
 
     private void advanceAgentandSetEventTime(Agent agent) {
@@ -252,9 +291,21 @@ class Realm {
         return false;
     }
 
-    protected boolean processAgent(Agent agent, int currLinkId) {
+    protected int processAgent(Agent agent, int currLinkId) {
         // Peek the next plan element and try to execute it.
         long planentry = agent.plan.get(agent.planIndex + 1);
+        if (partitioning != null) {
+            int target = partitioning.getPartitionOfPlanEntry(planentry);
+            if (target >= 0 && target != partition) {
+                // The link or stop is owned by another partition, which decides in the handoff phase of this tick.
+                outbox[target].add(new Handoff(agent, currLinkId));
+                return HANDED_OFF;
+            }
+        }
+        return executePlanEntry(agent, planentry, currLinkId) ? PROCESSED : BLOCKED;
+    }
+
+    private boolean executePlanEntry(Agent agent, long planentry, int currLinkId) {
         int type = Agent.getPlanHeader(planentry);
         switch (type) {
             case Agent.LinkType:        return processAgentLink(agent, planentry, currLinkId);
@@ -278,13 +329,15 @@ class Realm {
         // if finished, install times on last event.
         if (finished) {
             setEventTime(agent, agent.events().size() - 1, secs, true);
+            return 1;
         }
         // -1 is used in the processAgent because the agent is not in a link currently.
-        if (!finished && !processAgent(agent, -1)) {
+        int result = processAgent(agent, -1);
+        if (result == BLOCKED) {
             addDelayedAgent(agent, secs + 1);
             return 0;
         }
-        return 1;
+        return result == PROCESSED ? 1 : 0;
     }
 
     protected int processLinks(HLink link) {
@@ -296,13 +349,17 @@ class Realm {
             if (finished) {
                 setEventTime(agent, agent.events().size() - 1, secs, true);
             }
-            if (finished || processAgent(agent, link.id())) {
+            int result = finished ? PROCESSED : processAgent(agent, link.id());
+            if (result == PROCESSED) {
                 float storageCapacityPCE = agent.getStorageCapacityPCUE();
                 link.pop(storageCapacityPCE);
                 routed += 1;
                 if ((agent = link.queue().peek()) == null) {
                     break;
                 }
+            } else if (result == HANDED_OFF) {
+                // the link is processed further once the owner of the next link decided about the agent.
+                return routed;
             } else {
                 break;
             }
@@ -316,70 +373,129 @@ class Realm {
     }
 
     public void run() throws Exception {
-        int routed = 0;
-        Agent agent;
-        HLink link;
-
+        int eventsProcessingInterval = si.getEventsProcessingInterval();
         while (secs != HermesConfigGroup.SIM_STEPS) {
             if (secs % 3600 == 0) {
                 log.info("Hermes running at " + Time.writeTime(secs));
             }
-            while ((agent = delayedAgentsByWakeupTime.get(secs).poll()) != null) {
+            processTick();
+            if (HermesConfigGroup.CONCURRENT_EVENT_PROCESSING && secs % eventsProcessingInterval == 0 && sortedEvents.size() > 0) {
+                dispatchSortedEvents();
+            }
+            secs += 1;
+        }
+    }
+
+    /**
+     * Moves all agents and links that are due in the current second. If the network is partitioned,
+     * plan elements for other partitions are only handed off and need to be completed by
+     * {@link #acceptHandoffs(Realm[])} and {@link #completeHandoffs()}.
+     */
+    void processTick() {
+        int routed = 0;
+        Agent agent;
+        HLink link;
+
+        ArrayDeque<Agent> delayedAgents = delayedAgentsByWakeupTime.get(secs);
+        if (delayedAgents != null) {
+            while ((agent = delayedAgents.poll()) != null) {
                 if (HermesConfigGroup.DEBUG_REALMS) {
                     log(secs, String.format("Processing agent %d", agent.id));
                 }
                 routed += processAgentActivities(agent);
-
             }
             delayedAgentsByWakeupTime.set(secs, null);
-            if (si.isDeterministicPt()) {
-                for (Event e : si.getDeterministicPtEvents().get(secs)) {
-                    sortedEvents.add(e);
-                }
-                si.getDeterministicPtEvents().get(secs).clear();
+        }
+        if (si.isDeterministicPt() && partition == 0) {
+            for (Event e : si.getDeterministicPtEvents().get(secs)) {
+                sortedEvents.add(e);
             }
+            si.getDeterministicPtEvents().get(secs).clear();
+        }
 
-            while ((link = delayedLinksByWakeupTime.get(secs).poll()) != null) {
+        ArrayDeque<HLink> delayedLinks = delayedLinksByWakeupTime.get(secs);
+        if (delayedLinks != null) {
+            while ((link = delayedLinks.poll()) != null) {
                 if (HermesConfigGroup.DEBUG_REALMS) {
                     log(secs, String.format("Processing link %d", link.id()));
                 }
                 routed += processLinks(link);
             }
             delayedLinksByWakeupTime.set(secs, null);
-            if (HermesConfigGroup.DEBUG_REALMS && routed > 0) {
-                log(secs, String.format("Processed %d agents", routed));
+        }
+        if (HermesConfigGroup.DEBUG_REALMS && routed > 0) {
+            log(secs, String.format("Processed %d agents", routed));
+        }
+    }
+
+    boolean hasPendingHandoffs() {
+        if (outbox != null) {
+            for (ArrayList<Handoff> handoffs : outbox) {
+                if (!handoffs.isEmpty()) {
+                    return true;
+                }
             }
-            if (HermesConfigGroup.CONCURRENT_EVENT_PROCESSING && secs % 3600 == 0 && sortedEvents.size() > 0) {
-                eventsManager.processEvents(sortedEvents);
-                sortedEvents = new EventArray();
+        }
+        return false;
+    }
+
+    /**
+     * Executes the plan elements that other partitions handed off to this partition. The sources are visited
+     * in the order of their partition index, which keeps the result deterministic for a given number of partitions.
+     */
+    void acceptHandoffs(Realm[] partitions) {
+        for (Realm source : partitions) {
+            for (Handoff handoff : source.outbox[partition]) {
+                long planentry = handoff.agent.plan.get(handoff.agent.planIndex + 1);
+                handoff.accepted = executePlanEntry(handoff.agent, planentry, handoff.sourceLinkId);
             }
+        }
+    }
 
-            routed = 0;
-            secs += 1;
+    /**
+     * Finishes the handoffs of this partition once the target partitions decided about them: agents that moved
+     * on are removed from their link, and the link is processed further, which might lead to new handoffs.
+     */
+    void completeHandoffs() {
+        ArrayList<Handoff>[] handoffsToComplete = this.outbox;
+        this.outbox = this.sentOutbox;
+        this.sentOutbox = handoffsToComplete;
+
+        for (ArrayList<Handoff> handoffs : handoffsToComplete) {
+            for (Handoff handoff : handoffs) {
+                Agent agent = handoff.agent;
+                if (handoff.sourceLinkId < 0) {
+                    if (!handoff.accepted) {
+                        addDelayedAgent(agent, secs + 1);
+                    }
+                } else {
+                    HLink link = links[handoff.sourceLinkId];
+                    if (handoff.accepted) {
+                        link.pop(agent.getStorageCapacityPCUE());
+                        if (link.queue().peek() != null) {
+                            processLinks(link);
+                        }
+                    } else {
+                        addDelayedLink(link, Math.max(agent.linkFinishTime, secs + 1));
+                    }
+                }
+            }
+            handoffs.clear();
         }
     }
 
     public void setEventTime(Agent agent, int agentId, int time, boolean lastEvent) {
         if (agentId != 0) {
-            EventArray agentEvents = agent.events();
-            Event event = agentEvents.get(agentId);
+            CompactEventArray agentEvents = agent.events();
 
             for (; agent.eventsIndex <= agentId; agent.eventsIndex++) {
-                agentEvents.get(agent.eventsIndex).setTime(time);
                 if (HermesConfigGroup.DEBUG_REALMS)
-                    log(secs, String.format("agent %d setEventTime (eventsIndex=%d) %s", agent.id, agent.eventsIndex, agentEvents.get(agent.eventsIndex).toString()));
-                sortedEvents.add(agentEvents.get(agent.eventsIndex));
+                    log(secs, String.format("agent %d setEventTime (eventsIndex=%d) %s", agent.id, agent.eventsIndex, agentEvents.toEvent(agent.eventsIndex, time).toString()));
+                sortedEvents.add(agent, agent.eventsIndex, time);
             }
 
-            // Fix delay for PT events.
-            if (event instanceof VehicleArrivesAtFacilityEvent vaafe) {
-                vaafe.setDelay(vaafe.getTime() - vaafe.getDelay());
-
-            } else if (event instanceof VehicleDepartsAtFacilityEvent vdafe) {
-                vdafe.setDelay(vdafe.getTime() - vdafe.getDelay());
-            }
             // This removes actend that is not issued by QSim.
-            else if (lastEvent && event instanceof ActivityEndEvent) {
+            if (lastEvent && agentEvents.type(agentId) == CompactEventArray.ACTIVITY_END) {
                 sortedEvents.removeLast();
             }
         }
@@ -387,26 +503,55 @@ class Realm {
 
     public void setEventVehicle(Agent agent, int eventId, int vehicleId) {
         if (eventId != 0) {
-            Event event = agent.events().get(eventId);
-            Id<Vehicle> vid = Id.get(si.matsim_id(vehicleId, true), Vehicle.class);
-            if (event instanceof PersonEntersVehicleEvent) {
-                ((PersonEntersVehicleEvent) event).setVehicleId(vid);
-            } else if (event instanceof PersonLeavesVehicleEvent) {
-                ((PersonLeavesVehicleEvent) event).setVehicleId(vid);
-            } else {
-                throw new RuntimeException(
-                        String.format("vehicle id could not be set for event: %d", eventId));
-            }
+            agent.events().setVehicle(eventId, si.matsim_id(vehicleId, true));
         }
     }
 
-    ArrayList<ArrayDeque<HLink>> delayedLinks() { return this.delayedLinksByWakeupTime; }
+    SortedEventBuffer getSortedEvents() {
+        return this.sortedEvents;
+    }
 
-    ArrayList<ArrayDeque<Agent>> delayedAgents() {
-        return this.delayedAgentsByWakeupTime;
+    /**
+     * Hands the events collected so far to the event dispatcher thread. The simulation continues with an
+     * empty buffer while the events are created and processed.
+     */
+    void dispatchSortedEvents() throws InterruptedException {
+        if (eventDispatcher == null) {
+            eventDispatcher = new PipelinedEventDispatcher(eventsManager, CompactEventArray.getHandledTypes(eventsManager));
+        }
+        sortedEvents = eventDispatcher.dispatch(sortedEvents);
     }
 
-    EventArray getSortedEvents() {
-        return this.sortedEvents;
+    /**
+     * Passes all remaining events to the events manager and returns once all of them were handed over.
+     */
+    void finishEventProcessing() throws InterruptedException {
+        if (eventDispatcher == null) {
+            sortedEvents.process(eventsManager, CompactEventArray.getHandledTypes(eventsManager));
+        } else {
+            eventDispatcher.finish(sortedEvents);
+            eventDispatcher = null;
+            sortedEvents = new SortedEventBuffer();
+        }
+    }
+
+    void setTime(int secs) {
+        this.secs = secs;
+    }
+
+    /**
+     * An agent whose next plan element is executed by another partition. The source partition keeps the agent
+     * at the head of its link until the target partition decided whether the agent can move on.
+     */
+    static final class Handoff {
+        final Agent agent;
+        // link the agent is currently on, -1 if the agent is not on a link
+        final int sourceLinkId;
+        boolean accepted;
+
+        Handoff(Agent agent, int sourceLinkId) {
+            this.agent = agent;
+            this.sourceLinkId = sourceLinkId;
+        }
     }
 }
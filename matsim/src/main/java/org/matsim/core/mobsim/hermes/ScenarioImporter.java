@@ -30,7 +30,6 @@ import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.population.*;
 import org.matsim.core.api.experimental.events.*;
-import org.matsim.core.events.EventArray;
 import org.matsim.core.mobsim.hermes.Agent.PlanArray;
 import org.matsim.core.population.routes.GenericRouteImpl;
 import org.matsim.core.population.routes.NetworkRoute;
@@ -272,7 +271,14 @@ class ScenarioImporter {
 	}
 
 	private void generateRealms() {
-		realm = new Realm(this, eventsManager);
+		int partitions = scenario.getConfig().hermes().getNumberOfPartitions();
+		if (partitions > 1) {
+			HermesPartitioning partitioning = HermesPartitioning.create(partitions, scenario.getNetwork(),
+					scenario.getTransitSchedule(), hermesLinks, hermesAgents);
+			realm = new PartitionedRealm(this, eventsManager, partitioning);
+		} else {
+			realm = new Realm(this, eventsManager);
+		}
 
 		// Put agents in their initial location (link or activity center)
 		for (Agent agent : hermesAgents) {
@@ -294,7 +300,7 @@ class ScenarioImporter {
 				case Agent.SleepForType:
 				case Agent.SleepUntilType:
 					int sleep = Agent.getSleepPlanEntry(planentry);
-					realm.delayedAgents().get(Math.min(sleep, scenario.getConfig().hermes().getEndTime() + 1)).add(agent);
+					realm.addDelayedAgent(agent, sleep);
 					break;
 				default:
 					LogManager.getLogger(getClass()).error(String.format("ERROR -> unknown plan element type %d", type));
@@ -305,7 +311,7 @@ class ScenarioImporter {
 			if (link != null) {
 				int nextwakeup = link.nexttime();
 				if (nextwakeup > 0) {
-					realm.delayedLinks().get(nextwakeup).add(link);
+					realm.addDelayedLink(link, nextwakeup);
 				}
 			}
 		}
@@ -314,7 +320,7 @@ class ScenarioImporter {
 	private void processPlanActivity(
 			Id<Person> id,
 			PlanArray flatplan,
-			EventArray events,
+			CompactEventArray events,
 			Activity act) {
 		int time = 0;
 		int eventid = 0;
@@ -338,7 +344,7 @@ class ScenarioImporter {
 
 		// hack to avoid a actstart as first event (hermes does not have it).
 		if (flatplan.size() != 0) {
-			events.add(new ActivityStartEvent(0, id, linkid, facid, type, act.getCoord()));
+			events.addActivityStart(id, linkid, facid, type, act.getCoord());
 			eventid = events.size() - 1;
 		} else {
 			eventid = 0;
@@ -354,13 +360,13 @@ class ScenarioImporter {
 			// TODO - better way to handle this?
 			flatplan.add(Agent.prepareSleepForEntry(eventid, 0));
 		}
-		events.add(new ActivityEndEvent(0, id, linkid, facid, type, act.getCoord()));
+		events.addActivityEnd(id, linkid, facid, type, act.getCoord());
 	}
 
 	private void processPlanNetworkRoute(
 			Person person,
 			PlanArray flatplan,
-			EventArray events,
+			CompactEventArray events,
 			Leg leg,
 			NetworkRoute netroute,
 			Agent agent) {
@@ -383,23 +389,23 @@ class ScenarioImporter {
 		if (agent.getStorageCapacityPCUE() == -1) {
 			agent.setStorageCapacityPCUE(getStorageCapacityPCE(pcuCategory));
 		}
-		events.add(new PersonEntersVehicleEvent(0, id, vid));
-		events.add(new VehicleEntersTrafficEvent(0, id, startLId, vid, leg.getMode(), 1));
+		events.addPersonEntersVehicle(id, vid);
+		events.addVehicleEntersTraffic(id, startLId, vid, leg.getMode());
 		if (netroute.getLinkIds().size() > 1 || !startLId.equals(endLId)) {
-			events.add(new LinkLeaveEvent(0, vid, startLId));
+			events.addLinkLeave(vid, startLId);
 		}
 		for (Id<org.matsim.api.core.v01.network.Link> linkid : netroute.getLinkIds()) {
 			int linkId = linkid.index();
-			events.add(new LinkEnterEvent(0, vid, linkid));
+			events.addLinkEnter(vid, linkid);
 			flatplan.add(Agent.prepareLinkEntry(events.size() - 1, linkId, velocity, pcuCategory));
-			events.add(new LinkLeaveEvent(0, vid, linkid));
+			events.addLinkLeave(vid, linkid);
 		}
 		if (netroute.getLinkIds().size() > 1 || !startLId.equals(endLId)) {
-			events.add(new LinkEnterEvent(0, vid, endLId));
+			events.addLinkEnter(vid, endLId);
 			flatplan.add(Agent.prepareLinkEntry(events.size() - 1, egressId, velocity, pcuCategory));
 		}
-		events.add(new VehicleLeavesTrafficEvent(0, id, endLId, vid, leg.getMode(), 1));
-		events.add(new PersonLeavesVehicleEvent(0, id, vid));
+		events.addVehicleLeavesTraffic(id, endLId, vid, leg.getMode());
+		events.addPersonLeavesVehicle(id, vid);
 	}
 
 	private void populateStops(int srcStopId, int lineId) {
@@ -410,7 +416,7 @@ class ScenarioImporter {
 	private void processPlanTransitRoute(
 			Id<Person> id,
 			PlanArray flatplan,
-			EventArray events,
+			CompactEventArray events,
 			TransitPassengerRoute troute) {
 		Id<TransitStopFacility> access = troute.getAccessStopId();
 		Id<TransitStopFacility> egress = troute.getEgressStopId();
@@ -424,18 +430,18 @@ class ScenarioImporter {
 		// this will be replaced dynamically
 		Id<Vehicle> vid = Id.createVehicleId("tr_X");
 		// Add public transport access
-		events.add(new AgentWaitingForPtEvent(0, id, access, egress));
+		events.addAgentWaitingForPt(id, access, egress);
 		flatplan.add(Agent.prepareWaitEntry(events.size() - 1, routeNo, accessid));
-		events.add(new PersonEntersVehicleEvent(0, id, vid));
+		events.addPersonEntersVehicle(id, vid);
 		flatplan.add(Agent.prepareAccessEntry(events.size() - 1, routeNo, accessid));
-		events.add(new PersonLeavesVehicleEvent(0, id, vid));
+		events.addPersonLeavesVehicle(id, vid);
 		flatplan.add(Agent.prepareEgressEntry(events.size() - 1, routeNo, egressid));
 	}
 
 	private void processPlanElement(
 			Person person,
 			PlanArray flatplan,
-			EventArray events,
+			CompactEventArray events,
 			PlanElement element,
 			Agent agent) {
 		var id = person.getId();
@@ -448,7 +454,7 @@ class ScenarioImporter {
 				return;
 			}
 
-			events.add(new PersonDepartureEvent(0, id, route.getStartLinkId(), leg.getMode(), TripStructureUtils.getRoutingMode(leg)));
+			events.addPersonDeparture(id, route.getStartLinkId(), leg.getMode(), TripStructureUtils.getRoutingMode(leg));
 			if (route instanceof NetworkRoute) {
 				if (scenario.getConfig().hermes().getMainModes().contains(leg.getMode())) {
 					processPlanNetworkRoute(person, flatplan, events, leg, (NetworkRoute) route, agent);
@@ -464,7 +470,7 @@ class ScenarioImporter {
 				throw new RuntimeException("Route type not supported by Hermes: " + route.getRouteType() + "\n Person:" + id + "\n Leg" + leg + "\n Leg" + route);
 			}
 
-			events.add(new PersonArrivalEvent(0, id, route.getEndLinkId(), leg.getMode()));
+			events.addPersonArrival(id, route.getEndLinkId(), leg.getMode());
 
 		} else if (element instanceof Activity) {
 			processPlanActivity(id, flatplan, events, (Activity) element);
@@ -473,20 +479,20 @@ class ScenarioImporter {
 		}
 	}
 
-	private void processTeleport(Id<Person> id, PlanArray flatplan, EventArray events, Leg element, Route route, String mode) {
+	private void processTeleport(Id<Person> id, PlanArray flatplan, CompactEventArray events, Leg element, Route route, String mode) {
 		double routeTravelTime = route.getTravelTime().orElse(0.0);
 		double legTravelTime = element.getTravelTime().orElse(0.0);
 		int time = Math.max(0, (int) Math.round(Math.max(routeTravelTime, legTravelTime)) - 2);
 		//2 second is deducted as this is the maximum possible loss during interaction activities
 		flatplan.add(Agent.prepareSleepForEntry(events.size() - 1, time));
-		events.add(new TeleportationArrivalEvent(0, id, route.getDistance(), mode));
+		events.addTeleportationArrival(id, route.getDistance(), mode);
 	}
 
 	private void generateAgent(
 			int agentId,
 			int capacity,
 			PlanArray flatplan,
-			EventArray events) {
+			CompactEventArray events) {
 
 		if (events.size() >= HermesConfigGroup.MAX_EVENTS_AGENT) {
 			throw new RuntimeException("exceeded maximum number of agent events");
@@ -516,7 +522,7 @@ class ScenarioImporter {
 	private static class TransitRouteContext {
 		final Agent agent;
 		final PlanArray flatplan;
-		final EventArray flatevents;
+		final CompactEventArray flatevents;
 		final TransitLine tl;
 		final TransitRoute tr;
 		final int routeNo;
@@ -644,14 +650,14 @@ class ScenarioImporter {
 					c.flatplan.add(Agent.prepareSleepUntilEntry(0, (int) arrivalTime));
 				}
 
-				c.flatevents.add(new VehicleArrivesAtFacilityEvent(0, c.vehId, stopId, arrivalTime));
+				c.flatevents.addVehicleArrivesAtFacility(c.vehId, stopId, arrivalTime);
 				c.flatplan.add(Agent.prepareStopArrivalEntry(c.flatevents.size() - 1, c.routeNo, stopIdIndex));
 				c.agent.setServeStop(stopIdIndex);
 
 				// no event associated to stop delay
 				c.flatplan.add(Agent.prepareStopDelayEntry((int) departureTime, c.routeNo, stopIdIndex));
 
-				c.flatevents.add(new VehicleDepartsAtFacilityEvent(0, c.vehId, stopId, departureTime));
+				c.flatevents.addVehicleDepartsAtFacility(c.vehId, stopId, departureTime);
 				c.flatplan.add(Agent.prepareStopDepartureEntry(c.flatevents.size() - 1, c.routeNo, stopIdIndex));
 
 				c.time = (int) departureTime;
@@ -705,7 +711,7 @@ class ScenarioImporter {
 
 		TransitRouteContext context = new TransitRouteContext(agent, tl, tr, routeNo, depart, this.scenario.getNetwork());
 		PlanArray flatplan = agent.plan;
-		EventArray flatevents = agent.events;
+		CompactEventArray flatevents = agent.events;
 
 		VehicleType vt = v.getType();
 		NetworkRoute nr = tr.getRoute();
@@ -715,11 +721,11 @@ class ScenarioImporter {
 		String routingmode = TransportMode.pt;
 
 		// Prepare to leave
-		flatevents.add(new TransitDriverStartsEvent(0, driverid, v.getId(), tl.getId(), tr.getId(), depart.getId()));
-		flatevents.add(new PersonDepartureEvent(0, driverid, nr.getStartLinkId(), legmode, routingmode));
-		flatevents.add(new PersonEntersVehicleEvent(0, driverid, v.getId()));
+		flatevents.addTransitDriverStarts(driverid, v.getId(), tl.getId(), tr.getId(), depart.getId());
+		flatevents.addPersonDeparture(driverid, nr.getStartLinkId(), legmode, routingmode);
+		flatevents.addPersonEntersVehicle(driverid, v.getId());
 
-		flatevents.add(new VehicleEntersTrafficEvent(context.time, driverid, nr.getStartLinkId(), v.getId(), legmode, 1));
+		flatevents.addVehicleEntersTraffic(driverid, nr.getStartLinkId(), v.getId(), legmode);
 
 		// Sleep until the time of departure
 		//  the very first flat plan entry does not handle events, so actually add two entries, so the events are correctly handled
@@ -737,14 +743,14 @@ class ScenarioImporter {
 		// last link
 		generateDeterministicVehicleOnLink(context, nr.getEndLinkId(), true, false);
 
-		flatevents.add(new VehicleLeavesTrafficEvent(0, driverid, nr.getEndLinkId(), v.getId(), legmode, 1));
-		flatevents.add(new PersonLeavesVehicleEvent(0, driverid, v.getId()));
-		flatevents.add(new PersonArrivalEvent(0, driverid, nr.getEndLinkId(), legmode));
+		flatevents.addVehicleLeavesTraffic(driverid, nr.getEndLinkId(), v.getId(), legmode);
+		flatevents.addPersonLeavesVehicle(driverid, v.getId());
+		flatevents.addPersonArrival(driverid, nr.getEndLinkId(), legmode);
 	}
 
 	private void generateNondeterministicVehicleOnLink(TransitRouteContext c, Id<Link> linkId, boolean generateLinkEnterEvent, boolean generateLinkLeaveEvent, int velocity, int pcuCategory) {
 		if (generateLinkEnterEvent) {
-			c.flatevents.add(new LinkEnterEvent(0, c.vehId, linkId));
+			c.flatevents.addLinkEnter(c.vehId, linkId);
 			c.flatplan.add(Agent.prepareLinkEntry(c.flatevents.size() - 1, linkId.index(), velocity, pcuCategory));
 		}
 
@@ -760,14 +766,14 @@ class ScenarioImporter {
 				double arrivalTime = arrivalOffsetHelper(c.depart, routeStop);
 				double departureTime = departureOffsetHelper(c.depart, routeStop);
 
-				c.flatevents.add(new VehicleArrivesAtFacilityEvent(0, c.vehId, stopId, arrivalTime));
+				c.flatevents.addVehicleArrivesAtFacility(c.vehId, stopId, arrivalTime);
 				c.flatplan.add(Agent.prepareStopArrivalEntry(c.flatevents.size() - 1, c.routeNo, stopIdIndex));
 				c.agent.setServeStop(stopIdIndex);
 
 				// no event associated to stop delay
 				c.flatplan.add(Agent.prepareStopDelayEntry((int) departureTime, c.routeNo, stopIdIndex));
 
-				c.flatevents.add(new VehicleDepartsAtFacilityEvent(0, c.vehId, stopId, departureTime));
+				c.flatevents.addVehicleDepartsAtFacility(c.vehId, stopId, departureTime);
 				c.flatplan.add(Agent.prepareStopDepartureEntry(c.flatevents.size() - 1, c.routeNo, stopIdIndex));
 
 				c.stopidx++;
@@ -777,7 +783,7 @@ class ScenarioImporter {
 		}
 
 		if (generateLinkLeaveEvent) {
-			c.flatevents.add(new LinkLeaveEvent(0, c.vehId, linkId));
+			c.flatevents.addLinkLeave(c.vehId, linkId);
 		}
 	}
 
@@ -790,7 +796,7 @@ class ScenarioImporter {
 		int routeNo = this.routeNumbers.get(tl.getId()).get(tr.getId());
 		TransitRouteContext context = new TransitRouteContext(agent, tl, tr, routeNo, depart, this.scenario.getNetwork());
 		PlanArray flatplan = agent.plan;
-		EventArray flatevents = agent.events;
+		CompactEventArray flatevents = agent.events;
 		Vehicle v = this.scenario.getTransitVehicles().getVehicles().get(depart.getVehicleId());
 		VehicleType vt = v.getType();
 		NetworkRoute nr = tr.getRoute();
@@ -806,10 +812,10 @@ class ScenarioImporter {
 		flatplan.add(Agent.prepareSleepUntilEntry(0, (int) Math.round(depart.getDepartureTime())));
 
 		// Prepare to leave
-		flatevents.add(new TransitDriverStartsEvent(0, driverid, v.getId(), tl.getId(), tr.getId(), depart.getId()));
-		flatevents.add(new PersonDepartureEvent(0, driverid, nr.getStartLinkId(), legmode, routingmode));
-		flatevents.add(new PersonEntersVehicleEvent(0, driverid, v.getId()));
-		flatevents.add(new VehicleEntersTrafficEvent(0, driverid, nr.getStartLinkId(), v.getId(), legmode, 1));
+		flatevents.addTransitDriverStarts(driverid, v.getId(), tl.getId(), tr.getId(), depart.getId());
+		flatevents.addPersonDeparture(driverid, nr.getStartLinkId(), legmode, routingmode);
+		flatevents.addPersonEntersVehicle(driverid, v.getId());
+		flatevents.addVehicleEntersTraffic(driverid, nr.getStartLinkId(), v.getId(), legmode);
 
 		generateNondeterministicVehicleOnLink(context, nr.getStartLinkId(), false, true, velocity, pcuCategory);
 
@@ -819,9 +825,9 @@ class ScenarioImporter {
 
 		generateNondeterministicVehicleOnLink(context, nr.getEndLinkId(), true, false, velocity, pcuCategory);
 
-		flatevents.add(new VehicleLeavesTrafficEvent(0, driverid, nr.getEndLinkId(), v.getId(), legmode, 1));
-		flatevents.add(new PersonLeavesVehicleEvent(0, driverid, v.getId()));
-		flatevents.add(new PersonArrivalEvent(0, driverid, nr.getEndLinkId(), legmode));
+		flatevents.addVehicleLeavesTraffic(driverid, nr.getEndLinkId(), v.getId(), legmode);
+		flatevents.addPersonLeavesVehicle(driverid, v.getId());
+		flatevents.addPersonArrival(driverid, nr.getEndLinkId(), legmode);
 	}
 
 	private void generateTransitVehiclePlans() {
@@ -853,7 +859,7 @@ class ScenarioImporter {
 		population.getPersons().values().parallelStream().forEach((person) -> {
 			int hermes_id = hermes_id(person.getId().index(), false);
 			PlanArray plan = hermesAgents[hermes_id].plan();
-			EventArray events = hermesAgents[hermes_id].events();
+			CompactEventArray events = hermesAgents[hermes_id].events();
 			for (PlanElement element : person.getSelectedPlan().getPlanElements()) {
 				processPlanElement(person, plan, events, element, hermesAgents[hermes_id]);
 			}
@@ -871,7 +877,7 @@ class ScenarioImporter {
 		for (Person person : population.getPersons().values()) {
 			int hermes_id = hermes_id(person.getId().index(), false);
 			assert hermesAgents[hermes_id] == null;
-			generateAgent(hermes_id, 0, new PlanArray(), new EventArray());
+			generateAgent(hermes_id, 0, new PlanArray(), new CompactEventArray());
 		}
 
 		// Generate vehicles
@@ -880,7 +886,7 @@ class ScenarioImporter {
 			int capacity = vc.getSeats() + vc.getStandingRoom();
 			int hermes_id = hermes_id(vehicle.getId().index(), true);
 			assert hermesAgents[hermes_id] == null;
-			generateAgent(hermes_id, capacity, new PlanArray(), new EventArray());
+			generateAgent(hermes_id, capacity, new PlanArray(), new CompactEventArray());
 		}
 	}
 
@@ -917,6 +923,10 @@ class ScenarioImporter {
 		return deterministicPtEvents;
 	}
 
+	public int getEventsProcessingInterval() {
+		return scenario.getConfig().hermes().getEventsProcessingInterval();
+	}
+
 	public boolean isDeterministicPt() {
 		return deterministicPt;
 	}
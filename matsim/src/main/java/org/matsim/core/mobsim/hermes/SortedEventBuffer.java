@@ -0,0 +1,137 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2014 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+package org.matsim.core.mobsim.hermes;
+
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventArray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Events in the order in which Hermes emits them. Agent events are only stored as a reference to the agent's
+ * {@link CompactEventArray} plus the time, and are turned into {@link Event} objects when they are dispatched.
+ */
+final class SortedEventBuffer {
+
+    // number of events that are handed to the events manager at once
+    private static final int BATCH_SIZE = 32768;
+
+    private Agent[] agents = new Agent[1024];
+    // event index in the agent's events, or index in prebuiltEvents if there is no agent
+    private int[] indices = new int[1024];
+    private int[] times = new int[1024];
+    private final ArrayList<Event> prebuiltEvents = new ArrayList<>();
+    private int size;
+
+    void add(Agent agent, int eventIndex, int time) {
+        if (size == agents.length) {
+            int capacity = agents.length + agents.length / 2;
+            agents = Arrays.copyOf(agents, capacity);
+            indices = Arrays.copyOf(indices, capacity);
+            times = Arrays.copyOf(times, capacity);
+        }
+        agents[size] = agent;
+        indices[size] = eventIndex;
+        times[size] = time;
+        size++;
+    }
+
+    /**
+     * Adds an event that already exists as object, for example the events of deterministic pt.
+     */
+    void add(Event event) {
+        prebuiltEvents.add(event);
+        add(null, prebuiltEvents.size() - 1, (int) event.getTime());
+    }
+
+    void removeLast() {
+        size--;
+        if (agents[size] == null) {
+            prebuiltEvents.remove(prebuiltEvents.size() - 1);
+        }
+        agents[size] = null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(agents, 0, size, null);
+        prebuiltEvents.clear();
+        size = 0;
+    }
+
+    void drainInto(SortedEventBuffer target) {
+        for (int i = 0; i < size; i++) {
+            if (agents[i] == null) {
+                target.add(prebuiltEvents.get(indices[i]));
+            } else {
+                target.add(agents[i], indices[i], times[i]);
+            }
+        }
+        clear();
+    }
+
+    /**
+     * Creates the events and passes them to the events manager. Events of types for which
+     * <code>handledTypes</code> is false are not created at all. The events are created in parallel chunks,
+     * but handed to the events manager in their original order.
+     */
+    void process(EventsManager eventsManager, boolean[] handledTypes) {
+        int chunks = (size + BATCH_SIZE - 1) / BATCH_SIZE;
+        // limits the number of events that exist at the same time
+        int chunksPerRound = Math.max(1, 2 * ForkJoinPool.getCommonPoolParallelism());
+        for (int round = 0; round < chunks; round += chunksPerRound) {
+            final int firstChunk = round;
+            EventArray[] batches = new EventArray[Math.min(chunksPerRound, chunks - firstChunk)];
+            IntStream.range(0, batches.length).parallel().forEach(i -> {
+                int from = (firstChunk + i) * BATCH_SIZE;
+                batches[i] = createEvents(from, Math.min(size, from + BATCH_SIZE), handledTypes);
+            });
+            for (EventArray batch : batches) {
+                if (batch.size() > 0) {
+                    // the events manager might still use the batch in another thread, so it is not reused.
+                    eventsManager.processEvents(batch);
+                }
+            }
+        }
+        clear();
+    }
+
+    private EventArray createEvents(int from, int to, boolean[] handledTypes) {
+        EventArray batch = new EventArray(Math.max(16, to - from));
+        for (int i = from; i < to; i++) {
+            Agent agent = agents[i];
+            if (agent == null) {
+                batch.add(prebuiltEvents.get(indices[i]));
+            } else {
+                CompactEventArray events = agent.events();
+                if (handledTypes[events.type(indices[i])]) {
+                    batch.add(events.toEvent(indices[i], times[i]));
+                }
+            }
+        }
+        return batch;
+    }
+}
@@ -19,10 +19,6 @@
 
 package org.matsim.core.mobsim.qsim;
 
-import java.util.Iterator;
-import java.util.Queue;
-import java.util.concurrent.PriorityBlockingQueue;
-
 import jakarta.inject.Inject;
 
 import org.apache.logging.log4j.LogManager;
@@ -32,6 +28,8 @@ import org.matsim.api.core.v01.events.PersonStuckEvent;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.groups.QSimConfigGroup.WakeupQueueType;
 import org.matsim.core.mobsim.framework.MobsimAgent;
 import org.matsim.core.mobsim.framework.MobsimAgent.State;
 
@@ -41,41 +39,13 @@ class ActivityEngineDefaultImpl implements ActivityEngine {
 	private final EventsManager eventsManager;
 
 	@Inject
-	ActivityEngineDefaultImpl( EventsManager eventsManager ) {
-		this.eventsManager = eventsManager;
-	}
-
-//	public ActivityEngineDefaultImpl( EventsManager eventsManager, AgentCounter agentCounter ) {
-//		this.eventsManager = eventsManager;
-//	}
-
-	/**
-	 * Agents cannot be added directly to the activityEndsList since that would
-	 * not be thread-safe when within-day replanning is used. There, an agent's
-	 * activity end time can be modified. As a result, the agent is located at
-	 * the wrong position in the activityEndsList until it is updated by using
-	 * rescheduleActivityEnd(...). However, if another agent is added to the list
-	 * in the mean time, it might be inserted at the wrong position.
-	 * cdobler, apr'12
-	 */
-	private static class AgentEntry {
-		AgentEntry( MobsimAgent agent, double activityEndTime ) {
-			this.agent = agent;
-			this.activityEndTime = activityEndTime;
-		}
-		private final MobsimAgent agent;
-		private final double activityEndTime;
+	ActivityEngineDefaultImpl( EventsManager eventsManager, Config config ) {
+		this( eventsManager, config.qsim().getWakeupQueueType() );
 	}
 
-	private InternalInterface internalInterface;
-
-	/**
-	 * This list needs to be a "blocking" queue since this is needed for
-	 * thread-safety in the parallel qsim. cdobler, oct'10
-	 */
-	private final Queue<AgentEntry> activityEndsList = new PriorityBlockingQueue<>(500, (e0, e1) -> {
-		int cmp = Double.compare(e0.activityEndTime, e1.activityEndTime);
-		if (cmp == 0) {
+	ActivityEngineDefaultImpl( EventsManager eventsManager, WakeupQueueType wakeupQueueType ) {
+		this.eventsManager = eventsManager;
+		this.activityEndsList = TimeQueue.create( wakeupQueueType, (a0, a1) -> {
 			// Both depart at the same time -> let the one with the larger id be first (=smaller)
 			//
 			// yy We are not sure what the above comment line is supposed to say.  Presumably, it is supposed
@@ -85,10 +55,25 @@ class ActivityEngineDefaultImpl implements ActivityEngine {
 			// It is unclear why this convention is supposed to be helpful.
 			// kai & dominik, jul'12
 			//
-			return e1.agent.getId().compareTo(e0.agent.getId());
-		}
-		return cmp;
-	});
+			return a1.getId().compareTo(a0.getId());
+		});
+	}
+
+//	public ActivityEngineDefaultImpl( EventsManager eventsManager, AgentCounter agentCounter ) {
+//		this.eventsManager = eventsManager;
+//	}
+
+	private InternalInterface internalInterface;
+
+	/**
+	 * Agents are not added directly, but together with their activity end time at the time of adding (see
+	 * {@link TimeQueue}), since the activity end time of an agent can be modified with within-day replanning.
+	 * As a result, the agent would be located at the wrong position in the activityEndsList until it is updated
+	 * by using rescheduleActivityEnd(...). cdobler, apr'12
+	 * <p>
+	 * The queue needs to be thread-safe for the parallel qsim. cdobler, oct'10
+	 */
+	private final TimeQueue<MobsimAgent> activityEndsList;
 
 	// See handleActivity for the reason for this.
 	private boolean beforeFirstSimStep = true;
@@ -101,28 +86,24 @@ class ActivityEngineDefaultImpl implements ActivityEngine {
 	@Override
 	public void doSimStep(double time) {
 		beforeFirstSimStep = false;
-		while (activityEndsList.peek() != null) {
-			if (activityEndsList.peek().activityEndTime <= time) {
-				MobsimAgent agent = activityEndsList.poll().agent;
-				unregisterAgentAtActivityLocation(agent);
-				agent.endActivityAndComputeNextState(time);
-				internalInterface.arrangeNextAgentState(agent);
-			} else {
-				return;
-			}
+		MobsimAgent agent;
+		while ((agent = activityEndsList.pollDue(time)) != null) {
+			unregisterAgentAtActivityLocation(agent);
+			agent.endActivityAndComputeNextState(time);
+			internalInterface.arrangeNextAgentState(agent);
 		}
 	}
 
 	@Override
 	public void afterSim() {
 		double now = this.internalInterface.getMobsim().getSimTimer().getTimeOfDay();
-		for (AgentEntry entry : activityEndsList) {
-			if (entry.activityEndTime != Double.POSITIVE_INFINITY) {
+		activityEndsList.forEach((agent, activityEndTime) -> {
+			if (activityEndTime != Double.POSITIVE_INFINITY) {
 				// since we are at an activity, it is not plausible to assume that the agents know mode or destination
 				// link id.  Thus generating the event with ``null'' in the corresponding entries.  kai, mar'12
-				eventsManager.processEvent(new PersonStuckEvent(now, entry.agent.getId(), null, null));
+				eventsManager.processEvent(new PersonStuckEvent(now, agent.getId(), null, null));
 			}
-		}
+		});
 		activityEndsList.clear();
 	}
 
@@ -155,8 +136,7 @@ class ActivityEngineDefaultImpl implements ActivityEngine {
 			internalInterface.arrangeNextAgentState(agent) ;
 		} else {
 			// The agent commences an activity on this link.
-			final AgentEntry agentEntry = new AgentEntry(agent, agent.getActivityEndTime());
-			activityEndsList.add(agentEntry);
+			activityEndsList.add(agent.getActivityEndTime(), agent);
 			internalInterface.registerAdditionalAgentOnLink(agent);
 		}
 		// Why beforeFirstSimStep matters:
@@ -188,16 +168,16 @@ class ActivityEngineDefaultImpl implements ActivityEngine {
 
 
 		double newActivityEndTime = agent.getActivityEndTime();
-		AgentEntry oldEntry = removeAgentFromQueue(agent);
+		boolean wasInQueue = activityEndsList.remove(agent);
 
 		// The intention in the following is that an agent that is no longer alive has an activity end time of infinity.  The number of
 		// alive agents is only modified when an activity end time is changed between a finite time and infinite.  kai, jun'11
-		if (oldEntry == null) {
+		if (!wasInQueue) {
 			if (newActivityEndTime == Double.POSITIVE_INFINITY) {
 				// agent was de-activated and still should be de-activated - nothing to do here
 			} else {
 				// re-activate the agent
-				activityEndsList.add(new AgentEntry(agent, newActivityEndTime));
+				activityEndsList.add(newActivityEndTime, agent);
 				internalInterface.registerAdditionalAgentOnLink(agent);
 				((org.matsim.core.mobsim.qsim.AgentCounter) internalInterface.getMobsim().getAgentCounter()).incLiving();
 			}
@@ -212,20 +192,8 @@ class ActivityEngineDefaultImpl implements ActivityEngine {
 			/*
 			 *  The activity is just rescheduled during the day, so we keep the agent active. cdobler, oct'11
 			 */
-			activityEndsList.add(new AgentEntry(agent, newActivityEndTime));
-		}
-	}
-
-	private AgentEntry removeAgentFromQueue(MobsimAgent agent) {
-		Iterator<AgentEntry> iterator = activityEndsList.iterator();
-		while (iterator.hasNext()) {
-			AgentEntry entry = iterator.next();
-			if (entry.agent == agent) {
-				iterator.remove();
-				return entry;
-			}
+			activityEndsList.add(newActivityEndTime, agent);
 		}
-		return null;
 	}
 
 	private void unregisterAgentAtActivityLocation(final MobsimAgent agent) {
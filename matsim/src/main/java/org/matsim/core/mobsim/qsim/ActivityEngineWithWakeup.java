@@ -33,6 +33,7 @@ import org.matsim.api.core.v01.events.Event;
 import org.matsim.api.core.v01.population.Activity;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
 import org.matsim.api.core.v01.events.HasPersonId;
 import org.matsim.core.mobsim.framework.MobsimAgent;
 import org.matsim.core.mobsim.framework.PlanAgent;
@@ -49,8 +50,8 @@ public final class ActivityEngineWithWakeup implements ActivityEngine {
 	private InternalInterface internalInterface;
 
 	@Inject
-	ActivityEngineWithWakeup(EventsManager eventsManager, PreplanningEngine preplanningEngine) {
-		this.delegate = new ActivityEngineDefaultImpl(eventsManager);
+	ActivityEngineWithWakeup(EventsManager eventsManager, PreplanningEngine preplanningEngine, Config config) {
+		this.delegate = new ActivityEngineDefaultImpl(eventsManager, config);
 		this.eventsManager = eventsManager;
 		this.preplanningEngine = preplanningEngine;
 	}
@@ -0,0 +1,258 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.function.ObjDoubleConsumer;
+
+import org.matsim.core.mobsim.qsim.TimeQueue.Entry;
+
+/**
+ * {@link TimeQueue} based on a calendar queue with one bucket per simulated second.
+ * <p>
+ * Items are added unsorted into the bucket of their second. Only when the simulation reaches that second, the items of
+ * the bucket are sorted, so adding an item takes O(1), and the sorting is done on many small buckets instead of
+ * maintaining a heap over all items. The buckets form a ring covering {@value #WHEEL_SIZE} seconds, items further in
+ * the future are kept in a heap until their second comes into reach. Items added for the current or a past second
+ * are kept in a second, usually small, heap. Before the first item is polled, all items are collected in a list and
+ * only distributed to the buckets on the first poll.
+ */
+final class CalendarTimeQueue<T> implements TimeQueue<T> {
+
+	private static final int WHEEL_SIZE = 1 << 16; // ~18 hours
+	private static final long NOT_STARTED = Long.MIN_VALUE;
+
+	private final Comparator<Entry<T>> comparator;
+	/** buckets[s % WHEEL_SIZE] contains the unsorted items of second s, for cursor < s <= cursor + WHEEL_SIZE */
+	private final ArrayList<Entry<T>>[] buckets;
+	/** the sorted items of the current second, starting at currentPos */
+	private ArrayList<Entry<T>> current = new ArrayList<>();
+	private int currentPos = 0;
+	/** items of the current or an earlier second that were added after the current bucket was sorted */
+	private final PriorityQueue<Entry<T>> late;
+	/** items more than WHEEL_SIZE seconds after the current second */
+	private final PriorityQueue<Entry<T>> far;
+	/** items added before the first poll */
+	private final ArrayList<Entry<T>> pending = new ArrayList<>();
+	private long cursor = NOT_STARTED;
+	private int size = 0;
+	private int sizeOfBuckets = 0;
+
+	@SuppressWarnings("unchecked")
+	CalendarTimeQueue(Comparator<T> tieBreaker) {
+		this.comparator = Entry.comparator(tieBreaker);
+		this.buckets = new ArrayList[WHEEL_SIZE];
+		this.late = new PriorityQueue<>(this.comparator);
+		this.far = new PriorityQueue<>(this.comparator);
+	}
+
+	@Override
+	public synchronized void add(double time, T item) {
+		Entry<T> entry = new Entry<>(time, item);
+		if (this.cursor == NOT_STARTED) {
+			this.pending.add(entry);
+		} else {
+			insert(entry);
+		}
+		this.size++;
+	}
+
+	private void insert(Entry<T> entry) {
+		long second = second(entry.time);
+		if (second <= this.cursor) {
+			this.late.add(entry);
+		} else if (second <= this.cursor + WHEEL_SIZE) {
+			int index = (int) (second & (WHEEL_SIZE - 1));
+			ArrayList<Entry<T>> bucket = this.buckets[index];
+			if (bucket == null) {
+				bucket = new ArrayList<>();
+				this.buckets[index] = bucket;
+			}
+			bucket.add(entry);
+			this.sizeOfBuckets++;
+		} else {
+			this.far.add(entry);
+		}
+	}
+
+	private static long second(double time) {
+		if (Double.isNaN(time)) {
+			return Long.MAX_VALUE; // sorted last by Double.compare
+		}
+		return (long) Math.floor(time); // saturates at Long.MIN_VALUE / MAX_VALUE for infinite times
+	}
+
+	@Override
+	public synchronized T pollDue(double now) {
+		if (this.cursor == NOT_STARTED) {
+			start(now);
+		}
+		while (true) {
+			Entry<T> first = this.currentPos < this.current.size() ? this.current.get(this.currentPos) : null;
+			Entry<T> firstLate = this.late.peek();
+			boolean fromLate = firstLate != null && (first == null || this.comparator.compare(firstLate, first) < 0);
+			if (fromLate) {
+				first = firstLate;
+			}
+			if (first != null) {
+				// all items in the buckets belong to later seconds, so this is the first item of the queue
+				if (first.time > now) {
+					return null;
+				}
+				if (fromLate) {
+					this.late.poll();
+				} else {
+					this.current.set(this.currentPos++, null);
+				}
+				this.size--;
+				return first.item;
+			}
+			// the current second is done
+			long nowSecond = second(now);
+			if (this.cursor >= nowSecond) {
+				return null;
+			}
+			if (this.sizeOfBuckets == 0) {
+				// nothing in the ring, jump directly to the second before the next item or to now
+				long next = this.far.isEmpty() ? Long.MAX_VALUE : second(this.far.peek().time);
+				if (next > nowSecond) {
+					this.cursor = nowSecond;
+					moveFarItemsIntoReach();
+					return null;
+				}
+				this.cursor = next - 1;
+			}
+			advance();
+		}
+	}
+
+	private void start(double now) {
+		// start just before now, so all pending items at or after now go into the buckets
+		long second = second(now);
+		this.cursor = second == Long.MIN_VALUE ? second : second - 1;
+		for (Entry<T> entry : this.pending) {
+			insert(entry);
+		}
+		this.pending.clear();
+		this.pending.trimToSize();
+	}
+
+	private void advance() {
+		this.cursor++;
+		int index = (int) (this.cursor & (WHEEL_SIZE - 1));
+		ArrayList<Entry<T>> bucket = this.buckets[index];
+		ArrayList<Entry<T>> previous = this.current;
+		previous.clear();
+		this.currentPos = 0;
+		if (bucket != null && !bucket.isEmpty()) {
+			// re-use the list of the previous second for the bucket that now covers cursor + WHEEL_SIZE
+			this.buckets[index] = previous;
+			this.current = bucket;
+			this.sizeOfBuckets -= bucket.size();
+		}
+		moveFarItemsIntoReach();
+		if (this.current.size() > 1) {
+			this.current.sort(this.comparator);
+		}
+	}
+
+	private void moveFarItemsIntoReach() {
+		while (!this.far.isEmpty() && second(this.far.peek().time) <= this.cursor + WHEEL_SIZE) {
+			insert(this.far.poll());
+		}
+	}
+
+	@Override
+	public synchronized boolean remove(T item) {
+		if (removeFrom(this.pending.iterator(), item) || removeFrom(this.late.iterator(), item) || removeFrom(this.far.iterator(), item)) {
+			this.size--;
+			return true;
+		}
+		for (int i = this.currentPos; i < this.current.size(); i++) {
+			if (this.current.get(i).item == item) {
+				this.current.remove(i); // keeps the order of the remaining items
+				this.size--;
+				return true;
+			}
+		}
+		for (ArrayList<Entry<T>> bucket : this.buckets) {
+			if (bucket != null && removeFrom(bucket.iterator(), item)) {
+				this.sizeOfBuckets--;
+				this.size--;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static <T> boolean removeFrom(Iterator<Entry<T>> iterator, T item) {
+		while (iterator.hasNext()) {
+			if (iterator.next().item == item) {
+				iterator.remove();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public synchronized void forEach(ObjDoubleConsumer<T> consumer) {
+		if (this.size == 0) {
+			return;
+		}
+		this.pending.forEach(e -> consumer.accept(e.item, e.time));
+		for (int i = this.currentPos; i < this.current.size(); i++) {
+			Entry<T> e = this.current.get(i);
+			consumer.accept(e.item, e.time);
+		}
+		this.late.forEach(e -> consumer.accept(e.item, e.time));
+		for (ArrayList<Entry<T>> bucket : this.buckets) {
+			if (bucket != null) {
+				bucket.forEach(e -> consumer.accept(e.item, e.time));
+			}
+		}
+		this.far.forEach(e -> consumer.accept(e.item, e.time));
+	}
+
+	@Override
+	public synchronized boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	@Override
+	public synchronized void clear() {
+		this.pending.clear();
+		this.current.clear();
+		this.currentPos = 0;
+		this.late.clear();
+		this.far.clear();
+		for (ArrayList<Entry<T>> bucket : this.buckets) {
+			if (bucket != null) {
+				bucket.clear();
+			}
+		}
+		this.size = 0;
+		this.sizeOfBuckets = 0;
+	}
+
+}
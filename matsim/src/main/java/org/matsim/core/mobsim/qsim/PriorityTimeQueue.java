@@ -0,0 +1,84 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.function.ObjDoubleConsumer;
+
+import org.matsim.core.mobsim.qsim.TimeQueue.Entry;
+
+/**
+ * {@link TimeQueue} based on a binary heap. Adding and removing the first item takes O(log n).
+ */
+final class PriorityTimeQueue<T> implements TimeQueue<T> {
+
+	private final PriorityQueue<Entry<T>> queue;
+
+	PriorityTimeQueue(Comparator<T> tieBreaker) {
+		this.queue = new PriorityQueue<>(500, Entry.comparator(tieBreaker));
+	}
+
+	@Override
+	public synchronized void add(double time, T item) {
+		this.queue.add(new Entry<>(time, item));
+	}
+
+	@Override
+	public synchronized T pollDue(double now) {
+		Entry<T> first = this.queue.peek();
+		if (first != null && first.time <= now) {
+			this.queue.poll();
+			return first.item;
+		}
+		return null;
+	}
+
+	@Override
+	public synchronized boolean remove(T item) {
+		Iterator<Entry<T>> iterator = this.queue.iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().item == item) {
+				iterator.remove();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public synchronized void forEach(ObjDoubleConsumer<T> consumer) {
+		for (Entry<T> entry : this.queue) {
+			consumer.accept(entry.item, entry.time);
+		}
+	}
+
+	@Override
+	public synchronized boolean isEmpty() {
+		return this.queue.isEmpty();
+	}
+
+	@Override
+	public synchronized void clear() {
+		this.queue.clear();
+	}
+
+}
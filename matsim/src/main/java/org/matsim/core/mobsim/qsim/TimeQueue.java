@@ -0,0 +1,86 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim;
+
+import java.util.Comparator;
+import java.util.function.ObjDoubleConsumer;
+
+import org.matsim.core.config.groups.QSimConfigGroup.WakeupQueueType;
+
+/**
+ * A queue of items, e.g. agents, that should be handled at a given time, as used by {@link ActivityEngineDefaultImpl}
+ * and {@link DefaultTeleportationEngine}. Items are returned ordered by their time, items with the same time are
+ * ordered by the tie breaker given at creation. All methods are thread-safe.
+ */
+interface TimeQueue<T> {
+
+	static <T> TimeQueue<T> create(WakeupQueueType type, Comparator<T> tieBreaker) {
+		return switch (type) {
+			case priorityQueue -> new PriorityTimeQueue<>(tieBreaker);
+			case calendarQueue -> new CalendarTimeQueue<>(tieBreaker);
+		};
+	}
+
+	void add(double time, T item);
+
+	/**
+	 * Removes and returns the first item, if its time is not after <code>now</code>.
+	 *
+	 * @return the first item, or <code>null</code> if the queue is empty or the first item is not due yet.
+	 */
+	T pollDue(double now);
+
+	/**
+	 * Removes the given item, comparing by identity.
+	 *
+	 * @return <code>true</code> if the item was in the queue.
+	 */
+	boolean remove(T item);
+
+	/**
+	 * Calls the consumer for each item with its time, in no particular order.
+	 */
+	void forEach(ObjDoubleConsumer<T> consumer);
+
+	boolean isEmpty();
+
+	void clear();
+
+	/**
+	 * An entry of the queue, used by the implementations.
+	 */
+	final class Entry<T> {
+		final double time;
+		final T item;
+
+		Entry(double time, T item) {
+			this.time = time;
+			this.item = item;
+		}
+
+		static <T> Comparator<Entry<T>> comparator(Comparator<T> tieBreaker) {
+			return (e0, e1) -> {
+				int cmp = Double.compare(e0.time, e1.time);
+				return cmp != 0 ? cmp : tieBreaker.compare(e0.item, e1.item);
+			};
+		}
+	}
+
+}
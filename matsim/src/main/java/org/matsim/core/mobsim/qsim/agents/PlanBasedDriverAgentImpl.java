@@ -51,6 +51,10 @@ public final class PlanBasedDriverAgentImpl implements DriverAgent {
 
 	private Id<Link> cachedNextLinkId = null;
 
+	// compressed routes decode their links on every call, so the links of the current route are kept while driving it
+	private NetworkRoute cachedRoute = null;
+	private List<Id<Link>> cachedRouteLinkIds = null;
+
 	@Override
 	public final void notifyMoveOverNode(Id<Link> newLinkId) {
 		if (expectedLinkWarnCount < 10 && !newLinkId.equals(this.cachedNextLinkId)) {
@@ -95,7 +99,7 @@ public final class PlanBasedDriverAgentImpl implements DriverAgent {
 			return null ;
 		}
 
-		List<Id<Link>> routeLinkIds = ((NetworkRoute) this.basicPlanAgentDelegate.getCurrentLeg().getRoute()).getLinkIds();
+		List<Id<Link>> routeLinkIds = getCurrentRouteLinkIds();
 
 		// (3) if route has run dry, we return the destination link (except for one special case, which however may not be necessary any more):
 		if (this.basicPlanAgentDelegate.getCurrentLinkIndex() >= routeLinkIds.size() ) {
@@ -123,6 +127,15 @@ public final class PlanBasedDriverAgentImpl implements DriverAgent {
 
 	}
 
+	private List<Id<Link>> getCurrentRouteLinkIds() {
+		NetworkRoute route = (NetworkRoute) this.basicPlanAgentDelegate.getCurrentLeg().getRoute();
+		if (route != this.cachedRoute) {
+			this.cachedRoute = route;
+			this.cachedRouteLinkIds = route.getLinkIds();
+		}
+		return this.cachedRouteLinkIds;
+	}
+
 	@Override
 	public final boolean isWantingToArriveOnCurrentLink( ) {
 
@@ -131,7 +144,7 @@ public final class PlanBasedDriverAgentImpl implements DriverAgent {
 			return true ;
 		}
 
-		final List<Id<Link>> routeLinkIds = ((NetworkRoute) this.basicPlanAgentDelegate.getCurrentLeg().getRoute()).getLinkIds();
+		final List<Id<Link>> routeLinkIds = getCurrentRouteLinkIds();
 		final int routeLinkIdsSize = routeLinkIds.size();
 
 		// the standard condition used to be "route has run dry AND destination link not attached to current link":
@@ -185,6 +198,8 @@ public final class PlanBasedDriverAgentImpl implements DriverAgent {
 		// Compromise: package-private here; making it public in the Withinday class.  kai, nov'10
 
 		this.cachedNextLinkId = null;
+		this.cachedRoute = null;
+		this.cachedRouteLinkIds = null;
 
 		if( this.basicPlanAgentDelegate.getCurrentPlanElement()==null ) {
 			throw new RuntimeException("encountered unexpected null pointer" ) ;
@@ -70,6 +70,13 @@ abstract class AbstractQNetsimEngineRunner extends NetElementActivationRegistry
 	private boolean lockNodes = false;
 	private boolean lockLinks = false;
 
+	/*
+	 * Number of nodes moved in the last call of moveNodes(). Unlike the size of
+	 * the nodesQueue, this is available in O(1) and is used to estimate the work
+	 * of the next time step.
+	 */
+	private int numberOfMovedNodes = 0;
+
 	/*package*/ long[] runTimes;
 	private long startTime = 0;
 	{	
@@ -87,12 +94,15 @@ abstract class AbstractQNetsimEngineRunner extends NetElementActivationRegistry
 		boolean remainsActive;
 		this.lockNodes = true;
 		QNodeI node;
+		int movedNodes = 0;
 		Iterator<QNodeI> simNodes = this.nodesQueue.iterator();
 		while (simNodes.hasNext()) {
 			node = simNodes.next();
 			remainsActive = node.doSimStep(time);
 			if (!remainsActive) simNodes.remove();
+			movedNodes++;
 		}
+		this.numberOfMovedNodes = movedNodes;
 		this.lockNodes = false;
 	}
 	
@@ -149,6 +159,10 @@ abstract class AbstractQNetsimEngineRunner extends NetElementActivationRegistry
 		return this.nodesQueue.size();
 	}
 
+	/*package*/ final int getNumberOfMovedNodes() {
+		return this.numberOfMovedNodes;
+	}
+
 	protected final void startMeasure() {
 		if (QSim.analyzeRunTimes) this.startTime = System.nanoTime();		
 	}
@@ -56,6 +56,7 @@ public final class ConfigurableQNetworkFactory implements QNetworkFactory {
 	private Optional<VehicleHandler> vehicleHandler = Optional.empty();
 	private Optional<FlowEfficiencyCalculator> flowEfficiencyCalculator = Optional.empty();
 	private Optional<VehicleQ.Factory<QVehicle>> vehicleQFactory = Optional.empty();
+	private Optional<Boolean> useRingBuffers = Optional.empty();
 
 	public ConfigurableQNetworkFactory(EventsManager events, Scenario scenario) {
 		this.events = events;
@@ -87,6 +88,7 @@ public final class ConfigurableQNetworkFactory implements QNetworkFactory {
 			QueueWithBuffer.Builder laneFactory = new QueueWithBuffer.Builder(context);
 			vehicleQFactory.ifPresent(factory -> laneFactory.setVehicleQueue(factory.createVehicleQ()));
 			flowEfficiencyCalculator.ifPresent(laneFactory::setFlowEfficiencyCalculator);
+			useRingBuffers.ifPresent(laneFactory::setUseRingBuffers);
 			linkBuilder.setLaneFactory(laneFactory);
 		}
 //		linkSpeedCalculator.ifPresent(linkBuilder::setLinkSpeedCalculator);
@@ -124,4 +126,13 @@ public final class ConfigurableQNetworkFactory implements QNetworkFactory {
 	public final void setFlowEfficiencyCalculator(FlowEfficiencyCalculator flowEfficiencyCalculator) {
 		this.flowEfficiencyCalculator = Optional.of(flowEfficiencyCalculator);
 	}
+
+	/**
+	 * If set to true, the lanes store the vehicles in their buffer and their holes in ring buffers of primitive arrays
+	 * instead of linked lists, which avoids allocating objects when vehicles move over the links. If not set, this is
+	 * taken from {@link QSimConfigGroup#isUsingRingBuffersInLinks()}.
+	 */
+	public final void setUseRingBuffers(boolean useRingBuffers) {
+		this.useRingBuffers = Optional.of(useRingBuffers);
+	}
 }
@@ -0,0 +1,175 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.ArrayDeque;
+import java.util.LinkedList;
+import java.util.Queue;
+
+import org.matsim.core.mobsim.qsim.qnetsimengine.QueueWithBuffer.Hole;
+
+/**
+ * The holes of a {@link QueueWithBuffer} that travel from the downstream to the upstream end of the link, in the
+ * order they were created, i.e. ordered by their earliest link exit time.
+ */
+interface HoleQueue {
+
+	void add(double earliestLinkExitTime, double sizeInEquivalents);
+
+	boolean isEmpty();
+
+	/**
+	 * @return the earliest link exit time of the first hole. Must only be called if the queue is not empty.
+	 */
+	double peekEarliestLinkExitTime();
+
+	/**
+	 * Removes the first hole.
+	 *
+	 * @return the size of the removed hole. Must only be called if the queue is not empty.
+	 */
+	double poll();
+
+	void clear();
+
+	/**
+	 * @return the holes as {@link Hole} objects, e.g. for visualization. Changes to the returned queue might not
+	 * be reflected by this object.
+	 */
+	Queue<Hole> asQueue();
+
+	/**
+	 * The original implementation, storing a {@link Hole} object for each hole in a {@link LinkedList}.
+	 */
+	final class LinkedListHoles implements HoleQueue {
+
+		private final Queue<Hole> holes = new LinkedList<>();
+
+		@Override
+		public void add(double earliestLinkExitTime, double sizeInEquivalents) {
+			Hole hole = new Hole();
+			hole.setEarliestLinkExitTime(earliestLinkExitTime);
+			hole.setSizeInEquivalents(sizeInEquivalents);
+			this.holes.add(hole);
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return this.holes.isEmpty();
+		}
+
+		@Override
+		public double peekEarliestLinkExitTime() {
+			return this.holes.peek().getEarliestLinkExitTime();
+		}
+
+		@Override
+		public double poll() {
+			return this.holes.poll().getSizeInEquivalents();
+		}
+
+		@Override
+		public void clear() {
+			this.holes.clear();
+		}
+
+		@Override
+		public Queue<Hole> asQueue() {
+			return this.holes;
+		}
+	}
+
+	/**
+	 * Stores the earliest link exit time and the size of the holes in two parallel arrays used as ring buffer, which
+	 * only grow if the queue gets full. {@link Hole} objects are only created by {@link #asQueue()}.
+	 */
+	final class RingBufferHoles implements HoleQueue {
+
+		private double[] earliestLinkExitTimes = new double[4];
+		private double[] sizes = new double[4];
+		private int head = 0;
+		private int size = 0;
+
+		@Override
+		public void add(double earliestLinkExitTime, double sizeInEquivalents) {
+			if (this.size == this.sizes.length) {
+				grow();
+			}
+			int index = (this.head + this.size) & (this.sizes.length - 1);
+			this.earliestLinkExitTimes[index] = earliestLinkExitTime;
+			this.sizes[index] = sizeInEquivalents;
+			this.size++;
+		}
+
+		private void grow() {
+			// unroll the ring, so the first hole is at index 0 again
+			int capacity = this.sizes.length;
+			double[] newTimes = new double[capacity * 2];
+			double[] newSizes = new double[capacity * 2];
+			int firstPart = capacity - this.head;
+			System.arraycopy(this.earliestLinkExitTimes, this.head, newTimes, 0, firstPart);
+			System.arraycopy(this.earliestLinkExitTimes, 0, newTimes, firstPart, this.head);
+			System.arraycopy(this.sizes, this.head, newSizes, 0, firstPart);
+			System.arraycopy(this.sizes, 0, newSizes, firstPart, this.head);
+			this.earliestLinkExitTimes = newTimes;
+			this.sizes = newSizes;
+			this.head = 0;
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return this.size == 0;
+		}
+
+		@Override
+		public double peekEarliestLinkExitTime() {
+			return this.earliestLinkExitTimes[this.head];
+		}
+
+		@Override
+		public double poll() {
+			double size = this.sizes[this.head];
+			this.head = (this.head + 1) & (this.sizes.length - 1);
+			this.size--;
+			return size;
+		}
+
+		@Override
+		public void clear() {
+			this.head = 0;
+			this.size = 0;
+		}
+
+		@Override
+		public Queue<Hole> asQueue() {
+			Queue<Hole> holes = new ArrayDeque<>(this.size);
+			int mask = this.sizes.length - 1;
+			for (int i = 0; i < this.size; i++) {
+				int index = (this.head + i) & mask;
+				Hole hole = new Hole();
+				hole.setEarliestLinkExitTime(this.earliestLinkExitTimes[index]);
+				hole.setSizeInEquivalents(this.sizes[index]);
+				holes.add(hole);
+			}
+			return holes;
+		}
+	}
+
+}
@@ -31,7 +31,11 @@ public final class QNetsimEngineModule extends AbstractQSimModule {
 	
 	@Override
 	protected void configureQSim() {
-		bind(QNetsimEngineI.class).to(QNetsimEngineWithThreadpool.class).in( Singleton.class );
+		switch( this.getConfig().qsim().getNetsimEngineScheduling() ) {
+			case fixedRunners -> bind(QNetsimEngineI.class).to(QNetsimEngineWithThreadpool.class).in( Singleton.class );
+			case workStealing -> bind(QNetsimEngineI.class).to(QNetsimEngineWithForkJoinPool.class).in( Singleton.class );
+			default -> throw new IllegalStateException( "Unexpected value: " + this.getConfig().qsim().getNetsimEngineScheduling() );
+		}
 		bind(VehicularDepartureHandler.class).toProvider(QNetsimEngineDepartureHandlerProvider.class).in( Singleton.class );
 		// in the two lines above, I changed "asEagerSingleton" to "in( Singleton.class )", since forcing construction early often leads to problems.  kai, jun'23
 
@@ -0,0 +1,48 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+/**
+ * A runner of the {@link QNetsimEngineWithForkJoinPool}. It owns a fixed part of the nodes and links, like the
+ * runners of the {@link QNetsimEngineWithThreadpool}, but it is not bound to a thread. The engine decides in every
+ * time step which runners are moved together by one fork-join task.
+ */
+final class QNetsimEngineRunnerForForkJoinPool extends AbstractQNetsimEngineRunner {
+
+	/**
+	 * @return an estimate of the work of the next call of {@link #moveNodes()}.
+	 */
+	int getEstimatedNodeWork() {
+		// nodes activated since the last time step are not counted, but they are usually few compared to the nodes that remain active
+		return getNumberOfMovedNodes();
+	}
+
+	/**
+	 * @return an estimate of the work of the next call of {@link #moveLinks()}.
+	 */
+	int getEstimatedLinkWork() {
+		return getNumberOfSimulatedLinks();
+	}
+
+	@Override
+	public void afterSim() {
+		// nothing to do, the runner is not bound to a thread
+	}
+}
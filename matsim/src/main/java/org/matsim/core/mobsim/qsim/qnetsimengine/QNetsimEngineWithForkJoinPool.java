@@ -0,0 +1,173 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+import jakarta.inject.Inject;
+
+import org.matsim.core.mobsim.qsim.QSim;
+
+/**
+ * Coordinates the movement of vehicles on the links and the nodes, like the {@link QNetsimEngineWithThreadpool}, but
+ * balances the load between the threads dynamically.
+ * <p>
+ * The nodes are split round robin into several runners per thread, and each node and each of its out-links always
+ * belongs to the same runner. In every time step, the runners are moved by fork-join tasks. A task moves a range of
+ * runners itself once their estimated number of active nodes or links is small enough, otherwise it splits the range
+ * into two halves of about the same estimated work. Idle threads steal the halves that are not processed yet, so a thread that ends up with the busy
+ * parts of the network no longer determines the duration of the time step.
+ * <p>
+ * Since a node is only ever moved by its own runner, and all nodes are moved before any link, the result does not
+ * depend on which thread moves which runner.
+ */
+final class QNetsimEngineWithForkJoinPool extends AbstractQNetsimEngine<QNetsimEngineRunnerForForkJoinPool> {
+
+	/**
+	 * Number of runners per thread. More runners allow a finer balancing, but each of them costs a task.
+	 */
+	static final int RUNNERS_PER_THREAD = 8;
+
+	/**
+	 * The work of one time step is split into about this many chunks per thread, so that threads which finish early
+	 * find something to steal.
+	 */
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	private final int numOfRunners;
+	private ForkJoinPool pool;
+	private QNetsimEngineRunnerForForkJoinPool[] runners;
+	private long[] cumulativeWork;
+
+	@Inject QNetsimEngineWithForkJoinPool(final QSim sim, QNetworkFactory netsimNetworkFactory) {
+		super(sim, netsimNetworkFactory);
+		// a single thread keeps a single runner, so the order in which the nodes are moved is the same as with the thread pool
+		this.numOfRunners = this.numOfThreads == 1 ? 1 : this.numOfThreads * RUNNERS_PER_THREAD;
+	}
+
+	@Override
+	protected List<QNetsimEngineRunnerForForkJoinPool> initQSimEngineRunners() {
+		List<QNetsimEngineRunnerForForkJoinPool> engines = new ArrayList<>();
+		for (int i = 0; i < this.numOfRunners; i++) {
+			engines.add(new QNetsimEngineRunnerForForkJoinPool());
+		}
+		return engines;
+	}
+
+	@Override
+	protected void initMultiThreading() {
+		this.runners = getQnetsimEngineRunner().toArray(new QNetsimEngineRunnerForForkJoinPool[0]);
+		this.cumulativeWork = new long[this.runners.length + 1];
+		this.pool = new ForkJoinPool(this.numOfThreads, pool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName("QNetsimEngine_ForkJoinThread_" + thread.getPoolIndex());
+			return thread;
+		}, null, false);
+	}
+
+	@Override
+	public void finishMultiThreading() {
+		this.pool.shutdown();
+	}
+
+	@Override
+	protected void run(double time) {
+		for (QNetsimEngineRunnerForForkJoinPool runner : this.runners) {
+			runner.setTime(time);
+		}
+		move(true);
+		move(false);
+	}
+
+	private void move(boolean nodes) {
+		if (this.runners.length == 1) {
+			moveRunner(this.runners[0], nodes);
+			return;
+		}
+
+		// every runner counts at least 1, so that a chunk never gets arbitrarily many runners without active elements
+		long[] work = this.cumulativeWork;
+		for (int i = 0; i < this.runners.length; i++) {
+			QNetsimEngineRunnerForForkJoinPool runner = this.runners[i];
+			work[i + 1] = work[i] + 1 + (nodes ? runner.getEstimatedNodeWork() : runner.getEstimatedLinkWork());
+		}
+		long chunkSize = Math.max(1, work[this.runners.length] / ((long) this.numOfThreads * CHUNKS_PER_THREAD));
+
+		this.pool.invoke(new MoveTask(nodes, 0, this.runners.length, chunkSize));
+	}
+
+	private static void moveRunner(QNetsimEngineRunnerForForkJoinPool runner, boolean nodes) {
+		if (nodes) {
+			runner.moveNodes();
+		} else {
+			runner.moveLinks();
+		}
+	}
+
+	/**
+	 * @return the index in (from, to) which splits the runners into two halves with about the same estimated work.
+	 */
+	static int splitIndex(long[] cumulativeWork, int from, int to) {
+		long half = cumulativeWork[from] + (cumulativeWork[to] - cumulativeWork[from]) / 2;
+		int lo = from + 1;
+		int hi = to - 1;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (cumulativeWork[mid] < half) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	private final class MoveTask extends RecursiveAction {
+
+		private final boolean nodes;
+		private final int from;
+		private final int to;
+		private final long chunkSize;
+
+		MoveTask(boolean nodes, int from, int to, long chunkSize) {
+			this.nodes = nodes;
+			this.from = from;
+			this.to = to;
+			this.chunkSize = chunkSize;
+		}
+
+		@Override
+		protected void compute() {
+			long[] work = QNetsimEngineWithForkJoinPool.this.cumulativeWork;
+			if (this.to - this.from == 1 || work[this.to] - work[this.from] <= this.chunkSize) {
+				for (int i = this.from; i < this.to; i++) {
+					moveRunner(QNetsimEngineWithForkJoinPool.this.runners[i], this.nodes);
+				}
+				return;
+			}
+			int mid = splitIndex(work, this.from, this.to);
+			invokeAll(new MoveTask(this.nodes, this.from, mid, this.chunkSize), new MoveTask(this.nodes, mid, this.to, this.chunkSize));
+		}
+	}
+}
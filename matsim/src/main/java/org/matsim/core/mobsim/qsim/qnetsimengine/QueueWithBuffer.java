@@ -22,11 +22,7 @@ package org.matsim.core.mobsim.qsim.qnetsimengine;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.Queue;
 
-import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.Coord;
@@ -132,7 +128,7 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
 	private double flowCapacityPerTimeStep;
 	private double remainingHolesStorageCapacity = 0.0 ;
 
-	private final Queue<QueueWithBuffer.Hole> holes = new LinkedList<>();
+	private final HoleQueue holes;
 
 	/** the last time-step the front-most vehicle in the buffer was moved. Used for detecting dead-locks. */
 	private double bufferLastMovedTime = Double.NEGATIVE_INFINITY ;
@@ -151,7 +147,7 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
 	 * (1) entry to the buffer (this is where it is computed and then stored) <br>
 	 * (2) update of the remaining flow capacity (where we account for all vehicles that are still in the buffer since previous time steps) - see {@link #subtractConsumptionOfVehiclesThatAreAlreadyInTheBuffer()} <br>
 	 */
-	private final Queue<Pair<QVehicle,Double>> buffer = new LinkedList<>() ;
+	private final VehicleBuffer buffer;
 	/**
 	 * null if the link is not signalized
 	 */
@@ -173,12 +169,14 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
 	/**
 	 * Points to the latest vehicle that entered the buffer and the entry time.
 	 */
-	private Pair<QVehicle,Double> lastBufferEntry = null;
+	private QVehicle lastBufferEntryVehicle = null;
+	private double lastBufferEntryTime;
 
 	/**
 	 * Points to the latest vehicle that entered the queue and the entry time.
 	 */
-	private Pair<QVehicle,Double> lastQueueEntry = null;
+	private QVehicle lastQueueEntryVehicle = null;
+	private double lastQueueEntryTime;
 
 
 	private final VisData visData = new VisDataImpl() ;
@@ -193,7 +191,7 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
 
 	private QueueWithBuffer(AbstractQLink.QLinkInternalInterface qlink, final VehicleQ<QVehicle> vehicleQueue, Id<Lane> laneId,
 							double length, double effectiveNumberOfLanes, double flowCapacity_s, final NetsimEngineContext context,
-							FlowEfficiencyCalculator flowEfficiencyCalculator) {
+							FlowEfficiencyCalculator flowEfficiencyCalculator, VehicleBuffer buffer, HoleQueue holes) {
 		// the general idea is to give this object no longer access to "everything".  Objects get back pointers (here qlink), but they
 		// do not present the back pointer to the outside.  In consequence, this object can go up to qlink, but not any further. kai, mar'16
 		// Now I am even trying to get rid of the full qLink back pointer (since it allows, e.g., going back to Link). kai, feb'18
@@ -205,6 +203,8 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
 		this.id = laneId ;
 		this.context = context ;
 		this.vehQueue = vehicleQueue ;
+		this.buffer = buffer ;
+		this.holes = holes ;
 		this.length = length;
 		this.unscaledFlowCapacity_s = flowCapacity_s ;
 		this.effectiveNumberOfLanes = effectiveNumberOfLanes;
@@ -225,12 +225,13 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
 
 		double now = context.getSimTimer().getTimeOfDay() ;
 
-		double flowConsumption = (lastBufferEntry == null) ?
-				getFlowCapacityConsumptionInEquivalents(veh, null, null) : getFlowCapacityConsumptionInEquivalents(veh, lastBufferEntry.getKey(), now - lastBufferEntry.getValue());
+		double flowConsumption = (lastBufferEntryVehicle == null) ?
+				getFlowCapacityConsumptionInEquivalents(veh, null, null) : getFlowCapacityConsumptionInEquivalents(veh, lastBufferEntryVehicle, now - lastBufferEntryTime);
         this.flowcap_accumulate.addValue(-flowConsumption, now);
 
-		buffer.add(new ImmutablePair<>(veh,flowConsumption));
-		lastBufferEntry = new ImmutablePair<>(veh,now);
+		buffer.add(veh, flowConsumption);
+		lastBufferEntryVehicle = veh;
+		lastBufferEntryTime = now;
 
 		if (buffer.size() == 1) {
 			bufferLastMovedTime = now;
@@ -353,12 +354,8 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
 	}
 
 	private double subtractConsumptionOfVehiclesThatAreAlreadyInTheBuffer() {
-		double remainingFlowCapThisTimeStep = flowCapacityPerTimeStep;
-		for (Pair<QVehicle,Double> vehEfficiencyPair : buffer) {
-			// Subtract size of vehicles that are already in the buffer (from previous time steps)
-			remainingFlowCapThisTimeStep -= vehEfficiencyPair.getValue();
-		}
-		return remainingFlowCapThisTimeStep;
+		// Subtract size of vehicles that are already in the buffer (from previous time steps)
+		return buffer.subtractFlowConsumption(flowCapacityPerTimeStep);
 	}
 
 	@Override
@@ -576,9 +573,8 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
 
 	private void processArrivalOfHoles() {
 		double now = context.getSimTimer().getTimeOfDay() ;
-		while ( this.holes.size()>0 && this.holes.peek().getEarliestLinkExitTime() < now ) {
-			Hole hole = this.holes.poll(); // ???
-            this.remainingHolesStorageCapacity += hole.getSizeInEquivalents();
+		while ( !this.holes.isEmpty() && this.holes.peekEarliestLinkExitTime() < now ) {
+            this.remainingHolesStorageCapacity += this.holes.poll();
         }
     }
 
@@ -629,15 +625,16 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
                 break;
             case kinematicWaves:
                 this.remainingHolesStorageCapacity -= veh.getSizeInEquivalents();
-				double flowConsumption = (lastQueueEntry == null) ?
-						getFlowCapacityConsumptionInEquivalents(veh, null, null) : getFlowCapacityConsumptionInEquivalents(veh, lastQueueEntry.getKey(), now - lastQueueEntry.getValue());
+				double flowConsumption = (lastQueueEntryVehicle == null) ?
+						getFlowCapacityConsumptionInEquivalents(veh, null, null) : getFlowCapacityConsumptionInEquivalents(veh, lastQueueEntryVehicle, now - lastQueueEntryTime);
                 this.accumulatedInflowCap -= flowConsumption;
                 break;
             default:
                 throw new RuntimeException("The traffic dynamics " + context.qsimConfig.getTrafficDynamics() + " is not implemented yet.");
 		}
 
-		lastQueueEntry = new ImmutablePair<>(veh, now);
+		lastQueueEntryVehicle = veh;
+		lastQueueEntryTime = now;
 	}
 
 	private void removeVehicleFromQueue(final QVehicle veh2Remove) {
@@ -662,7 +659,6 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
 				break;
 			case withHoles:
 			case kinematicWaves:
-				QueueWithBuffer.Hole hole = new QueueWithBuffer.Hole() ;
 
 				//			double offset = this.storageCapacity/this.flowCapacityPerTimeStep ;
 			/* NOTE: Start with completely full link, i.e. N_storageCap cells filled.  Now make light at end of link green, discharge with
@@ -683,9 +679,7 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
 				// now + 1.0*ttimeOfHoles + 0.0*MatsimRandom.getRandom().nextDouble()*ttimeOfHoles
 				var holeTravelTime = length * 3.6 / HOLE_SPEED_KM_H;
 				var earliestExitTime = now + holeTravelTime;
-				hole.setEarliestLinkExitTime(earliestExitTime) ;
-				hole.setSizeInEquivalents(veh2Remove.getSizeInEquivalents());
-				holes.add( hole ) ;
+				holes.add( earliestExitTime, veh2Remove.getSizeInEquivalents() ) ;
 				break;
 			default: throw new RuntimeException("The traffic dynmics "+context.qsimConfig.getTrafficDynamics()+" is not implemented yet.");
 		}
@@ -772,9 +766,9 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
 			if (veh.getId().equals(vehicleId))
 				return veh;
 		}
-		for (Pair<QVehicle,Double> vehEfficiencyPair : this.buffer) {
-			if (vehEfficiencyPair.getKey().getId().equals(vehicleId))
-				return vehEfficiencyPair.getKey();
+		for (QVehicle veh : this.buffer) {
+			if (veh.getId().equals(vehicleId))
+				return veh;
 		}
 		return null;
 	}
@@ -785,8 +779,8 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
 		 * It will be more complicated for passingQueue. amit feb'16
 		 */
 		Collection<MobsimVehicle> vehicles = new ArrayList<>();
-		for (Pair<QVehicle, Double> pair : buffer) {
-			vehicles.add(pair.getKey());
+		for (QVehicle veh : buffer) {
+			vehicles.add(veh);
 		}
 		vehicles.addAll(vehQueue);
 		return vehicles ;
@@ -806,7 +800,7 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
 
 	private final QVehicle removeFirstVehicle(){
 		double now = context.getSimTimer().getTimeOfDay() ;
-		QVehicle veh = buffer.poll().getKey();
+		QVehicle veh = buffer.poll();
 		bufferLastMovedTime = now; // just in case there is another vehicle in the buffer that is now the new front-most
 		if( context.qsimConfig.isUsingFastCapacityUpdate() ) {
 			flowcap_accumulate.setTimeStep(now - context.qsimConfig.getTimeStepSize());
@@ -867,8 +861,7 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
 		}
 		vehQueue.clear();
 
-		for (Pair<QVehicle,Double> bufferEntry : buffer) {
-			QVehicle veh = bufferEntry.getKey();
+		for (QVehicle veh : buffer) {
 			context.getEventsManager().processEvent( new VehicleAbortsEvent(now, veh.getId(), veh.getCurrentLink().getId()));
 			context.getEventsManager().processEvent( new PersonStuckEvent(now, veh.getDriver().getId(), veh.getCurrentLink().getId(), veh.getDriver().getMode()));
 
@@ -904,7 +897,7 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
 		if (this.buffer.isEmpty()) {
 			return this.vehQueue.peek();
 		}
-		return this.buffer.peek().getKey() ;
+		return this.buffer.peek() ;
 	}
 
 	@Override
@@ -1010,7 +1003,7 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
 						qLinkInternalInterface.getFreespeed(now ),
 //						NetworkUtils.getNumberOfLanesAsInt(now, qLink.getLink()),
 						qLinkInternalInterface.getNumberOfLanesAsInt(now ) ,
-						holes,
+						holes.asQueue(),
 						qLinkInternalInterface
 						);
 
@@ -1076,9 +1069,11 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
         private Double effectiveNumberOfLanes = null;
         private Double flowCapacity_s = null;
         private FlowEfficiencyCalculator flowEfficiencyCalculator;
+        private boolean useRingBuffers;
 
         Builder(final NetsimEngineContext context) {
             this.context = context;
+            this.useRingBuffers = context.qsimConfig.isUsingRingBuffersInLinks();
             if (context.qsimConfig.getLinkDynamics() == QSimConfigGroup.LinkDynamics.PassingQ ||
                     context.qsimConfig.getLinkDynamics() == QSimConfigGroup.LinkDynamics.SeepageQ) {
                 this.vehicleQueue = new PassingVehicleQ();
@@ -1109,6 +1104,15 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
             this.flowEfficiencyCalculator = flowEfficiencyCalculator;
         }
 
+        /**
+         * If set to true, the buffer and the holes of the lane are stored in growable ring buffers of primitive
+         * arrays, so moving vehicles through the lane does not allocate any objects. Default is taken from
+         * {@link QSimConfigGroup#isUsingRingBuffersInLinks()}.
+         */
+        void setUseRingBuffers(boolean useRingBuffers) {
+            this.useRingBuffers = useRingBuffers;
+        }
+
         @Override
         public QueueWithBuffer createLane(AbstractQLink qLink) {
             // a number of things I cannot configure before I have the qlink:
@@ -1127,7 +1131,9 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
             if (flowEfficiencyCalculator == null) {
                 flowEfficiencyCalculator = new DefaultFlowEfficiencyCalculator();
             }
-            return new QueueWithBuffer(qLink.getInternalInterface(), vehicleQueue, id, length, effectiveNumberOfLanes, flowCapacity_s, context, flowEfficiencyCalculator ) ;
+            VehicleBuffer buffer = useRingBuffers ? new VehicleBuffer.RingBuffer() : new VehicleBuffer.LinkedListBuffer();
+            HoleQueue holes = useRingBuffers ? new HoleQueue.RingBufferHoles() : new HoleQueue.LinkedListHoles();
+            return new QueueWithBuffer(qLink.getInternalInterface(), vehicleQueue, id, length, effectiveNumberOfLanes, flowCapacity_s, context, flowEfficiencyCalculator, buffer, holes ) ;
 		}
 	}
 
@@ -0,0 +1,223 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * The buffer of a {@link QueueWithBuffer}, i.e. the vehicles that are ready to cross the outgoing intersection,
+ * together with the flow capacity consumption of each vehicle. Iterating over the buffer returns the vehicles in
+ * the order they entered the buffer.
+ */
+interface VehicleBuffer extends Iterable<QVehicle> {
+
+	void add(QVehicle vehicle, double flowConsumption);
+
+	QVehicle peek();
+
+	QVehicle poll();
+
+	int size();
+
+	boolean isEmpty();
+
+	void clear();
+
+	/**
+	 * @return the given flow capacity minus the flow capacity consumption of all vehicles in the buffer, subtracted
+	 * one after the other in the order of the buffer.
+	 */
+	double subtractFlowConsumption(double flowCapacity);
+
+	/**
+	 * The original implementation, storing each vehicle with its flow capacity consumption as {@link Pair} in a {@link LinkedList}.
+	 */
+	final class LinkedListBuffer implements VehicleBuffer {
+
+		private final LinkedList<Pair<QVehicle, Double>> buffer = new LinkedList<>();
+
+		@Override
+		public void add(QVehicle vehicle, double flowConsumption) {
+			this.buffer.add(new ImmutablePair<>(vehicle, flowConsumption));
+		}
+
+		@Override
+		public QVehicle peek() {
+			Pair<QVehicle, Double> first = this.buffer.peek();
+			return first == null ? null : first.getKey();
+		}
+
+		@Override
+		public QVehicle poll() {
+			Pair<QVehicle, Double> first = this.buffer.poll();
+			return first == null ? null : first.getKey();
+		}
+
+		@Override
+		public int size() {
+			return this.buffer.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return this.buffer.isEmpty();
+		}
+
+		@Override
+		public void clear() {
+			this.buffer.clear();
+		}
+
+		@Override
+		public double subtractFlowConsumption(double flowCapacity) {
+			double remaining = flowCapacity;
+			for (Pair<QVehicle, Double> vehEfficiencyPair : this.buffer) {
+				remaining -= vehEfficiencyPair.getValue();
+			}
+			return remaining;
+		}
+
+		@Override
+		public Iterator<QVehicle> iterator() {
+			Iterator<Pair<QVehicle, Double>> iterator = this.buffer.iterator();
+			return new Iterator<>() {
+				@Override
+				public boolean hasNext() {
+					return iterator.hasNext();
+				}
+
+				@Override
+				public QVehicle next() {
+					return iterator.next().getKey();
+				}
+			};
+		}
+	}
+
+	/**
+	 * Stores the vehicles and their flow capacity consumption in two parallel arrays used as ring buffer, which only
+	 * grow if the buffer gets full. Adding and removing vehicles does not allocate any objects.
+	 */
+	final class RingBuffer implements VehicleBuffer {
+
+		private QVehicle[] vehicles = new QVehicle[4];
+		private double[] flowConsumptions = new double[4];
+		private int head = 0;
+		private int size = 0;
+
+		@Override
+		public void add(QVehicle vehicle, double flowConsumption) {
+			if (this.size == this.vehicles.length) {
+				grow();
+			}
+			int index = (this.head + this.size) & (this.vehicles.length - 1);
+			this.vehicles[index] = vehicle;
+			this.flowConsumptions[index] = flowConsumption;
+			this.size++;
+		}
+
+		private void grow() {
+			// unroll the ring, so the first vehicle is at index 0 again
+			int capacity = this.vehicles.length;
+			QVehicle[] newVehicles = new QVehicle[capacity * 2];
+			double[] newFlowConsumptions = new double[capacity * 2];
+			int firstPart = capacity - this.head;
+			System.arraycopy(this.vehicles, this.head, newVehicles, 0, firstPart);
+			System.arraycopy(this.vehicles, 0, newVehicles, firstPart, this.head);
+			System.arraycopy(this.flowConsumptions, this.head, newFlowConsumptions, 0, firstPart);
+			System.arraycopy(this.flowConsumptions, 0, newFlowConsumptions, firstPart, this.head);
+			this.vehicles = newVehicles;
+			this.flowConsumptions = newFlowConsumptions;
+			this.head = 0;
+		}
+
+		@Override
+		public QVehicle peek() {
+			return this.vehicles[this.head];
+		}
+
+		@Override
+		public QVehicle poll() {
+			if (this.size == 0) {
+				return null;
+			}
+			QVehicle vehicle = this.vehicles[this.head];
+			this.vehicles[this.head] = null; // do not keep a reference to the vehicle
+			this.head = (this.head + 1) & (this.vehicles.length - 1);
+			this.size--;
+			return vehicle;
+		}
+
+		@Override
+		public int size() {
+			return this.size;
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return this.size == 0;
+		}
+
+		@Override
+		public void clear() {
+			Arrays.fill(this.vehicles, null);
+			this.head = 0;
+			this.size = 0;
+		}
+
+		@Override
+		public double subtractFlowConsumption(double flowCapacity) {
+			double remaining = flowCapacity;
+			int mask = this.vehicles.length - 1;
+			for (int i = 0; i < this.size; i++) {
+				remaining -= this.flowConsumptions[(this.head + i) & mask];
+			}
+			return remaining;
+		}
+
+		@Override
+		public Iterator<QVehicle> iterator() {
+			return new Iterator<>() {
+				private int i = 0;
+
+				@Override
+				public boolean hasNext() {
+					return this.i < RingBuffer.this.size;
+				}
+
+				@Override
+				public QVehicle next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					QVehicle[] vehicles = RingBuffer.this.vehicles;
+					return vehicles[(RingBuffer.this.head + this.i++) & (vehicles.length - 1)];
+				}
+			};
+		}
+	}
+
+}
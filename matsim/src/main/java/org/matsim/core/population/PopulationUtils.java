@@ -134,7 +134,8 @@ public final class PopulationUtils {
 		RouteFactory factory;
 		if (PlansConfigGroup.NetworkRouteType.LinkNetworkRoute.equals(networkRouteType)) {
 			factory = new LinkNetworkRouteFactory();
-		} else if (PlansConfigGroup.NetworkRouteType.MediumCompressedNetworkRoute.equals(networkRouteType) && network != null) {
+		} else if (PlansConfigGroup.NetworkRouteType.MediumCompressedNetworkRoute.equals(networkRouteType)) {
+			// only stores link indices, so it does not need the network
 			factory = new MediumCompressedNetworkRouteFactory();
 		} else if (PlansConfigGroup.NetworkRouteType.HeavyCompressedNetworkRoute.equals(networkRouteType) && network != null) {
 			factory = new HeavyCompressedNetworkRouteFactory(network, TransportMode.car);
@@ -933,8 +934,8 @@ public final class PopulationUtils {
 	}
 
 	public static void copyFromTo(Activity act, Activity newAct) {
-		Coord coord = act.getCoord() == null ? null : new Coord(act.getCoord().getX(), act.getCoord().getY());
-		// (we don't want to copy the coord ref, but rather the contents!)
+		// coords are immutable and can be shared, but the copy has always been without z
+		Coord coord = act.getCoord() == null || !act.getCoord().hasZ() ? act.getCoord() : new Coord(act.getCoord().getX(), act.getCoord().getY());
 		newAct.setCoord(coord);
 		newAct.setType(act.getType());
 		newAct.setLinkId(act.getLinkId());
@@ -1180,7 +1181,11 @@ public final class PopulationUtils {
 	public static void readPopulation( Population population, String filename ) {
 		MutableScenario scenario = ScenarioUtils.createMutableScenario( ConfigUtils.createConfig() ) ;
 		scenario.setPopulation( population );
-		new PopulationReader( scenario ).readFile( filename );
+		if ( PopulationReader.isBinaryFile( filename ) ) {
+			new PopulationReader( scenario ).readBinaryFile( filename );
+		} else {
+			new PopulationReader( scenario ).readFile( filename );
+		}
 		// (yyyy population reader uses network to retrofit some missing geo information such as route lenth.
 		// In my opinion, that should be done in prepareForSim, not in the parser.  It is commented as such
 		// in the PopulationReader class.  kai, nov'18)
@@ -20,6 +20,9 @@
 
 package org.matsim.core.population.io;
 
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Stack;
@@ -94,6 +97,38 @@ public final class PopulationReader extends MatsimXmlParser {
 		attributeConverters.putAll( converters );
 	}
 
+	/**
+	 * Reads a population file in the binary format written by {@link PopulationWriter#writeBinary(String)}. Files in
+	 * this format are memory-mapped, so they cannot be compressed and must be local files.
+	 */
+	public void readBinaryFile(final String filename) {
+		new PopulationReaderBinary(inputCRS, targetCRS, scenario.getPopulation(),
+				FeatureFlags.useParallelIO() ? scenario.getConfig().global().getNumberOfThreads() : 1,
+				attributeConverters).read(Path.of(filename));
+	}
+
+	/**
+	 * @see #readBinaryFile(String)
+	 */
+	public void readBinaryURL(final URL url) {
+		if (!"file".equals(url.getProtocol())) {
+			throw new IllegalArgumentException("Binary population files can only be read from local files, not from " + url);
+		}
+		try {
+			readBinaryFile(Path.of(url.toURI()).toString());
+		} catch (URISyntaxException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	/**
+	 * @return whether the file should be read with {@link #readBinaryFile(String)} instead of as xml, judging by its
+	 * name.
+	 */
+	public static boolean isBinaryFile(final String filename) {
+		return PopulationReaderBinary.isBinaryFile(filename);
+	}
+
 	@Override
 	public void startTag(final String name, final Attributes atts, final Stack<String> context) {
 		this.delegate.startTag(name, atts, context);
@@ -0,0 +1,466 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.population.PersonUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteFactories;
+import org.matsim.core.router.StageActivityTypeIdentifier;
+import org.matsim.core.scenario.ProjectionUtils;
+import org.matsim.core.utils.geometry.CoordinateTransformation;
+import org.matsim.core.utils.geometry.transformations.IdentityTransformation;
+import org.matsim.core.utils.geometry.transformations.TransformationFactory;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.utils.objectattributes.AttributeConverter;
+import org.matsim.utils.objectattributes.ObjectAttributesConverter;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Reads a population in the binary format written by {@link PopulationWriterBinary}.
+ * <p>
+ * The file is memory-mapped, and the tables of strings and ids at its end are read first, so every string and id
+ * is only created once. The blocks of persons are then decoded independently, in parallel if
+ * {@link org.matsim.utils.FeatureFlags#useParallelIO()} is set, and added to the population in the order in which
+ * they were written.
+ */
+final class PopulationReaderBinary {
+
+	private static final Logger log = LogManager.getLogger(PopulationReaderBinary.class);
+
+	static final String FILE_SUFFIX = ".bin";
+
+	static final int MAGIC = 0x4D504F50; // "MPOP"
+	static final int VERSION = 1;
+	static final int BLOCK_SIZE = 1024;
+	private static final int THREADS_LIMIT = 4;
+
+	static final int PERSONS = 0;
+	static final int PLANS = 1;
+	static final int ELEMENTS = 2;
+	static final int ACTIVITIES = 3;
+	static final int LEGS = 4;
+	static final int ROUTES = 5;
+	static final int ROUTE_LINKS = 6;
+	static final int ATTRIBUTES = 7;
+	static final int COLUMNS = 8;
+
+	static final int PLAN_SELECTED = 1;
+	static final int PLAN_HAS_SCORE = 2;
+
+	static final int ELEMENT_ACTIVITY = 0;
+	static final int ELEMENT_LEG = 1;
+
+	static final int ACT_HAS_LINK = 1;
+	static final int ACT_HAS_FACILITY = 2;
+	static final int ACT_HAS_COORD = 4;
+	static final int ACT_HAS_Z = 8;
+	static final int ACT_HAS_START_TIME = 16;
+	static final int ACT_HAS_MAX_DUR = 32;
+	static final int ACT_HAS_END_TIME = 64;
+
+	static final int LEG_HAS_DEPARTURE_TIME = 1;
+	static final int LEG_HAS_TRAVEL_TIME = 2;
+	static final int LEG_HAS_ROUTE = 4;
+
+	static final int ROUTE_HAS_START_LINK = 1;
+	static final int ROUTE_HAS_END_LINK = 2;
+	static final int ROUTE_HAS_TRAVEL_TIME = 4;
+	static final int ROUTE_HAS_VEHICLE = 8;
+	static final int ROUTE_IS_NETWORK_ROUTE = 16;
+	static final int ROUTE_HAS_DESCRIPTION = 32;
+
+	static final int ATTRIBUTE_STRING = 0;
+	static final int ATTRIBUTE_DOUBLE = 1;
+	static final int ATTRIBUTE_INTEGER = 2;
+	static final int ATTRIBUTE_LONG = 3;
+	static final int ATTRIBUTE_TRUE = 4;
+	static final int ATTRIBUTE_FALSE = 5;
+	static final int ATTRIBUTE_CONVERTED = 6;
+
+	private final String externalInputCRS;
+	private final String targetCRS;
+	private final Population population;
+	private final int numberOfThreads;
+	private final Map<Class<?>, AttributeConverter<?>> converters;
+
+	private String[] strings;
+	private Id<Person>[] personIds;
+	private Id<Link>[] linkIds;
+	private Id<ActivityFacility>[] facilityIds;
+	private Id<Vehicle>[] vehicleIds;
+	private CoordinateTransformation coordinateTransformation = new IdentityTransformation();
+
+	PopulationReaderBinary(String inputCRS, String targetCRS, Population population, int numberOfThreads,
+			Map<Class<?>, AttributeConverter<?>> converters) {
+		this.externalInputCRS = inputCRS;
+		this.targetCRS = targetCRS;
+		this.population = population;
+		this.numberOfThreads = Math.max(1, Math.min(THREADS_LIMIT, numberOfThreads));
+		this.converters = converters;
+	}
+
+	static boolean isBinaryFile(String filename) {
+		return filename.endsWith(FILE_SUFFIX);
+	}
+
+	void read(Path file) {
+		log.info("starting to read binary population from file " + file + " ...");
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, 8);
+			if (size < 16 || header.getInt() != MAGIC) {
+				throw new IllegalArgumentException(file + " is not a binary population file.");
+			}
+			int version = header.getInt();
+			if (version > VERSION) {
+				throw new IllegalArgumentException("Unsupported version " + version + " of binary population file " + file);
+			}
+			long trailerPosition = channel.map(FileChannel.MapMode.READ_ONLY, size - 8, 8).getLong();
+			ByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, trailerPosition, size - 8 - trailerPosition);
+			long[][] blocks = readTrailer(trailer);
+			initCoordinateTransformation();
+
+			if (this.numberOfThreads == 1 || blocks.length == 1) {
+				for (long[] block : blocks) {
+					addPersons(decodeBlock(channel, block));
+				}
+			} else {
+				ExecutorService executor = Executors.newFixedThreadPool(this.numberOfThreads);
+				try {
+					List<Future<List<Person>>> futures = new ArrayList<>(blocks.length);
+					for (long[] block : blocks) {
+						futures.add(executor.submit(() -> decodeBlock(channel, block)));
+					}
+					for (Future<List<Person>> future : futures) {
+						addPersons(future.get());
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException(e);
+				} catch (ExecutionException e) {
+					throw e.getCause() instanceof RuntimeException re ? re : new RuntimeException(e.getCause());
+				} finally {
+					executor.shutdownNow();
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (this.targetCRS != null) {
+			ProjectionUtils.putCRS(this.population, this.targetCRS);
+		}
+		log.info("read " + this.population.getPersons().size() + " persons from binary population file " + file);
+	}
+
+	@SuppressWarnings("unchecked")
+	private long[][] readTrailer(ByteBuffer trailer) {
+		int nameRef = readVarInt(trailer);
+		long[][] blocks = new long[readVarInt(trailer)][];
+		for (int i = 0; i < blocks.length; i++) {
+			blocks[i] = new long[] {trailer.getLong(), readVarInt(trailer), readVarInt(trailer)};
+		}
+		int attributesLength = readVarInt(trailer);
+		ByteBuffer populationAttributes = trailer.slice(trailer.position(), attributesLength);
+		trailer.position(trailer.position() + attributesLength);
+
+		this.strings = readStrings(trailer);
+		// all ids are known in advance, so they can be created at once
+		this.personIds = Id.createAll(Arrays.asList(readStrings(trailer)), Person.class).toArray(new Id[0]);
+		this.linkIds = Id.createAll(Arrays.asList(readStrings(trailer)), Link.class).toArray(new Id[0]);
+		this.facilityIds = Id.createAll(Arrays.asList(readStrings(trailer)), ActivityFacility.class).toArray(new Id[0]);
+		this.vehicleIds = Id.createAll(Arrays.asList(readStrings(trailer)), Vehicle.class).toArray(new Id[0]);
+
+		if (nameRef > 0) {
+			this.population.setName(this.strings[nameRef - 1]);
+		}
+		readAttributes(populationAttributes, this.population.getAttributes(), new ObjectAttributesConverter(this.converters));
+		return blocks;
+	}
+
+	private void initCoordinateTransformation() {
+		// same precedence as in PopulationReaderMatsimV6: an explicitly given input CRS wins over the one in the file
+		String inputCRS = this.externalInputCRS != null ? this.externalInputCRS : ProjectionUtils.getCRS(this.population);
+		if (inputCRS != null && this.targetCRS != null) {
+			this.coordinateTransformation = TransformationFactory.getCoordinateTransformation(inputCRS, this.targetCRS);
+		}
+	}
+
+	private void addPersons(List<Person> persons) {
+		for (Person person : persons) {
+			this.population.addPerson(person);
+		}
+	}
+
+	private List<Person> decodeBlock(FileChannel channel, long[] block) throws IOException {
+		ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, block[0], block[1]);
+		int[] lengths = new int[COLUMNS];
+		for (int i = 0; i < COLUMNS; i++) {
+			lengths[i] = readVarInt(data);
+		}
+		ByteBuffer[] columns = new ByteBuffer[COLUMNS];
+		int position = data.position();
+		for (int i = 0; i < COLUMNS; i++) {
+			columns[i] = data.slice(position, lengths[i]);
+			position += lengths[i];
+		}
+		return new BlockDecoder(columns).decode((int) block[2]);
+	}
+
+	/**
+	 * Decodes the persons of a single block. Every block gets its own {@link ObjectAttributesConverter}, as the
+	 * converter caches converters by class name and thus cannot be shared between threads.
+	 */
+	private final class BlockDecoder {
+
+		private final ByteBuffer persons;
+		private final ByteBuffer plans;
+		private final ByteBuffer elements;
+		private final ByteBuffer activities;
+		private final ByteBuffer legs;
+		private final ByteBuffer routes;
+		private final ByteBuffer routeLinks;
+		private final ByteBuffer attributes;
+
+		private final PopulationFactory factory = PopulationReaderBinary.this.population.getFactory();
+		private final RouteFactories routeFactories = this.factory.getRouteFactories();
+		private final ObjectAttributesConverter attributesConverter = new ObjectAttributesConverter(PopulationReaderBinary.this.converters);
+
+		BlockDecoder(ByteBuffer[] columns) {
+			this.persons = columns[PERSONS];
+			this.plans = columns[PLANS];
+			this.elements = columns[ELEMENTS];
+			this.activities = columns[ACTIVITIES];
+			this.legs = columns[LEGS];
+			this.routes = columns[ROUTES];
+			this.routeLinks = columns[ROUTE_LINKS];
+			this.attributes = columns[ATTRIBUTES];
+		}
+
+		List<Person> decode(int personCount) {
+			List<Person> result = new ArrayList<>(personCount);
+			for (int p = 0; p < personCount; p++) {
+				Person person = this.factory.createPerson(PopulationReaderBinary.this.personIds[readVarInt(this.persons)]);
+				int planCount = readVarInt(this.persons);
+				readAttributes(this.attributes, person.getAttributes(), this.attributesConverter);
+				for (int i = 0; i < planCount; i++) {
+					decodePlan(person);
+				}
+				result.add(person);
+			}
+			return result;
+		}
+
+		private void decodePlan(Person person) {
+			int flags = readVarInt(this.plans);
+			Plan plan = PersonUtils.createAndAddPlan(person, (flags & PLAN_SELECTED) != 0);
+			if ((flags & PLAN_HAS_SCORE) != 0) {
+				plan.setScore(this.plans.getDouble());
+			}
+			String type = string(readVarInt(this.plans) - 1);
+			if (type != null) {
+				plan.setType(type);
+			}
+			int elementCount = readVarInt(this.plans);
+			readAttributes(this.attributes, plan.getAttributes(), this.attributesConverter);
+			for (int i = 0; i < elementCount; i++) {
+				if (this.elements.get() == ELEMENT_ACTIVITY) {
+					plan.addActivity(decodeActivity());
+				} else {
+					plan.addLeg(decodeLeg());
+				}
+			}
+		}
+
+		private Activity decodeActivity() {
+			String type = string(readVarInt(this.activities));
+			int flags = readVarInt(this.activities);
+			Id<Link> linkId = (flags & ACT_HAS_LINK) != 0 ? PopulationReaderBinary.this.linkIds[readVarInt(this.activities)] : null;
+			Id<ActivityFacility> facilityId = (flags & ACT_HAS_FACILITY) != 0 ? PopulationReaderBinary.this.facilityIds[readVarInt(this.activities)] : null;
+			Coord coord = null;
+			if ((flags & ACT_HAS_COORD) != 0) {
+				double x = this.activities.getDouble();
+				double y = this.activities.getDouble();
+				coord = (flags & ACT_HAS_Z) != 0 ? new Coord(x, y, this.activities.getDouble()) : new Coord(x, y);
+				coord = PopulationReaderBinary.this.coordinateTransformation.transform(coord);
+			}
+			double startTime = (flags & ACT_HAS_START_TIME) != 0 ? this.activities.getDouble() : Double.NaN;
+			double maxDur = (flags & ACT_HAS_MAX_DUR) != 0 ? this.activities.getDouble() : Double.NaN;
+			double endTime = (flags & ACT_HAS_END_TIME) != 0 ? this.activities.getDouble() : Double.NaN;
+
+			// same conditions as for InteractionActivity in PopulationReaderMatsimV6, which in addition cannot have attributes
+			boolean isInteraction = StageActivityTypeIdentifier.isStageActivity(type)
+					&& (flags & (ACT_HAS_START_TIME | ACT_HAS_END_TIME)) == 0 && maxDur == 0.0
+					&& this.attributes.get(this.attributes.position()) == 0;
+
+			Activity act;
+			if (isInteraction) {
+				if (facilityId != null) {
+					act = PopulationUtils.createInteractionActivityFromFacilityId(type, facilityId);
+				} else if (linkId != null) {
+					act = PopulationUtils.createInteractionActivityFromLinkId(type, linkId);
+				} else {
+					act = PopulationUtils.createInteractionActivityFromCoord(type, coord);
+				}
+			} else {
+				if (facilityId != null) {
+					act = PopulationUtils.createActivityFromFacilityId(type, facilityId);
+				} else if (linkId != null) {
+					act = PopulationUtils.createActivityFromLinkId(type, linkId);
+				} else {
+					act = PopulationUtils.createActivityFromCoord(type, coord);
+				}
+				if ((flags & ACT_HAS_START_TIME) != 0) act.setStartTime(startTime);
+				if ((flags & ACT_HAS_MAX_DUR) != 0) act.setMaximumDuration(maxDur);
+				if ((flags & ACT_HAS_END_TIME) != 0) act.setEndTime(endTime);
+			}
+			if (linkId != null && act.getLinkId() == null) act.setLinkId(linkId);
+			if (coord != null && act.getCoord() == null) act.setCoord(coord);
+			readAttributes(this.attributes, act.getAttributes(), this.attributesConverter);
+			return act;
+		}
+
+		private Leg decodeLeg() {
+			Leg leg = this.factory.createLeg(string(readVarInt(this.legs)));
+			String routingMode = string(readVarInt(this.legs) - 1);
+			if (routingMode != null) {
+				leg.setRoutingMode(routingMode);
+			}
+			int flags = readVarInt(this.legs);
+			if ((flags & LEG_HAS_DEPARTURE_TIME) != 0) leg.setDepartureTime(this.legs.getDouble());
+			if ((flags & LEG_HAS_TRAVEL_TIME) != 0) leg.setTravelTime(this.legs.getDouble());
+			readAttributes(this.attributes, leg.getAttributes(), this.attributesConverter);
+			if ((flags & LEG_HAS_ROUTE) != 0) {
+				leg.setRoute(decodeRoute());
+			}
+			return leg;
+		}
+
+		private Route decodeRoute() {
+			String type = string(readVarInt(this.routes));
+			int flags = readVarInt(this.routes);
+			Id<Link> startLinkId = (flags & ROUTE_HAS_START_LINK) != 0 ? PopulationReaderBinary.this.linkIds[readVarInt(this.routes)] : null;
+			Id<Link> endLinkId = (flags & ROUTE_HAS_END_LINK) != 0 ? PopulationReaderBinary.this.linkIds[readVarInt(this.routes)] : null;
+			Route route = this.routeFactories.createRoute(this.routeFactories.getRouteClassForType(type), startLinkId, endLinkId);
+			if ((flags & ROUTE_HAS_TRAVEL_TIME) != 0) {
+				route.setTravelTime(this.routes.getDouble());
+			} else {
+				route.setTravelTimeUndefined();
+			}
+			route.setDistance(this.routes.getDouble());
+			if ((flags & ROUTE_IS_NETWORK_ROUTE) != 0) {
+				Id<Vehicle> vehicleId = (flags & ROUTE_HAS_VEHICLE) != 0 ? PopulationReaderBinary.this.vehicleIds[readVarInt(this.routes)] : null;
+				int linkCount = readVarInt(this.routeLinks);
+				List<Id<Link>> links = new ArrayList<>(linkCount);
+				for (int i = 0; i < linkCount; i++) {
+					links.add(PopulationReaderBinary.this.linkIds[readVarInt(this.routeLinks)]);
+				}
+				if (route instanceof NetworkRoute networkRoute) {
+					networkRoute.setLinkIds(startLinkId, links, endLinkId);
+					networkRoute.setVehicleId(vehicleId);
+				}
+			} else if ((flags & ROUTE_HAS_DESCRIPTION) != 0) {
+				route.setRouteDescription(string(readVarInt(this.routes)));
+			}
+			return route;
+		}
+	}
+
+	private void readAttributes(ByteBuffer buffer, Attributes attributes, ObjectAttributesConverter attributesConverter) {
+		int count = readVarInt(buffer);
+		for (int i = 0; i < count; i++) {
+			String key = this.strings[readVarInt(buffer)];
+			int tag = buffer.get();
+			Object value = switch (tag) {
+				case ATTRIBUTE_STRING -> this.strings[readVarInt(buffer)];
+				case ATTRIBUTE_DOUBLE -> buffer.getDouble();
+				case ATTRIBUTE_INTEGER -> buffer.getInt();
+				case ATTRIBUTE_LONG -> buffer.getLong();
+				case ATTRIBUTE_TRUE -> Boolean.TRUE;
+				case ATTRIBUTE_FALSE -> Boolean.FALSE;
+				case ATTRIBUTE_CONVERTED -> {
+					String className = this.strings[readVarInt(buffer)];
+					yield attributesConverter.convert(className, this.strings[readVarInt(buffer)]);
+				}
+				default -> throw new IllegalStateException("Unknown attribute tag " + tag);
+			};
+			if (value != null) {
+				attributes.putAttribute(key, value);
+			}
+		}
+	}
+
+	private String string(int index) {
+		return index < 0 ? null : this.strings[index];
+	}
+
+	private static String[] readStrings(ByteBuffer buffer) {
+		String[] values = new String[readVarInt(buffer)];
+		for (int i = 0; i < values.length; i++) {
+			int length = readVarInt(buffer);
+			byte[] bytes = new byte[length];
+			buffer.get(bytes);
+			values[i] = new String(bytes, StandardCharsets.UTF_8);
+		}
+		return values;
+	}
+
+	private static int readVarInt(ByteBuffer buffer) {
+		int value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while (b < 0);
+		return value;
+	}
+
+}
@@ -135,10 +135,15 @@ public final class PopulationWriter extends AbstractMatsimWriter implements Mats
 	}
 
 	/**
-	 * Writes all plans to the file.
+	 * Writes all plans to the file. Files ending with ".bin" are written in the binary format, see
+	 * {@link #writeBinary(String)}.
 	 */
 	@Override
 	public void write(final String filename) {
+		if (PopulationReaderBinary.isBinaryFile(filename)) {
+			writeBinary(filename);
+			return;
+		}
 		try {
 			this.handler.putAttributeConverters(converters);
 			this.openFile(filename);
@@ -180,6 +185,25 @@ public final class PopulationWriter extends AbstractMatsimWriter implements Mats
 	}
 
 
+	/**
+	 * Writes all plans in the binary format read by {@link PopulationReader#readBinaryFile(String)}. The binary
+	 * format is not compressed, it is meant as a fast cache of a population, not as a replacement for the xml format.
+	 */
+	public void writeBinary(final String filename) {
+		PopulationWriterBinary binaryWriter = new PopulationWriterBinary(filename, this.coordinateTransformation, this.converters);
+		for (Person p : PopulationUtils.getSortedPersons(this.population).values()) {
+			if ((this.write_person_fraction < 1.0) && (MatsimRandom.getRandom().nextDouble() >= this.write_person_fraction)) {
+				continue;
+			}
+			binaryWriter.writePerson(p);
+			counter.incCounter();
+		}
+		binaryWriter.finish(this.population);
+		log.info("Population written to: " + filename);
+		counter.printCounter();
+		counter.reset();
+	}
+
 	private void writePersons() {
 		for (Person p : PopulationUtils.getSortedPersons(this.population).values()) {
 			writePerson(p);
@@ -0,0 +1,404 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.io;
+
+import static org.matsim.core.population.io.PopulationReaderBinary.*;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.population.PersonUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.utils.geometry.CoordinateTransformation;
+import org.matsim.utils.objectattributes.AttributeConverter;
+import org.matsim.utils.objectattributes.ObjectAttributesConverter;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+
+/**
+ * Writes a population in the binary format read by {@link PopulationReaderBinary}.
+ * <p>
+ * Persons are grouped into blocks of {@value PopulationReaderBinary#BLOCK_SIZE} persons. Within a block, the data of
+ * persons, plans, plan element kinds, activities, legs, routes and attributes is stored column by column, each column
+ * in plan order. Strings and the ids of persons, links, facilities and vehicles are stored only once, in tables at
+ * the end of the file, and are referenced by their index, so network routes become arrays of link indices. The end
+ * of the file also contains the position of every block, which allows to decode the blocks in parallel.
+ * <p>
+ * Attribute values of the basic types are stored in binary, all others with the same {@link AttributeConverter}s as
+ * in the xml format.
+ */
+final class PopulationWriterBinary {
+
+	private final OutputStream out;
+	private long position = 0;
+	private final CoordinateTransformation coordinateTransformation;
+	private final ObjectAttributesConverter attributesConverter;
+
+	private final Table strings = new Table();
+	private final Table personIds = new Table();
+	private final Table linkIds = new Table();
+	private final Table facilityIds = new Table();
+	private final Table vehicleIds = new Table();
+	private final List<long[]> blocks = new ArrayList<>();
+
+	private final ByteBuffer[] columns = new ByteBuffer[COLUMNS];
+	private final ByteBuffer attributesScratch = new ByteBuffer();
+	private int blockPersonCount = 0;
+
+	PopulationWriterBinary(String filename, CoordinateTransformation coordinateTransformation,
+			Map<Class<?>, AttributeConverter<?>> converters) {
+		this.coordinateTransformation = coordinateTransformation;
+		this.attributesConverter = new ObjectAttributesConverter(converters);
+		for (int i = 0; i < COLUMNS; i++) {
+			this.columns[i] = new ByteBuffer();
+		}
+		try {
+			this.out = new BufferedOutputStream(new FileOutputStream(filename), 1 << 16);
+			ByteBuffer header = new ByteBuffer();
+			header.writeInt(MAGIC);
+			header.writeInt(VERSION);
+			write(header);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	void writePerson(Person person) {
+		this.columns[PERSONS].writeVarInt(this.personIds.ref(person.getId()));
+		this.columns[PERSONS].writeVarInt(person.getPlans().size());
+		writeAttributes(person.getAttributes());
+		for (Plan plan : person.getPlans()) {
+			writePlan(plan);
+		}
+		this.blockPersonCount++;
+		if (this.blockPersonCount == BLOCK_SIZE) {
+			writeBlock();
+		}
+	}
+
+	/**
+	 * Writes the remaining persons, the population data and the tables, and closes the file.
+	 */
+	void finish(Population population) {
+		if (this.blockPersonCount > 0) {
+			writeBlock();
+		}
+		ByteBuffer trailer = new ByteBuffer();
+		trailer.writeVarInt(this.strings.ref(population.getName()) + 1);
+		ByteBuffer populationAttributes = this.columns[ATTRIBUTES];
+		writeAttributes(population.getAttributes());
+
+		trailer.writeVarInt(this.blocks.size());
+		for (long[] block : this.blocks) {
+			trailer.writeLong(block[0]);
+			trailer.writeVarInt((int) block[1]);
+			trailer.writeVarInt((int) block[2]);
+		}
+		trailer.writeVarInt(populationAttributes.size);
+		trailer.write(populationAttributes.bytes, populationAttributes.size);
+		populationAttributes.size = 0;
+
+		// the tables come last, as the population attributes may still add strings
+		for (Table table : new Table[] {this.strings, this.personIds, this.linkIds, this.facilityIds, this.vehicleIds}) {
+			trailer.writeVarInt(table.values.size());
+			for (String value : table.values) {
+				byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+				trailer.writeVarInt(bytes.length);
+				trailer.write(bytes, bytes.length);
+			}
+		}
+		try {
+			long trailerPosition = this.position;
+			write(trailer);
+			trailer.writeLong(trailerPosition);
+			write(trailer);
+			this.out.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void writePlan(Plan plan) {
+		ByteBuffer plans = this.columns[PLANS];
+		int flags = PersonUtils.isSelected(plan) ? PLAN_SELECTED : 0;
+		if (plan.getScore() != null) flags |= PLAN_HAS_SCORE;
+		plans.writeVarInt(flags);
+		if (plan.getScore() != null) {
+			plans.writeDouble(plan.getScore());
+		}
+		plans.writeVarInt(this.strings.ref(plan.getType()) + 1);
+		plans.writeVarInt(plan.getPlanElements().size());
+		writeAttributes(plan.getAttributes());
+
+		for (PlanElement pe : plan.getPlanElements()) {
+			if (pe instanceof Activity act) {
+				this.columns[ELEMENTS].writeByte(ELEMENT_ACTIVITY);
+				writeActivity(act);
+			} else if (pe instanceof Leg leg) {
+				this.columns[ELEMENTS].writeByte(ELEMENT_LEG);
+				writeLeg(leg);
+			} else {
+				throw new IllegalArgumentException("Unknown plan element " + pe);
+			}
+		}
+	}
+
+	private void writeActivity(Activity act) {
+		ByteBuffer acts = this.columns[ACTIVITIES];
+		Coord coord = act.getCoord() == null ? null : this.coordinateTransformation.transform(act.getCoord());
+		int flags = 0;
+		if (act.getLinkId() != null) flags |= ACT_HAS_LINK;
+		if (act.getFacilityId() != null) flags |= ACT_HAS_FACILITY;
+		if (coord != null) flags |= ACT_HAS_COORD;
+		if (coord != null && act.getCoord().hasZ()) flags |= ACT_HAS_Z;
+		if (act.getStartTime().isDefined()) flags |= ACT_HAS_START_TIME;
+		if (act.getMaximumDuration().isDefined()) flags |= ACT_HAS_MAX_DUR;
+		if (act.getEndTime().isDefined()) flags |= ACT_HAS_END_TIME;
+
+		acts.writeVarInt(this.strings.ref(act.getType()));
+		acts.writeVarInt(flags);
+		if (act.getLinkId() != null) acts.writeVarInt(this.linkIds.ref(act.getLinkId()));
+		if (act.getFacilityId() != null) acts.writeVarInt(this.facilityIds.ref(act.getFacilityId()));
+		if (coord != null) {
+			acts.writeDouble(coord.getX());
+			acts.writeDouble(coord.getY());
+			if (act.getCoord().hasZ()) acts.writeDouble(coord.getZ());
+		}
+		if (act.getStartTime().isDefined()) acts.writeDouble(act.getStartTime().seconds());
+		if (act.getMaximumDuration().isDefined()) acts.writeDouble(act.getMaximumDuration().seconds());
+		if (act.getEndTime().isDefined()) acts.writeDouble(act.getEndTime().seconds());
+		writeAttributes(act.getAttributes());
+	}
+
+	private void writeLeg(Leg leg) {
+		ByteBuffer legs = this.columns[LEGS];
+		int flags = 0;
+		if (leg.getDepartureTime().isDefined()) flags |= LEG_HAS_DEPARTURE_TIME;
+		if (leg.getTravelTime().isDefined()) flags |= LEG_HAS_TRAVEL_TIME;
+		if (leg.getRoute() != null) flags |= LEG_HAS_ROUTE;
+
+		legs.writeVarInt(this.strings.ref(leg.getMode()));
+		legs.writeVarInt(this.strings.ref(leg.getRoutingMode()) + 1);
+		legs.writeVarInt(flags);
+		if (leg.getDepartureTime().isDefined()) legs.writeDouble(leg.getDepartureTime().seconds());
+		if (leg.getTravelTime().isDefined()) legs.writeDouble(leg.getTravelTime().seconds());
+		writeAttributes(leg.getAttributes());
+		if (leg.getRoute() != null) {
+			writeRoute(leg.getRoute());
+		}
+	}
+
+	private void writeRoute(Route route) {
+		ByteBuffer routes = this.columns[ROUTES];
+		int flags = 0;
+		if (route.getStartLinkId() != null) flags |= ROUTE_HAS_START_LINK;
+		if (route.getEndLinkId() != null) flags |= ROUTE_HAS_END_LINK;
+		if (route.getTravelTime().isDefined()) flags |= ROUTE_HAS_TRAVEL_TIME;
+		if (route instanceof NetworkRoute networkRoute) {
+			flags |= ROUTE_IS_NETWORK_ROUTE;
+			if (networkRoute.getVehicleId() != null) flags |= ROUTE_HAS_VEHICLE;
+		} else if (route.getRouteDescription() != null) {
+			flags |= ROUTE_HAS_DESCRIPTION;
+		}
+
+		routes.writeVarInt(this.strings.ref(route.getRouteType()));
+		routes.writeVarInt(flags);
+		if (route.getStartLinkId() != null) routes.writeVarInt(this.linkIds.ref(route.getStartLinkId()));
+		if (route.getEndLinkId() != null) routes.writeVarInt(this.linkIds.ref(route.getEndLinkId()));
+		if (route.getTravelTime().isDefined()) routes.writeDouble(route.getTravelTime().seconds());
+		routes.writeDouble(route.getDistance());
+		if (route instanceof NetworkRoute networkRoute) {
+			if (networkRoute.getVehicleId() != null) routes.writeVarInt(this.vehicleIds.ref(networkRoute.getVehicleId()));
+			List<Id<Link>> links = networkRoute.getLinkIds();
+			ByteBuffer routeLinks = this.columns[ROUTE_LINKS];
+			routeLinks.writeVarInt(links.size());
+			for (Id<?> linkId : links) {
+				routeLinks.writeVarInt(this.linkIds.ref(linkId));
+			}
+		} else if (route.getRouteDescription() != null) {
+			routes.writeVarInt(this.strings.ref(route.getRouteDescription()));
+		}
+	}
+
+	private void writeAttributes(Attributes attributes) {
+		ByteBuffer column = this.attributesScratch;
+		if (attributes.isEmpty()) {
+			this.columns[ATTRIBUTES].writeVarInt(0);
+			return;
+		}
+		// attributes without a converter are skipped, like in the xml format, so they are counted while writing
+		int count = 0;
+		for (Map.Entry<String, Object> entry : attributes.getAsMap().entrySet()) {
+			Object value = entry.getValue();
+			if (value == null) {
+				continue;
+			}
+			int key = this.strings.ref(entry.getKey());
+			if (value instanceof String s) {
+				column.writeVarInt(key);
+				column.writeByte(ATTRIBUTE_STRING);
+				column.writeVarInt(this.strings.ref(s));
+			} else if (value instanceof Double d) {
+				column.writeVarInt(key);
+				column.writeByte(ATTRIBUTE_DOUBLE);
+				column.writeDouble(d);
+			} else if (value instanceof Integer i) {
+				column.writeVarInt(key);
+				column.writeByte(ATTRIBUTE_INTEGER);
+				column.writeInt(i);
+			} else if (value instanceof Long l) {
+				column.writeVarInt(key);
+				column.writeByte(ATTRIBUTE_LONG);
+				column.writeLong(l);
+			} else if (value instanceof Boolean b) {
+				column.writeVarInt(key);
+				column.writeByte(b ? ATTRIBUTE_TRUE : ATTRIBUTE_FALSE);
+			} else {
+				String converted = this.attributesConverter.convertToString(value);
+				if (converted == null) {
+					continue;
+				}
+				column.writeVarInt(key);
+				column.writeByte(ATTRIBUTE_CONVERTED);
+				column.writeVarInt(this.strings.ref(value.getClass().getName()));
+				column.writeVarInt(this.strings.ref(converted));
+			}
+			count++;
+		}
+		this.columns[ATTRIBUTES].writeVarInt(count);
+		this.columns[ATTRIBUTES].write(column.bytes, column.size);
+		column.size = 0;
+	}
+
+	private void writeBlock() {
+		ByteBuffer block = new ByteBuffer();
+		for (ByteBuffer column : this.columns) {
+			block.writeVarInt(column.size);
+		}
+		for (ByteBuffer column : this.columns) {
+			block.write(column.bytes, column.size);
+			column.size = 0;
+		}
+		this.blocks.add(new long[] {this.position, block.size, this.blockPersonCount});
+		this.blockPersonCount = 0;
+		try {
+			write(block);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void write(ByteBuffer buffer) throws IOException {
+		this.out.write(buffer.bytes, 0, buffer.size);
+		this.position += buffer.size;
+		buffer.size = 0;
+	}
+
+	/**
+	 * Assigns consecutive indices to strings or ids, in the order in which they are first written.
+	 */
+	private static final class Table {
+		private final Map<Object, Integer> index = new HashMap<>();
+		private final List<String> values = new ArrayList<>();
+
+		/**
+		 * @return the index of the value, or -1 for <code>null</code>.
+		 */
+		int ref(Object value) {
+			if (value == null) {
+				return -1;
+			}
+			Integer i = this.index.get(value);
+			if (i == null) {
+				i = this.values.size();
+				this.index.put(value, i);
+				this.values.add(value.toString());
+			}
+			return i;
+		}
+	}
+
+	private static final class ByteBuffer {
+		private byte[] bytes = new byte[1 << 12];
+		private int size = 0;
+
+		private void ensureCapacity(int additional) {
+			if (this.size + additional > this.bytes.length) {
+				this.bytes = Arrays.copyOf(this.bytes, Math.max(this.bytes.length * 2, this.size + additional));
+			}
+		}
+
+		void write(byte[] data, int length) {
+			ensureCapacity(length);
+			System.arraycopy(data, 0, this.bytes, this.size, length);
+			this.size += length;
+		}
+
+		void writeByte(int value) {
+			ensureCapacity(1);
+			this.bytes[this.size++] = (byte) value;
+		}
+
+		void writeVarInt(int value) {
+			ensureCapacity(5);
+			while ((value & ~0x7F) != 0) {
+				this.bytes[this.size++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			this.bytes[this.size++] = (byte) value;
+		}
+
+		void writeInt(int value) {
+			ensureCapacity(4);
+			this.bytes[this.size++] = (byte) (value >>> 24);
+			this.bytes[this.size++] = (byte) (value >>> 16);
+			this.bytes[this.size++] = (byte) (value >>> 8);
+			this.bytes[this.size++] = (byte) value;
+		}
+
+		void writeLong(long value) {
+			writeInt((int) (value >>> 32));
+			writeInt((int) value);
+		}
+
+		void writeDouble(double value) {
+			writeLong(Double.doubleToRawLongBits(value));
+		}
+	}
+
+}
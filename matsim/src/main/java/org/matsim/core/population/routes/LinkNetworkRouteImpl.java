@@ -40,6 +40,11 @@ final class LinkNetworkRouteImpl extends AbstractRoute implements NetworkRoute {
 	
 	private ArrayList<Id<Link>> route = new ArrayList<>();
 	private List<Id<Link>> safeRoute = Collections.unmodifiableList(this.route);
+	/*
+	 * Whether the list of links may be shared with clones of this route. Plans are copied in every replanning
+	 * iteration, but most copies keep their routes, so the links are only copied once one of the routes changes.
+	 */
+	private boolean sharedRoute = false;
 	private double travelCost = Double.NaN;
 	private Id<Vehicle> vehicleId = null;
 
@@ -60,11 +65,9 @@ final class LinkNetworkRouteImpl extends AbstractRoute implements NetworkRoute {
 
 	@Override
 	public LinkNetworkRouteImpl clone() {
-		LinkNetworkRouteImpl cloned = (LinkNetworkRouteImpl) super.clone();
-		ArrayList<Id<Link>> tmp = cloned.route;
-		cloned.route = new ArrayList<>(tmp); // deep copy of route
-		cloned.safeRoute = Collections.unmodifiableList(cloned.route);
-		return cloned;
+		// copy-on-write: the links are only copied when one of the routes is changed, see setLinkIds()
+		this.sharedRoute = true;
+		return (LinkNetworkRouteImpl) super.clone();
 	}
 
 	@Override
@@ -140,7 +143,13 @@ final class LinkNetworkRouteImpl extends AbstractRoute implements NetworkRoute {
 
 	@Override
 	public void setLinkIds(final Id<Link> startLinkId, final List<Id<Link>> srcRoute, final Id<Link> endLinkId) {
-		this.route.clear();
+		if (this.sharedRoute) {
+			this.route = new ArrayList<>(srcRoute == null ? 0 : srcRoute.size());
+			this.safeRoute = Collections.unmodifiableList(this.route);
+			this.sharedRoute = false;
+		} else {
+			this.route.clear();
+		}
 		setStartLinkId(startLinkId);
 		setEndLinkId(endLinkId);
 		if (srcRoute != null) {
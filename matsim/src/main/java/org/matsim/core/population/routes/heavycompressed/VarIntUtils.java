@@ -46,6 +46,44 @@ public class VarIntUtils {
 		return trimmed;
 	}
 
+	/**
+	 * Encodes the differences between subsequent values instead of the values themselves, using zig-zag encoding
+	 * for the differences, so sequences of similar values take less space. The first value is encoded as the
+	 * difference to 0.
+	 */
+	public static byte[] encodeDeltas(int[] values, int lower, int upper) {
+		if (values.length == 0) {
+			return EMPTY_BYTE;
+		}
+		ByteBuffer bb = ByteBuffer.allocate(5 * (upper - lower) + 5);
+		encode(bb, upper - lower);
+		int previous = 0;
+		for (int i = lower; i < upper; i++) {
+			int delta = values[i] - previous;
+			encode(bb, Integer.toUnsignedLong((delta << 1) ^ (delta >> 31)));
+			previous = values[i];
+		}
+		byte[] trimmed = new byte[bb.position()];
+		System.arraycopy(bb.array(), 0, trimmed, 0, bb.position());
+		return trimmed;
+	}
+
+	public static int[] decodeDeltas(byte[] bytes) {
+		if (bytes.length == 0) {
+			return EMPTY_INT;
+		}
+		ByteBuffer bb = ByteBuffer.wrap(bytes);
+		int length = (int) decode(bb);
+		int[] values = new int[length];
+		int previous = 0;
+		for (int i = 0; i < length; i++) {
+			int zigzag = (int) decode(bb);
+			previous += (zigzag >>> 1) ^ -(zigzag & 1);
+			values[i] = previous;
+		}
+		return values;
+	}
+
 	public static int[] decode(byte[] bytes) {
 		if (bytes.length == 0) {
 			return EMPTY_INT;
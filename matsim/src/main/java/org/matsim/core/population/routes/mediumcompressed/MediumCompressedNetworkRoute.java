@@ -6,9 +6,14 @@ import org.matsim.core.population.routes.AbstractNetworkRoute;
 import org.matsim.core.population.routes.NetworkRoute;
 import org.matsim.core.population.routes.heavycompressed.VarIntUtils;
 
-import java.util.ArrayList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.RandomAccess;
 
 /**
  * <p>Implementation of {@link NetworkRoute} that stores the links of the route
@@ -19,6 +24,12 @@ import java.util.List;
  * or 4 bytes (for very large scenarios). So especially for large scenarios, where
  * object pointers use 8 bytes, this saves at least half the memory.</p>
  *
+ * <p>The differences between subsequent link indices are encoded instead of the
+ * indices themselves, as links along a route were often created one after the other,
+ * which results in small differences that need only one or two bytes. Identical link
+ * sequences are shared between routes, e.g. between the copies of a plan made during
+ * replanning, or between agents driving the same way.</p>
+ *
  * <p>There is a small performance overhead, but it is rather small compared
  * to {@link org.matsim.core.population.routes.heavycompressed.HeavyCompressedNetworkRoute}.
  * </p>
@@ -27,8 +38,7 @@ import java.util.List;
  */
 public class MediumCompressedNetworkRoute extends AbstractNetworkRoute {
 
-	private final static byte[] EMPTY_ROUTE = new byte[0];
-	private byte[] route = EMPTY_ROUTE;
+	private LinkSequence route = LinkSequence.EMPTY;
 
 	public MediumCompressedNetworkRoute(Id<Link> startLinkId, Id<Link> endLinkId) {
 		this.setStartLinkId(startLinkId);
@@ -48,25 +58,122 @@ public class MediumCompressedNetworkRoute extends AbstractNetworkRoute {
 				i++;
 			}
 		}
-		this.route = VarIntUtils.encode(route, 0, route.length);
+		this.route = LinkSequence.of(route, linkCount);
 	}
 
+	/**
+	 * @return an unmodifiable list of the links of the route. The links are decoded on every call, so callers
+	 * that access the links repeatedly should keep the returned list.
+	 */
 	@Override
 	public List<Id<Link>> getLinkIds() {
-		if (this.route == null || this.route == EMPTY_ROUTE) {
+		if (this.route == LinkSequence.EMPTY) {
 			return Collections.emptyList();
 		}
-		int[] idxRoute = VarIntUtils.decode(this.route);
-		List<Id<Link>> linkIds = new ArrayList<>(idxRoute.length);
-		for (int linkIndex : idxRoute) {
-			linkIds.add(Id.get(linkIndex, Link.class));
+		return new LinkIdList(this.route.decode());
+	}
+
+	@Override
+	public String getRouteDescription() {
+		// same as in AbstractNetworkRoute, but decoding the links only once
+		List<Id<Link>> linkIds = getLinkIds();
+		StringBuilder desc = new StringBuilder(100);
+		desc.append(this.getStartLinkId().toString());
+		for (Id<Link> linkId : linkIds) {
+			desc.append(" ");
+			desc.append(linkId.toString());
+		}
+		if (!this.getEndLinkId().equals(this.getStartLinkId()) || !linkIds.isEmpty()) {
+			desc.append(" ");
+			desc.append(this.getEndLinkId().toString());
 		}
-		return linkIds;
+		return desc.toString();
+	}
+
+	@Override
+	public void setRouteDescription(String routeDescription) {
+		// same as in AbstractNetworkRoute, but without creating a list of link ids first
+		String trimmed = routeDescription == null ? "" : routeDescription.trim();
+		if (trimmed.isEmpty()) {
+			this.setLinkIds(getStartLinkId(), null, getEndLinkId());
+			return;
+		}
+		String[] parts = trimmed.split("[ \t\n]+");
+		this.setStartLinkId(Id.createLinkId(parts[0]));
+		if (parts.length > 1) {
+			this.setEndLinkId(Id.createLinkId(parts[parts.length - 1]));
+		}
+		int linkCount = Math.max(0, parts.length - 2);
+		int[] route = new int[linkCount];
+		for (int i = 0; i < linkCount; i++) {
+			route[i] = Id.createLinkId(parts[i + 1]).index();
+		}
+		this.route = LinkSequence.of(route, linkCount);
 	}
 
 	@Override
 	public MediumCompressedNetworkRoute clone() {
+		// the link sequence is immutable and can be shared with the clone
 		return (MediumCompressedNetworkRoute) super.clone();
 	}
 
+	/**
+	 * An immutable, encoded sequence of link indices. Sequences are interned, so identical routes use the same
+	 * instance. The interner only keeps weak references, so sequences no longer used by any route can be garbage
+	 * collected.
+	 */
+	private static final class LinkSequence {
+
+		private static final LinkSequence EMPTY = new LinkSequence(new byte[0]);
+		private static final Interner<LinkSequence> SEQUENCES = Interners.newWeakInterner();
+
+		private final byte[] bytes;
+		private final int hash;
+
+		private LinkSequence(byte[] bytes) {
+			this.bytes = bytes;
+			this.hash = Arrays.hashCode(bytes);
+		}
+
+		static LinkSequence of(int[] linkIndices, int linkCount) {
+			if (linkCount == 0) {
+				return EMPTY;
+			}
+			return SEQUENCES.intern(new LinkSequence(VarIntUtils.encodeDeltas(linkIndices, 0, linkCount)));
+		}
+
+		int[] decode() {
+			return VarIntUtils.decodeDeltas(this.bytes);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof LinkSequence other && this.hash == other.hash && Arrays.equals(this.bytes, other.bytes);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+	}
+
+	private static final class LinkIdList extends AbstractList<Id<Link>> implements RandomAccess {
+
+		private final int[] linkIndices;
+
+		LinkIdList(int[] linkIndices) {
+			this.linkIndices = linkIndices;
+		}
+
+		@Override
+		public Id<Link> get(int index) {
+			return Id.get(this.linkIndices[index], Link.class);
+		}
+
+		@Override
+		public int size() {
+			return this.linkIndices.length;
+		}
+	}
+
 }
@@ -22,12 +22,16 @@
 
 package org.matsim.core.router;
 
+import com.google.inject.Singleton;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.groups.ControllerConfigGroup;
 import org.matsim.core.controler.AbstractModule;
 import org.matsim.core.router.speedy.SpeedyALTFactory;
+import org.matsim.core.router.speedy.SpeedyCCHFactory;
 import org.matsim.core.router.util.*;
 
+import java.nio.file.Path;
+
 public class LeastCostPathCalculatorModule extends AbstractModule {
 
     @Override
@@ -42,7 +46,15 @@ public class LeastCostPathCalculatorModule extends AbstractModule {
         } else if (config.controller().getRoutingAlgorithmType().equals(ControllerConfigGroup.RoutingAlgorithmType.AStarLandmarks)) {
             bind(LeastCostPathCalculatorFactory.class).to(AStarLandmarksFactory.class);
         } else if (config.controller().getRoutingAlgorithmType().equals(ControllerConfigGroup.RoutingAlgorithmType.SpeedyALT)) {
-            bind(LeastCostPathCalculatorFactory.class).to(SpeedyALTFactory.class);
+            // one factory for all modes and iterations, so the landmark data is only calculated again when needed
+            String cacheDirectory = config.controller().getLandmarksCacheDirectory();
+            SpeedyALTFactory factory = new SpeedyALTFactory(cacheDirectory == null ? null : Path.of(cacheDirectory));
+            bind(LeastCostPathCalculatorFactory.class).toInstance(factory);
+            addControlerListenerBinding().toInstance(factory);
+        } else if (config.controller().getRoutingAlgorithmType().equals(ControllerConfigGroup.RoutingAlgorithmType.SpeedyCCH)) {
+            bind(SpeedyCCHFactory.class).in(Singleton.class);
+            bind(LeastCostPathCalculatorFactory.class).to(SpeedyCCHFactory.class);
+            addControlerListenerBinding().to(SpeedyCCHFactory.class);
         }
     }
 
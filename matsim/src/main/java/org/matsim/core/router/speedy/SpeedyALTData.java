@@ -7,6 +7,17 @@ import org.matsim.api.core.v01.network.Node;
 import org.matsim.core.router.speedy.SpeedyGraph.LinkIterator;
 import org.matsim.core.router.util.TravelDisutility;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
@@ -20,12 +31,19 @@ import java.util.concurrent.Future;
  *
  * This class is thread-safe and can safely be used by multiple threads.
  *
+ * The landmark trees are lower bounds of the minimal travel disutilities. If these change, {@link #update(TravelDisutility)}
+ * checks which trees are no longer valid and only calculates those again. The data can be stored to a file with
+ * {@link #write(Path)} and loaded again with {@link #read(Path, SpeedyGraph, TravelDisutility)}.
+ *
  * @author mrieser / Simunto, sponsored by SBB Swiss Federal Railways
  */
 class SpeedyALTData {
 
 	private final static Logger LOG = LogManager.getLogger(SpeedyALTData.class);
 
+	private final static int FILE_MAGIC = 0x53414c54; // "SALT"
+	private final static int FILE_VERSION = 1;
+
 	final SpeedyGraph graph;
 	private final int landmarksCount;
 	private final TravelDisutility travelCosts;
@@ -47,6 +65,93 @@ class SpeedyALTData {
 		this.minTravelCostPerLength = this.calcMinTravelCostPerLength();
 	}
 
+	private SpeedyALTData(SpeedyGraph graph, int[] landmarksNodeIndices, double[] nodesData, int[] deadendData, TravelDisutility travelCosts) {
+		this.graph = graph;
+		this.landmarksCount = landmarksNodeIndices.length;
+		this.travelCosts = travelCosts;
+		this.landmarksNodeIndices = landmarksNodeIndices;
+		this.nodesData = nodesData;
+		this.deadendData = deadendData;
+		this.minTravelCostPerLength = this.calcMinTravelCostPerLength();
+	}
+
+	/**
+	 * Returns landmark data that is valid for the given travel disutility, keeping the same landmarks.
+	 * A landmark tree stays valid as long as its costs fulfill the triangle inequality with the minimal travel
+	 * disutility of every link, which is the case unless the minimal disutility of some link decreased.
+	 * Only the invalid trees are calculated again. If all trees are still valid, <code>this</code> is returned.
+	 */
+	SpeedyALTData update(TravelDisutility travelCosts) {
+		double[] linkCosts = new double[this.graph.linkCount];
+		for (int linkIdx = 0; linkIdx < this.graph.linkCount; linkIdx++) {
+			Link link = this.graph.getLink(linkIdx);
+			if (link != null) {
+				linkCosts[linkIdx] = travelCosts.getLinkMinimumTravelDisutility(link);
+			}
+		}
+		boolean[] invalidTrees = findInvalidTrees(linkCosts);
+		int invalidCount = 0;
+		for (boolean invalid : invalidTrees) {
+			if (invalid) invalidCount++;
+		}
+		if (invalidCount == 0) {
+			return this;
+		}
+
+		LOG.info("recalculate " + invalidCount + " of " + invalidTrees.length + " landmark trees...");
+		SpeedyALTData updated = new SpeedyALTData(this.graph, this.landmarksNodeIndices, this.nodesData.clone(), this.deadendData, travelCosts);
+		updated.calcTrees(invalidTrees);
+		return updated;
+	}
+
+	private boolean[] findInvalidTrees(double[] linkCosts) {
+		boolean[] invalid = new boolean[this.landmarksCount * 2];
+		int multiplier = this.landmarksCount * 2;
+		LinkIterator outLI = this.graph.getOutLinkIterator();
+		for (int nodeIdx = 0; nodeIdx < this.graph.nodeCount; nodeIdx++) {
+			outLI.reset(nodeIdx);
+			while (outLI.next()) {
+				int toNodeIdx = outLI.getToNodeIndex();
+				double cost = linkCosts[outLI.getLinkIndex()];
+				int from = nodeIdx * multiplier;
+				int to = toNodeIdx * multiplier;
+				for (int i = 0; i < multiplier; i += 2) {
+					// forward tree: cost from landmark to to-node must not be larger than via this link
+					if (this.nodesData[from + i] + cost < this.nodesData[to + i]) {
+						invalid[i] = true;
+					}
+					// backward tree: cost from from-node to landmark must not be larger than via this link
+					if (this.nodesData[to + i + 1] + cost < this.nodesData[from + i + 1]) {
+						invalid[i + 1] = true;
+					}
+				}
+			}
+		}
+		return invalid;
+	}
+
+	private void calcTrees(boolean[] treesToCalculate) {
+		Future<double[]>[] trees = new Future[treesToCalculate.length];
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		for (int i = 0; i < trees.length; i++) {
+			if (treesToCalculate[i]) {
+				int landmark = this.landmarksNodeIndices[i / 2];
+				trees[i] = (i % 2 == 0) ? executor.submit(() -> calculateTreeForward(landmark)) : executor.submit(() -> calculateTreeBackward(landmark));
+			}
+		}
+		for (int i = 0; i < trees.length; i++) {
+			if (trees[i] != null) {
+				try {
+					double[] data = trees[i].get();
+					setNodeData(data, i);
+				} catch (InterruptedException | ExecutionException e) {
+					LOG.error(e);
+				}
+			}
+		}
+		executor.shutdown();
+	}
+
 	private void findDeadEnds() {
 		LOG.info("find dead ends...");
 
@@ -318,4 +423,136 @@ class SpeedyALTData {
 	public double getMinTravelCostPerLength() {
 		return this.minTravelCostPerLength;
 	}
+
+	/**
+	 * Writes the landmark data to a file, so it can be loaded again with {@link #read(Path, SpeedyGraph, TravelDisutility)}.
+	 * The file is first written to a temporary file and then moved, so concurrent readers never see a partial file
+	 * (unless the file system does not support atomic moves).
+	 */
+	void write(Path file) throws IOException {
+		Path tmpFile = file.resolveSibling(file.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmpFile))) {
+			out.writeInt(FILE_MAGIC);
+			out.writeInt(FILE_VERSION);
+			out.writeLong(fingerprint(this.graph));
+			out.writeInt(this.graph.nodeCount);
+			out.writeInt(this.graph.linkCount);
+			out.writeInt(this.landmarksCount);
+			ByteBuffer buffer = ByteBuffer.allocate(8 * 8192);
+			for (int nodeIdx : this.landmarksNodeIndices) {
+				out.writeInt(nodeIdx);
+			}
+			for (int deadend : this.deadendData) {
+				if (buffer.remaining() < 4) flush(buffer, out);
+				buffer.putInt(deadend);
+			}
+			for (double cost : this.nodesData) {
+				if (buffer.remaining() < 8) flush(buffer, out);
+				buffer.putDouble(cost);
+			}
+			flush(buffer, out);
+		}
+		try {
+			Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Loads landmark data written by {@link #write(Path)}. Returns <code>null</code> if the file was written for a
+	 * different graph. The landmark trees are not checked against the given travel disutility, this should be done
+	 * with {@link #update(TravelDisutility)}.
+	 */
+	static SpeedyALTData read(Path file, SpeedyGraph graph, TravelDisutility travelCosts) throws IOException {
+		try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+			if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+				throw new IOException("Unsupported landmarks file format: " + file);
+			}
+			long fingerprint = in.readLong();
+			int nodeCount = in.readInt();
+			int linkCount = in.readInt();
+			if (nodeCount != graph.nodeCount || linkCount != graph.linkCount || fingerprint != fingerprint(graph)) {
+				LOG.warn("landmarks file " + file + " does not match the network, ignoring it.");
+				return null;
+			}
+			int landmarksCount = in.readInt();
+			int[] landmarksNodeIndices = new int[landmarksCount];
+			for (int i = 0; i < landmarksCount; i++) {
+				landmarksNodeIndices[i] = in.readInt();
+			}
+			int[] deadendData = new int[nodeCount];
+			double[] nodesData = new double[nodeCount * landmarksCount * 2];
+			ByteBuffer buffer = ByteBuffer.allocate(8 * 8192).limit(0);
+			for (int i = 0; i < deadendData.length; i++) {
+				if (buffer.remaining() < 4) fill(buffer, in, 4);
+				deadendData[i] = buffer.getInt();
+			}
+			for (int i = 0; i < nodesData.length; i++) {
+				if (buffer.remaining() < 8) fill(buffer, in, 8);
+				nodesData[i] = buffer.getDouble();
+			}
+			return new SpeedyALTData(graph, landmarksNodeIndices, nodesData, deadendData, travelCosts);
+		}
+	}
+
+	private static void flush(ByteBuffer buffer, OutputStream out) throws IOException {
+		out.write(buffer.array(), 0, buffer.position());
+		buffer.clear();
+	}
+
+	private static void fill(ByteBuffer buffer, InputStream in, int minBytes) throws IOException {
+		buffer.compact();
+		while (buffer.position() < minBytes) {
+			int read = in.read(buffer.array(), buffer.position(), buffer.remaining());
+			if (read < 0) {
+				throw new IOException("Unexpected end of landmarks file.");
+			}
+			buffer.position(buffer.position() + read);
+		}
+		buffer.flip();
+	}
+
+	/**
+	 * Calculates a hash of the graph structure, i.e. of the node and link ids and how they are connected.
+	 * The landmark data of a file is only used if the hash matches the one of the current graph.
+	 */
+	static long fingerprint(SpeedyGraph graph) {
+		long hash = 1125899906842597L;
+		LinkIterator outLI = graph.getOutLinkIterator();
+		for (int nodeIdx = 0; nodeIdx < graph.nodeCount; nodeIdx++) {
+			Node node = graph.getNode(nodeIdx);
+			hash = 31 * hash + (node == null ? 0 : hash(node.getId().toString()));
+			outLI.reset(nodeIdx);
+			while (outLI.next()) {
+				hash = 31 * hash + outLI.getLinkIndex();
+				hash = 31 * hash + outLI.getToNodeIndex();
+				hash = 31 * hash + hash(graph.getLink(outLI.getLinkIndex()).getId().toString());
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * Calculates a hash of the minimal travel disutilities of all links. Landmark data that was checked with
+	 * {@link #update(TravelDisutility)} for one travel disutility is also valid for all others with the same hash.
+	 */
+	static long fingerprint(SpeedyGraph graph, TravelDisutility travelCosts) {
+		long hash = 1125899906842597L;
+		for (int linkIdx = 0; linkIdx < graph.linkCount; linkIdx++) {
+			Link link = graph.getLink(linkIdx);
+			if (link != null) {
+				hash = 31 * hash + Double.doubleToLongBits(travelCosts.getLinkMinimumTravelDisutility(link));
+			}
+		}
+		return hash;
+	}
+
+	private static long hash(String value) {
+		long hash = 1125899906842597L;
+		for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+			hash = 31 * hash + b;
+		}
+		return hash;
+	}
 }
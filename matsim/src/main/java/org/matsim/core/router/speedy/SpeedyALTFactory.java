@@ -1,36 +1,141 @@
 package org.matsim.core.router.speedy;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.controler.events.IterationStartsEvent;
+import org.matsim.core.controler.listener.IterationStartsListener;
 import org.matsim.core.router.util.LeastCostPathCalculator;
 import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
 import org.matsim.core.router.util.TravelDisutility;
 import org.matsim.core.router.util.TravelTime;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * Creates {@link SpeedyALT} instances. The landmark data is cached per network and class of the
+ * {@link TravelDisutility}, and shared by all path calculators created for them.
+ *
+ * Instances of the same class may have different minimal link disutilities, e.g. with different parameters, and they
+ * may change between iterations. The cached landmark data is thus checked for every set of minimal link disutilities
+ * (identified by a hash) before it is used, and only the landmark trees that are not valid for it are calculated again.
+ * If a cache directory is set, the landmark data is additionally stored in that directory and loaded from there when
+ * the same network is used again, e.g. in a later run.
+ *
  * @author mrieser / Simunto, sponsored by SBB Swiss Federal Railways
  */
-public class SpeedyALTFactory implements LeastCostPathCalculatorFactory {
+public class SpeedyALTFactory implements LeastCostPathCalculatorFactory, IterationStartsListener {
+
+	private final static Logger LOG = LogManager.getLogger(SpeedyALTFactory.class);
 
 	private final Map<Network, SpeedyGraph> graphs = new ConcurrentHashMap<>();
-	private final Map<SpeedyGraph, SpeedyALTData> landmarksData = new ConcurrentHashMap<>();
+	private final Map<LandmarksKey, CachedLandmarks> landmarksData = new ConcurrentHashMap<>();
+	private final Path cacheDirectory;
+
+	public SpeedyALTFactory() {
+		this(null);
+	}
+
+	/**
+	 * @param cacheDirectory directory to store the landmark data in, or <code>null</code> to only keep it in memory.
+	 */
+	public SpeedyALTFactory(Path cacheDirectory) {
+		this.cacheDirectory = cacheDirectory;
+	}
 
 	@Override
 	public LeastCostPathCalculator createPathCalculator(Network network, TravelDisutility travelCosts, TravelTime travelTimes) {
-		SpeedyGraph graph = this.graphs.get(network);
-		if (graph == null) {
-			graph = SpeedyGraphBuilder.build(network);
-			this.graphs.put(network, graph);
+		SpeedyGraph graph = this.graphs.computeIfAbsent(network, SpeedyGraphBuilder::build);
+		LandmarksKey key = new LandmarksKey(graph, travelCosts.getClass());
+		long disutilityFingerprint = SpeedyALTData.fingerprint(graph, travelCosts);
+		CachedLandmarks landmarks = this.landmarksData.get(key);
+		if (landmarks == null || !landmarks.validFor.contains(disutilityFingerprint)) {
+			landmarks = this.landmarksData.compute(key, (k, cached) -> {
+				if (cached != null && cached.validFor.contains(disutilityFingerprint)) {
+					return cached; // another thread was faster
+				}
+				SpeedyALTData updated;
+				if (cached == null) {
+					updated = loadOrCalculate(graph, travelCosts);
+				} else {
+					updated = cached.data.update(travelCosts);
+					if (updated == cached.data) {
+						cached.validFor.add(disutilityFingerprint);
+						return cached;
+					}
+					store(updated, travelCosts);
+				}
+				// recalculated trees might no longer be valid for the previously checked disutilities
+				CachedLandmarks result = new CachedLandmarks(updated, ConcurrentHashMap.newKeySet());
+				result.validFor.add(disutilityFingerprint);
+				return result;
+			});
+		}
+		return new SpeedyALT(landmarks.data, travelTimes, travelCosts);
+	}
+
+	@Override
+	public void notifyIterationStarts(IterationStartsEvent event) {
+		// the checked travel disutilities of earlier iterations are not likely to be used again
+		this.landmarksData.values().forEach(cached -> cached.validFor.clear());
+	}
+
+	private SpeedyALTData loadOrCalculate(SpeedyGraph graph, TravelDisutility travelCosts) {
+		Path file = getCacheFile(graph, travelCosts);
+		if (file != null && Files.exists(file)) {
+			try {
+				LOG.info("load landmarks from " + file);
+				SpeedyALTData data = SpeedyALTData.read(file, graph, travelCosts);
+				if (data != null) {
+					SpeedyALTData updated = data.update(travelCosts);
+					if (updated != data) {
+						store(updated, travelCosts);
+					}
+					return updated;
+				}
+			} catch (IOException e) {
+				LOG.warn("could not load landmarks from " + file + ", calculating them again.", e);
+			}
 		}
-		SpeedyALTData landmarks = this.landmarksData.get(graph);
-		if (landmarks == null) {
-			int landmarksCount = Math.min(16, graph.nodeCount);
-			landmarks = new SpeedyALTData(graph, landmarksCount, travelCosts);
-			this.landmarksData.put(graph, landmarks);
+		int landmarksCount = Math.min(16, graph.nodeCount);
+		SpeedyALTData data = new SpeedyALTData(graph, landmarksCount, travelCosts);
+		store(data, travelCosts);
+		return data;
+	}
+
+	private void store(SpeedyALTData data, TravelDisutility travelCosts) {
+		Path file = getCacheFile(data.graph, travelCosts);
+		if (file != null) {
+			try {
+				Files.createDirectories(this.cacheDirectory);
+				data.write(file);
+			} catch (IOException e) {
+				// the cache only saves time in later runs, so this run can continue without it
+				LOG.warn("could not write landmarks to " + file + ", they will be calculated again in the next run.", e);
+			}
+		}
+	}
+
+	private Path getCacheFile(SpeedyGraph graph, TravelDisutility travelCosts) {
+		if (this.cacheDirectory == null) {
+			return null;
 		}
-		return new SpeedyALT(landmarks, travelTimes, travelCosts);
+		String disutilityName = travelCosts.getClass().getName().replaceAll("[^A-Za-z0-9._$-]", "_");
+		return this.cacheDirectory.resolve(String.format("speedyALT_%s_%016x.landmarks", disutilityName, SpeedyALTData.fingerprint(graph)));
+	}
+
+	private record LandmarksKey(SpeedyGraph graph, Class<?> travelDisutilityType) {
+	}
+
+	/**
+	 * @param validFor hashes of the minimal link disutilities the landmark trees were checked against
+	 */
+	private record CachedLandmarks(SpeedyALTData data, Set<Long> validFor) {
 	}
 
 }
@@ -0,0 +1,295 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.speedy;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A time-dependent A*-search that uses a customizable contraction hierarchy to calculate its estimates, based on
+ * "CH-Potentials: A fast and tight heuristic for A* in road networks" by Ben Strasser and Tim Zeitz, 2021.
+ *
+ * The hierarchy is customized with the minimum travel disutility of each link (see {@link SpeedyCCHData}). For the
+ * destination of a route, the estimate of a node is the exact least cost to the destination based on these minimum
+ * costs, which can be calculated on demand with a few lookups in the hierarchy. As these estimates are much tighter
+ * than the ones of {@link SpeedyALT}, the search visits far fewer nodes, while the time-dependent travel times and
+ * travel disutilities are still used as they are, so the routes are the same as the ones of {@link SpeedyDijkstra}.
+ *
+ * This implementation is not thread-safe. In the case of multi-threading, every thread should use
+ * a separate instance. (But the used {@link SpeedyCCHData.Metric} is thread-safe and can be shared by multiple
+ * instances).
+ */
+public class SpeedyCCH implements LeastCostPathCalculator {
+
+	private final static Logger LOG = LogManager.getLogger(SpeedyCCH.class);
+
+	private final SpeedyGraph graph;
+	private final SpeedyCCHData cch;
+	private final double[] weights;
+	private final TravelTime tt;
+	private final TravelDisutility td;
+	private final double[] data; // 3 entries per node: cost to node, time, distance
+	private int currentIteration = Integer.MIN_VALUE;
+	private final int[] iterationIds;
+	private final int[] comingFrom;
+	private final int[] usedLink;
+	private final SpeedyGraph.LinkIterator outLI;
+	private final DAryMinHeap pq;
+
+	// per rank of the hierarchy: the least costs to the destination within its upward search space, and the estimates
+	private final double[] costToDestination;
+	private final int[] costToDestinationIds;
+	private final double[] estimates;
+	private final int[] estimateIds;
+	private final int[] stack;
+
+	public SpeedyCCH(SpeedyCCHData.Metric metric, TravelTime tt, TravelDisutility td) {
+		this.cch = metric.data;
+		this.weights = metric.weights;
+		this.graph = this.cch.graph;
+		this.tt = tt;
+		this.td = td;
+		this.data = new double[this.graph.nodeCount * 3];
+		this.iterationIds = new int[this.graph.nodeCount];
+		this.comingFrom = new int[this.graph.nodeCount];
+		this.usedLink = new int[this.graph.nodeCount];
+		this.pq = new DAryMinHeap(this.graph.nodeCount, 6);
+		this.outLI = this.graph.getOutLinkIterator();
+		Arrays.fill(this.iterationIds, this.currentIteration);
+
+		this.costToDestination = new double[this.cch.nodeCount];
+		this.costToDestinationIds = new int[this.cch.nodeCount];
+		this.estimates = new double[this.cch.nodeCount];
+		this.estimateIds = new int[this.cch.nodeCount];
+		this.stack = new int[this.cch.nodeCount];
+		Arrays.fill(this.costToDestinationIds, this.currentIteration);
+		Arrays.fill(this.estimateIds, this.currentIteration);
+	}
+
+	public double getCost(int nodeIndex) {
+		return this.data[nodeIndex * 3];
+	}
+
+	private double getTimeRaw(int nodeIndex) {
+		return this.data[nodeIndex * 3 + 1];
+	}
+
+	private double getDistance(int nodeIndex) {
+		return this.data[nodeIndex * 3 + 2];
+	}
+
+	private void setData(int nodeIndex, double cost, double time, double distance) {
+		int index = nodeIndex * 3;
+		this.data[index] = cost;
+		this.data[index + 1] = time;
+		this.data[index + 2] = distance;
+		this.iterationIds[nodeIndex] = this.currentIteration;
+	}
+
+	@Override
+	public Path calcLeastCostPath(Node startNode, Node endNode, double startTime, Person person, Vehicle vehicle) {
+		this.currentIteration++;
+		if (this.currentIteration == Integer.MAX_VALUE) {
+			// reset iteration as we overflow
+			Arrays.fill(this.iterationIds, this.currentIteration);
+			Arrays.fill(this.costToDestinationIds, this.currentIteration);
+			Arrays.fill(this.estimateIds, this.currentIteration);
+			this.currentIteration = Integer.MIN_VALUE;
+		}
+		boolean hasTurnRestrictions = this.graph.hasTurnRestrictions();
+		int startNodeIndex = startNode.getId().index();
+		int endNodeIndex = endNode.getId().index();
+
+		calculateCostsToDestination(this.cch.getRank(endNodeIndex));
+		double estimation = estimateMinTravelcostToDestination(startNodeIndex);
+
+		this.comingFrom[startNodeIndex] = -1;
+		setData(startNodeIndex, 0, startTime, 0);
+		this.pq.clear();
+		if (estimation < Double.POSITIVE_INFINITY) {
+			this.pq.insert(startNodeIndex, 0 + estimation);
+		}
+		boolean foundEndNode = false;
+
+		while (!this.pq.isEmpty()) {
+			final int nodeIdx = this.pq.poll();
+			if (nodeIdx == endNodeIndex) {
+				foundEndNode = true;
+				break;
+			}
+			// if turn restrictions are used, we might be on a colored node, so check for the original node
+			if (hasTurnRestrictions && this.graph.getNode(nodeIdx).getId().index() == endNodeIndex) {
+				foundEndNode = true;
+				break;
+			}
+
+			double currTime = getTimeRaw(nodeIdx);
+			double currCost = getCost(nodeIdx);
+			double currDistance = getDistance(nodeIdx);
+
+			this.outLI.reset(nodeIdx);
+			while (this.outLI.next()) {
+				int linkIdx = this.outLI.getLinkIndex();
+				Link link = this.graph.getLink(linkIdx);
+				int toNode = this.outLI.getToNodeIndex();
+
+				double travelTime = this.tt.getLinkTravelTime(link, currTime, person, vehicle);
+				double newTime = currTime + travelTime;
+				double travelCost = this.td.getLinkTravelDisutility(link, currTime, person, vehicle);
+				double newCost = currCost + travelCost;
+
+				if (this.iterationIds[toNode] == this.currentIteration) {
+					// this node was already visited in this route-query
+					double oldCost = getCost(toNode);
+					if (newCost < oldCost) {
+						estimation = estimateMinTravelcostToDestination(toNode);
+						this.pq.decreaseKey(toNode, newCost + estimation);
+						setData(toNode, newCost, newTime, currDistance + link.getLength());
+						this.comingFrom[toNode] = nodeIdx;
+						this.usedLink[toNode] = linkIdx;
+					}
+				} else {
+					estimation = estimateMinTravelcostToDestination(toNode);
+					if (estimation == Double.POSITIVE_INFINITY) {
+						continue; // the destination cannot be reached from this node
+					}
+					setData(toNode, newCost, newTime, currDistance + link.getLength());
+					this.pq.insert(toNode, newCost + estimation);
+					this.comingFrom[toNode] = nodeIdx;
+					this.usedLink[toNode] = linkIdx;
+				}
+			}
+		}
+
+		if (foundEndNode) {
+			return constructPath(endNodeIndex, startTime);
+		}
+		LOG.warn("No route was found from node " + startNode.getId() + " to node " + endNode.getId() + ". Some possible reasons:");
+		LOG.warn("  * Network is not connected.  Run NetworkCleaner().") ;
+		LOG.warn("  * Network for considered mode does not even exist.  Modes need to be entered for each link in network.xml.");
+		LOG.warn("  * Network for considered mode is not connected to starting or ending point of route.  Setting insertingAccessEgressWalk to true may help.");
+		LOG.warn("This will now return null, but it may fail later with a NullPointerException.");
+		return null;
+	}
+
+	/**
+	 * Calculates the least costs to the destination for all ranks in the upward search space of the destination, which
+	 * consists of the destination and its ancestors in the elimination tree, i.e. the chain of lowest upward neighbours.
+	 */
+	private void calculateCostsToDestination(int destinationRank) {
+		int[] firstOut = this.cch.firstOut;
+		int[] arcHead = this.cch.arcHead;
+		for (int r = destinationRank; r >= 0; r = firstOut[r] < firstOut[r + 1] ? arcHead[firstOut[r]] : -1) {
+			this.costToDestination[r] = Double.POSITIVE_INFINITY;
+			this.costToDestinationIds[r] = this.currentIteration;
+		}
+		this.costToDestination[destinationRank] = 0;
+		for (int r = destinationRank; r >= 0; r = firstOut[r] < firstOut[r + 1] ? arcHead[firstOut[r]] : -1) {
+			double cost = this.costToDestination[r];
+			if (cost == Double.POSITIVE_INFINITY) {
+				continue;
+			}
+			for (int arc = firstOut[r]; arc < firstOut[r + 1]; arc++) {
+				int head = arcHead[arc];
+				double newCost = this.weights[2 * arc + 1] + cost;
+				if (newCost < this.costToDestination[head]) {
+					this.costToDestination[head] = newCost;
+				}
+			}
+		}
+	}
+
+	/**
+	 * The estimate of a rank is the minimum over its upward neighbours of the arc weight plus their estimate, or its
+	 * cost to the destination if it is in the upward search space of the destination. The upward neighbours are all
+	 * ancestors in the elimination tree, so the estimates are calculated from the top of the chain of ancestors down,
+	 * stopping at the first ancestor that already has an estimate (as all of its ancestors have one, too).
+	 */
+	private double estimateMinTravelcostToDestination(int nodeIdx) {
+		int rank = this.cch.getRank(nodeIdx);
+		if (this.estimateIds[rank] == this.currentIteration) {
+			return this.estimates[rank];
+		}
+		int[] firstOut = this.cch.firstOut;
+		int[] arcHead = this.cch.arcHead;
+		int size = 0;
+		for (int r = rank; r >= 0 && this.estimateIds[r] != this.currentIteration; r = firstOut[r] < firstOut[r + 1] ? arcHead[firstOut[r]] : -1) {
+			this.stack[size++] = r;
+		}
+		while (size > 0) {
+			int r = this.stack[--size];
+			double best = this.costToDestinationIds[r] == this.currentIteration ? this.costToDestination[r] : Double.POSITIVE_INFINITY;
+			for (int arc = firstOut[r]; arc < firstOut[r + 1]; arc++) {
+				double estimate = this.weights[2 * arc] + this.estimates[arcHead[arc]];
+				if (estimate < best) {
+					best = estimate;
+				}
+			}
+			this.estimates[r] = best;
+			this.estimateIds[r] = this.currentIteration;
+		}
+		return this.estimates[rank];
+	}
+
+	private Path constructPath(int endNodeIndex, double startTime) {
+		double travelCost = getCost(endNodeIndex);
+		double arrivalTime = getTimeRaw(endNodeIndex);
+		if (Double.isInfinite(arrivalTime)) {
+			throw new RuntimeException("Undefined time on end node");
+		}
+		double travelTime = arrivalTime - startTime;
+
+		List<Node> nodes = new ArrayList<>();
+		List<Link> links = new ArrayList<>();
+
+		int nodeIndex = endNodeIndex;
+
+		nodes.add(this.graph.getNode(nodeIndex));
+
+		int linkIndex = this.usedLink[nodeIndex];
+		nodeIndex = this.comingFrom[nodeIndex];
+
+		while (nodeIndex >= 0) {
+			nodes.add(this.graph.getNode(nodeIndex));
+			links.add(this.graph.getLink(linkIndex));
+
+			linkIndex = this.usedLink[nodeIndex];
+			nodeIndex = this.comingFrom[nodeIndex];
+		}
+
+		Collections.reverse(nodes);
+		Collections.reverse(links);
+
+		return new Path(nodes, links, travelTime, travelCost);
+	}
+
+}
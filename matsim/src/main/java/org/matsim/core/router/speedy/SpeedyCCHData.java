@@ -0,0 +1,491 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.speedy;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.router.speedy.SpeedyGraph.LinkIterator;
+import org.matsim.core.router.util.TravelDisutility;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
+
+/**
+ * The metric-independent part of a customizable contraction hierarchy (CCH) of a {@link SpeedyGraph}, based on
+ * "Customizable Contraction Hierarchies" by Julian Dibbelt, Ben Strasser and Dorothea Wagner, 2016.
+ *
+ * The nodes are ordered by a nested dissection of the network, which recursively splits the nodes at the median of
+ * their coordinates and puts the nodes at the border of the split last. All nodes are then contracted in this order
+ * without witness searches, so the resulting upward arcs do not depend on any travel costs. For a given
+ * {@link TravelDisutility}, {@link #customize(TravelDisutility)} calculates the weights of all arcs, which is fast
+ * and runs in parallel, so it can be repeated in every iteration.
+ *
+ * The nodes of the hierarchy are the nodes of the network. If the graph contains turn restrictions, the additional
+ * (colored) copies of nodes are mapped to their original node, so the hierarchy describes the network without
+ * turn restrictions. As the weights are only used as lower bounds by {@link SpeedyCCH}, this is fine.
+ *
+ * This class is thread-safe, as are the {@link Metric}s created by it.
+ */
+class SpeedyCCHData {
+
+	private final static Logger LOG = LogManager.getLogger(SpeedyCCHData.class);
+
+	private final static int MAX_CELL_SIZE = 32;
+	private final static int MIN_PARALLEL_LEVEL_SIZE = 1024;
+
+	final SpeedyGraph graph;
+	final int nodeCount;
+	private final int[] originalNode; // graph node index -> cch node index
+	final int[] rank; // cch node index -> rank
+	final int[] firstOut; // per rank, index of the first upward arc
+	final int[] arcHead; // rank of the head of each arc, sorted ascending per tail
+	private final int[] firstIn; // per rank, index of the first entry in inArcs
+	private final int[] inArcs; // arcs ending in a rank, coming from lower ranks
+	private final int[] inTails; // the lower rank each of these arcs is coming from
+	private final int[][] levels; // ranks that can be customized in parallel
+
+	SpeedyCCHData(SpeedyGraph graph) {
+		this.graph = graph;
+		this.nodeCount = graph.nodeCount;
+		this.originalNode = new int[this.nodeCount];
+		for (int i = 0; i < this.nodeCount; i++) {
+			Node node = graph.getNode(i);
+			this.originalNode[i] = node == null ? i : node.getId().index();
+		}
+
+		LOG.info("build undirected graph...");
+		int[][] neighbours = buildUndirectedGraph();
+
+		LOG.info("calculate nested dissection order...");
+		this.rank = new NestedDissection(graph, neighbours).calculateOrder();
+
+		LOG.info("contract nodes...");
+		int[][] upArcs = contract(neighbours);
+		this.firstOut = new int[this.nodeCount + 1];
+		int arcCount = 0;
+		for (int r = 0; r < this.nodeCount; r++) {
+			this.firstOut[r] = arcCount;
+			arcCount += upArcs[r].length;
+		}
+		this.firstOut[this.nodeCount] = arcCount;
+		this.arcHead = new int[arcCount];
+		for (int r = 0; r < this.nodeCount; r++) {
+			System.arraycopy(upArcs[r], 0, this.arcHead, this.firstOut[r], upArcs[r].length);
+		}
+
+		this.firstIn = new int[this.nodeCount + 1];
+		this.inArcs = new int[arcCount];
+		this.inTails = new int[arcCount];
+		for (int arc = 0; arc < arcCount; arc++) {
+			this.firstIn[this.arcHead[arc] + 1]++;
+		}
+		for (int r = 0; r < this.nodeCount; r++) {
+			this.firstIn[r + 1] += this.firstIn[r];
+		}
+		int[] inPos = Arrays.copyOf(this.firstIn, this.nodeCount);
+		for (int r = 0; r < this.nodeCount; r++) {
+			for (int arc = this.firstOut[r]; arc < this.firstOut[r + 1]; arc++) {
+				int pos = inPos[this.arcHead[arc]]++;
+				this.inArcs[pos] = arc;
+				this.inTails[pos] = r;
+			}
+		}
+
+		this.levels = calculateLevels();
+		LOG.info("contraction hierarchy has " + arcCount + " arcs and " + this.levels.length + " levels.");
+	}
+
+	private int[][] buildUndirectedGraph() {
+		int[] degree = new int[this.nodeCount];
+		LinkIterator outLI = this.graph.getOutLinkIterator();
+		for (int nodeIdx = 0; nodeIdx < this.nodeCount; nodeIdx++) {
+			outLI.reset(nodeIdx);
+			while (outLI.next()) {
+				int from = this.originalNode[nodeIdx];
+				int to = this.originalNode[outLI.getToNodeIndex()];
+				if (from != to) {
+					degree[from]++;
+					degree[to]++;
+				}
+			}
+		}
+		int[][] neighbours = new int[this.nodeCount][];
+		for (int i = 0; i < this.nodeCount; i++) {
+			neighbours[i] = new int[degree[i]];
+		}
+		Arrays.fill(degree, 0);
+		for (int nodeIdx = 0; nodeIdx < this.nodeCount; nodeIdx++) {
+			outLI.reset(nodeIdx);
+			while (outLI.next()) {
+				int from = this.originalNode[nodeIdx];
+				int to = this.originalNode[outLI.getToNodeIndex()];
+				if (from != to) {
+					neighbours[from][degree[from]++] = to;
+					neighbours[to][degree[to]++] = from;
+				}
+			}
+		}
+		for (int i = 0; i < this.nodeCount; i++) {
+			neighbours[i] = sortedUnique(neighbours[i], neighbours[i].length);
+		}
+		return neighbours;
+	}
+
+	/**
+	 * Contracts the nodes in the order of their rank and returns the upward arcs for each rank. As no witness searches
+	 * are done, the upward neighbours of a node form a clique after its contraction. It is enough to add them to the
+	 * lowest-ranked of them (the parent in the elimination tree), as they are passed on further up when that node is
+	 * contracted.
+	 */
+	private int[][] contract(int[][] neighbours) {
+		int[][] lists = new int[this.nodeCount][];
+		int[] sizes = new int[this.nodeCount];
+		for (int node = 0; node < this.nodeCount; node++) {
+			int r = this.rank[node];
+			int[] list = new int[neighbours[node].length];
+			int size = 0;
+			for (int neighbour : neighbours[node]) {
+				int nr = this.rank[neighbour];
+				if (nr > r) {
+					list[size++] = nr;
+				}
+			}
+			lists[r] = list;
+			sizes[r] = size;
+		}
+		for (int r = 0; r < this.nodeCount; r++) {
+			int[] up = sortedUnique(lists[r], sizes[r]);
+			lists[r] = up;
+			if (up.length > 1) {
+				int parent = up[0];
+				int[] parentList = lists[parent];
+				int parentSize = sizes[parent];
+				if (parentSize + up.length - 1 > parentList.length) {
+					parentList = Arrays.copyOf(parentList, Math.max(parentSize + up.length - 1, parentList.length * 2));
+					lists[parent] = parentList;
+				}
+				System.arraycopy(up, 1, parentList, parentSize, up.length - 1);
+				sizes[parent] = parentSize + up.length - 1;
+			}
+		}
+		return lists;
+	}
+
+	private static int[] sortedUnique(int[] values, int size) {
+		int[] copy = Arrays.copyOf(values, size);
+		Arrays.sort(copy);
+		int unique = 0;
+		for (int i = 0; i < size; i++) {
+			if (unique == 0 || copy[unique - 1] != copy[i]) {
+				copy[unique++] = copy[i];
+			}
+		}
+		return unique == size ? copy : Arrays.copyOf(copy, unique);
+	}
+
+	/**
+	 * The weights of the arcs of a rank only depend on the arcs of lower-ranked neighbours. Assigning each rank a level
+	 * higher than the levels of all its lower neighbours gives groups of ranks that can be customized in parallel.
+	 */
+	private int[][] calculateLevels() {
+		int[] level = new int[this.nodeCount];
+		int maxLevel = -1;
+		for (int r = 0; r < this.nodeCount; r++) {
+			int l = 0;
+			for (int i = this.firstIn[r]; i < this.firstIn[r + 1]; i++) {
+				l = Math.max(l, level[this.inTails[i]] + 1);
+			}
+			level[r] = l;
+			maxLevel = Math.max(maxLevel, l);
+		}
+		int[] counts = new int[maxLevel + 1];
+		for (int l : level) {
+			counts[l]++;
+		}
+		int[][] levels = new int[maxLevel + 1][];
+		for (int l = 0; l <= maxLevel; l++) {
+			levels[l] = new int[counts[l]];
+		}
+		Arrays.fill(counts, 0);
+		for (int r = 0; r < this.nodeCount; r++) {
+			levels[level[r]][counts[level[r]]++] = r;
+		}
+		return levels;
+	}
+
+	int getRank(int graphNodeIndex) {
+		return this.rank[this.originalNode[graphNodeIndex]];
+	}
+
+	/**
+	 * Calculates the weight of each arc of the hierarchy, using the minimum travel disutility of the links as costs.
+	 */
+	Metric customize(TravelDisutility travelCosts) {
+		LOG.info("customize contraction hierarchy...");
+		int arcCount = this.arcHead.length;
+		double[] weights = new double[arcCount * 2];
+		Arrays.fill(weights, Double.POSITIVE_INFINITY);
+
+		LinkIterator outLI = this.graph.getOutLinkIterator();
+		for (int nodeIdx = 0; nodeIdx < this.nodeCount; nodeIdx++) {
+			int fromRank = getRank(nodeIdx);
+			outLI.reset(nodeIdx);
+			while (outLI.next()) {
+				int toRank = getRank(outLI.getToNodeIndex());
+				if (fromRank == toRank) {
+					continue;
+				}
+				Link link = this.graph.getLink(outLI.getLinkIndex());
+				double cost = travelCosts.getLinkMinimumTravelDisutility(link);
+				int index = fromRank < toRank ? 2 * findArc(fromRank, toRank) : 2 * findArc(toRank, fromRank) + 1;
+				if (cost < weights[index]) {
+					weights[index] = cost;
+				}
+			}
+		}
+
+		for (int[] level : this.levels) {
+			if (level.length < MIN_PARALLEL_LEVEL_SIZE) {
+				for (int r : level) {
+					customizeRank(weights, r);
+				}
+			} else {
+				IntStream.range(0, level.length).parallel().forEach(i -> customizeRank(weights, level[i]));
+			}
+		}
+		return new Metric(this, weights);
+	}
+
+	/**
+	 * Updates the upward arcs of rank <code>u</code> with all lower triangles: for each lower neighbour x of u and each
+	 * upper neighbour w of x above u, the arc u-w might be shorter via x.
+	 */
+	private void customizeRank(double[] weights, int u) {
+		for (int i = this.firstIn[u]; i < this.firstIn[u + 1]; i++) {
+			int xu = this.inArcs[i];
+			int x = this.inTails[i];
+			double uToX = weights[2 * xu + 1];
+			double xToU = weights[2 * xu];
+			if (uToX == Double.POSITIVE_INFINITY && xToU == Double.POSITIVE_INFINITY) {
+				continue;
+			}
+			int uw = this.firstOut[u];
+			for (int xw = xu + 1; xw < this.firstOut[x + 1]; xw++) {
+				int w = this.arcHead[xw];
+				while (this.arcHead[uw] != w) {
+					uw++; // the graph is chordal, so the arc u-w must exist
+				}
+				double viaX = uToX + weights[2 * xw];
+				if (viaX < weights[2 * uw]) {
+					weights[2 * uw] = viaX;
+				}
+				viaX = weights[2 * xw + 1] + xToU;
+				if (viaX < weights[2 * uw + 1]) {
+					weights[2 * uw + 1] = viaX;
+				}
+			}
+		}
+	}
+
+	private int findArc(int tailRank, int headRank) {
+		int arc = Arrays.binarySearch(this.arcHead, this.firstOut[tailRank], this.firstOut[tailRank + 1], headRank);
+		if (arc < 0) {
+			throw new IllegalStateException("missing arc in contraction hierarchy from rank " + tailRank + " to rank " + headRank);
+		}
+		return arc;
+	}
+
+	/**
+	 * The weights of the arcs of a {@link SpeedyCCHData} for one {@link TravelDisutility}. For each arc, the first
+	 * value is the cost from the lower to the higher ranked node, the second one the cost in the other direction.
+	 */
+	static final class Metric {
+
+		final SpeedyCCHData data;
+		final double[] weights;
+
+		private Metric(SpeedyCCHData data, double[] weights) {
+			this.data = data;
+			this.weights = weights;
+		}
+	}
+
+	private static final class NestedDissection {
+
+		private final SpeedyGraph graph;
+		private final int[][] neighbours;
+		private final int[][] keys; // ranks of the nodes along several directions
+		private final int[] mark;
+		private int stamp = 0;
+		private final int[] rank;
+		private int nextRank = 0;
+
+		NestedDissection(SpeedyGraph graph, int[][] neighbours) {
+			this.graph = graph;
+			this.neighbours = neighbours;
+			int n = neighbours.length;
+			this.keys = new int[][] {
+				coordinateRanks(n, Coord::getX),
+				coordinateRanks(n, Coord::getY),
+				coordinateRanks(n, c -> c.getX() + c.getY()),
+				coordinateRanks(n, c -> c.getX() - c.getY())
+			};
+			this.mark = new int[n];
+			this.rank = new int[n];
+		}
+
+		private int[] coordinateRanks(int n, ToDoubleFunction<Coord> getter) {
+			double[] values = new double[n];
+			for (int i = 0; i < n; i++) {
+				Node node = this.graph.getNode(i);
+				values[i] = node == null ? 0 : getter.applyAsDouble(node.getCoord());
+			}
+			Integer[] order = new Integer[n];
+			for (int i = 0; i < n; i++) {
+				order[i] = i;
+			}
+			Arrays.sort(order, Comparator.comparingDouble(i -> values[i]));
+			int[] ranks = new int[n];
+			for (int i = 0; i < n; i++) {
+				ranks[order[i]] = i;
+			}
+			return ranks;
+		}
+
+		int[] calculateOrder() {
+			int[] all = new int[this.neighbours.length];
+			for (int i = 0; i < all.length; i++) {
+				all[i] = i;
+			}
+			dissect(all);
+			return this.rank;
+		}
+
+		private void dissect(int[] cell) {
+			if (cell.length <= MAX_CELL_SIZE) {
+				orderLeaf(cell);
+				return;
+			}
+
+			// split at the median along the direction that results in the smallest separator
+			long[] sorted = null;
+			int leftBorder = 0;
+			int rightBorder = 0;
+			for (int[] key : this.keys) {
+				long[] candidate = sortByKey(cell, key);
+				int[] borders = countBorders(candidate);
+				if (sorted == null || Math.min(borders[0], borders[1]) < Math.min(leftBorder, rightBorder)) {
+					sorted = candidate;
+					leftBorder = borders[0];
+					rightBorder = borders[1];
+				}
+			}
+			int half = cell.length / 2;
+			int leftStamp = ++this.stamp;
+			int rightStamp = ++this.stamp;
+			for (int i = 0; i < cell.length; i++) {
+				this.mark[(int) sorted[i]] = i < half ? leftStamp : rightStamp;
+			}
+
+			// the separator consists of the nodes of one side that have neighbours on the other side, use the smaller one
+			boolean separateLeft = leftBorder <= rightBorder;
+			int separatorStamp = ++this.stamp;
+			int[] left = new int[half];
+			int[] right = new int[cell.length - half];
+			int[] separator = new int[separateLeft ? leftBorder : rightBorder];
+			int leftCount = 0, rightCount = 0, separatorCount = 0;
+			for (int i = 0; i < cell.length; i++) {
+				int node = (int) sorted[i];
+				boolean isLeft = i < half;
+				if (isLeft == separateLeft && hasNeighbourWithMark(node, isLeft ? rightStamp : leftStamp)) {
+					separator[separatorCount++] = node;
+				} else if (isLeft) {
+					left[leftCount++] = node;
+				} else {
+					right[rightCount++] = node;
+				}
+			}
+			for (int node : separator) {
+				this.mark[node] = separatorStamp;
+			}
+			dissect(Arrays.copyOf(left, leftCount));
+			dissect(Arrays.copyOf(right, rightCount));
+			for (int node : separator) {
+				this.rank[node] = this.nextRank++;
+			}
+		}
+
+		private static long[] sortByKey(int[] cell, int[] key) {
+			long[] sorted = new long[cell.length];
+			for (int i = 0; i < cell.length; i++) {
+				sorted[i] = ((long) key[cell[i]] << 32) | cell[i];
+			}
+			Arrays.sort(sorted);
+			return sorted;
+		}
+
+		/**
+		 * Returns the number of nodes in the first and in the second half of the sorted nodes that have neighbours in the
+		 * other half.
+		 */
+		private int[] countBorders(long[] sorted) {
+			int half = sorted.length / 2;
+			int leftStamp = ++this.stamp;
+			int rightStamp = ++this.stamp;
+			for (int i = 0; i < sorted.length; i++) {
+				this.mark[(int) sorted[i]] = i < half ? leftStamp : rightStamp;
+			}
+			int[] borders = new int[2];
+			for (int i = 0; i < sorted.length; i++) {
+				if (hasNeighbourWithMark((int) sorted[i], i < half ? rightStamp : leftStamp)) {
+					borders[i < half ? 0 : 1]++;
+				}
+			}
+			return borders;
+		}
+
+		private boolean hasNeighbourWithMark(int node, int stamp) {
+			for (int neighbour : this.neighbours[node]) {
+				if (this.mark[neighbour] == stamp) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private void orderLeaf(int[] cell) {
+			// contract nodes with few neighbours first, this usually results in fewer shortcuts
+			long[] sorted = new long[cell.length];
+			for (int i = 0; i < cell.length; i++) {
+				sorted[i] = ((long) this.neighbours[cell[i]].length << 32) | cell[i];
+			}
+			Arrays.sort(sorted);
+			for (long value : sorted) {
+				this.rank[(int) value] = this.nextRank++;
+			}
+		}
+	}
+
+}
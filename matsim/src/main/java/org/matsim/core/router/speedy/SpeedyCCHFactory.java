@@ -0,0 +1,57 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.speedy;
+
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.controler.events.IterationStartsEvent;
+import org.matsim.core.controler.listener.IterationStartsListener;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates {@link SpeedyCCH} instances. The contraction hierarchy of a network is only built once, while its
+ * customization is repeated once per iteration if the factory is registered as controler listener, the first time a
+ * path calculator is requested in that iteration. Like with {@link SpeedyALTFactory}, the customization uses the
+ * {@link TravelDisutility} of that first request for all requests on the same network.
+ */
+public class SpeedyCCHFactory implements LeastCostPathCalculatorFactory, IterationStartsListener {
+
+	private final Map<Network, SpeedyCCHData> hierarchies = new ConcurrentHashMap<>();
+	private final Map<SpeedyCCHData, SpeedyCCHData.Metric> metrics = new ConcurrentHashMap<>();
+
+	@Override
+	public LeastCostPathCalculator createPathCalculator(Network network, TravelDisutility travelCosts, TravelTime travelTimes) {
+		SpeedyCCHData cch = this.hierarchies.computeIfAbsent(network, n -> new SpeedyCCHData(SpeedyGraphBuilder.build(n)));
+		SpeedyCCHData.Metric metric = this.metrics.computeIfAbsent(cch, c -> c.customize(travelCosts));
+		return new SpeedyCCH(metric, travelTimes, travelCosts);
+	}
+
+	@Override
+	public void notifyIterationStarts(IterationStartsEvent event) {
+		// customize again with the travel disutilities of this iteration
+		this.metrics.clear();
+	}
+
+}
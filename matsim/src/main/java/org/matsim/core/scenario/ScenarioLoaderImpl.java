@@ -200,7 +200,11 @@ class ScenarioLoaderImpl {
 
             final PopulationReader reader = new PopulationReader(targetCRS, internalCRS, this.scenario);
             reader.putAttributeConverters( attributeConverters );
-            reader.parse( populationFileName );
+            if (PopulationReader.isBinaryFile(populationFileName.getPath())) {
+                reader.readBinaryURL( populationFileName );
+            } else {
+                reader.parse( populationFileName );
+            }
 
 			PopulationUtils.printPlansCount(this.scenario.getPopulation()) ;
 		}
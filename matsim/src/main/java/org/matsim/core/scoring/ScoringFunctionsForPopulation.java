@@ -63,8 +63,13 @@ import org.matsim.vehicles.Vehicle;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.matsim.core.router.TripStructureUtils.Trip;
@@ -73,6 +78,12 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
  * This class helps EventsToScore by keeping ScoringFunctions for the entire Population - one per Person -, and dispatching Activities
  * and Legs to the ScoringFunctions. It also gives out the ScoringFunctions, so they can be given other events by EventsToScore.
  * It is not independently useful. Please do not make public.
+ * <p>
+ * If {@link org.matsim.core.config.groups.ScoringConfigGroup#getNumberOfScoringThreads()} is larger than 0, the scoring functions
+ * are not called while the events are processed. Instead, everything a scoring function would have been passed is buffered per
+ * person, in the original order, and the buffers are handed to the scoring functions in parallel whenever enough items were
+ * collected, and at the end of the iteration. As every person's scoring function still sees the same calls in the same order,
+ * the scores are the same as without buffering, independent of the number of threads.
  *
  * @author michaz
  *
@@ -92,6 +103,20 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 
 	private final Vehicle2DriverEventHandler vehicles2Drivers = new Vehicle2DriverEventHandler();
 
+	/**
+	 * number of buffered items after which the buffers are processed, so the buffered events do not pile up
+	 * over the whole iteration
+	 */
+	private static final int MAX_BUFFERED_ITEMS = 1_000_000;
+
+	private final int numberOfThreads;
+	private final IdMap<Person, List<Object>> buffers = new IdMap<>(Person.class);
+	private List<Id<Person>> personIds = List.of();
+	// persons with buffered items, in the order in which their buffers became non-empty
+	private final List<Id<Person>> personsWithBufferedItems = new ArrayList<>();
+	private int bufferedItems = 0;
+	private ExecutorService executor = null;
+
 	@Inject
 	ScoringFunctionsForPopulation(ControlerListenerManager controlerListenerManager, EventsManager eventsManager, EventsToActivities eventsToActivities, EventsToLegs eventsToLegs,
 						 Population population, ScoringFunctionFactory scoringFunctionFactory, Config config) {
@@ -109,6 +134,7 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 		this.legsDelegate = eventsToLegs;
 		this.actsDelegate = eventsToActivities;
 		this.scoringFunctionFactory = scoringFunctionFactory;
+		this.numberOfThreads = config.scoring().getNumberOfScoringThreads();
 
 		eventsManager.addHandler(this);
 		eventsToActivities.addActivityHandler(this::handleActivity);
@@ -120,7 +146,13 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 			this.agentScorers.put(person.getId(), this.scoringFunctionFactory.createNewScoringFunction(person ) );
 			this.partialScores.put(person.getId(), new TDoubleArrayList());
 			this.tripRecords.put(person.getId(), PopulationUtils.createPlan());
+			if (this.numberOfThreads > 0) {
+				this.buffers.put(person.getId(), new ArrayList<>());
+			}
 		}
+		this.personIds = new ArrayList<>(this.agentScorers.keySet());
+		this.personsWithBufferedItems.clear();
+		this.bufferedItems = 0;
 	}
 
 	@Override
@@ -129,19 +161,14 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 		// aggregated into legs and activities. for the time being, not all PersonEvents may "implement HasPersonId". link enter/leave events
 		// are NOT passed on, for performance reasons. kai/dominik, dec'12
 		if (o instanceof HasPersonId) {
-			ScoringFunction scoringFunction = getScoringFunctionForAgent(((HasPersonId) o).getPersonId());
+			Id<Person> personId = ((HasPersonId) o).getPersonId();
+			ScoringFunction scoringFunction = getScoringFunctionForAgent(personId);
 			if (scoringFunction != null) {
-				if (o instanceof PersonStuckEvent) {
-					scoringFunction.agentStuck(o.getTime());
-				} else if (o instanceof PersonMoneyEvent) {
-					scoringFunction.addMoney(((PersonMoneyEvent) o).getAmount());
-					// yy looking at this, I am a bit skeptic if it truly makes sense to not pass this additionally into the general events handling function below.
-					// A use case might be different utilities of money by money transaction type (e.g. toll, fare, reimbursement, ...).  kai, mar'17
-				} else if (o instanceof PersonScoreEvent) {
-					scoringFunction.addScore(((PersonScoreEvent) o).getAmount());
+				if (this.numberOfThreads > 0) {
+					buffer(personId, o);
+				} else {
+					scoreEvent(scoringFunction, o);
 				}
-				scoringFunction.handleEvent(o);
-				// passing this on in any case, see comment above.  kai, mar'17
 			}
 		}
 
@@ -167,7 +194,11 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 			ScoringFunction scoringFunction = getScoringFunctionForAgent( driverId );
 			// (this will NOT do the scoring function lookup twice since LinkEnterEvent is not an instance of HasPersonId.  kai, mar'17)
 			if (scoringFunction != null) {
-				scoringFunction.handleEvent(o);
+				if (this.numberOfThreads > 0) {
+					buffer(driverId, o);
+				} else {
+					scoringFunction.handleEvent(o);
+				}
 			}
 		}
 
@@ -190,6 +221,33 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 		if (o instanceof VehicleArrivesAtFacilityEvent) this.legsDelegate.handleEvent((VehicleArrivesAtFacilityEvent) o);
 		if (o instanceof VehicleEntersTrafficEvent) this.legsDelegate.handleEvent((VehicleEntersTrafficEvent) o);
 		if (o instanceof VehicleLeavesTrafficEvent) this.legsDelegate.handleEvent((VehicleLeavesTrafficEvent) o);
+
+		if (this.bufferedItems >= MAX_BUFFERED_ITEMS) {
+			processBuffers(false);
+		}
+	}
+
+	private static void scoreEvent(ScoringFunction scoringFunction, Event o) {
+		if (o instanceof PersonStuckEvent) {
+			scoringFunction.agentStuck(o.getTime());
+		} else if (o instanceof PersonMoneyEvent) {
+			scoringFunction.addMoney(((PersonMoneyEvent) o).getAmount());
+			// yy looking at this, I am a bit skeptic if it truly makes sense to not pass this additionally into the general events handling function below.
+			// A use case might be different utilities of money by money transaction type (e.g. toll, fare, reimbursement, ...).  kai, mar'17
+		} else if (o instanceof PersonScoreEvent) {
+			scoringFunction.addScore(((PersonScoreEvent) o).getAmount());
+		}
+		scoringFunction.handleEvent(o);
+		// passing this on in any case, see comment above.  kai, mar'17
+	}
+
+	private void buffer(Id<Person> personId, Object item) {
+		List<Object> buffer = this.buffers.get(personId);
+		if (buffer.isEmpty()) {
+			this.personsWithBufferedItems.add(personId);
+		}
+		buffer.add(item);
+		this.bufferedItems++;
 	}
 
 	private void handleActivityStart(ActivityStartEvent event) {
@@ -215,7 +273,11 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 			ScoringFunction scoringFunction = ScoringFunctionsForPopulation.this.getScoringFunctionForAgent(event.getPersonId());
 			for (Trip trip : trips) {
 				if (trip != null) {
-					scoringFunction.handleTrip(trip);
+					if (this.numberOfThreads > 0) {
+						buffer(event.getPersonId(), trip);
+					} else {
+						scoringFunction.handleTrip(trip);
+					}
 				}
 			}
 
@@ -229,9 +291,13 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 		Leg leg = o.getLeg();
 		ScoringFunction scoringFunction = ScoringFunctionsForPopulation.this.getScoringFunctionForAgent(agentId);
 		if (scoringFunction != null) {
-			scoringFunction.handleLeg(leg);
-			TDoubleCollection partialScoresForAgent = this.partialScores.get(agentId);
-			partialScoresForAgent.add(scoringFunction.getScore());
+			if (this.numberOfThreads > 0) {
+				buffer(agentId, leg);
+			} else {
+				scoringFunction.handleLeg(leg);
+				TDoubleCollection partialScoresForAgent = this.partialScores.get(agentId);
+				partialScoresForAgent.add(scoringFunction.getScore());
+			}
 		}
 		Plan plan = this.tripRecords.get( agentId ) ; // as container for trip
 		if ( plan!=null ) {
@@ -244,9 +310,13 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 		Activity activity = o.getActivity();
 		ScoringFunction scoringFunction = ScoringFunctionsForPopulation.this.getScoringFunctionForAgent(agentId);
 		if (scoringFunction != null) {
-			scoringFunction.handleActivity(activity);
-			TDoubleCollection partialScoresForAgent = this.partialScores.get(agentId);
-			partialScoresForAgent.add(scoringFunction.getScore());
+			if (this.numberOfThreads > 0) {
+				buffer(agentId, activity);
+			} else {
+				scoringFunction.handleActivity(activity);
+				TDoubleCollection partialScoresForAgent = this.partialScores.get(agentId);
+				partialScoresForAgent.add(scoringFunction.getScore());
+			}
 		}
 
 		Plan plan = this.tripRecords.get( agentId ); // as container for trip
@@ -279,6 +349,16 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 				throw new RuntimeException(throwable);
 			}
 		}
+		if (this.numberOfThreads > 0) {
+			try {
+				processBuffers(true);
+			} finally {
+				// the threads are not needed until the next mobsim
+				this.executor.shutdown();
+				this.executor = null;
+			}
+			return;
+		}
 		for (ScoringFunction sf : this.agentScorers.values()) {
 			sf.finish();
 		}
@@ -287,6 +367,71 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 		}
 	}
 
+	/**
+	 * Passes the buffered items to the scoring functions, using one task per slice of the persons. Every person is handled
+	 * by exactly one task, so its scoring function is only ever called by one thread at a time and sees its items in order.
+	 * Only persons with buffered items are visited, unless the scoring functions are finished, which applies to everybody.
+	 */
+	private void processBuffers(boolean finish) {
+		if (this.executor == null) {
+			this.executor = Executors.newFixedThreadPool(this.numberOfThreads, runnable -> {
+				Thread thread = new Thread(runnable, "Scoring");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		List<Id<Person>> persons = finish ? this.personIds : this.personsWithBufferedItems;
+		int slices = this.numberOfThreads * 4;
+		int sliceSize = Math.max(1, (persons.size() + slices - 1) / slices);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int start = 0; start < persons.size(); start += sliceSize) {
+			List<Id<Person>> slice = persons.subList(start, Math.min(start + sliceSize, persons.size()));
+			futures.add(this.executor.submit(() -> {
+				for (Id<Person> personId : slice) {
+					processBuffer(personId, finish);
+				}
+			}));
+		}
+		try {
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+		this.personsWithBufferedItems.clear();
+		this.bufferedItems = 0;
+	}
+
+	private void processBuffer(Id<Person> personId, boolean finish) {
+		ScoringFunction scoringFunction = this.agentScorers.get(personId);
+		TDoubleCollection partialScoresForAgent = this.partialScores.get(personId);
+		List<Object> buffer = this.buffers.get(personId);
+		for (Object item : buffer) {
+			if (item instanceof Event) {
+				scoreEvent(scoringFunction, (Event) item);
+			} else if (item instanceof Activity) {
+				scoringFunction.handleActivity((Activity) item);
+				partialScoresForAgent.add(scoringFunction.getScore());
+			} else if (item instanceof Leg) {
+				scoringFunction.handleLeg((Leg) item);
+				partialScoresForAgent.add(scoringFunction.getScore());
+			} else {
+				scoringFunction.handleTrip((Trip) item);
+			}
+		}
+		buffer.clear();
+		if (finish) {
+			scoringFunction.finish();
+			partialScoresForAgent.add(scoringFunction.getScore());
+		}
+	}
+
 	void writePartialScores(String iterationFilename) {
 		try ( BufferedWriter out = IOUtils.getBufferedWriter(iterationFilename) ) {
 			for (Entry<Id<Person>, TDoubleCollection> entry : this.partialScores.entrySet()) {
@@ -42,6 +42,7 @@ import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
 import org.matsim.core.api.experimental.events.handler.VehicleArrivesAtFacilityEventHandler;
 import org.matsim.core.config.groups.QSimConfigGroup;
 import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
+import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup.LinkTravelTimeStorage;
 import org.matsim.core.gbl.Gbl;
 import org.matsim.core.router.util.LinkToLinkTravelTime;
 import org.matsim.core.router.util.TravelTime;
@@ -50,7 +51,6 @@ import org.matsim.core.utils.collections.Tuple;
 import org.matsim.vehicles.Vehicle;
 import org.matsim.vehicles.VehicleType;
 
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -80,6 +80,7 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 
 	private final Network network;
 	private IdMap<Link, TravelTimeDataArray> linkData;
+	private TravelTimeDataSlab linkSlab;
 
 	private Map<Tuple<Id<Link>, Id<Link>>, TravelTimeDataArray> linkToLinkData;
 
@@ -117,6 +118,10 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 			default:
 				throw new RuntimeException( config.getTravelTimeGetterType() + " is unknown!" );
 		}
+		if ( calculator.calculateLinkTravelTimes && config.getLinkTravelTimeStorage() == LinkTravelTimeStorage.slab ) {
+			calculator.linkSlab = new TravelTimeDataSlab( calculator.numSlots, calculator.timeSlice );
+			calculator.linkData = null;
+		}
 		return calculator;
 	}
 
@@ -226,7 +231,7 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 
 		// if we just look at one mode, we need to ignore all vehicles with a different mode. However, the info re the mode is only in
 		// the vehicleEntersTraffic event.  So we need to memorize the ignored vehicles from there ...
-		this.vehiclesToIgnore = new HashSet<>();
+		this.vehiclesToIgnore = ConcurrentHashMap.newKeySet();
 
 		this.reset(0);
 	}
@@ -254,10 +259,13 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 		if (this.calculateLinkTravelTimes) {
 			LinkEnterEvent oldEvent = this.linkEnterEvents.get(e.getVehicleId());
 			if (oldEvent != null) {
-				TravelTimeData data = this.getTravelTimeData(e.getLinkId(), true);
 				double enterTime = oldEvent.getTime();
-
 				final int timeSlot = this.aggregator.getTimeSlotIndex(enterTime );
+				if (this.linkSlab != null) {
+					this.linkSlab.addTravelTime(e.getLinkId(), timeSlot, e.getTime() - enterTime );
+					return;
+				}
+				TravelTimeData data = this.getTravelTimeData(e.getLinkId(), true);
 				data.addTravelTime(timeSlot, e.getTime() - enterTime );
 				data.setNeedsConsolidation( true );
 			}
@@ -297,8 +305,12 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 	public void handleEvent(VehicleAbortsEvent event) {
 		LinkEnterEvent e = this.linkEnterEvents.remove(event.getVehicleId());
 		if (e != null) {
-			TravelTimeData data = this.getTravelTimeData(e.getLinkId(), true);
-			data.setNeedsConsolidation( true );
+			if (this.linkSlab != null) {
+				this.linkSlab.setNeedsConsolidation(e.getLinkId());
+			} else if (this.calculateLinkTravelTimes) {
+				TravelTimeData data = this.getTravelTimeData(e.getLinkId(), true);
+				data.setNeedsConsolidation( true );
+			}
 
 			//			this.aggregator.addStuckEventTravelTime(data, e.getTime(), event.getTime());
 			// this functionality is no longer there.
@@ -338,10 +350,13 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 		return new TravelTimeDataArray(this.network.getLinks().get(linkId), this.numSlots);
 	}
 
-	private double getLinkTravelTime(final Id<Link> linkId, final double time) {
+	private double getLinkTravelTime(final Link link, final double time) {
 		if (this.calculateLinkTravelTimes) {
+			if (this.linkSlab != null) {
+				return this.travelTimeGetter.getTravelTime( this.linkSlab.getTravelTimeData(link), time );
+			}
 
-			TravelTimeData data = this.getTravelTimeData(linkId, true);
+			TravelTimeData data = this.getTravelTimeData(link.getId(), true);
 			if ( data.isNeedingConsolidation() ) {
 				consolidateData(data);
 			}
@@ -365,7 +380,9 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 
 	@Override
 	public void reset(int iteration) {
-		if (this.calculateLinkTravelTimes) {
+		if (this.linkSlab != null) {
+			this.linkSlab.reset();
+		} else if (this.calculateLinkTravelTimes) {
 			for (TravelTimeData data : this.linkData.values()){
 				data.resetTravelTimes();
 				data.setNeedsConsolidation( false );
@@ -402,68 +419,100 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 	private void consolidateData(final TravelTimeData data) {
 		synchronized(data) {
 			if ( data.isNeedingConsolidation() ) {
-
-				// initialize prevTravelTime with ttime from time bin 0 and time 0.  (The interface comment already states that
-				// having both as argument does not make sense.)
-				double prevTravelTime = data.getTravelTime(0, 0.0 );
-				// changed (1, 0.0) to (0, 0.0) since Michal has convinced me (by a test) that using "1" is wrong
-				// because you get the wrong result for time slot number 1.  This change does not affect the existing
-				// unit tests.  kai, oct'11
-
-				// go from time slot 1 forward in time:
-				for (int i = 1; i < this.numSlots; i++) {
-
-					// once more the getter is weird since it needs both the time slot and the time:
-					double travelTime = data.getTravelTime(i, i * this.timeSlice );
-
-					// if the travel time in the previous time slice was X, then now it is X-S, where S is the time slice:
-					double minTravelTime = prevTravelTime - this.timeSlice;
-
-					// if the travel time that has been measured so far is less than that minimum travel time, then do something:
-					if (travelTime < minTravelTime) {
-						// (set the travel time to the smallest possible travel time that makes sense according to the argument above)
-						travelTime = minTravelTime;
-						data.setTravelTime(i, travelTime);
-					}
-					prevTravelTime = travelTime;
-				}
+				consolidate(data, this.numSlots, this.timeSlice);
 				data.setNeedsConsolidation( false );
 			}
 		}
 	}
 
+	/**
+	 * The actual consolidation of {@link #consolidateData(TravelTimeData)}, without the bookkeeping, so it can also be
+	 * applied to the data in a {@link TravelTimeDataSlab}.
+	 */
+	static void consolidate(final TravelTimeData data, final int numSlots, final double timeSlice) {
+		// initialize prevTravelTime with ttime from time bin 0 and time 0.  (The interface comment already states that
+		// having both as argument does not make sense.)
+		double prevTravelTime = data.getTravelTime(0, 0.0 );
+		// changed (1, 0.0) to (0, 0.0) since Michal has convinced me (by a test) that using "1" is wrong
+		// because you get the wrong result for time slot number 1.  This change does not affect the existing
+		// unit tests.  kai, oct'11
+
+		// go from time slot 1 forward in time:
+		for (int i = 1; i < numSlots; i++) {
+
+			// once more the getter is weird since it needs both the time slot and the time:
+			double travelTime = data.getTravelTime(i, i * timeSlice );
+
+			// if the travel time in the previous time slice was X, then now it is X-S, where S is the time slice:
+			double minTravelTime = prevTravelTime - timeSlice;
+
+			// if the travel time that has been measured so far is less than that minimum travel time, then do something:
+			if (travelTime < minTravelTime) {
+				// (set the travel time to the smallest possible travel time that makes sense according to the argument above)
+				travelTime = minTravelTime;
+				data.setTravelTime(i, travelTime);
+			}
+			prevTravelTime = travelTime;
+		}
+	}
+
 	private static int cnt = 0 ;
 
 	public TravelTime getLinkTravelTimes() {
-		return new TravelTime() {
+		return new ObservedLinkTravelTime( this::getLinkTravelTime );
+	}
 
-			@Override
-			public double getLinkTravelTime(Link link, double time, Person person, Vehicle vehicle) {
-				// right now, the link speed limit comes from the travel time calculator, and this here just overrides it.  One might consider doing all of this here;
-				// possibly would make the code easier to read.  kai/mads, feb'19
+	/**
+	 * Returns the link travel times as they are now. In contrast to {@link #getLinkTravelTimes()}, the returned travel times
+	 * do not change when more events are handled, e.g. during the mobsim of the next iteration, and can be read by several threads
+	 * without locking. This is only available with {@link LinkTravelTimeStorage#slab}, where it only requires to copy one array.
+	 */
+	public TravelTime getLinkTravelTimesSnapshot() {
+		if (this.linkSlab == null) {
+			throw new IllegalStateException("Snapshots of the link travel times are only available with the link travel time storage " +
+								    LinkTravelTimeStorage.slab + "!");
+		}
+		TravelTimeDataSlab.Snapshot snapshot = this.linkSlab.snapshot( this.network );
+		return new ObservedLinkTravelTime( (link, time) -> this.travelTimeGetter.getTravelTime( snapshot.getTravelTimeData(link), time ) );
+	}
 
-				double linkTtimeFromVehicle = 0. ;
-				if ( vehicle!=null ){
-					final VehicleType vehicleType = vehicle.getType();
-					if ( vehicleType==null ){
-						if( cnt < 1 ){
-							cnt++;
-							log.warn( "encountered vehicle where vehicle.getType() returns null.  That should be repaired (whereever it comes from)." );
-							log.warn( Gbl.ONLYONCE );
-						}
-					} else{
-						linkTtimeFromVehicle = link.getLength() / vehicleType.getMaximumVelocity();
+	private interface ObservedTravelTimeGetter {
+		double getTravelTime( Link link, double time );
+	}
+
+	private static final class ObservedLinkTravelTime implements TravelTime {
+
+		private final ObservedTravelTimeGetter observedTravelTime;
+
+		ObservedLinkTravelTime( ObservedTravelTimeGetter observedTravelTime ) {
+			this.observedTravelTime = observedTravelTime;
+		}
+
+		@Override
+		public double getLinkTravelTime(Link link, double time, Person person, Vehicle vehicle) {
+			// right now, the link speed limit comes from the travel time calculator, and this here just overrides it.  One might consider doing all of this here;
+			// possibly would make the code easier to read.  kai/mads, feb'19
+
+			double linkTtimeFromVehicle = 0. ;
+			if ( vehicle!=null ){
+				final VehicleType vehicleType = vehicle.getType();
+				if ( vehicleType==null ){
+					if( cnt < 1 ){
+						cnt++;
+						log.warn( "encountered vehicle where vehicle.getType() returns null.  That should be repaired (whereever it comes from)." );
+						log.warn( Gbl.ONLYONCE );
 					}
+				} else{
+					linkTtimeFromVehicle = link.getLength() / vehicleType.getMaximumVelocity();
 				}
-				double linkTTimeFromObservation = TravelTimeCalculator.this.getLinkTravelTime(link.getId(), time);
-				return Math.max( linkTtimeFromVehicle, linkTTimeFromObservation) ;
-				// yyyyyy should this not be min?  kai/janek, may'19
-				// No, it is correct. It is preventing the router to route with an empirical speed from
-				// the previous iteration that exceeds the maximum vehicle speed.
-				// Thus, the lowest speed (highest travel time) of the two should be used.    Mads, Nov'19
 			}
-
-		};
+			double linkTTimeFromObservation = this.observedTravelTime.getTravelTime(link, time);
+			return Math.max( linkTtimeFromVehicle, linkTTimeFromObservation) ;
+			// yyyyyy should this not be min?  kai/janek, may'19
+			// No, it is correct. It is preventing the router to route with an empirical speed from
+			// the previous iteration that exceeds the maximum vehicle speed.
+			// Thus, the lowest speed (highest travel time) of the two should be used.    Mads, Nov'19
+		}
 
 	}
 
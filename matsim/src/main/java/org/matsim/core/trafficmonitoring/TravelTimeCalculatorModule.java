@@ -28,13 +28,19 @@ import com.google.inject.Singleton;
 import com.google.inject.name.Names;
 import jakarta.inject.Inject;
 import jakarta.inject.Provider;
+import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
+import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup.LinkTravelTimeStorage;
 import org.matsim.core.controler.AbstractModule;
+import org.matsim.core.controler.events.AfterMobsimEvent;
+import org.matsim.core.controler.listener.AfterMobsimListener;
 import org.matsim.core.router.util.LinkToLinkTravelTime;
 import org.matsim.core.router.util.TravelTime;
 import org.matsim.core.utils.collections.CollectionUtils;
+import org.matsim.vehicles.Vehicle;
 
 import java.util.Set;
 
@@ -68,6 +74,15 @@ public class TravelTimeCalculatorModule extends AbstractModule {
 					// generate and bind the observer:
 					bind(TravelTimeCalculator.class).annotatedWith(Names.named(mode)).toProvider(new SingleModeTravelTimeCalculatorProvider(mode)).in(Singleton.class);
 
+					if (useSnapshots()) {
+						// the router reads snapshots of the observed travel times, see LinkTravelTimesSnapshots:
+						Key<LinkTravelTimesSnapshots> key = Key.get(LinkTravelTimesSnapshots.class, Names.named(mode));
+						bind(key).toProvider(new LinkTravelTimesSnapshotsProvider(Key.get(TravelTimeCalculator.class, Names.named(mode)))).in(Singleton.class);
+						addTravelTimeBinding(mode).to(key);
+						addControlerListenerBinding().to(key);
+						continue;
+					}
+
 					// bind the observer to travel time provider (for router):
 					addTravelTimeBinding(mode).toProvider(new Provider<TravelTime>() {
 						@Inject
@@ -100,7 +115,13 @@ public class TravelTimeCalculatorModule extends AbstractModule {
 			bind(TravelTimeCalculator.class).in(Singleton.class);
 
 			// bind the TravelTime objects.  In this case, this just passes on the same information from TravelTimeCalculator to each individual mode:
-			if (getConfig().travelTimeCalculator().isCalculateLinkTravelTimes()) {
+			if (useSnapshots()) {
+				bind(LinkTravelTimesSnapshots.class).toProvider(new LinkTravelTimesSnapshotsProvider(Key.get(TravelTimeCalculator.class))).in(Singleton.class);
+				for (String mode : getConfig().routing().getNetworkModes()) {
+					addTravelTimeBinding(mode).to(LinkTravelTimesSnapshots.class);
+				}
+				addControlerListenerBinding().to(LinkTravelTimesSnapshots.class);
+			} else if (getConfig().travelTimeCalculator().isCalculateLinkTravelTimes()) {
 //				for (String mode : CollectionUtils.stringToSet(getConfig().travelTimeCalculator().getAnalyzedModesAsString() )) {
 				for (String mode : getConfig().routing().getNetworkModes()) {
 					addTravelTimeBinding(mode).toProvider(ObservedLinkTravelTimes.class);
@@ -113,6 +134,11 @@ public class TravelTimeCalculatorModule extends AbstractModule {
 
 	}
 
+	private boolean useSnapshots() {
+		return getConfig().travelTimeCalculator().isCalculateLinkTravelTimes()
+			&& getConfig().travelTimeCalculator().getLinkTravelTimeStorage() == LinkTravelTimeStorage.slab;
+	}
+
 	private static class SingleModeTravelTimeCalculatorProvider implements Provider<TravelTimeCalculator> {
 
 		@Inject
@@ -160,6 +186,49 @@ public class TravelTimeCalculatorModule extends AbstractModule {
 
 	}
 
+	/**
+	 * With {@link LinkTravelTimeStorage#slab}, the routers do not read the travel times that are being observed, but a
+	 * snapshot that is taken after each mobsim. So replanning threads can read them without locking, and they are not
+	 * affected by the mobsim of the next iteration.
+	 */
+	private static final class LinkTravelTimesSnapshots implements TravelTime, AfterMobsimListener {
+
+		private final TravelTimeCalculator travelTimeCalculator;
+		private volatile TravelTime snapshot;
+
+		LinkTravelTimesSnapshots(TravelTimeCalculator travelTimeCalculator) {
+			this.travelTimeCalculator = travelTimeCalculator;
+			this.snapshot = travelTimeCalculator.getLinkTravelTimesSnapshot();
+		}
+
+		@Override
+		public void notifyAfterMobsim(AfterMobsimEvent event) {
+			this.snapshot = this.travelTimeCalculator.getLinkTravelTimesSnapshot();
+		}
+
+		@Override
+		public double getLinkTravelTime(Link link, double time, Person person, Vehicle vehicle) {
+			return this.snapshot.getLinkTravelTime(link, time, person, vehicle);
+		}
+	}
+
+	private static class LinkTravelTimesSnapshotsProvider implements Provider<LinkTravelTimesSnapshots> {
+
+		@Inject
+		Injector injector;
+
+		private final Key<TravelTimeCalculator> travelTimeCalculatorKey;
+
+		LinkTravelTimesSnapshotsProvider(Key<TravelTimeCalculator> travelTimeCalculatorKey) {
+			this.travelTimeCalculatorKey = travelTimeCalculatorKey;
+		}
+
+		@Override
+		public LinkTravelTimesSnapshots get() {
+			return new LinkTravelTimesSnapshots(injector.getInstance(travelTimeCalculatorKey));
+		}
+	}
+
 	private static class ObservedLinkToLinkTravelTimes implements Provider<LinkToLinkTravelTime> {
 
 		@Inject
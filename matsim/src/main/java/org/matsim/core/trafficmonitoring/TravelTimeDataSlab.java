@@ -0,0 +1,266 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.trafficmonitoring;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+
+/**
+ * Stores the travel time data of all links in one flat array, indexed by {@link Id#index()} of the link and the
+ * time slot, instead of one {@link TravelTimeDataArray} per link. Each entry uses the same encoding of count and
+ * average travel time in a single long as {@link TravelTimeDataArray}.
+ * <p>
+ * Updates are synchronized on one of a fixed number of lock stripes, chosen by the link index, so several threads
+ * can add travel times at the same time. Reading does not lock, unless the data of the link needs to be
+ * consolidated first. {@link #snapshot(Network)} creates a consolidated copy that is not affected by later updates.
+ */
+final class TravelTimeDataSlab {
+
+	private static final int STRIPES = 256;
+	private static final VarHandle DATA = MethodHandles.arrayElementVarHandle(long[].class);
+	private static final VarHandle FLAGS = MethodHandles.arrayElementVarHandle(boolean[].class);
+	private static final long EMPTY = TravelTimeDataArray.encode(0, -1.0);
+
+	private final int numSlots;
+	private final double timeSlice;
+	private final Object[] locks = new Object[STRIPES];
+
+	private volatile long[] data;
+	private volatile boolean[] needsConsolidation;
+
+	TravelTimeDataSlab(int numSlots, double timeSlice) {
+		int linkCount = Id.getNumberOfIds(Link.class);
+		this.numSlots = numSlots;
+		this.timeSlice = timeSlice;
+		this.data = new long[checkedSize(linkCount, numSlots)];
+		this.needsConsolidation = new boolean[linkCount];
+		Arrays.fill(this.data, EMPTY);
+		for (int i = 0; i < STRIPES; i++) {
+			this.locks[i] = new Object();
+		}
+	}
+
+	private static int checkedSize(int linkCount, int numSlots) {
+		long size = (long) linkCount * numSlots;
+		if (size > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("Too many links (" + linkCount + ") and time slots (" + numSlots + ") for the slab storage of travel times.");
+		}
+		return (int) size;
+	}
+
+	void addTravelTime(Id<Link> linkId, int timeSlot, double traveltime) {
+		int index = linkId.index();
+		ensureCapacity(index);
+		synchronized (this.locks[index & (STRIPES - 1)]) {
+			addTravelTime(this.data, index * this.numSlots + timeSlot, traveltime);
+			this.needsConsolidation[index] = true;
+		}
+	}
+
+	private static void addTravelTime(long[] data, int i, double traveltime) {
+		long val = (long) DATA.getOpaque(data, i);
+		int cnt = TravelTimeDataArray.count(val);
+		double sum = TravelTimeDataArray.traveltime(val) * cnt + traveltime;
+		cnt++;
+		DATA.setOpaque(data, i, TravelTimeDataArray.encode(cnt, sum / cnt));
+	}
+
+	void setNeedsConsolidation(Id<Link> linkId) {
+		int index = linkId.index();
+		ensureCapacity(index);
+		synchronized (this.locks[index & (STRIPES - 1)]) {
+			this.needsConsolidation[index] = true;
+		}
+	}
+
+	/**
+	 * Returns a view on the data of the given link, consolidating the data first if necessary. The view is only
+	 * valid for the current request and should not be stored.
+	 */
+	TravelTimeData getTravelTimeData(Link link) {
+		int index = link.getId().index();
+		ensureCapacity(index);
+		if ((boolean) FLAGS.getAcquire(this.needsConsolidation, index)) {
+			synchronized (this.locks[index & (STRIPES - 1)]) {
+				if (this.needsConsolidation[index]) {
+					TravelTimeCalculator.consolidate(new LinkView(this.data, index * this.numSlots, this.numSlots, link, false), this.numSlots, this.timeSlice);
+					// publishes the consolidated data for the check above
+					FLAGS.setRelease(this.needsConsolidation, index, false);
+				}
+			}
+		}
+		return new LinkView(this.data, index * this.numSlots, this.numSlots, link, false);
+	}
+
+	/**
+	 * Creates a consolidated copy of the data that is not affected by later updates to this object. This only copies
+	 * one array, and the copy can be read by several threads without locking.
+	 */
+	Snapshot snapshot(Network network) {
+		return withAllLocks(0, () -> {
+			long[] data = this.data;
+			boolean[] flags = this.needsConsolidation;
+			for (int index = 0; index < flags.length; index++) {
+				if (flags[index]) {
+					Link link = network.getLinks().get(Id.get(index, Link.class));
+					if (link != null) {
+						TravelTimeCalculator.consolidate(new LinkView(data, index * this.numSlots, this.numSlots, link, false), this.numSlots, this.timeSlice);
+					}
+					FLAGS.setRelease(flags, index, false);
+				}
+			}
+			return new Snapshot(data.clone(), this.numSlots);
+		});
+	}
+
+	void reset() {
+		withAllLocks(0, () -> {
+			Arrays.fill(this.data, EMPTY);
+			Arrays.fill(this.needsConsolidation, false);
+			return null;
+		});
+	}
+
+	private void ensureCapacity(int index) {
+		if (index >= this.needsConsolidation.length) {
+			// acquiring all locks while holding one of them could dead-lock, so this must happen before locking the stripe
+			withAllLocks(0, () -> {
+				boolean[] flags = this.needsConsolidation;
+				if (index >= flags.length) {
+					int linkCount = Math.max(index + 1, Math.max(Id.getNumberOfIds(Link.class), flags.length + (flags.length >> 1)));
+					long[] oldData = this.data;
+					long[] newData = Arrays.copyOf(oldData, checkedSize(linkCount, this.numSlots));
+					Arrays.fill(newData, oldData.length, newData.length, EMPTY);
+					// the length of the flags is what the capacity is checked against, so publish the data first
+					this.data = newData;
+					this.needsConsolidation = Arrays.copyOf(flags, linkCount);
+				}
+				return null;
+			});
+		}
+	}
+
+	private <T> T withAllLocks(int stripe, Supplier<T> action) {
+		if (stripe == STRIPES) {
+			return action.get();
+		}
+		synchronized (this.locks[stripe]) {
+			return withAllLocks(stripe + 1, action);
+		}
+	}
+
+	/**
+	 * Consolidated travel time data of all links, see {@link #snapshot(Network)}. It is never modified: the free speed
+	 * travel times of links without data are computed on each request instead of being remembered.
+	 */
+	static final class Snapshot {
+
+		private final long[] data;
+		private final int numSlots;
+		// for links that were created after the snapshot
+		private final long[] emptyLink;
+
+		private Snapshot(long[] data, int numSlots) {
+			this.data = data;
+			this.numSlots = numSlots;
+			this.emptyLink = new long[numSlots];
+			Arrays.fill(this.emptyLink, EMPTY);
+		}
+
+		TravelTimeData getTravelTimeData(Link link) {
+			int index = link.getId().index();
+			if (index >= this.data.length / this.numSlots) {
+				return new LinkView(this.emptyLink, 0, this.numSlots, link, true);
+			}
+			return new LinkView(this.data, index * this.numSlots, this.numSlots, link, true);
+		}
+	}
+
+	private static class LinkView extends TravelTimeData {
+
+		private final long[] data;
+		private final int offset;
+		private final int numSlots;
+		private final Link link;
+		private final boolean readOnly;
+
+		LinkView(long[] data, int offset, int numSlots, Link link, boolean readOnly) {
+			this.data = data;
+			this.offset = offset;
+			this.numSlots = numSlots;
+			this.link = link;
+			this.readOnly = readOnly;
+		}
+
+		@Override
+		public void resetTravelTimes() {
+			checkWritable();
+			for (int i = 0; i < this.numSlots; i++) {
+				DATA.setOpaque(this.data, this.offset + i, EMPTY);
+			}
+		}
+
+		@Override
+		void addTravelTime(int timeSlot, double traveltime) {
+			checkWritable();
+			TravelTimeDataSlab.addTravelTime(this.data, this.offset + timeSlot, traveltime);
+		}
+
+		@Override
+		void setTravelTime(int timeSlot, double traveltime) {
+			checkWritable();
+			DATA.setOpaque(this.data, this.offset + timeSlot, TravelTimeDataArray.encode(1, traveltime));
+		}
+
+		@Override
+		double getTravelTime(int timeSlot, double now) {
+			int i = this.offset + timeSlot;
+			long val = (long) DATA.getOpaque(this.data, i);
+			double ttime = TravelTimeDataArray.traveltime(val);
+			if (ttime >= 0.0) return ttime; // negative values are invalid.
+
+			// same as in TravelTimeDataArray, remember the freespeed travel time, unless some travel time was added in the meantime
+			double freespeed = this.link.getLength() / this.link.getFreespeed(now);
+			if (!this.readOnly) {
+				DATA.compareAndSet(this.data, i, val, TravelTimeDataArray.encode(0, freespeed));
+			}
+			return freespeed;
+		}
+
+		private void checkWritable() {
+			if (this.readOnly) {
+				throw new UnsupportedOperationException("Snapshots of the travel times cannot be modified.");
+			}
+		}
+
+		@Override
+		boolean isNeedingConsolidation() {
+			// consolidation is handled by the slab
+			return false;
+		}
+	}
+
+}
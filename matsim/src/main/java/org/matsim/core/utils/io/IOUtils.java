@@ -28,6 +28,7 @@ import org.apache.commons.compress.compressors.CompressorException;
 import org.apache.commons.compress.compressors.CompressorStreamFactory;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.matsim.utils.FeatureFlags;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
@@ -170,6 +171,8 @@ PR ist hier: https://github.com/matsim-org/matsim/pull/646
 
 	private static int zstdCompressionLevel = 6;
 
+	private static final int ZSTD_WORKERS = Math.min(4, Runtime.getRuntime().availableProcessors());
+
 	public static void setZstdCompressionLevel(int level) {
 		if (level >= 1) {
 			zstdCompressionLevel = level;
@@ -178,6 +181,15 @@ PR ist hier: https://github.com/matsim-org/matsim/pull/646
 		}
 	}
 
+	private static void setZstdWorkers(ZstdOutputStream outputStream) {
+		try {
+			outputStream.setWorkers(ZSTD_WORKERS);
+		} catch (IOException e) {
+			// the native library was built without multi-threading support
+			logger.warn("Could not use multiple threads for ZSTD compression: " + e.getMessage());
+		}
+	}
+
 	// Define a number of charsets that are / have been used.
 	public static final Charset CHARSET_UTF8 = StandardCharsets.UTF_8;
 	public static final Charset CHARSET_WINDOWS_ISO88591 = StandardCharsets.ISO_8859_1;
@@ -359,7 +371,7 @@ PR ist hier: https://github.com/matsim-org/matsim/pull/646
 			if (compression != null) {
 				switch (compression) {
 					case GZIP:
-						outputStream = new GZIPOutputStream(outputStream);
+						outputStream = FeatureFlags.useParallelCompression() ? new ParallelGzipOutputStream(outputStream) : new GZIPOutputStream(outputStream);
 						break;
 					case LZ4:
 						outputStream = new LZ4FrameOutputStream(outputStream);
@@ -368,7 +380,11 @@ PR ist hier: https://github.com/matsim-org/matsim/pull/646
 						outputStream = new CompressorStreamFactory().createCompressorOutputStream(CompressorStreamFactory.BZIP2, outputStream);
 						break;
 					case ZSTD:
-						outputStream = new ZstdOutputStream(outputStream, zstdCompressionLevel);
+						ZstdOutputStream zstdOutputStream = new ZstdOutputStream(outputStream, zstdCompressionLevel);
+						if (FeatureFlags.useParallelCompression()) {
+							setZstdWorkers(zstdOutputStream);
+						}
+						outputStream = zstdOutputStream;
 						break;
 				}
 			}
@@ -0,0 +1,179 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A gzip output stream that compresses the data in blocks on several threads.
+ *
+ * <p>Each block of {@value #BLOCK_SIZE} bytes is compressed as a separate gzip member, and the members are written
+ * to the underlying stream in order. Such multi-member files are part of the gzip specification and can be read by
+ * {@link java.util.zip.GZIPInputStream} and the usual command line tools. Compressing every block on its own
+ * makes the files slightly larger than with {@link GZIPOutputStream}.</p>
+ *
+ * <p>Files smaller than one block are compressed on the calling thread and result in a single member.</p>
+ *
+ * <p>{@link IOUtils} only uses this stream if {@link org.matsim.utils.FeatureFlags#useParallelCompression()} is
+ * set.</p>
+ */
+final class ParallelGzipOutputStream extends OutputStream {
+
+	static final int BLOCK_SIZE = 1 << 20;
+
+	private static final int THREADS = Math.min(8, Runtime.getRuntime().availableProcessors());
+
+	/** limits the memory used by a single stream if the compression cannot keep up with the writer */
+	private static final int MAX_PENDING_BLOCKS = 2 * THREADS;
+
+	private final OutputStream out;
+	private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+	private byte[] buffer = null;
+	private int count = 0;
+	private boolean submittedBlocks = false;
+	private boolean closed = false;
+
+	ParallelGzipOutputStream(OutputStream out) {
+		this.out = out;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		ensureBuffer();
+		this.buffer[this.count++] = (byte) b;
+		if (this.count == BLOCK_SIZE) {
+			submitBlock();
+		}
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			ensureBuffer();
+			int n = Math.min(len, BLOCK_SIZE - this.count);
+			System.arraycopy(b, off, this.buffer, this.count, n);
+			this.count += n;
+			off += n;
+			len -= n;
+			if (this.count == BLOCK_SIZE) {
+				submitBlock();
+			}
+		}
+	}
+
+	/**
+	 * Writes all blocks that are already compressed. Like {@link GZIPOutputStream}, this does not force the
+	 * compression of data that does not yet fill a block.
+	 */
+	@Override
+	public void flush() throws IOException {
+		while (!this.pending.isEmpty() && this.pending.peekFirst().isDone()) {
+			writeNextBlock();
+		}
+		this.out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		try {
+			if (!this.submittedBlocks) {
+				// small file, no need to involve other threads
+				this.out.write(compress(this.buffer, this.count));
+			} else {
+				if (this.count > 0) {
+					submitBlock();
+				}
+				while (!this.pending.isEmpty()) {
+					writeNextBlock();
+				}
+			}
+		} finally {
+			this.pending.forEach(f -> f.cancel(false));
+			this.buffer = null;
+			this.out.close();
+		}
+	}
+
+	private void ensureBuffer() throws IOException {
+		if (this.closed) {
+			throw new IOException("Stream closed");
+		}
+		if (this.buffer == null) {
+			this.buffer = new byte[BLOCK_SIZE];
+		}
+	}
+
+	private void submitBlock() throws IOException {
+		byte[] block = this.buffer;
+		int length = this.count;
+		this.buffer = null;
+		this.count = 0;
+		this.submittedBlocks = true;
+		this.pending.addLast(Compressor.EXECUTOR.submit(() -> compress(block, length)));
+		while (this.pending.size() > MAX_PENDING_BLOCKS) {
+			writeNextBlock();
+		}
+	}
+
+	private void writeNextBlock() throws IOException {
+		Future<byte[]> next = this.pending.removeFirst();
+		try {
+			this.out.write(next.get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		}
+	}
+
+	private static byte[] compress(byte[] block, int length) throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 4 + 64);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(compressed, 8192)) {
+			if (length > 0) {
+				gzip.write(block, 0, length);
+			}
+		}
+		return compressed.toByteArray();
+	}
+
+	/** Holder class, so the threads are only started when the first large file is written. */
+	private static final class Compressor {
+		private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(THREADS, r -> {
+			Thread thread = new Thread(r, "gzip-compressor");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+}
@@ -26,4 +26,16 @@ public abstract class FeatureFlags {
 		return true; // default fallback
 	}
 
+	/**
+	 * Compresses large gzip and zstd output files on multiple threads. gzip files are then written as multi-member gzip
+	 * files, which some tools cannot read completely. Opt-in, as the compression threads are shared by the whole JVM.
+	 */
+	public static boolean useParallelCompression() {
+		String property = System.getProperty("matsim.useParallelCompression");
+		if (property != null) {
+			return Boolean.parseBoolean(property);
+		}
+		return false; // default fallback
+	}
+
 }
@@ -134,6 +134,53 @@ import java.util.List;
 		Assertions.assertEquals(countBefore, countAfter, "The number of created Ids should not have changed.");
 	}
 
+	 @Test
+	 void testCreateAll() {
+		Id<TLink> existing = Id.create("b", TLink.class);
+		int countBefore = Id.getNumberOfIds(TLink.class);
+
+		List<Id<TLink>> ids = Id.createAll(List.of("a", "b", "c", "a"), TLink.class);
+
+		Assertions.assertEquals(4, ids.size());
+		Assertions.assertSame(existing, ids.get(1));
+		Assertions.assertSame(ids.get(0), ids.get(3));
+		Assertions.assertSame(ids.get(0), Id.create("a", TLink.class));
+		Assertions.assertEquals(countBefore + 2, Id.getNumberOfIds(TLink.class));
+		Assertions.assertEquals(countBefore, ids.get(0).index());
+		Assertions.assertEquals(countBefore + 1, ids.get(2).index());
+	}
+
+	 @Test
+	 void testManyIds_concurrently() throws InterruptedException {
+		int count = 50000;
+		Thread[] threads = new Thread[4];
+		List<Throwable> caughtExceptions = new ArrayList<>();
+		for (int t = 0; t < threads.length; t++) {
+			int offset = t;
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < count; i++) {
+					// every thread creates the same ids, but in a different order
+					String key = "id" + ((i * (offset + 1)) % count);
+					Id<TNode> id = Id.create(key, TNode.class);
+					Assertions.assertEquals(key, id.toString());
+					Assertions.assertSame(id, Id.get(id.index(), TNode.class));
+				}
+			});
+			threads[t].setUncaughtExceptionHandler((th, e) -> caughtExceptions.add(e));
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		Assertions.assertTrue(caughtExceptions.isEmpty(), "exceptions: " + caughtExceptions);
+
+		for (int i = 0; i < count; i++) {
+			Id<TNode> id = Id.get("id" + i, TNode.class);
+			Assertions.assertNotNull(id);
+			Assertions.assertSame(id, Id.get(id.index(), TNode.class));
+		}
+	}
+
 	private static class TLink {}
 	private static class TNode {}
 
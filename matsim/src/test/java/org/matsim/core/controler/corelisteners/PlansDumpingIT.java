@@ -21,12 +21,15 @@ package org.matsim.core.controler.corelisteners;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.matsim.api.core.v01.population.Population;
 import org.matsim.core.config.Config;
 import org.matsim.core.controler.Controler;
+import org.matsim.core.population.PopulationUtils;
 import org.matsim.testcases.MatsimTestUtils;
 
 import java.io.File;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -108,4 +111,23 @@ public class PlansDumpingIT {
 		assertTrue(new File(c.getControlerIO().getIterationFilename(9, "plans.xml.gz")).exists());
 		assertTrue(new File(c.getControlerIO().getIterationFilename(10, "plans.xml.gz")).exists());
 	}
+
+	@Test
+	void testPlansDump_Background() {
+		Config config = this.util.loadConfig("test/scenarios/equil/config_plans1.xml");
+		config.controller().setLastIteration(4);
+		config.controller().setWritePlansInterval(1);
+		config.controller().setWritePlansInBackground(true);
+		Controler c = new Controler(config);
+		c.getConfig().controller().setWriteEventsInterval(0);
+		c.getConfig().controller().setCreateGraphs(false);
+
+		c.run();
+
+		for (int i = 0; i <= 4; i++) {
+			String filename = c.getControlerIO().getIterationFilename(i, "plans.xml.gz");
+			Population population = PopulationUtils.readPopulation(filename);
+			assertEquals(c.getScenario().getPopulation().getPersons().size(), population.getPersons().size(), filename);
+		}
+	}
 }
@@ -0,0 +1,156 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.GenericEvent;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.events.PersonMoneyEvent;
+import org.matsim.api.core.v01.events.PersonStuckEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.groups.ControllerConfigGroup;
+import org.matsim.core.events.algorithms.EventWriterBinary;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.vehicles.Vehicle;
+
+public class EventsReaderBinaryTest {
+
+	@RegisterExtension
+	private MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	void testWriteRead_allEventTypes() {
+		Id<Person> person = Id.createPersonId("p1");
+		Id<Link> link = Id.createLinkId("12");
+		Id<Vehicle> vehicle = Id.createVehicleId("v1");
+		List<Event> original = new ArrayList<>();
+		original.add(new ActivityEndEvent(21600.0, person, link, Id.create("f1", ActivityFacility.class), "home", new Coord(1.5, -2.25)));
+		original.add(new PersonDepartureEvent(21600.0, person, link, TransportMode.car, TransportMode.car));
+		original.add(new PersonEntersVehicleEvent(21600.0, person, vehicle));
+		original.add(new VehicleEntersTrafficEvent(21600.0, person, link, vehicle, TransportMode.car, 1.0));
+		original.add(new LinkLeaveEvent(21601.0, vehicle, link));
+		original.add(new LinkEnterEvent(21601.0, vehicle, Id.createLinkId("13")));
+		original.add(new VehicleLeavesTrafficEvent(21700.0, person, Id.createLinkId("13"), vehicle, TransportMode.car, 0.75));
+		original.add(new PersonLeavesVehicleEvent(21700.0, person, vehicle));
+		original.add(new PersonArrivalEvent(21700.0, person, Id.createLinkId("13"), TransportMode.car));
+		original.add(new ActivityStartEvent(21700.0, person, Id.createLinkId("13"), null, "work", null));
+		original.add(new PersonMoneyEvent(21800.0, person, -3.5, "toll", "operator", null));
+		original.add(new PersonStuckEvent(21900.0, person, null, TransportMode.walk));
+		GenericEvent generic = new GenericEvent("myEvent", 22000.5);
+		generic.getAttributes().put("name", "something");
+		generic.getAttributes().put("value", "0.125");
+		generic.getAttributes().put("count", "7");
+		original.add(generic);
+
+		String filename = utils.getOutputDirectory() + "events.bin";
+		EventWriterBinary writer = new EventWriterBinary(filename);
+		original.forEach(writer::handleEvent);
+		writer.closeFile();
+
+		List<Event> read = readEvents(filename);
+		assertEquals(original.size(), read.size());
+		for (int i = 0; i < original.size(); i++) {
+			assertEquals(original.get(i).getClass(), read.get(i).getClass());
+			assertEquals(original.get(i).getAttributes(), read.get(i).getAttributes());
+		}
+	}
+
+	@Test
+	void testReadTimeWindow() {
+		String filename = utils.getOutputDirectory() + "events.bin";
+		EventWriterBinary writer = new EventWriterBinary(filename);
+		int count = 3 * EventsReaderBinary.BLOCK_SIZE + 17;
+		for (int i = 0; i < count; i++) {
+			writer.handleEvent(new LinkEnterEvent(i, Id.createVehicleId(i % 100), Id.createLinkId(i % 1000)));
+		}
+		writer.closeFile();
+
+		assertEquals(count, readEvents(filename).size());
+
+		List<Event> events = new ArrayList<>();
+		EventsManager manager = EventsUtils.createEventsManager();
+		manager.addHandler((BasicEventHandler) events::add);
+		manager.initProcessing();
+		EventsUtils.readEvents(manager, filename, 20000, 40000);
+		manager.finishProcessing();
+
+		assertEquals(20000, events.size());
+		assertEquals(20000, events.get(0).getTime(), 0.0);
+		assertEquals(39999, events.get(events.size() - 1).getTime(), 0.0);
+		for (Event event : events) {
+			LinkEnterEvent e = (LinkEnterEvent) event;
+			assertTrue(e.getTime() >= 20000 && e.getTime() < 40000);
+			assertEquals(Id.createLinkId((int) e.getTime() % 1000), e.getLinkId());
+		}
+	}
+
+	@Test
+	void testReadStreamIsRejected() {
+		EventsManager manager = EventsUtils.createEventsManager();
+		assertThrows(IllegalArgumentException.class, () -> new MatsimEventsReader(manager)
+				.readStream(new ByteArrayInputStream(new byte[0]), ControllerConfigGroup.EventsFileFormat.bin));
+	}
+
+	@Test
+	void testReadRemoteUrlIsRejected() throws MalformedURLException {
+		EventsManager manager = EventsUtils.createEventsManager();
+		URL url = new URL("http://localhost/events.bin");
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> new MatsimEventsReader(manager).readURL(url));
+		assertTrue(e.getMessage().startsWith("Binary events cannot be read from a stream"));
+	}
+
+	private static List<Event> readEvents(String filename) {
+		List<Event> events = new ArrayList<>();
+		EventsManager manager = EventsUtils.createEventsManager();
+		manager.addHandler((BasicEventHandler) events::add);
+		manager.initProcessing();
+		EventsUtils.readEvents(manager, filename);
+		manager.finishProcessing();
+		return events;
+	}
+
+}
@@ -0,0 +1,154 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonStuckEvent;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
+import org.matsim.api.core.v01.events.handler.LinkLeaveEventHandler;
+import org.matsim.api.core.v01.events.handler.PersonStuckEventHandler;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.controler.Injector;
+
+public class TypeIndexedParallelEventsManagerTest {
+
+	@Test
+	void testEventsAreOnlyDeliveredToInterestedHandlersInOrder() {
+		TypeIndexedParallelEventsManager events = new TypeIndexedParallelEventsManager(3, 2048);
+		EnterCollector enters = new EnterCollector();
+		LeaveCollector leaves = new LeaveCollector();
+		events.addHandler(enters);
+		events.addHandler(leaves);
+
+		assertTrue(events.hasHandlerFor(LinkEnterEvent.class));
+		assertFalse(events.hasHandlerFor(PersonStuckEvent.class));
+
+		int count = 50_000;
+		events.initProcessing();
+		for (int i = 0; i < count; i++) {
+			events.processEvent(new LinkEnterEvent(i, Id.createVehicleId(0), Id.createLinkId(0)));
+			events.processEvent(new LinkLeaveEvent(i, Id.createVehicleId(0), Id.createLinkId(0)));
+			events.processEvent(new PersonStuckEvent(i, Id.createPersonId(0), Id.createLinkId(0), "car"));
+			if (i % 100 == 99) {
+				events.afterSimStep(i);
+			}
+		}
+		events.finishProcessing();
+
+		assertEquals(count, enters.times.size());
+		assertEquals(count, leaves.times.size());
+		for (int i = 0; i < count; i++) {
+			assertEquals(i, enters.times.get(i), 0.0);
+			assertEquals(i, leaves.times.get(i), 0.0);
+		}
+	}
+
+	@Test
+	void testEventHandlerCanProduceAdditionalEvents() {
+		TypeIndexedParallelEventsManager events = new TypeIndexedParallelEventsManager(2);
+		events.addHandler((LinkEnterEventHandler) event ->
+				events.processEvent(new PersonStuckEvent(event.getTime(), Id.createPersonId(0), Id.createLinkId(0), "car")));
+		List<Double> stuckTimes = new ArrayList<>();
+		events.addHandler((PersonStuckEventHandler) event -> stuckTimes.add(event.getTime()));
+
+		events.initProcessing();
+		for (int i = 0; i < 5000; i++) {
+			events.processEvent(new LinkEnterEvent(i, Id.createVehicleId(0), Id.createLinkId(0)));
+		}
+		events.finishProcessing();
+
+		assertEquals(5000, stuckTimes.size());
+		for (int i = 0; i < 5000; i++) {
+			assertEquals(i, stuckTimes.get(i), 0.0);
+		}
+	}
+
+	@Test
+	void testHandlerAddedLaterReceivesEvents() {
+		TypeIndexedParallelEventsManager events = new TypeIndexedParallelEventsManager(2);
+		EnterCollector enters = new EnterCollector();
+		events.addHandler(enters);
+		events.initProcessing();
+		events.processEvent(new LinkLeaveEvent(0.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.finishProcessing();
+
+		LeaveCollector leaves = new LeaveCollector();
+		events.addHandler(leaves);
+		events.initProcessing();
+		events.processEvent(new LinkLeaveEvent(1.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.finishProcessing();
+
+		assertEquals(List.of(1.0), leaves.times);
+		assertTrue(enters.times.isEmpty());
+	}
+
+	@Test
+	void testExceptionInHandlerIsRethrown() {
+		TypeIndexedParallelEventsManager events = new TypeIndexedParallelEventsManager(2);
+		events.addHandler((LinkEnterEventHandler) event -> {
+			throw new IllegalStateException("test");
+		});
+		events.initProcessing();
+		events.processEvent(new LinkEnterEvent(0.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		RuntimeException e = assertThrows(RuntimeException.class, events::finishProcessing);
+		assertTrue(e.getCause() instanceof IllegalStateException);
+	}
+
+	@Test
+	void testIsOnlyBoundIfEnabled() {
+		Config config = ConfigUtils.createConfig();
+		config.eventsManager().setNumberOfThreads(2);
+		config.eventsManager().setSynchronizeOnSimSteps(false);
+		assertTrue(Injector.createInjector(config, new EventsManagerModule()).getInstance(EventsManager.class) instanceof ParallelEventsManagerImpl);
+
+		config.eventsManager().setDispatchByEventType(true);
+		assertTrue(Injector.createInjector(config, new EventsManagerModule()).getInstance(EventsManager.class) instanceof TypeIndexedParallelEventsManager);
+	}
+
+	private static class EnterCollector implements LinkEnterEventHandler {
+		final List<Double> times = new ArrayList<>();
+
+		@Override
+		public void handleEvent(LinkEnterEvent event) {
+			this.times.add(event.getTime());
+		}
+	}
+
+	private static class LeaveCollector implements LinkLeaveEventHandler {
+		final List<Double> times = new ArrayList<>();
+
+		@Override
+		public void handleEvent(LinkLeaveEvent event) {
+			this.times.add(event.getTime());
+		}
+	}
+}
@@ -0,0 +1,91 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2014 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+package org.matsim.core.mobsim.hermes;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.api.experimental.events.TeleportationArrivalEvent;
+import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+import org.matsim.vehicles.Vehicle;
+
+public class CompactEventArrayTest {
+
+	@Test
+	void testEventsAreRecreated() {
+		Id<Person> person = Id.createPersonId("p1");
+		Id<Link> link = Id.createLinkId("l1");
+		Id<Vehicle> vehicle = Id.createVehicleId("v1");
+		Id<TransitStopFacility> stop = Id.create("s1", TransitStopFacility.class);
+		Coord coord = new Coord(10, 20);
+
+		CompactEventArray events = new CompactEventArray();
+		events.addActivityEnd(person, link, null, "home", coord);
+		events.addPersonDeparture(person, link, TransportMode.car, TransportMode.car);
+		events.addLinkEnter(vehicle, link);
+		events.addTeleportationArrival(person, 1234.5, TransportMode.walk);
+		events.addVehicleArrivesAtFacility(vehicle, stop, 100.0);
+
+		Assertions.assertEquals(5, events.size());
+		Assertions.assertEquals(new ActivityEndEvent(10, person, link, null, "home", coord).toString(), events.toEvent(0, 10).toString());
+		Assertions.assertEquals(new PersonDepartureEvent(11, person, link, TransportMode.car, TransportMode.car).toString(), events.toEvent(1, 11).toString());
+		Assertions.assertEquals(new LinkEnterEvent(12, vehicle, link).toString(), events.toEvent(2, 12).toString());
+		Assertions.assertEquals(new TeleportationArrivalEvent(13, person, 1234.5, TransportMode.walk).toString(), events.toEvent(3, 13).toString());
+		// the delay is the difference between the actual and the scheduled time
+		Assertions.assertEquals(30.0, ((VehicleArrivesAtFacilityEvent) events.toEvent(4, 130)).getDelay(), 0.0);
+	}
+
+	@Test
+	void testSetVehicle() {
+		Id<Person> person = Id.createPersonId("p1");
+		Id<Vehicle> placeholder = Id.createVehicleId("tr_X");
+		Id<Vehicle> bus = Id.createVehicleId("bus");
+
+		CompactEventArray events = new CompactEventArray();
+		events.addPersonEntersVehicle(person, placeholder);
+		events.addLinkEnter(bus, Id.createLinkId("l1"));
+		events.setVehicle(0, bus.index());
+
+		Assertions.assertEquals(bus, ((PersonEntersVehicleEvent) events.toEvent(0, 5)).getVehicleId());
+		Assertions.assertThrows(RuntimeException.class, () -> events.setVehicle(1, bus.index()));
+	}
+
+	@Test
+	void testHandledTypes() {
+		EventsManager eventsManager = EventsUtils.createEventsManager();
+		eventsManager.addHandler((LinkEnterEventHandler) event -> {});
+
+		boolean[] handled = CompactEventArray.getHandledTypes(eventsManager);
+		Assertions.assertTrue(handled[CompactEventArray.LINK_ENTER]);
+		Assertions.assertFalse(handled[CompactEventArray.LINK_LEAVE]);
+		Assertions.assertFalse(handled[CompactEventArray.ACTIVITY_END]);
+	}
+}
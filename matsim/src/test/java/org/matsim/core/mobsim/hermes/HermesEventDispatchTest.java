@@ -0,0 +1,60 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2014 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+package org.matsim.core.mobsim.hermes;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.events.Event;
+
+/**
+ * Tests that the events of Hermes do not depend on how often they are handed to the event dispatcher thread.
+ */
+public class HermesEventDispatchTest {
+
+	@BeforeEach
+	public void prepareTest() {
+		Id.resetCaches();
+		ScenarioImporter.flush();
+		HermesConfigGroup.SIM_STEPS = 30 * 60 * 60;
+	}
+
+	@Test
+	void testSameEventsForDifferentIntervals() {
+		List<Event> hourly = HermesPartitioningTest.run(HermesPartitioningTest.createScenario(1, 500, 600));
+
+		ScenarioImporter.flush();
+		Scenario scenario = HermesPartitioningTest.createScenario(1, 500, 600);
+		scenario.getConfig().hermes().setEventsProcessingInterval(7);
+		List<Event> frequent = HermesPartitioningTest.run(scenario);
+
+		Assertions.assertFalse(hourly.isEmpty());
+		Assertions.assertEquals(hourly.size(), frequent.size());
+		for (int i = 0; i < hourly.size(); i++) {
+			Assertions.assertEquals(hourly.get(i).toString(), frequent.get(i).toString());
+		}
+		for (int i = 1; i < frequent.size(); i++) {
+			Assertions.assertTrue(frequent.get(i - 1).getTime() <= frequent.get(i).getTime(), "events are not sorted by time");
+		}
+	}
+}
@@ -0,0 +1,216 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2014 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+package org.matsim.core.mobsim.hermes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.controler.PrepareForSimUtils;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.router.TripStructureUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.testcases.utils.EventsCollector;
+
+/**
+ * Tests that Hermes produces the same results if the network is split into several partitions.
+ */
+public class HermesPartitioningTest {
+
+	private static final int GRID_SIZE = 12;
+
+	@BeforeEach
+	public void prepareTest() {
+		Id.resetCaches();
+		ScenarioImporter.flush();
+		HermesConfigGroup.SIM_STEPS = 30 * 60 * 60;
+	}
+
+	@Test
+	void testPartitionsCoverNetwork() {
+		Scenario scenario = createScenario(1, 100, 10000);
+		ScenarioImporter si = ScenarioImporter.instance(scenario, EventsUtils.createEventsManager());
+		HermesPartitioning partitioning = HermesPartitioning.create(4, scenario.getNetwork(), null, si.hermesLinks, si.hermesAgents);
+
+		int[] linksPerPartition = new int[4];
+		for (Link link : scenario.getNetwork().getLinks().values()) {
+			linksPerPartition[partitioning.getPartitionOfLink(link.getId().index())]++;
+		}
+		for (int links : linksPerPartition) {
+			Assertions.assertTrue(links > 0, "every partition should get some links");
+		}
+	}
+
+	/**
+	 * Without congestion, the order in which the partitions move agents does not matter, so all agents must
+	 * arrive at exactly the same time as in the single-threaded simulation.
+	 */
+	@Test
+	void testSameArrivalsWithoutCongestion() {
+		List<Event> reference = arrivals(run(createScenario(1, 200, 10000)));
+		ScenarioImporter.flush();
+		List<Event> partitioned = arrivals(run(createScenario(4, 200, 10000)));
+
+		Assertions.assertEquals(200, reference.size());
+		Assertions.assertEquals(toStrings(reference), toStrings(partitioned));
+	}
+
+	/**
+	 * With congestion, agents are handed over between partitions in every time step. The result must still
+	 * be the same for every run.
+	 */
+	@Test
+	void testDeterministicWithCongestion() {
+		List<Event> first = run(createScenario(3, 2000, 300));
+		ScenarioImporter.flush();
+		List<Event> second = run(createScenario(3, 2000, 300));
+
+		Assertions.assertEquals(2000, arrivals(first).size());
+		Assertions.assertEquals(toStrings(first), toStrings(second));
+	}
+
+	static List<Event> run(Scenario scenario) {
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		PrepareForSimUtils.createDefaultPrepareForSim(scenario).run();
+		new HermesBuilder().build(scenario, events).run();
+		return new ArrayList<>(collector.getEvents());
+	}
+
+	private static List<Event> arrivals(List<Event> events) {
+		List<Event> arrivals = new ArrayList<>();
+		for (Event event : events) {
+			if (event instanceof PersonArrivalEvent) {
+				arrivals.add(event);
+			}
+		}
+		arrivals.sort((a, b) -> ((PersonArrivalEvent) a).getPersonId().toString().compareTo(((PersonArrivalEvent) b).getPersonId().toString()));
+		return arrivals;
+	}
+
+	private static List<String> toStrings(List<Event> events) {
+		List<String> strings = new ArrayList<>(events.size());
+		for (Event event : events) {
+			strings.add(event.toString());
+		}
+		return strings;
+	}
+
+	static Scenario createScenario(int partitions, int agents, double capacity) {
+		Config config = ConfigUtils.createConfig();
+		config.hermes().setNumberOfPartitions(partitions);
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		Network network = scenario.getNetwork();
+
+		Node[][] nodes = new Node[GRID_SIZE][GRID_SIZE];
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				nodes[x][y] = NetworkUtils.createAndAddNode(network, Id.createNodeId(x + "_" + y), new Coord(x * 100, y * 100));
+			}
+		}
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				if (x + 1 < GRID_SIZE) {
+					addLink(network, nodes[x][y], nodes[x + 1][y], capacity);
+					addLink(network, nodes[x + 1][y], nodes[x][y], capacity);
+				}
+				if (y + 1 < GRID_SIZE) {
+					addLink(network, nodes[x][y], nodes[x][y + 1], capacity);
+					addLink(network, nodes[x][y + 1], nodes[x][y], capacity);
+				}
+			}
+		}
+
+		// agents drive an L-shaped route between random nodes, which crosses the partition borders
+		PopulationFactory pf = scenario.getPopulation().getFactory();
+		Random random = new Random(4711);
+		for (int i = 0; i < agents; i++) {
+			int x0 = random.nextInt(GRID_SIZE - 2) + 1;
+			int y0 = random.nextInt(GRID_SIZE - 2) + 1;
+			int x1 = random.nextInt(GRID_SIZE - 2) + 1;
+			int y1 = random.nextInt(GRID_SIZE - 2) + 1;
+			if (x0 == x1) {
+				x1 = x0 == 1 ? GRID_SIZE - 2 : 1;
+			}
+
+			List<Node> path = new ArrayList<>();
+			path.add(nodes[x0 - 1][y0]);
+			for (int x = x0; x != x1; x += Integer.signum(x1 - x0)) {
+				path.add(nodes[x][y0]);
+			}
+			for (int y = y0; y != y1; y += Integer.signum(y1 - y0)) {
+				path.add(nodes[x1][y]);
+			}
+			path.add(nodes[x1][y1]);
+			path.add(nodes[x1 + 1][y1]);
+
+			List<Id<Link>> linkIds = new ArrayList<>();
+			for (int j = 1; j < path.size(); j++) {
+				linkIds.add(linkId(path.get(j - 1), path.get(j)));
+			}
+
+			Person person = pf.createPerson(Id.createPersonId(i));
+			Plan plan = pf.createPlan();
+			Activity home = pf.createActivityFromLinkId("h", linkIds.get(0));
+			home.setEndTime(6 * 3600 + random.nextInt(600));
+			plan.addActivity(home);
+			Leg leg = pf.createLeg(TransportMode.car);
+			TripStructureUtils.setRoutingMode(leg, TransportMode.car);
+			NetworkRoute route = RouteUtils.createLinkNetworkRouteImpl(linkIds.get(0), linkIds.subList(1, linkIds.size() - 1), linkIds.get(linkIds.size() - 1));
+			leg.setRoute(route);
+			plan.addLeg(leg);
+			plan.addActivity(pf.createActivityFromLinkId("w", linkIds.get(linkIds.size() - 1)));
+			person.addPlan(plan);
+			scenario.getPopulation().addPerson(person);
+		}
+		return scenario;
+	}
+
+	private static void addLink(Network network, Node from, Node to, double capacity) {
+		NetworkUtils.createAndAddLink(network, linkId(from, to), from, to, 100, 10, capacity, 1);
+	}
+
+	private static Id<Link> linkId(Node from, Node to) {
+		return Id.createLinkId(from.getId() + "-" + to.getId());
+	}
+}
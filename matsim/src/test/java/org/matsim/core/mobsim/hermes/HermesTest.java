@@ -77,6 +77,7 @@ import org.matsim.core.utils.misc.Time;
 import org.matsim.testcases.MatsimTestUtils;
 import org.matsim.testcases.utils.EventsCollector;
 import org.matsim.testcases.utils.LogCounter;
+import org.matsim.vehicles.VehicleUtils;
 
 public class HermesTest {
 
@@ -148,6 +149,40 @@ public class HermesTest {
 		Assertions.assertEquals(6.0*3600 + 11, collector.events.get(1).getTime(), MatsimTestUtils.EPSILON, "wrong time in second event.");
 	}
 
+	/**
+	 * Legs without a routing mode are valid input if prepareForSim does not run, so their departure events
+	 * need to be created with a <code>null</code> routing mode.
+	 */
+	@Test
+	void testSingleAgentWithoutRoutingMode() {
+		Fixture f = new Fixture();
+		f.scenario.getVehicles().addVehicleType(VehicleUtils.createDefaultVehicleType());
+
+		Person person = PopulationUtils.getFactory().createPerson(Id.create(0, Person.class));
+		Plan plan = PersonUtils.createAndAddPlan(person, true);
+		Activity a1 = PopulationUtils.createAndAddActivityFromLinkId(plan, "h", f.link1.getId());
+		a1.setEndTime(6*3600);
+		Leg leg = PopulationUtils.createAndAddLeg( plan, TransportMode.car );
+		NetworkRoute route = f.scenario.getPopulation().getFactory().getRouteFactories().createRoute(NetworkRoute.class, f.link1.getId(), f.link3.getId());
+		route.setLinkIds(f.link1.getId(), f.linkIds2, f.link3.getId());
+		leg.setRoute(route);
+		PopulationUtils.createAndAddActivityFromLinkId(plan, "w", f.link3.getId());
+		f.plans.addPerson(person);
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+
+		Hermes sim = createHermes(f.scenario, events, false);
+		sim.run();
+
+		List<PersonDepartureEvent> departures = collector.getEvents().stream()
+				.filter(PersonDepartureEvent.class::isInstance).map(PersonDepartureEvent.class::cast).toList();
+		Assertions.assertEquals(1, departures.size(), "wrong number of departure events.");
+		Assertions.assertEquals(6.0*3600, departures.get(0).getTime(), MatsimTestUtils.EPSILON, "wrong departure time.");
+		Assertions.assertNull(departures.get(0).getRoutingMode(), "the routing mode should not be set.");
+	}
+
 
 	/**
 	 * This test is mostly useful for manual debugging, because only a single agent is simulated
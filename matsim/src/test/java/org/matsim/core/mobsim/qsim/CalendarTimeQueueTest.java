@@ -0,0 +1,100 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.matsim.core.config.groups.QSimConfigGroup.WakeupQueueType;
+
+public class CalendarTimeQueueTest {
+
+	private static final Comparator<Integer> LARGER_FIRST = Comparator.reverseOrder();
+
+	@Test
+	void testSameOrderAsPriorityQueue() {
+		Random random = new Random(20240301);
+		TimeQueue<Integer> expected = TimeQueue.create(WakeupQueueType.priorityQueue, LARGER_FIRST);
+		TimeQueue<Integer> actual = TimeQueue.create(WakeupQueueType.calendarQueue, LARGER_FIRST);
+
+		// items are compared by identity, so each item is boxed only once
+		int nextItem = 0;
+		// initial population, some of them before the start time and some far in the future
+		for (int i = 0; i < 5000; i++) {
+			double time = randomTime(random, 0);
+			Integer newItem = nextItem++;
+			expected.add(time, newItem);
+			actual.add(time, newItem);
+		}
+
+		List<Integer> removable = new ArrayList<>();
+		for (double now = 0; now < 2 * 86400; now += (random.nextBoolean() ? 1.0 : 0.5)) {
+			Integer item;
+			while ((item = expected.pollDue(now)) != null) {
+				Assertions.assertSame(item, actual.pollDue(now), "at time " + now);
+				removable.remove(item);
+				if (random.nextInt(4) == 0) {
+					// re-add some items, also with times in the past and at the current time
+					double time = random.nextInt(10) == 0 ? now - random.nextInt(100) : randomTime(random, now);
+					Integer newItem = nextItem++;
+					expected.add(time, newItem);
+					actual.add(time, newItem);
+					removable.add(newItem);
+				}
+			}
+			Assertions.assertNull(actual.pollDue(now), "at time " + now);
+			if (!removable.isEmpty() && random.nextInt(200) == 0) {
+				Integer toRemove = removable.remove(random.nextInt(removable.size()));
+				Assertions.assertTrue(expected.remove(toRemove), "at time " + now);
+				Assertions.assertTrue(actual.remove(toRemove), "at time " + now);
+			}
+			if (now > 40000 && random.nextInt(100) == 0) {
+				// jump over some time
+				now += random.nextInt(10000);
+			}
+		}
+
+		List<Integer> expectedRemaining = new ArrayList<>();
+		List<Integer> actualRemaining = new ArrayList<>();
+		expected.forEach((i, time) -> expectedRemaining.add(i));
+		actual.forEach((i, time) -> actualRemaining.add(i));
+		expectedRemaining.sort(null);
+		actualRemaining.sort(null);
+		Assertions.assertEquals(expectedRemaining, actualRemaining);
+		Assertions.assertFalse(actual.isEmpty());
+		actual.clear();
+		Assertions.assertTrue(actual.isEmpty());
+		Assertions.assertNull(actual.pollDue(Double.MAX_VALUE));
+	}
+
+	private static double randomTime(Random random, double now) {
+		return switch (random.nextInt(20)) {
+			case 0 -> Double.POSITIVE_INFINITY;
+			case 1 -> now + 100000 + random.nextInt(200000); // beyond the wheel of the calendar queue
+			case 2 -> now + random.nextInt(1000) + 0.25; // not at a full second
+			default -> now + random.nextInt(30000); // many items at the same time
+		};
+	}
+
+}
@@ -32,6 +32,7 @@ import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.matsim.analysis.VolumesAnalyzer;
 import org.matsim.api.core.v01.Coord;
@@ -66,6 +67,7 @@ import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.config.groups.QSimConfigGroup;
 import org.matsim.core.config.groups.QSimConfigGroup.TrafficDynamics;
+import org.matsim.core.config.groups.QSimConfigGroup.WakeupQueueType;
 import org.matsim.core.config.groups.RoutingConfigGroup;
 import org.matsim.core.controler.PrepareForSimUtils;
 import org.matsim.core.events.EventsUtils;
@@ -321,6 +323,54 @@ public class QSimTest {
 		Assertions.assertEquals(6.0*3600 + 15, allEvents.get(3).getTime(), MatsimTestUtils.EPSILON, "wrong time in event.");
 	}
 
+	/**
+	 * Agents whose activity ends and teleportation arrivals are spread over more than a day (and thus over more than
+	 * the ring of the calendar queue) must produce the same events with both wakeup queue types.
+	 */
+	@ParameterizedTest
+	@MethodSource("arguments")
+	void testCalendarWakeupQueue(boolean isUsingFastCapacityUpdate, int numberOfThreads) {
+		List<Event> expected = runTeleportedAgents(isUsingFastCapacityUpdate, numberOfThreads, WakeupQueueType.priorityQueue);
+		List<Event> actual = runTeleportedAgents(isUsingFastCapacityUpdate, numberOfThreads, WakeupQueueType.calendarQueue);
+
+		Assertions.assertEquals(50 * 10, expected.size(), "wrong number of events.");
+		Assertions.assertEquals(expected, actual);
+	}
+
+	private static List<Event> runTeleportedAgents(boolean isUsingFastCapacityUpdate, int numberOfThreads, WakeupQueueType wakeupQueueType) {
+		Fixture f = new Fixture(isUsingFastCapacityUpdate, numberOfThreads);
+		f.config.qsim().setWakeupQueueType(wakeupQueueType);
+
+		for (int i = 0; i < 50; i++) {
+			Person person = PopulationUtils.getFactory().createPerson(Id.create(i, Person.class));
+			Plan plan = PersonUtils.createAndAddPlan(person, true);
+			// some agents end their activities at the same time, some at the start, some not at a full second
+			double endTime = i % 5 == 0 ? 6 * 3600 : (i % 7 == 0 ? 0 : i * 1811.5);
+			PopulationUtils.createAndAddActivityFromLinkId(plan, "h", f.link1.getId()).setEndTime(endTime);
+			addTeleportedLeg(f, plan, f.link1, f.link3, 15 + i * 37);
+			// some agents stay until the next day
+			PopulationUtils.createAndAddActivityFromLinkId(plan, "w", f.link3.getId()).setEndTime(endTime + (i % 3 == 0 ? 100000 : 8 * 3600));
+			addTeleportedLeg(f, plan, f.link3, f.link1, 15.5);
+			PopulationUtils.createAndAddActivityFromLinkId(plan, "h", f.link1.getId());
+			f.plans.addPerson(person);
+		}
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+
+		createQSim(f, events).run();
+		return collector.getEvents();
+	}
+
+	private static void addTeleportedLeg(Fixture f, Plan plan, Link fromLink, Link toLink, double travelTime) {
+		Leg leg = PopulationUtils.createAndAddLeg(plan, "other");
+		TripStructureUtils.setRoutingMode(leg, TransportMode.car);
+		Route route = f.scenario.getPopulation().getFactory().getRouteFactories().createRoute(Route.class, fromLink.getId(), toLink.getId());
+		route.setTravelTime(travelTime);
+		leg.setRoute(route);
+	}
+
 	/**
 	 * This test is mostly useful for manual debugging, because only a single agent is simulated
 	 * on a very simple network.
@@ -611,6 +661,47 @@ public class QSimTest {
 		Assertions.assertEquals(0, collector.events.size(), "wrong number of link enter events.");
 	}
 
+	/**
+	 * Storing the buffers and holes of the links in ring buffers must not change the simulation.
+	 */
+	@ParameterizedTest
+	@EnumSource(value = TrafficDynamics.class, names = {"queue", "kinematicWaves"})
+	void testRingBuffersInLinks(TrafficDynamics trafficDynamics) {
+		List<Event> expected = runCongestedLink(trafficDynamics, false);
+		List<Event> actual = runCongestedLink(trafficDynamics, true);
+
+		Assertions.assertFalse(expected.isEmpty());
+		Assertions.assertEquals(expected, actual);
+	}
+
+	private static List<Event> runCongestedLink(TrafficDynamics trafficDynamics, boolean usingRingBuffersInLinks) {
+		Fixture f = new Fixture(true, 1);
+		f.config.qsim().setTrafficDynamics(trafficDynamics);
+		f.config.qsim().setUsingRingBuffersInLinks(usingRingBuffersInLinks);
+
+		// many more agents than link 2 can take, so the vehicles queue up and wait in the buffers
+		for (int i = 0; i < 2000; i++) {
+			Person person = PopulationUtils.getFactory().createPerson(Id.create(i, Person.class));
+			Plan plan = PersonUtils.createAndAddPlan(person, true);
+			Activity a = PopulationUtils.createAndAddActivityFromLinkId(plan, "h", f.link1.getId());
+			a.setEndTime(6 * 3600 + i % 60);
+			Leg leg = PopulationUtils.createAndAddLeg(plan, TransportMode.car);
+			TripStructureUtils.setRoutingMode(leg, TransportMode.car);
+			NetworkRoute route = f.scenario.getPopulation().getFactory().getRouteFactories().createRoute(NetworkRoute.class, f.link1.getId(), f.link3.getId());
+			route.setLinkIds(f.link1.getId(), f.linkIds2, f.link3.getId());
+			leg.setRoute(route);
+			PopulationUtils.createAndAddActivityFromLinkId(plan, "w", f.link3.getId());
+			f.plans.addPerson(person);
+		}
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+
+		createQSim(f, events).run();
+		return collector.getEvents();
+	}
+
 	/**
 	 * Tests that the flow capacity can be reached (but not exceeded) by
 	 * agents driving over a link.
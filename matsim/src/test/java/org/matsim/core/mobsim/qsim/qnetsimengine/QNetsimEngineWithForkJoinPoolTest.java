@@ -0,0 +1,151 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.QSimConfigGroup.NetsimEngineScheduling;
+import org.matsim.core.controler.PrepareForSimUtils;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.gbl.MatsimRandom;
+import org.matsim.core.mobsim.qsim.QSimBuilder;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+
+public class QNetsimEngineWithForkJoinPoolTest {
+
+	@Test
+	void splitIndexBalancesWork() {
+		// work per runner: 1, 1, 10, 1, 1
+		long[] cumulativeWork = {0, 1, 2, 12, 13, 14};
+		assertEquals(3, QNetsimEngineWithForkJoinPool.splitIndex(cumulativeWork, 0, 5));
+		assertEquals(1, QNetsimEngineWithForkJoinPool.splitIndex(cumulativeWork, 0, 2));
+		assertEquals(4, QNetsimEngineWithForkJoinPool.splitIndex(cumulativeWork, 3, 5));
+		// the split index is always strictly inside the range
+		assertEquals(3, QNetsimEngineWithForkJoinPool.splitIndex(new long[] {0, 0, 0, 100, 100}, 2, 4));
+		assertEquals(1, QNetsimEngineWithForkJoinPool.splitIndex(new long[] {0, 100, 100, 100}, 0, 3));
+	}
+
+	@Test
+	void sameEventsAsThreadpool() {
+		List<String> expected = simulate(NetsimEngineScheduling.fixedRunners, 2);
+		assertEquals(expected, simulate(NetsimEngineScheduling.workStealing, 2));
+		assertEquals(expected, simulate(NetsimEngineScheduling.workStealing, 4));
+		assertEquals(expected, simulate(NetsimEngineScheduling.workStealing, 4));
+	}
+
+	@Test
+	void sameEventsAsThreadpoolWithSingleThread() {
+		List<String> expected = simulate(NetsimEngineScheduling.fixedRunners, 1);
+		assertEquals(expected, simulate(NetsimEngineScheduling.workStealing, 1));
+	}
+
+	/**
+	 * Simulates a congested grid and returns all events, sorted, since events of the same time step may be thrown
+	 * by different threads in any order.
+	 */
+	private static List<String> simulate(NetsimEngineScheduling scheduling, int numberOfThreads) {
+		MatsimRandom.reset();
+
+		Config config = ConfigUtils.createConfig();
+		config.qsim().setNetsimEngineScheduling(scheduling);
+		config.qsim().setNumberOfThreads(numberOfThreads);
+		config.qsim().setEndTime(30 * 3600);
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		createGrid(scenario.getNetwork(), 8);
+		createPopulation(scenario, 1000);
+
+		List<String> events = Collections.synchronizedList(new ArrayList<>());
+		EventsManager eventsManager = EventsUtils.createEventsManager();
+		eventsManager.addHandler((BasicEventHandler) event -> events.add(event.toString()));
+
+		PrepareForSimUtils.createDefaultPrepareForSim(scenario).run();
+		new QSimBuilder(config).useDefaults().build(scenario, eventsManager).run();
+
+		List<String> sorted = new ArrayList<>(events);
+		Collections.sort(sorted);
+		return sorted;
+	}
+
+	private static void createGrid(Network network, int size) {
+		Node[][] nodes = new Node[size][size];
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				nodes[x][y] = NetworkUtils.createAndAddNode(network, Id.createNodeId(x + "_" + y), new Coord(x * 500, y * 500));
+			}
+		}
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				if (x + 1 < size) {
+					addLinks(network, nodes[x][y], nodes[x + 1][y]);
+				}
+				if (y + 1 < size) {
+					addLinks(network, nodes[x][y], nodes[x][y + 1]);
+				}
+			}
+		}
+	}
+
+	private static void addLinks(Network network, Node a, Node b) {
+		for (Node[] fromTo : new Node[][] {{a, b}, {b, a}}) {
+			Id<Link> id = Id.createLinkId(fromTo[0].getId() + "-" + fromTo[1].getId());
+			NetworkUtils.createAndAddLink(network, id, fromTo[0], fromTo[1], 500, 10, 600, 1);
+		}
+	}
+
+	private static void createPopulation(Scenario scenario, int count) {
+		Random random = new Random(4711);
+		List<Id<Link>> linkIds = new ArrayList<>(scenario.getNetwork().getLinks().keySet());
+		Collections.sort(linkIds);
+		PopulationFactory factory = scenario.getPopulation().getFactory();
+		for (int i = 0; i < count; i++) {
+			Person person = factory.createPerson(Id.createPersonId(i));
+			Plan plan = factory.createPlan();
+			Activity home = factory.createActivityFromLinkId("h", linkIds.get(random.nextInt(linkIds.size())));
+			home.setEndTime(7 * 3600 + random.nextInt(3600));
+			plan.addActivity(home);
+			plan.addLeg(factory.createLeg(TransportMode.car));
+			plan.addActivity(factory.createActivityFromLinkId("w", linkIds.get(random.nextInt(linkIds.size()))));
+			person.addPlan(plan);
+			scenario.getPopulation().addPerson(person);
+		}
+	}
+}
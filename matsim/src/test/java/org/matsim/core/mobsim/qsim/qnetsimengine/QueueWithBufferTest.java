@@ -1,6 +1,8 @@
 package org.matsim.core.mobsim.qsim.qnetsimengine;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
 import org.matsim.core.api.experimental.events.EventsManager;
@@ -57,12 +59,13 @@ class QueueWithBufferTest {
 		assertEquals(expectedStorageCap, qwb.getStorageCapacity(), 0.001);
 	}
 
-	@Test
-	void freeStorageQueue() {
+	@ParameterizedTest
+	@ValueSource(booleans = {false, true})
+	void freeStorageQueue(boolean useRingBuffers) {
 		var config = ConfigUtils.createConfig();
 		var timer = new MobsimTimer();
 		var context = createNetsimeEngineContext(config, timer);
-		var link = createQLink(10, 1, 1800, context, config);
+		var link = createQLink(10, 1, 1800, context, config, useRingBuffers);
 		var driver = mock(MobsimDriverAgent.class);
 		var vehicle1 = createVehicle("vehicle-1", driver, 10,1);
 		var vehicle2 = createVehicle("vehicle-2", driver, 10,1);
@@ -87,13 +90,14 @@ class QueueWithBufferTest {
 		assertTrue(link.getOfferingQLanes().getFirst().isNotOfferingVehicle());
 	}
 
-	@Test
-	void freeStorageKinematicWaves() {
+	@ParameterizedTest
+	@ValueSource(booleans = {false, true})
+	void freeStorageKinematicWaves(boolean useRingBuffers) {
 		var config = ConfigUtils.createConfig();
 		config.qsim().setTrafficDynamics(QSimConfigGroup.TrafficDynamics.kinematicWaves);
 		var timer = new MobsimTimer();
 		var context = createNetsimeEngineContext(config, timer);
-		var link = createQLink(15, 1, 1800, context, config);
+		var link = createQLink(15, 1, 1800, context, config, useRingBuffers);
 		var driver = mock(MobsimDriverAgent.class);
 		var vehicle1 = createVehicle("vehicle-1", driver, 10,2);
 		var vehicle2 = createVehicle("vehicle-2", driver, 1, 1);
@@ -151,6 +155,45 @@ class QueueWithBufferTest {
 		assertTrue(link.getOfferingQLanes().getFirst().isNotOfferingVehicle());
 	}
 
+	@Test
+	void ringBuffersKeepOrderWhenGrowing() {
+		var driver = mock(MobsimDriverAgent.class);
+		var buffer = new VehicleBuffer.RingBuffer();
+		var holes = new HoleQueue.RingBufferHoles();
+		int next = 0;
+		// move the head of the rings, so they wrap around before they need to grow
+		for (int i = 0; i < 3; i++) {
+			buffer.add(createVehicle("vehicle-" + next, driver, 10, 1), next);
+			holes.add(next, next);
+			next++;
+			buffer.poll();
+			holes.poll();
+		}
+		for (int i = 0; i < 10; i++) {
+			buffer.add(createVehicle("vehicle-" + next, driver, 10, 1), next);
+			holes.add(next, next);
+			next++;
+		}
+
+		assertEquals(10, buffer.size());
+		assertEquals(100 - (3 + 4 + 5 + 6 + 7 + 8 + 9 + 10 + 11 + 12), buffer.subtractFlowConsumption(100), 1e-9);
+		int expected = 3;
+		for (QVehicle veh : buffer) {
+			assertEquals("vehicle-" + expected++, veh.getId().toString());
+		}
+		assertEquals(10, holes.asQueue().size());
+		for (int i = 3; i < 13; i++) {
+			assertEquals("vehicle-" + i, buffer.peek().getId().toString());
+			assertEquals("vehicle-" + i, buffer.poll().getId().toString());
+			assertEquals(i, holes.peekEarliestLinkExitTime());
+			assertEquals(i, holes.poll());
+		}
+		assertTrue(buffer.isEmpty());
+		assertNull(buffer.peek());
+		assertNull(buffer.poll());
+		assertTrue(holes.isEmpty());
+	}
+
 	private static NetsimEngineContext createNetsimeEngineContext(Config config, MobsimTimer timer) {
 		return new NetsimEngineContext(
 			mock(EventsManager.class),
@@ -164,6 +207,10 @@ class QueueWithBufferTest {
 	}
 
 	QLinkImpl createQLink(double length, double lanes, double cap, NetsimEngineContext context, Config config) {
+		return createQLink(length, lanes, cap, context, config, false);
+	}
+
+	QLinkImpl createQLink(double length, double lanes, double cap, NetsimEngineContext context, Config config, boolean useRingBuffers) {
 		var net = NetworkUtils.createNetwork();
 		var n1 = net.getFactory().createNode(Id.createNodeId("n1"), new Coord(0, 0));
 		var n2 = net.getFactory().createNode(Id.createNodeId("n2"), new Coord(0, 100));
@@ -180,6 +227,9 @@ class QueueWithBufferTest {
 		qNode.setNetElementActivationRegistry(mock(NetElementActivationRegistry.class));
 		var b = new QLinkImpl.Builder(context, internalInterface);
 		b.setLinkSpeedCalculator(new DefaultLinkSpeedCalculator());
+		var laneFactory = new QueueWithBuffer.Builder(context);
+		laneFactory.setUseRingBuffers(useRingBuffers);
+		b.setLaneFactory(laneFactory);
 		var l =  b.build(link, qNode);
 		l.setNetElementActivationRegistry(mock(NetElementActivationRegistry.class));
 		return l;
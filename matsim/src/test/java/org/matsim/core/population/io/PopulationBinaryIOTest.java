@@ -0,0 +1,183 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.io;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.router.TripStructureUtils;
+import org.matsim.core.scenario.ProjectionUtils;
+import org.matsim.core.utils.geometry.transformations.TransformationFactory;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.vehicles.VehicleUtils;
+
+public class PopulationBinaryIOTest {
+
+	@RegisterExtension
+	public final MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	void testRoundTrip() {
+		Population population = createPopulation();
+		String file = utils.getOutputDirectory() + "population.bin";
+		new PopulationWriter(population).write(file);
+
+		for (int threads : new int[] {1, 4}) {
+			Population read = PopulationUtils.createPopulation(ConfigUtils.createConfig());
+			new PopulationReaderBinary(null, null, read, threads, Map.of()).read(Path.of(file));
+
+			Assertions.assertEquals(toXml(population), toXml(read), "population differs after reading with " + threads + " threads");
+			Assertions.assertEquals(List.copyOf(PopulationUtils.getSortedPersons(population).keySet()), List.copyOf(read.getPersons().keySet()));
+
+			Plan plan = read.getPersons().get(Id.createPersonId("p0")).getSelectedPlan();
+			Activity interaction = (Activity) plan.getPlanElements().get(2);
+			Assertions.assertEquals(population.getFactory().createInteractionActivityFromLinkId("car interaction", null).getClass(),
+					interaction.getClass(), "expected the memory-saving implementation for interaction activities");
+			NetworkRoute route = (NetworkRoute) ((Leg) plan.getPlanElements().get(3)).getRoute();
+			Assertions.assertSame(route.getStartLinkId(), ((Activity) plan.getPlanElements().get(0)).getLinkId());
+		}
+	}
+
+	@Test
+	void testReadWithPopulationUtils() {
+		Population population = createPopulation();
+		String file = utils.getOutputDirectory() + "population.bin";
+		new PopulationWriter(population).writeBinary(file);
+
+		Population read = PopulationUtils.readPopulation(file);
+		Assertions.assertEquals(toXml(population), toXml(read));
+	}
+
+	@Test
+	void testCoordinateTransformation() {
+		Population population = createPopulation();
+		ProjectionUtils.putCRS(population, TransformationFactory.CH1903_LV03);
+		String file = utils.getOutputDirectory() + "population.bin";
+		new PopulationWriter(population).write(file);
+
+		Population read = PopulationUtils.createPopulation(ConfigUtils.createConfig());
+		new PopulationReaderBinary(null, TransformationFactory.WGS84, read, 1, Map.of()).read(Path.of(file));
+
+		Assertions.assertEquals(TransformationFactory.WGS84, ProjectionUtils.getCRS(read));
+		Coord original = ((Activity) population.getPersons().get(Id.createPersonId("p1")).getSelectedPlan().getPlanElements().get(0)).getCoord();
+		Coord transformed = ((Activity) read.getPersons().get(Id.createPersonId("p1")).getSelectedPlan().getPlanElements().get(0)).getCoord();
+		Assertions.assertNotEquals(original.getX(), transformed.getX(), 1.0);
+	}
+
+	/**
+	 * Creates more persons than fit into a single block, with every kind of plan element the format distinguishes.
+	 */
+	private static Population createPopulation() {
+		Population population = PopulationUtils.createPopulation(ConfigUtils.createConfig());
+		population.setName("binary test population");
+		population.getAttributes().putAttribute("sample", 0.25);
+		PopulationFactory pf = population.getFactory();
+		Id<Link> home = Id.createLinkId("home");
+		Id<Link> work = Id.createLinkId("work");
+
+		for (int i = 0; i < 2500; i++) {
+			Person person = pf.createPerson(Id.createPersonId("p" + i));
+			person.getAttributes().putAttribute("age", i % 90);
+			person.getAttributes().putAttribute("income", 1000.5 * i);
+			person.getAttributes().putAttribute("licence", i % 2 == 0);
+			person.getAttributes().putAttribute("subpopulation", i % 3 == 0 ? "freight" : "person");
+			person.getAttributes().putAttribute("counter", (long) i << 33);
+			VehicleUtils.insertVehicleIdsIntoAttributes(person, Map.of(TransportMode.car, Id.createVehicleId("v" + i)));
+
+			Plan plan = pf.createPlan();
+			plan.setScore(i * 0.5);
+			plan.setType("regular");
+			plan.getAttributes().putAttribute("innovation", "none");
+			Activity h = pf.createActivityFromLinkId("home", home);
+			h.setCoord(new Coord(700000 + i, 5700000 - i));
+			h.setEndTime(7 * 3600 + i);
+			h.getAttributes().putAttribute("initialEndTime", 7 * 3600.0);
+			plan.addActivity(h);
+
+			Leg access = pf.createLeg(TransportMode.walk);
+			access.setRoutingMode(TransportMode.car);
+			access.setTravelTime(120);
+			access.setRoute(RouteUtils.createGenericRouteImpl(home, home));
+			access.getRoute().setDistance(100);
+			access.getRoute().setTravelTime(120);
+			plan.addLeg(access);
+			plan.addActivity(pf.createInteractionActivityFromLinkId(TripStructureUtils.createStageActivityType(TransportMode.car), home));
+
+			Leg car = pf.createLeg(TransportMode.car);
+			car.setRoutingMode(TransportMode.car);
+			car.setDepartureTime(7 * 3600 + 120 + i);
+			NetworkRoute route = RouteUtils.createLinkNetworkRouteImpl(home, List.of(Id.createLinkId("a" + i % 10), Id.createLinkId("b")), work);
+			route.setVehicleId(Id.createVehicleId("v" + i));
+			route.setDistance(5000);
+			car.setRoute(route);
+			car.getAttributes().putAttribute("enterVehicleTime", 7 * 3600.0 + 120);
+			plan.addLeg(car);
+
+			Activity w = PopulationUtils.createActivityFromFacilityId("work", Id.create("f" + i % 7, ActivityFacility.class));
+			w.setLinkId(work);
+			w.setCoord(new Coord(710000, 5710000, 42));
+			w.setStartTime(8 * 3600);
+			w.setMaximumDuration(8 * 3600);
+			plan.addActivity(w);
+			person.addPlan(plan);
+
+			if (i % 5 == 0) {
+				Plan unselected = pf.createPlan();
+				unselected.addActivity(pf.createActivityFromCoord("home", new Coord(0, 0)));
+				unselected.addLeg(pf.createLeg(TransportMode.pt));
+				Activity stage = pf.createActivityFromCoord(TripStructureUtils.createStageActivityType(TransportMode.pt), new Coord(1, 1));
+				stage.setMaximumDuration(60);
+				unselected.addActivity(stage);
+				person.addPlan(unselected);
+			}
+			person.setSelectedPlan(plan);
+			population.addPerson(person);
+		}
+		return population;
+	}
+
+	private static String toXml(Population population) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new PopulationWriter(population).writeV6(out);
+		return out.toString(StandardCharsets.UTF_8);
+	}
+
+}
@@ -21,6 +21,7 @@
 package org.matsim.core.population.routes;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -67,4 +68,32 @@ public class LinkNetworkRouteTest extends AbstractNetworkRouteTest {
 		Assertions.assertEquals(2, route2.getLinkIds().size());
 	}
 
+	@Test
+	void testClone_copyOnWrite() {
+		Id<Link> id1 = Id.create(1, Link.class);
+		Id<Link> id2 = Id.create(2, Link.class);
+		Id<Link> id3 = Id.create(3, Link.class);
+		Id<Link> id4 = Id.create(4, Link.class);
+		NetworkRoute route1 = RouteUtils.createLinkNetworkRouteImpl(id1, List.of(id3, id4), id2);
+
+		NetworkRoute route2 = route1.clone();
+		NetworkRoute route3 = route2.clone();
+		Assertions.assertEquals(List.of(id3, id4), route2.getLinkIds());
+
+		// changing the clone must not change the original, and the other way round
+		route2.setLinkIds(id1, List.of(id3), id2);
+		Assertions.assertEquals(List.of(id3, id4), route1.getLinkIds());
+		Assertions.assertEquals(List.of(id3), route2.getLinkIds());
+		Assertions.assertEquals(List.of(id3, id4), route3.getLinkIds());
+
+		route1.setLinkIds(id1, List.of(id4), id2);
+		Assertions.assertEquals(List.of(id4), route1.getLinkIds());
+		Assertions.assertEquals(List.of(id3), route2.getLinkIds());
+		Assertions.assertEquals(List.of(id3, id4), route3.getLinkIds());
+
+		// a route can still be set from the links of a clone
+		route3.setLinkIds(id1, route1.getLinkIds(), id2);
+		Assertions.assertEquals(List.of(id4), route3.getLinkIds());
+	}
+
 }
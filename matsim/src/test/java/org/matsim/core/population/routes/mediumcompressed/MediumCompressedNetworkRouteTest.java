@@ -300,4 +300,53 @@ public class MediumCompressedNetworkRouteTest extends AbstractNetworkRouteTest {
 		}
 	}
 
+	@Test
+	void testGetLinks_largeIndexDifferences() {
+		List<Id<Link>> allIds = new ArrayList<>();
+		for (int i = 0; i < 20000; i++) {
+			allIds.add(Id.createLinkId("many" + i));
+		}
+		List<Id<Link>> linkIds = List.of(allIds.get(19999), allIds.get(0), allIds.get(12345), allIds.get(12346), allIds.get(3));
+
+		NetworkRoute route = new MediumCompressedNetworkRoute(allIds.get(1), allIds.get(2));
+		route.setLinkIds(allIds.get(1), linkIds, allIds.get(2));
+
+		Assertions.assertEquals(linkIds, route.getLinkIds());
+	}
+
+	@Test
+	void testRouteDescription() {
+		NetworkRoute route = new MediumCompressedNetworkRoute(null, null);
+		route.setRouteDescription(" 1 22 12\t-24\n 4 ");
+
+		Assertions.assertEquals(Id.createLinkId("1"), route.getStartLinkId());
+		Assertions.assertEquals(Id.createLinkId("4"), route.getEndLinkId());
+		Assertions.assertEquals(List.of(Id.createLinkId("22"), Id.createLinkId("12"), Id.createLinkId("-24")), route.getLinkIds());
+		Assertions.assertEquals("1 22 12 -24 4", route.getRouteDescription());
+
+		route.setRouteDescription("1 4");
+		Assertions.assertEquals(0, route.getLinkIds().size());
+		Assertions.assertEquals("1 4", route.getRouteDescription());
+	}
+
+	/**
+	 * Tests that routes with the same links share their link sequence, so copies do not need additional memory,
+	 * and that changing one of them does not affect the other.
+	 */
+	@Test
+	void testEqualRoutesAreIndependent() {
+		Network network = createTestNetwork();
+		List<Id<Link>> linkIds = List.of(Id.createLinkId("22"), Id.createLinkId("12"), Id.createLinkId("13"));
+
+		NetworkRoute route1 = getNetworkRouteInstance(Id.createLinkId("1"), Id.createLinkId("4"), network);
+		route1.setLinkIds(Id.createLinkId("1"), linkIds, Id.createLinkId("4"));
+		NetworkRoute route2 = getNetworkRouteInstance(Id.createLinkId("1"), Id.createLinkId("4"), network);
+		route2.setLinkIds(Id.createLinkId("1"), new ArrayList<>(linkIds), Id.createLinkId("4"));
+		Assertions.assertEquals(route1.getLinkIds(), route2.getLinkIds());
+
+		route2.setLinkIds(Id.createLinkId("1"), linkIds.subList(0, 1), Id.createLinkId("4"));
+		Assertions.assertEquals(linkIds, route1.getLinkIds());
+		Assertions.assertEquals(linkIds.subList(0, 1), route2.getLinkIds());
+	}
+
 }
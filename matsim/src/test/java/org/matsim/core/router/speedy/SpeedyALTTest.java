@@ -20,13 +20,29 @@
 
 package org.matsim.core.router.speedy;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.network.NetworkUtils;
 import org.matsim.core.config.groups.ScoringConfigGroup;
 import org.matsim.core.router.AbstractLeastCostPathCalculatorTest;
 import org.matsim.core.router.AbstractLeastCostPathCalculatorTestWithTurnRestrictions;
 import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
 import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.vehicles.Vehicle;
 
 /**
  * @author mrieser
@@ -41,4 +57,152 @@ public class SpeedyALTTest extends AbstractLeastCostPathCalculatorTestWithTurnRe
 		return new SpeedyALT(altData, travelTimeCostCalculator, travelTimeCostCalculator);
 	}
 
+	@Test
+	void testUpdate_recalculatesInvalidTrees() {
+		Network network = createNetwork(20);
+		SpeedyGraph graph = SpeedyGraphBuilder.build(network);
+		FreespeedTravelTimeAndDisutility freespeed = new FreespeedTravelTimeAndDisutility(new ScoringConfigGroup());
+		SpeedyALTData data = new SpeedyALTData(graph, 4, freespeed);
+
+		Assertions.assertSame(data, data.update(freespeed), "landmarks should still be valid for the same travel disutility.");
+		Assertions.assertSame(data, data.update(new ScaledDisutility(freespeed, null, 2.0)), "landmarks should still be valid if all costs increase.");
+
+		// make one link much cheaper, some landmark trees should now use it
+		Link shortcut = network.getLinks().get(Id.createLinkId("5_5-6_5"));
+		TravelDisutility cheaper = new ScaledDisutility(freespeed, shortcut, 0.01);
+		SpeedyALTData updated = data.update(cheaper);
+		Assertions.assertNotSame(data, updated);
+		Assertions.assertEquals(data.getLandmarksCount(), updated.getLandmarksCount());
+
+		SpeedyDijkstra dijkstra = new SpeedyDijkstra(graph, freespeed, cheaper);
+		SpeedyALT alt = new SpeedyALT(updated, freespeed, cheaper);
+		assertSameCosts(network, dijkstra, alt);
+	}
+
+	@Test
+	void testWriteAndRead(@TempDir java.nio.file.Path tempDir) throws IOException {
+		Network network = createNetwork(10);
+		SpeedyGraph graph = SpeedyGraphBuilder.build(network);
+		FreespeedTravelTimeAndDisutility freespeed = new FreespeedTravelTimeAndDisutility(new ScoringConfigGroup());
+		SpeedyALTData data = new SpeedyALTData(graph, 4, freespeed);
+
+		java.nio.file.Path file = tempDir.resolve("landmarks.bin");
+		data.write(file);
+		SpeedyALTData loaded = SpeedyALTData.read(file, graph, freespeed);
+		Assertions.assertNotNull(loaded);
+		Assertions.assertEquals(data.getLandmarksCount(), loaded.getLandmarksCount());
+		for (int nodeIdx = 0; nodeIdx < graph.nodeCount; nodeIdx++) {
+			Assertions.assertEquals(data.getNodeDeadend(nodeIdx), loaded.getNodeDeadend(nodeIdx));
+			for (int i = 0; i < data.getLandmarksCount(); i++) {
+				Assertions.assertEquals(data.getTravelCostFromLandmark(nodeIdx, i), loaded.getTravelCostFromLandmark(nodeIdx, i));
+				Assertions.assertEquals(data.getTravelCostToLandmark(nodeIdx, i), loaded.getTravelCostToLandmark(nodeIdx, i));
+			}
+		}
+		Assertions.assertSame(loaded, loaded.update(freespeed));
+
+		SpeedyGraph otherGraph = SpeedyGraphBuilder.build(createNetwork(11));
+		Assertions.assertNull(SpeedyALTData.read(file, otherGraph, freespeed), "the file must not be used for a different network.");
+	}
+
+	@Test
+	void testFactory_cacheDirectory(@TempDir java.nio.file.Path tempDir) {
+		Network network = createNetwork(10);
+		FreespeedTravelTimeAndDisutility freespeed = new FreespeedTravelTimeAndDisutility(new ScoringConfigGroup());
+
+		new SpeedyALTFactory(tempDir).createPathCalculator(network, freespeed, freespeed);
+		Assertions.assertEquals(1, tempDir.toFile().list().length);
+
+		// a new factory, e.g. in the next run, uses the stored landmarks
+		LeastCostPathCalculator alt = new SpeedyALTFactory(tempDir).createPathCalculator(network, freespeed, freespeed);
+		SpeedyDijkstra dijkstra = new SpeedyDijkstra(SpeedyGraphBuilder.build(network), freespeed, freespeed);
+		assertSameCosts(network, dijkstra, alt);
+	}
+
+	@Test
+	void testFactory_sameDisutilityClassWithOtherParameters() {
+		Network network = createNetwork(20);
+		FreespeedTravelTimeAndDisutility freespeed = new FreespeedTravelTimeAndDisutility(new ScoringConfigGroup());
+		SpeedyALTFactory factory = new SpeedyALTFactory();
+		SpeedyDijkstra dijkstraForFreespeed = new SpeedyDijkstra(SpeedyGraphBuilder.build(network), freespeed, freespeed);
+
+		TravelDisutility unscaled = new ScaledDisutility(freespeed, null, 1.0);
+		assertSameCosts(network, dijkstraForFreespeed, factory.createPathCalculator(network, unscaled, freespeed));
+
+		// another instance of the same class, but with a much cheaper link: the landmarks must be checked again
+		Link shortcut = network.getLinks().get(Id.createLinkId("5_5-6_5"));
+		TravelDisutility cheaper = new ScaledDisutility(freespeed, shortcut, 0.01);
+		SpeedyDijkstra dijkstraForCheaper = new SpeedyDijkstra(SpeedyGraphBuilder.build(network), freespeed, cheaper);
+		assertSameCosts(network, dijkstraForCheaper, factory.createPathCalculator(network, cheaper, freespeed));
+
+		// the first parameters are still routed correctly with the recalculated landmarks
+		assertSameCosts(network, dijkstraForFreespeed, factory.createPathCalculator(network, unscaled, freespeed));
+	}
+
+	@Test
+	void testFactory_unwritableCacheDirectory(@TempDir java.nio.file.Path tempDir) throws IOException {
+		Network network = createNetwork(10);
+		FreespeedTravelTimeAndDisutility freespeed = new FreespeedTravelTimeAndDisutility(new ScoringConfigGroup());
+
+		// the cache directory cannot be created, as a file with the same name exists
+		java.nio.file.Path cacheDirectory = Files.createFile(tempDir.resolve("cache"));
+		LeastCostPathCalculator alt = new SpeedyALTFactory(cacheDirectory).createPathCalculator(network, freespeed, freespeed);
+		SpeedyDijkstra dijkstra = new SpeedyDijkstra(SpeedyGraphBuilder.build(network), freespeed, freespeed);
+		assertSameCosts(network, dijkstra, alt);
+	}
+
+	private static void assertSameCosts(Network network, LeastCostPathCalculator expectedRouter, LeastCostPathCalculator actualRouter) {
+		Random random = new Random(20240101);
+		Node[] nodes = network.getNodes().values().toArray(new Node[0]);
+		for (int i = 0; i < 200; i++) {
+			Node from = nodes[random.nextInt(nodes.length)];
+			Node to = nodes[random.nextInt(nodes.length)];
+			Path expected = expectedRouter.calcLeastCostPath(from, to, 7 * 3600, null, null);
+			Path actual = actualRouter.calcLeastCostPath(from, to, 7 * 3600, null, null);
+			Assertions.assertEquals(expected.travelCost, actual.travelCost, 1e-6);
+		}
+	}
+
+	private static Network createNetwork(int size) {
+		Network network = NetworkUtils.createNetwork();
+		Node[][] nodes = new Node[size][size];
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				nodes[x][y] = NetworkUtils.createAndAddNode(network, Id.createNodeId(x + "_" + y), new Coord(x * 100, y * 100));
+			}
+		}
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				if (x + 1 < size) {
+					addLinks(network, nodes[x][y], nodes[x + 1][y]);
+				}
+				if (y + 1 < size) {
+					addLinks(network, nodes[x][y], nodes[x][y + 1]);
+				}
+			}
+		}
+		return network;
+	}
+
+	private static void addLinks(Network network, Node a, Node b) {
+		NetworkUtils.createAndAddLink(network, Id.createLinkId(a.getId() + "-" + b.getId()), a, b, 100, 10, 1000, 1);
+		NetworkUtils.createAndAddLink(network, Id.createLinkId(b.getId() + "-" + a.getId()), b, a, 100, 10, 1000, 1);
+	}
+
+	private record ScaledDisutility(TravelDisutility delegate, Link link, double factor) implements TravelDisutility {
+
+		private double scale(Link link) {
+			return this.link == null || this.link == link ? this.factor : 1.0;
+		}
+
+		@Override
+		public double getLinkTravelDisutility(Link link, double time, Person person, Vehicle vehicle) {
+			return this.delegate.getLinkTravelDisutility(link, time, person, vehicle) * scale(link);
+		}
+
+		@Override
+		public double getLinkMinimumTravelDisutility(Link link) {
+			return this.delegate.getLinkMinimumTravelDisutility(link) * scale(link);
+		}
+	}
+
 }
@@ -0,0 +1,129 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router.speedy;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.config.groups.ScoringConfigGroup;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.AbstractLeastCostPathCalculatorTestWithTurnRestrictions;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+public class SpeedyCCHTest extends AbstractLeastCostPathCalculatorTestWithTurnRestrictions {
+
+	@Override
+	protected LeastCostPathCalculator getLeastCostPathCalculator(final Network network) {
+		FreespeedTravelTimeAndDisutility travelTimeCostCalculator = new FreespeedTravelTimeAndDisutility(new ScoringConfigGroup());
+		SpeedyGraph g = SpeedyGraphBuilder.build(network);
+		SpeedyCCHData cchData = new SpeedyCCHData(g);
+		return new SpeedyCCH(cchData.customize(travelTimeCostCalculator), travelTimeCostCalculator, travelTimeCostCalculator);
+	}
+
+	@Test
+	void testSameCostsAsDijkstra_timeDependent() {
+		Network network = NetworkUtils.createNetwork();
+		int size = 30;
+		Random random = new Random(20240101);
+		Node[][] nodes = new Node[size][size];
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				nodes[x][y] = NetworkUtils.createAndAddNode(network, Id.createNodeId(x + "_" + y), new Coord(x * 100 + random.nextInt(50), y * 100 + random.nextInt(50)));
+			}
+		}
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				if (x + 1 < size && random.nextDouble() < 0.9) {
+					addLink(network, nodes[x][y], nodes[x + 1][y], random);
+					if (random.nextDouble() < 0.8) {
+						addLink(network, nodes[x + 1][y], nodes[x][y], random);
+					}
+				}
+				if (y + 1 < size && random.nextDouble() < 0.9) {
+					addLink(network, nodes[x][y + 1], nodes[x][y], random);
+					if (random.nextDouble() < 0.8) {
+						addLink(network, nodes[x][y], nodes[x][y + 1], random);
+					}
+				}
+			}
+		}
+
+		// links get slower during the peak hour, depending on their index
+		TravelTime travelTime = (link, time, person, vehicle) -> {
+			double freespeedTravelTime = link.getLength() / link.getFreespeed();
+			boolean peak = time >= 7 * 3600 && time < 8 * 3600;
+			return peak ? freespeedTravelTime * (1 + (link.getId().index() % 7)) : freespeedTravelTime;
+		};
+		TravelDisutility travelDisutility = new TravelDisutility() {
+			@Override
+			public double getLinkTravelDisutility(Link link, double time, Person person, Vehicle vehicle) {
+				return travelTime.getLinkTravelTime(link, time, person, vehicle) + 0.01 * link.getLength();
+			}
+
+			@Override
+			public double getLinkMinimumTravelDisutility(Link link) {
+				return link.getLength() / link.getFreespeed() + 0.01 * link.getLength();
+			}
+		};
+
+		SpeedyGraph graph = SpeedyGraphBuilder.build(network);
+		SpeedyDijkstra dijkstra = new SpeedyDijkstra(graph, travelTime, travelDisutility);
+		SpeedyCCH cch = new SpeedyCCH(new SpeedyCCHData(graph).customize(travelDisutility), travelTime, travelDisutility);
+
+		Node[] allNodes = network.getNodes().values().toArray(new Node[0]);
+		int routesFound = 0;
+		for (int i = 0; i < 500; i++) {
+			Node from = allNodes[random.nextInt(allNodes.length)];
+			Node to = allNodes[random.nextInt(allNodes.length)];
+			double departureTime = 6.5 * 3600 + random.nextInt(2 * 3600);
+			Path expected = dijkstra.calcLeastCostPath(from, to, departureTime, null, null);
+			Path actual = cch.calcLeastCostPath(from, to, departureTime, null, null);
+			if (expected == null) {
+				Assertions.assertNull(actual);
+				continue;
+			}
+			routesFound++;
+			Assertions.assertNotNull(actual);
+			Assertions.assertEquals(expected.travelCost, actual.travelCost, 1e-6);
+			Assertions.assertEquals(from, actual.getFromNode());
+			Assertions.assertEquals(to, actual.getToNode());
+		}
+		Assertions.assertTrue(routesFound > 100);
+	}
+
+	private static void addLink(Network network, Node from, Node to, Random random) {
+		double length = NetworkUtils.getEuclideanDistance(from.getCoord(), to.getCoord());
+		double freespeed = random.nextBoolean() ? 50 / 3.6 : 30 / 3.6;
+		NetworkUtils.createAndAddLink(network, Id.createLinkId(from.getId() + "-" + to.getId()), from, to, length, freespeed, 1000, 1);
+	}
+
+}
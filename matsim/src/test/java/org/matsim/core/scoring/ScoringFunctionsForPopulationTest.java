@@ -134,6 +134,51 @@ public class ScoringFunctionsForPopulationTest {
 		Assertions.assertEquals(1.234+2.345, rsf.separateScoreSum, 1e-7);
 	}
 
+	 @Test
+	 void testParallelScoring() {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		scenario.getConfig().scoring().setNumberOfScoringThreads(2);
+		Population population = scenario.getPopulation();
+		PopulationFactory pf = population.getFactory();
+		for (int i = 0; i < 100; i++) {
+			population.addPerson(pf.createPerson(Id.create(i, Person.class)));
+		}
+
+		ControlerListenerManagerImpl controlerListenerManager = new ControlerListenerManagerImpl();
+		EventsManager eventsManager = EventsUtils.createEventsManager();
+
+		EventsToActivities eventsToActivities = new EventsToActivities();
+		EventsToLegs eventsToLegs = new EventsToLegs(scenario);
+		ScoringFunctionFactory scoringFunctionFactory = agentId -> new RecordingScoringFunction();
+
+		ScoringFunctionsForPopulation sf = new ScoringFunctionsForPopulation(controlerListenerManager, eventsManager, eventsToActivities, eventsToLegs, population, scoringFunctionFactory, scenario.getConfig());
+		controlerListenerManager.fireControlerIterationStartsEvent(0, false);
+
+		for (Person p : population.getPersons().values()) {
+			Id<Person> personId = p.getId();
+			sf.handleActivity(new PersonExperiencedActivity(personId, pf.createActivityFromCoord("home", new Coord(100, 100))));
+			sf.handleLeg(new PersonExperiencedLeg(personId, pf.createLeg("walk")));
+			sf.handleEvent(new ActivityStartEvent(8*3600, personId, null, null, "work", new Coord(1000, 100)));
+			sf.handleEvent(new PersonScoreEvent(8*3600, personId, Integer.parseInt(personId.toString()), "testing"));
+			sf.handleActivity(new PersonExperiencedActivity(personId, pf.createActivityFromCoord("work", new Coord(1000, 100))));
+		}
+
+		// everything is buffered until the scoring functions are finished
+		RecordingScoringFunction rs = (RecordingScoringFunction) sf.getScoringFunctionForAgent(Id.create(42, Person.class));
+		Assertions.assertEquals(0, rs.tripCounter);
+		Assertions.assertEquals(0, rs.separateScoreCounter);
+
+		sf.finishScoringFunctions();
+
+		for (Person p : population.getPersons().values()) {
+			RecordingScoringFunction r = (RecordingScoringFunction) sf.getScoringFunctionForAgent(p.getId());
+			Assertions.assertEquals(1, r.tripCounter);
+			Assertions.assertEquals("walk", ((Leg) r.lastTrip.getTripElements().get(0)).getMode());
+			Assertions.assertEquals(1, r.separateScoreCounter);
+			Assertions.assertEquals(Integer.parseInt(p.getId().toString()), r.separateScoreSum, 1e-7);
+		}
+	}
+
 	private static class RecordingScoringFunction implements ScoringFunction {
 
 		int tripCounter = 0;
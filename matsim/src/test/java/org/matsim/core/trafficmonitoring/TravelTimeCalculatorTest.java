@@ -56,6 +56,7 @@ import org.matsim.core.events.EventsUtils;
 import org.matsim.core.events.MatsimEventsReader;
 import org.matsim.core.network.NetworkUtils;
 import org.matsim.core.network.io.MatsimNetworkReader;
+import org.matsim.core.router.util.TravelTime;
 import org.matsim.core.scenario.MutableScenario;
 import org.matsim.core.scenario.ScenarioUtils;
 import org.matsim.core.utils.io.IOUtils;
@@ -574,4 +575,55 @@ public class TravelTimeCalculatorTest {
 		Assertions.assertEquals(100.0,
 				ttc.getLinkTravelTimes().getLinkTravelTime(link2, 200, null, null), 1e-8, "Filtering analyzed transport modes is enabled, but no modes set. Therefore, use default (=car)");
 	}
+	@Test
+	void testGetLinkTravelTime_slabStorage() {
+		Network network = NetworkUtils.createNetwork();
+		Node n1 = network.getFactory().createNode(Id.create(1, Node.class), new Coord(0, 0));
+		Node n2 = network.getFactory().createNode(Id.create(2, Node.class), new Coord(1000, 0));
+		network.addNode(n1);
+		network.addNode(n2);
+		Link link1 = network.getFactory().createLink(Id.create(1, Link.class), n1, n2);
+		Link link2 = network.getFactory().createLink(Id.create(2, Link.class), n2, n1);
+		link1.setFreespeed(10.0);
+		network.addLink(link1);
+		network.addLink(link2);
+
+		TravelTimeCalculatorConfigGroup config = new TravelTimeCalculatorConfigGroup();
+		config.setTraveltimeBinSize(900);
+		TravelTimeCalculator perLink = TravelTimeCalculator.create(network, config);
+		config.setLinkTravelTimeStorage(TravelTimeCalculatorConfigGroup.LinkTravelTimeStorage.slab);
+		TravelTimeCalculator slab = TravelTimeCalculator.create(network, config);
+
+		Id<Vehicle> veh1 = Id.create("veh1", Vehicle.class);
+		Id<Vehicle> veh2 = Id.create("veh2", Vehicle.class);
+		for (TravelTimeCalculator ttc : new TravelTimeCalculator[] { perLink, slab }) {
+			ttc.handleEvent(new LinkEnterEvent(100, veh1, link1.getId()));
+			ttc.handleEvent(new LinkEnterEvent(150, veh2, link1.getId()));
+			ttc.handleEvent(new LinkLeaveEvent(300, veh1, link1.getId()));
+			ttc.handleEvent(new LinkLeaveEvent(2150, veh2, link1.getId()));
+		}
+
+		for (double time = 0; time < 5 * 900; time += 450) {
+			Assertions.assertEquals(perLink.getLinkTravelTimes().getLinkTravelTime(link1, time, null, null),
+					slab.getLinkTravelTimes().getLinkTravelTime(link1, time, null, null), 1e-8);
+			Assertions.assertEquals(perLink.getLinkTravelTimes().getLinkTravelTime(link2, time, null, null),
+					slab.getLinkTravelTimes().getLinkTravelTime(link2, time, null, null), 1e-8);
+		}
+		Assertions.assertEquals(1100.0, slab.getLinkTravelTimes().getLinkTravelTime(link1, 100, null, null), 1e-8);
+		// consolidated: the travel time in the second bin is at least the one in the first bin minus the bin size
+		Assertions.assertEquals(200.0, slab.getLinkTravelTimes().getLinkTravelTime(link1, 1000, null, null), 1e-8);
+
+		TravelTime snapshot = slab.getLinkTravelTimesSnapshot();
+		slab.handleEvent(new LinkEnterEvent(3000, veh1, link1.getId()));
+		slab.handleEvent(new LinkLeaveEvent(3400, veh1, link1.getId()));
+		Assertions.assertEquals(400.0, slab.getLinkTravelTimes().getLinkTravelTime(link1, 3000, null, null), 1e-8);
+		Assertions.assertEquals(100.0, snapshot.getLinkTravelTime(link1, 3000, null, null), 1e-8);
+
+		slab.reset(1);
+		Assertions.assertEquals(100.0, slab.getLinkTravelTimes().getLinkTravelTime(link1, 100, null, null), 1e-8);
+		Assertions.assertEquals(1100.0, snapshot.getLinkTravelTime(link1, 100, null, null), 1e-8);
+
+		Assertions.assertThrows(IllegalStateException.class, perLink::getLinkTravelTimesSnapshot);
+	}
+
 }
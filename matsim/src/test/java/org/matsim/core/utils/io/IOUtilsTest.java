@@ -220,6 +220,28 @@ public class IOUtilsTest {
 		Assertions.assertTrue(file.length() < 50, "compressed file should be less than 50 bytes, but is " + file.length());
 	}
 
+	@Test
+	void testParallelGzipOutputStream_multipleBlocks() throws IOException {
+		String filename = this.utils.getOutputDirectory() + "test.txt.gz";
+		URL url = IOUtils.getFileUrl(filename);
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		try (OutputStream out = new ParallelGzipOutputStream(new FileOutputStream(filename))) {
+			for (int i = 0; expected.size() < 5 * ParallelGzipOutputStream.BLOCK_SIZE + 123; i++) {
+				byte[] line = ("line " + i + " " + (i * 7919 % 1000) + "\n").getBytes(StandardCharsets.UTF_8);
+				out.write(line);
+				expected.write(line);
+			}
+			out.write('x');
+			expected.write('x');
+		}
+		File file = new File(filename);
+		Assertions.assertTrue(file.length() < expected.size() / 2, "file should be compressed, but has " + file.length() + " bytes");
+
+		try (InputStream in = IOUtils.getInputStream(url)) {
+			Assertions.assertArrayEquals(expected.toByteArray(), in.readAllBytes());
+		}
+	}
+
 	@Test
 	void testGetBufferedWriter_append_lz4() throws IOException {
 		assertThrows(UncheckedIOException.class, () -> {